@@ -0,0 +1,72 @@
+package com.lulippe.paymybuddy.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URISyntaxException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of a request-thread operation that logs one INFO line, with the former synchronous file
+ * appender and with the asynchronous production configuration. Compare the {@code p0.99} lines of both runs: with
+ * the synchronous appender the tail grows with file I/O contention between the request threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final Logger LOGGER = LogManager.getLogger("com.lulippe.paymybuddy.service.TransactionService");
+
+    @Param({"log4j2-benchmark-sync.xml", "log4j2-prod.xml"})
+    private String configuration;
+
+    /**
+     * Work done by the request besides logging, in {@link Blackhole#consumeCPU(long)} tokens.
+     */
+    @Param({"1000"})
+    private long work;
+
+    private final String sender = "jean.reno@mail.com";
+    private final String receiver = "Gerard Depardieu";
+    private final String amount = "100.00";
+
+    @Setup(Level.Trial)
+    public void configure() throws URISyntaxException {
+        System.setProperty("paymybuddy.log-dir", "target/benchmark-logs");
+        final LoggerContext context = (LoggerContext) LogManager.getContext(false);
+        context.setConfigLocation(Objects.requireNonNull(getClass().getClassLoader().getResource(configuration)).toURI());
+    }
+
+    @TearDown(Level.Trial)
+    public void restore() {
+        final LoggerContext context = (LoggerContext) LogManager.getContext(false);
+        context.setConfigLocation(null);
+    }
+
+    @Benchmark
+    public void transferAndLog() {
+        Blackhole.consumeCPU(work);
+        LOGGER.info("transfer from {} to {} of {} succeeded", sender, receiver, amount);
+    }
+}
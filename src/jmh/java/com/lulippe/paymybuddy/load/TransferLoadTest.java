@@ -0,0 +1,230 @@
+package com.lulippe.paymybuddy.load;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop load test of a running instance: each client, on its own virtual thread, sends a V1 transfer to a friend
+ * then reads the first page of its history, again and again, and the throughput and latency percentiles of both
+ * requests are printed at the end.
+ * <p>
+ * Run it once against an instance started with the default platform threads, and once against one started with the
+ * {@code virtual-threads} profile, on the same freshly migrated database:
+ * </p>
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.lulippe.paymybuddy.load.TransferLoadTest \
+ *     -Dexec.args="http://localhost:8080 2000 PT60S"
+ * </pre>
+ * <p>
+ * Arguments: base URL, concurrent clients (2000), measured duration (PT60S), users (500), each befriended with the next
+ * one, so concurrent clients of the same user contend for its balance lock as real ones would. The users are registered
+ * and funded by the test under a prefix unique to the run; the first 15 seconds of load are a warm-up, not measured.
+ * </p>
+ */
+public final class TransferLoadTest {
+    private static final Duration WARM_UP = Duration.ofSeconds(15);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI baseUri;
+    private final int clientCount;
+    private final Duration duration;
+    private final int userCount;
+    private final String prefix = "load" + System.currentTimeMillis() + "-";
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final List<String> sessionCookies = new ArrayList<>();
+    private final Map<String, Operation> operations = new TreeMap<>();
+
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    private TransferLoadTest(final URI baseUri, final int clientCount, final Duration duration, final int userCount) {
+        this.baseUri = baseUri;
+        this.clientCount = clientCount;
+        this.duration = duration;
+        this.userCount = userCount;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final TransferLoadTest loadTest = new TransferLoadTest(
+                URI.create(args.length > 0 ? args[0] : "http://localhost:8080"),
+                args.length > 1 ? Integer.parseInt(args[1]) : 2000,
+                args.length > 2 ? Duration.parse(args[2]) : Duration.ofSeconds(60),
+                args.length > 3 ? Integer.parseInt(args[3]) : 500);
+        loadTest.createUsers();
+        loadTest.run();
+        loadTest.report();
+    }
+
+    // registration and login hash with BCrypt, keep them off the measured run
+    private void createUsers() throws Exception {
+        for (int i = 0; i < userCount; i++) {
+            final String body = "{\"username\":\"" + username(i) + "\",\"email\":\"" + email(i)
+                    + "\",\"password\":\"password\",\"role\":\"USER\"}";
+            expect(201, send(json("/auth/register/v0", body).build()));
+        }
+        for (int i = 0; i < userCount; i++) {
+            final String form = "username=" + URLEncoder.encode(email(i), StandardCharsets.UTF_8) + "&password=password";
+            final HttpResponse<String> login = send(HttpRequest.newBuilder(baseUri.resolve("/auth/login"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(form))
+                    .build());
+            final String sessionCookie = login.headers().firstValue("Set-Cookie")
+                    .map(cookie -> cookie.substring(0, cookie.indexOf(';')))
+                    .orElseThrow(() -> new IllegalStateException("No session for " + login.request().uri()));
+            sessionCookies.add(sessionCookie);
+            expect(200, send(json("/transfer-from-bank/v0", "{\"bankHolder\":\"" + username(i)
+                    + "\",\"iban\":\"FR7712739000408237965421Y19\",\"amount\":1000000.00}").header("Cookie", sessionCookie).build()));
+        }
+        for (int i = 0; i < userCount; i++) {
+            final String friend = URLEncoder.encode(email((i + 1) % userCount), StandardCharsets.UTF_8);
+            expect(200, send(HttpRequest.newBuilder(baseUri.resolve("/users/me/friends/v0?friendEmail=" + friend))
+                    .header("Cookie", sessionCookies.get(i))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build()));
+        }
+        System.out.printf("%d users registered, funded and befriended%n", userCount);
+    }
+
+    private void run() throws Exception {
+        final List<Future<Map<String, Operation>>> clients = new ArrayList<>(clientCount);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clientCount; i++) {
+                final int user = i % userCount;
+                clients.add(executor.submit(() -> runClient(user)));
+            }
+            Thread.sleep(WARM_UP.toMillis());
+            measuring = true;
+            Thread.sleep(duration.toMillis());
+            measuring = false;
+            running = false;
+        }
+        for (final Future<Map<String, Operation>> client : clients) {
+            client.get().forEach((name, operation) -> operations.merge(name, operation, Operation::merge));
+        }
+    }
+
+    // each client records its own latencies, merged once the run is over
+    private Map<String, Operation> runClient(final int user) {
+        final Map<String, Operation> clientOperations = new TreeMap<>();
+        final String sessionCookie = sessionCookies.get(user);
+        final HttpRequest transfer = json("/transactions/v1/me", "{\"friendName\":\"" + username((user + 1) % userCount)
+                + "\",\"amount\":\"1.00\",\"description\":\"load\"}").header("Cookie", sessionCookie).build();
+        final HttpRequest history = HttpRequest.newBuilder(baseUri.resolve("/transactions/v0/me/page?size=20"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Cookie", sessionCookie)
+                .GET()
+                .build();
+        while (running) {
+            timed(clientOperations, "transfer", transfer);
+            timed(clientOperations, "history", history);
+        }
+        return clientOperations;
+    }
+
+    private void timed(final Map<String, Operation> clientOperations, final String name, final HttpRequest request) {
+        final long start = System.nanoTime();
+        int status;
+        try {
+            status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            status = -1;
+        }
+        if (measuring) {
+            clientOperations.computeIfAbsent(name, key -> new Operation()).record(status, System.nanoTime() - start);
+        }
+    }
+
+    private void report() {
+        final double seconds = duration.toMillis() / 1000d;
+        System.out.printf("%d clients, %d users, %s measured%n", clientCount, userCount, duration);
+        operations.forEach((name, operation) -> {
+            final long[] latencies = operation.latencies();
+            System.out.printf("%-8s %8d requests %8.1f req/s  p50 %6d ms  p99 %6d ms  max %6d ms  statuses %s%n",
+                    name, latencies.length, latencies.length / seconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0),
+                    operation.statuses());
+        });
+    }
+
+    private HttpRequest.Builder json(final String path, final String body) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private HttpResponse<String> send(final HttpRequest request) throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void expect(final int status, final HttpResponse<String> response) {
+        if (response.statusCode() != status) {
+            throw new IllegalStateException(response.request().uri() + " answered " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    private static long percentile(final long[] sortedNanos, final double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000_000;
+    }
+
+    private String username(final int user) {
+        return prefix + user;
+    }
+
+    private String email(final int user) {
+        return prefix + user + "@mail.com";
+    }
+
+    // latencies in nanoseconds and counts by status, -1 standing for a request that got no response
+    private static final class Operation {
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+        private long[] latencies = new long[1024];
+        private int size;
+
+        private void record(final int status, final long nanos) {
+            statuses.merge(status, 1L, Long::sum);
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+
+        private Operation merge(final Operation other) {
+            other.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+            latencies = Arrays.copyOf(latencies, size + other.size);
+            System.arraycopy(other.latencies, 0, latencies, size, other.size);
+            size += other.size;
+            return this;
+        }
+
+        private long[] latencies() {
+            final long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        private Map<Integer, Long> statuses() {
+            return statuses;
+        }
+    }
+}
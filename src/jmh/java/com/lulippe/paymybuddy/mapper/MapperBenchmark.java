@@ -0,0 +1,73 @@
+package com.lulippe.paymybuddy.mapper;
+
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.entities.Transaction;
+import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.user.model.UserFriend;
+import com.lulippe.paymybuddy.utils.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private Transaction transaction;
+
+    @Setup
+    public void setUp() {
+        final AppUser sender = AppUser.builder().userId(1L).username("sender").email("sender@mail.com").build();
+        final AppUser receiver = AppUser.builder().userId(2L).username("receiver").email("receiver@mail.com").build();
+        transaction = Transaction.builder()
+                .transactionId(1L)
+                .sender(sender)
+                .receiver(receiver)
+                .description("dinner")
+                .amount(Money.parse("20.00"))
+                .executedAt(Instant.now())
+                .build();
+    }
+
+    @Benchmark
+    public Transfer transactionToTransfer() {
+        return TransactionMapper.INSTANCE.toTransfert(transaction);
+    }
+
+    @Benchmark
+    public List<UserFriend> friendsToUserFriends(final Friends friends) {
+        return AppUserMapper.INSTANCE.toUserFriendList(friends.friendNames);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Friends {
+        @Param({"1", "50"})
+        private int friendCount;
+
+        private List<String> friendNames;
+
+        @Setup
+        public void setUp() {
+            friendNames = new ArrayList<>();
+            for (int i = 0; i < friendCount; i++) {
+                friendNames.add("friend" + i);
+            }
+        }
+    }
+}
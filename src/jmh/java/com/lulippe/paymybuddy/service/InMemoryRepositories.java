@@ -0,0 +1,81 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.persistence.repository.LedgerEntryRepository;
+import com.lulippe.paymybuddy.persistence.repository.OutboxEventRepository;
+import com.lulippe.paymybuddy.persistence.repository.TransactionRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stand-ins for the repositories used by the transfer path, so the services can be benchmarked without a database.
+ * <p>
+ * Users are kept in maps and a balance is the {@code account} of its user; saved transactions, ledger movements and
+ * outbox events are discarded, so memory stays flat however many transfers are run.
+ * Any repository method the transfer path does not use throws {@link UnsupportedOperationException}.
+ * </p>
+ */
+final class InMemoryRepositories {
+    private final Map<String, AppUser> usersByEmail = new HashMap<>();
+    private final Map<String, AppUser> usersByUsername = new HashMap<>();
+    private final Map<Long, AppUser> usersById = new HashMap<>();
+
+    void add(final AppUser appUser) {
+        usersById.put(appUser.getUserId(), appUser);
+        usersByEmail.put(appUser.getEmail(), appUser);
+        usersByUsername.put(appUser.getUsername(), appUser);
+    }
+
+    AppUserRepository appUserRepository() {
+        return standIn(AppUserRepository.class, (name, args) -> switch (name) {
+            case "findByEmail" -> Optional.ofNullable(usersByEmail.get((String) args[0]));
+            case "findByUsername" -> Optional.ofNullable(usersByUsername.get((String) args[0]));
+            case "existsFriendship" -> usersById.get((Long) args[0]).getFriends().contains(usersById.get((Long) args[1]));
+            case "findBySystemAccountTrue" -> usersById.values().stream().filter(AppUser::isSystemAccount).findFirst();
+            case "lockAccount" -> null;
+            case "save" -> args[0];
+            default -> throw new UnsupportedOperationException(name);
+        });
+    }
+
+    TransactionRepository transactionRepository() {
+        return standIn(TransactionRepository.class, (name, args) -> switch (name) {
+            case "save" -> args[0];
+            default -> throw new UnsupportedOperationException(name);
+        });
+    }
+
+    LedgerEntryRepository ledgerEntryRepository() {
+        return standIn(LedgerEntryRepository.class, (name, args) -> switch (name) {
+            case "findBalance" -> usersById.get((Long) args[0]).getAccount();
+            case "insertMovement" -> null;
+            default -> throw new UnsupportedOperationException(name);
+        });
+    }
+
+    OutboxEventRepository outboxEventRepository() {
+        return standIn(OutboxEventRepository.class, (name, args) -> switch (name) {
+            case "insertEvents" -> null;
+            default -> throw new UnsupportedOperationException(name);
+        });
+    }
+
+    private static <T> T standIn(final Class<T> repositoryType, final RepositoryMethod repositoryMethod) {
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "in-memory " + repositoryType.getSimpleName();
+                    default -> repositoryMethod.invoke(method.getName(), args);
+                }));
+    }
+
+    @FunctionalInterface
+    private interface RepositoryMethod {
+        Object invoke(String name, Object[] args);
+    }
+}
@@ -0,0 +1,81 @@
+package com.lulippe.paymybuddy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.enums.Role;
+import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.utils.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The V1 transfer path from the service down, with repositories replaced by {@link InMemoryRepositories}:
+ * measures the money arithmetic, mapping and service plumbing, not the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionServiceBenchmark {
+    private static final String SENDER_EMAIL = "sender@mail.com";
+    private static final Money INITIAL_BALANCE = Money.parse("1000000000000.00");
+
+    private final Money transferAmount = Money.parse("42.50");
+
+    private TransactionService transactionService;
+    private AppUser sender;
+    private AppUser receiver;
+    private Transfer transfer;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("deprecation")
+    public void setUp() {
+        final InMemoryRepositories repositories = new InMemoryRepositories();
+        sender = AppUser.builder().userId(1L).username("sender").email(SENDER_EMAIL).role(Role.USER).build();
+        receiver = AppUser.builder().userId(2L).username("receiver").email("receiver@mail.com").role(Role.USER).build();
+        sender.getFriends().add(receiver);
+        repositories.add(sender);
+        repositories.add(receiver);
+        repositories.add(AppUser.builder().userId(3L).username("PLATFORM").email("platform@mail.com").role(Role.ROLE_SYSTEM).systemAccount(true).build());
+
+        final UserService userService = new UserService(repositories.appUserRepository(),
+                new FriendSuggestionService(repositories.appUserRepository()));
+        final LedgerService ledgerService = new LedgerService(repositories.ledgerEntryRepository(), repositories.appUserRepository());
+        final OutboxService outboxService = new OutboxService(repositories.outboxEventRepository(), new ObjectMapper().findAndRegisterModules());
+        transactionService = new TransactionService(userService, repositories.transactionRepository(), ledgerService, outboxService);
+
+        transfer = new Transfer();
+        transfer.setFriendName(receiver.getUsername());
+        transfer.setAmount(transferAmount.toString());
+        transfer.setDescription("benchmark");
+    }
+
+    @Setup(Level.Iteration)
+    public void resetBalances() {
+        sender.setAccount(INITIAL_BALANCE);
+        receiver.setAccount(Money.ZERO);
+    }
+
+    @Benchmark
+    public Money commission() {
+        return TransactionService.commissionOf(transferAmount);
+    }
+
+    @Benchmark
+    public String sendMoneyToFriendV1() {
+        return transactionService.sendMoneyToFriendV1(transfer, SENDER_EMAIL);
+    }
+}
@@ -0,0 +1,33 @@
+package com.lulippe.paymybuddy.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation runs in a single pass over the characters: {@code gc.alloc.rate.norm} is expected to stay at 0 B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IbanUtilBenchmark {
+    @Param({"FR7712739000408237965421Y19", "fr77 1273 9000 4082 3796 5421 Y19", "FR7712739000408237965421Y18"})
+    private String iban;
+
+    @Benchmark
+    public boolean isIbanValid() {
+        return IbanUtil.isIbanValid(iban);
+    }
+}
@@ -0,0 +1,90 @@
+package com.lulippe.paymybuddy.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Money} with the {@link BigDecimal} arithmetic it replaced on the transfer path:
+ * parsing the requested amount, computing the 0.5% commission and settling both balances.
+ * The {@code bigDecimal*} methods reproduce the former code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+    private static final BigDecimal COMMISSION_RATE = BigDecimal.valueOf(0.005);
+
+    @Param({"5.00", " 1234.56 ", "99999999.99"})
+    private String amount;
+
+    private BigDecimal bigDecimalAmount;
+    private BigDecimal bigDecimalBalance;
+    private Money moneyAmount;
+    private Money moneyBalance;
+
+    @Setup
+    public void setUp() {
+        bigDecimalAmount = new BigDecimal(amount.trim());
+        bigDecimalBalance = new BigDecimal("1000000000.00");
+        moneyAmount = Money.parse(amount);
+        moneyBalance = Money.parse("1000000000.00");
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalParse() {
+        return new BigDecimal(amount.trim());
+    }
+
+    @Benchmark
+    public Money moneyParse() {
+        return Money.parse(amount);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalCommission() {
+        return bigDecimalAmount.multiply(COMMISSION_RATE).setScale(2, RoundingMode.HALF_EVEN);
+    }
+
+    @Benchmark
+    public Money moneyCommission() {
+        return moneyAmount.times(5, 1000);
+    }
+
+    @Benchmark
+    public int bigDecimalTransfer() {
+        final BigDecimal transferAmount = new BigDecimal(amount.trim());
+        final BigDecimal commission = transferAmount.multiply(COMMISSION_RATE).setScale(2, RoundingMode.HALF_EVEN);
+        final BigDecimal totalDebit = transferAmount.add(commission);
+        if (bigDecimalBalance.compareTo(totalDebit) < 0) {
+            throw new IllegalStateException();
+        }
+        return bigDecimalBalance.subtract(totalDebit).compareTo(bigDecimalBalance.add(transferAmount));
+    }
+
+    @Benchmark
+    public int moneyTransfer() {
+        final Money transferAmount = Money.parse(amount);
+        final Money commission = transferAmount.times(5, 1000);
+        final Money totalDebit = transferAmount.plus(commission);
+        if (moneyBalance.compareTo(totalDebit) < 0) {
+            throw new IllegalStateException();
+        }
+        return moneyBalance.minus(totalDebit).compareTo(moneyBalance.plus(transferAmount));
+    }
+}
@@ -5,6 +5,8 @@ import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
 import com.lulippe.paymybuddy.bankTransfer.model.BankTransferResponse;
 import com.lulippe.paymybuddy.bankTransfer.model.BankWithdrawResponse;
 import com.lulippe.paymybuddy.service.BankTransferService;
+import com.lulippe.paymybuddy.service.IdempotencyService;
+import com.lulippe.paymybuddy.service.IdempotencyService.IdempotentOperation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -19,20 +21,23 @@ import static com.lulippe.paymybuddy.utils.AuthenticationUtil.getAuthenticatedUs
 public class BankTransferController implements BankTransferApi {
 
     private final BankTransferService bankTransferService;
+    private final IdempotencyService idempotencyService;
 
     @Override
-    public ResponseEntity<BankTransferResponse> transferFromBank(final BankTransferRequest bankTransferRequest) {
+    public ResponseEntity<BankTransferResponse> transferFromBank(final String idempotencyKey, final BankTransferRequest bankTransferRequest) {
         final String email = getAuthenticatedUserEmail();
         log.info("start transfer from bank for user {}", email);
-        final BankTransferResponse bankTransferResponse = bankTransferService.performBankTransfer(bankTransferRequest, email);
+        final BankTransferResponse bankTransferResponse = idempotencyService.execute(email, IdempotentOperation.TRANSFER_FROM_BANK, idempotencyKey,
+                bankTransferRequest, BankTransferResponse.class, () -> bankTransferService.performBankTransfer(bankTransferRequest, email));
         return ResponseEntity.ok(bankTransferResponse);
     }
 
     @Override
-    public ResponseEntity<BankWithdrawResponse> transferToBank(final BankTransferRequest bankTransferRequest) {
+    public ResponseEntity<BankWithdrawResponse> transferToBank(final String idempotencyKey, final BankTransferRequest bankTransferRequest) {
         final String email = getAuthenticatedUserEmail();
         log.info("start transfer to bank for user {}", email);
-        final BankWithdrawResponse bankWithdrawResponse= bankTransferService.performTransferToBank(bankTransferRequest,email);
+        final BankWithdrawResponse bankWithdrawResponse = idempotencyService.execute(email, IdempotentOperation.TRANSFER_TO_BANK, idempotencyKey,
+                bankTransferRequest, BankWithdrawResponse.class, () -> bankTransferService.performTransferToBank(bankTransferRequest, email));
         return ResponseEntity.ok(bankWithdrawResponse);
     }
 }
@@ -4,11 +4,18 @@ import com.lulippe.paymybuddy.api.exception.EntityAlreadyExistsException;
 import com.lulippe.paymybuddy.api.exception.InsufficientFundsException;
 import com.lulippe.paymybuddy.api.exception.InvalidDataException;
 import com.lulippe.paymybuddy.api.exception.NonExistentEntityException;
+import com.lulippe.paymybuddy.api.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Hidden;
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -21,27 +28,54 @@ import static com.lulippe.paymybuddy.utils.LogUtil.logRequestFailed;
 @Hidden
 @Slf4j
 @ControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
+    private final MeterRegistry meterRegistry;
+
     @ExceptionHandler({EntityAlreadyExistsException.class, InsufficientFundsException.class})
     public ResponseEntity<String> handleEntityAlreadyExistsException(final Exception e) {
+        countError(e, HttpStatus.CONFLICT);
         logRequestFailed(e.getMessage());
         return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
     }
 
     @ExceptionHandler({InvalidDataException.class, IllegalArgumentException.class})
     public ResponseEntity<String> handleBadRequestException(final Exception e) {
+        countError(e, HttpStatus.BAD_REQUEST);
         logRequestFailed(e.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
     }
 
     @ExceptionHandler({NonExistentEntityException.class})
     public ResponseEntity<String> handleNonexistentEntityException(final NonExistentEntityException e) {
+        countError(e, HttpStatus.NOT_FOUND);
         logRequestFailed(e.getMessage());
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
     }
 
+    @ExceptionHandler({ServiceUnavailableException.class})
+    public ResponseEntity<String> handleServiceUnavailableException(final ServiceUnavailableException e) {
+        countError(e, HttpStatus.SERVICE_UNAVAILABLE);
+        logRequestFailed(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    // no connection freed up within the pool's connection timeout: the pool is what bounds the concurrency,
+    // so the request is turned away rather than queued any longer
+    @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+    public ResponseEntity<String> handleConnectionUnavailableException(final Exception e) {
+        countError(e, HttpStatus.SERVICE_UNAVAILABLE);
+        log.warn("No database connection available: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Service is busy, please retry");
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(final MethodArgumentNotValidException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
         final Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getFieldErrors().forEach(error -> {
             if ("amount".equals(error.getField())) {
@@ -58,6 +92,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<Map<String,String>> handleConstraintViolationException(final ConstraintViolationException e) {
+        countError(e, HttpStatus.BAD_REQUEST);
         final Map<String, String> errors = new HashMap<>();
         e.getConstraintViolations().forEach(constraintViolation -> {
             final String field = constraintViolation.getPropertyPath().toString();
@@ -68,4 +103,13 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.badRequest().body(errors);
     }
-}
\ No newline at end of file
+
+    private void countError(final Exception e, final HttpStatus status) {
+        Counter.builder("paymybuddy.api.errors")
+                .description("Requests answered with an error, by exception type")
+                .tag("exception", e.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -1,13 +1,25 @@
 package com.lulippe.paymybuddy.api.controller;
 
+import com.lulippe.paymybuddy.service.IdempotencyService;
+import com.lulippe.paymybuddy.service.IdempotencyService.IdempotentOperation;
+import com.lulippe.paymybuddy.service.TransactionExportService;
+import com.lulippe.paymybuddy.service.TransactionExportService.ExportFormat;
 import com.lulippe.paymybuddy.service.TransactionService;
 import com.lulippe.paymybuddy.transaction.api.TransactionsApi;
 import com.lulippe.paymybuddy.transaction.model.Transfer;
-import jakarta.validation.Valid;
+import com.lulippe.paymybuddy.transaction.model.TransferBatch;
+import com.lulippe.paymybuddy.transaction.model.TransferBatchResult;
+import com.lulippe.paymybuddy.transaction.model.TransferPage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -19,6 +31,8 @@ import static com.lulippe.paymybuddy.utils.AuthenticationUtil.getAuthenticatedUs
 
 public class TransactionController implements TransactionsApi {
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
+    private final IdempotencyService idempotencyService;
 
     @Override
     public ResponseEntity<List<Transfer>> getUserTransactionList() {
@@ -28,6 +42,14 @@ public class TransactionController implements TransactionsApi {
         return ResponseEntity.ok(transactions);
     }
 
+    @Override
+    public ResponseEntity<TransferPage> getUserTransactionPage(final String cursor, final Integer size) {
+        final String email = getAuthenticatedUserEmail();
+        log.info("Fetching transaction page for user: {}", email);
+        final TransferPage transferPage = transactionService.getUserSentTransactionPage(email, cursor, size);
+        return ResponseEntity.ok(transferPage);
+    }
+
     @Override
     @Deprecated
     public ResponseEntity<String> transferToFriend(final Transfer transfer) {
@@ -37,9 +59,44 @@ public class TransactionController implements TransactionsApi {
     }
 
     @Override
-    public ResponseEntity<String> transferToFriendV1(@Valid final Transfer transfer) {
+    public ResponseEntity<String> transferToFriendV1(final Transfer transfer, final String idempotencyKey) {
         final String email = getAuthenticatedUserEmail();
-        final String response = transactionService.sendMoneyToFriendV1(transfer, email);
+        final String response = idempotencyService.execute(email, IdempotentOperation.TRANSFER_TO_FRIEND_V1, idempotencyKey,
+                transfer, String.class, () -> transactionService.sendMoneyToFriendV1(transfer, email));
         return ResponseEntity.ok(response);
     }
+
+    @Override
+    public ResponseEntity<TransferBatchResult> transferToFriendsV1Batch(final TransferBatch transferBatch, final String idempotencyKey) {
+        final String email = getAuthenticatedUserEmail();
+        log.info("Processing batch of {} transfers for user: {}", transferBatch.getTransfers().size(), email);
+        final TransferBatchResult result = idempotencyService.execute(email, IdempotentOperation.TRANSFER_TO_FRIENDS_V1_BATCH, idempotencyKey,
+                transferBatch, TransferBatchResult.class, () -> transactionService.sendMoneyToFriendsV1(transferBatch.getTransfers(), email));
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Streams the full ledger (sent and received transactions) of the connected user as CSV or NDJSON.
+     * <p>
+     * Not part of the generated transaction API: the body is written asynchronously as rows are read,
+     * which the generated interfaces cannot express.
+     * </p>
+     *
+     * @param format {@code csv} (default) or {@code ndjson}
+     * @return the streamed export, served as an attachment
+     */
+    @GetMapping("/transactions/v0/me/export")
+    public ResponseEntity<StreamingResponseBody> exportUserTransactions(@RequestParam(value = "format", defaultValue = "csv") final String format) {
+        final String email = getAuthenticatedUserEmail();
+        final ExportFormat exportFormat = ExportFormat.fromValue(format);
+        log.info("Exporting transactions as {} for user: {}", exportFormat, email);
+        final StreamingResponseBody body = outputStream -> transactionExportService.exportLedger(email, exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("transactions." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
 }
@@ -1,16 +1,26 @@
 package com.lulippe.paymybuddy.api.controller;
 
+import com.lulippe.paymybuddy.api.exception.InvalidDataException;
+import com.lulippe.paymybuddy.service.AuthService;
+import com.lulippe.paymybuddy.service.FriendSuggestionService;
+import com.lulippe.paymybuddy.service.UserSearchService;
 import com.lulippe.paymybuddy.service.UserService;
 import com.lulippe.paymybuddy.user.api.UserApi;
 import com.lulippe.paymybuddy.user.api.UsersConnectionsApi;
+import com.lulippe.paymybuddy.user.model.FriendSuggestion;
 import com.lulippe.paymybuddy.user.model.InformationsToUpdate;
 import com.lulippe.paymybuddy.user.model.UserFriend;
+import com.lulippe.paymybuddy.user.model.UserSearchResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.UUID;
 
 import static com.lulippe.paymybuddy.utils.AuthenticationUtil.getAuthenticatedUserEmail;
 
@@ -18,28 +28,77 @@ import static com.lulippe.paymybuddy.utils.AuthenticationUtil.getAuthenticatedUs
 @RestController
 @RequiredArgsConstructor
 public class UserController implements UsersConnectionsApi, UserApi {
+    /**
+     * Browsers keep the list but revalidate it on each use, sending its ETag back.
+     */
+    private static final CacheControl FRIENDS_LIST_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final UserService userService;
+    private final FriendSuggestionService friendSuggestionService;
+    private final UserSearchService userSearchService;
+    private final AuthService authService;
 
+    /**
+     * Adds a friend by the identifier given by the user search, or by their email typed in full.
+     */
     @Override
-    public ResponseEntity<String> addNewFriend(final String friendEmail) {
+    public ResponseEntity<String> addNewFriend(final UUID friendId, final String friendEmail) {
+        if ((friendId == null) == (friendEmail == null)) {
+            throw new InvalidDataException("Exactly one of friendId and friendEmail is required");
+        }
         final String userEmail = getAuthenticatedUserEmail();
-        userService.handleFriendAddition(userEmail, friendEmail);
+        if (friendId != null) {
+            userService.handleFriendAddition(userEmail, friendId);
+        } else {
+            userService.handleFriendAddition(userEmail, friendEmail);
+        }
         return ResponseEntity.ok("User added");
     }
 
+    /**
+     * Returns the friends list of the connected user with its version as ETag.
+     * <p>
+     * The version is read first, from cache once known: a request whose {@code If-None-Match} holds it is answered
+     * with a 304 without reading the list. Reading the list after the version can only pair a newer list with
+     * an older ETag, which the next request replaces.
+     * </p>
+     */
     @Override
-    public ResponseEntity<List<UserFriend>> getUserFriendList() {
+    public ResponseEntity<List<UserFriend>> getUserFriendList(final String ifNoneMatch) {
         final String userEmail = getAuthenticatedUserEmail();
+        final ETag eTag = ETag.create(userService.getFriendsListVersion(userEmail).toETag());
+        if (ifNoneMatch != null && ETag.parse(ifNoneMatch).stream().anyMatch(tag -> tag.isWildcard() || tag.compare(eTag, false))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag.formattedTag())
+                    .cacheControl(FRIENDS_LIST_CACHE_CONTROL)
+                    .build();
+        }
         log.info("Getting user friend list");
         final List<UserFriend> userFriendList = userService.getAllUserFriend(userEmail);
-        return ResponseEntity.ok(userFriendList);
+        return ResponseEntity.ok()
+                .eTag(eTag.formattedTag())
+                .cacheControl(FRIENDS_LIST_CACHE_CONTROL)
+                .body(userFriendList);
+    }
+
+    @Override
+    public ResponseEntity<List<FriendSuggestion>> getFriendSuggestions(final Integer limit) {
+        final String userEmail = getAuthenticatedUserEmail();
+        log.info("Getting friend suggestions");
+        return ResponseEntity.ok(friendSuggestionService.getFriendSuggestions(userEmail, limit));
+    }
+
+    @Override
+    public ResponseEntity<List<UserSearchResult>> searchUsers(final String q, final Integer limit) {
+        final String userEmail = getAuthenticatedUserEmail();
+        return ResponseEntity.ok(userSearchService.searchUsers(userEmail, q, limit));
     }
 
     @Override
     public ResponseEntity<String> updateUserProfile(final InformationsToUpdate informationsToUpdate) {
         final String userEmail = getAuthenticatedUserEmail();
         log.info("Start updating user profile");
-        userService.updateUserProfil(userEmail,informationsToUpdate);
+        authService.handleProfileUpdate(userEmail, informationsToUpdate);
         return ResponseEntity.ok("User information updated successfully");
     }
 }
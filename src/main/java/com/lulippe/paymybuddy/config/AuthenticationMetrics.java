@@ -0,0 +1,40 @@
+package com.lulippe.paymybuddy.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts login attempts by outcome from the events published by Spring Security,
+ * so that a burst of failed logins can be alerted on.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthenticationMetrics {
+    private static final String LOGINS = "paymybuddy.auth.logins";
+
+    private final MeterRegistry meterRegistry;
+
+    @EventListener
+    public void onSuccess(final AuthenticationSuccessEvent event) {
+        count("success", "none");
+    }
+
+    @EventListener
+    public void onFailure(final AbstractAuthenticationFailureEvent event) {
+        count("failure", event.getException().getClass().getSimpleName());
+    }
+
+    private void count(final String outcome, final String exception) {
+        Counter.builder(LOGINS)
+                .description("Login attempts, by outcome")
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .register(meterRegistry)
+                .increment();
+    }
+}
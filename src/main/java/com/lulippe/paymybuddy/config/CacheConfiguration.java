@@ -0,0 +1,39 @@
+package com.lulippe.paymybuddy.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfiguration {
+    public static final String USER_CREDENTIALS_CACHE = "userCredentials";
+    public static final String FRIENDS_LIST_VERSION_CACHE = "friendsListVersion";
+    public static final String USER_SEARCH_CACHE = "userSearch";
+
+    /**
+     * Caffeine caches configured by the {@code spring.cache.*} properties, whose puts and evictions are deferred
+     * to the commit of the surrounding transaction: a credentials change cannot be evicted and then cached again
+     * from the old row before it is committed.
+     * <p>
+     * User search results are never evicted, so they have their own specification with a short expiry.
+     * </p>
+     */
+    @Bean
+    public CacheManager cacheManager(final CacheProperties cacheProperties,
+                                     @Value("${paymybuddy.user-search.cache-spec}") final String userSearchCacheSpec) {
+        final CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setCacheSpecification(cacheProperties.getCaffeine().getSpec());
+        caffeineCacheManager.setCacheNames(cacheProperties.getCacheNames());
+        caffeineCacheManager.registerCustomCache(USER_SEARCH_CACHE, Caffeine.from(userSearchCacheSpec).build());
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
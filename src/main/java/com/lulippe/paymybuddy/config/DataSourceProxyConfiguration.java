@@ -0,0 +1,55 @@
+package com.lulippe.paymybuddy.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceProxyConfiguration {
+    public static final String DATA_SOURCE_NAME = "paymybuddy";
+
+    /**
+     * Wraps the data source in a datasource-proxy that counts, per thread, the statements executed and the time
+     * spent in them. Additional {@link QueryExecutionListener} beans are notified of every statement as well.
+     */
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(final ObjectProvider<QueryExecutionListener> listeners) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                final ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource)
+                        .name(DATA_SOURCE_NAME)
+                        .countQuery();
+                listeners.orderedStream().forEach(builder::listener);
+                return builder.build();
+            }
+        };
+    }
+
+    /**
+     * Registers the {@link StatementBudgetFilter} ahead of the security filters, so that the statements
+     * run during authentication are counted with the request.
+     */
+    @Bean
+    public FilterRegistrationBean<StatementBudgetFilter> statementBudgetFilter(
+            final MeterRegistry meterRegistry,
+            @Value("${paymybuddy.statement-budget.max-statements:10}") final int maxStatements) {
+        final FilterRegistrationBean<StatementBudgetFilter> registration =
+                new FilterRegistrationBean<>(new StatementBudgetFilter(meterRegistry, maxStatements));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
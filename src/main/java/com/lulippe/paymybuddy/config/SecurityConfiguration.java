@@ -2,6 +2,7 @@ package com.lulippe.paymybuddy.config;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -21,6 +22,14 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfiguration {
     private final UserDetailsService userDetailsService;
     private final RestAuthenticationEntryPoint restAuthenticationEntryPoint;
+
+    /**
+     * Port of the actuator endpoints when they have their own (prod profile), bound to an internal interface:
+     * Prometheus scrapes them there without authentication. On the public port only the health checks are open.
+     */
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         return http
@@ -37,9 +46,14 @@ public class SecurityConfiguration {
                                 "/auth/register",
                                 "/auth/register/v0",
                                 "/auth/login",
-                                "/auth/login?error"
+                                "/auth/login?error",
+                                "/actuator/health",
+                                "/livez",
+                                "/readyz"
                         )
                         .permitAll()
+                        .requestMatchers(request -> request.getLocalPort() == managementPort).permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ACTUATOR")
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(ex -> ex
@@ -61,8 +75,8 @@ public class SecurityConfiguration {
     }
 
     @Bean
-    public static PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public static PasswordEncoder passwordEncoder(@Value("${paymybuddy.password-hashing.bcrypt-strength:10}") final int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
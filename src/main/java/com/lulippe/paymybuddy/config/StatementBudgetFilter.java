@@ -0,0 +1,82 @@
+package com.lulippe.paymybuddy.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the SQL statements executed while serving each HTTP request, to expose hidden query fan-out
+ * (lazy collections, N+1 selects).
+ * <p>
+ * Every request publishes {@code paymybuddy.http.statements} (statements per request) and
+ * {@code paymybuddy.http.statements.time} (time spent in them), tagged by method and URI pattern.
+ * A request running more statements than the budget is logged as a warning.
+ * </p>
+ * <p>
+ * Counts are kept per thread by the proxy of {@link DataSourceProxyConfiguration}: statements run on another thread,
+ * such as the asynchronous body of an export, are not counted. They are reset when a request starts and left
+ * on the thread once it completes, so that a test can read them with {@link QueryCountHolder#getGrandTotal()}
+ * after a MockMvc call.
+ * </p>
+ */
+@Slf4j
+public class StatementBudgetFilter extends OncePerRequestFilter {
+    private static final String STATEMENTS = "paymybuddy.http.statements";
+    private static final String STATEMENTS_TIME = "paymybuddy.http.statements.time";
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxStatements;
+
+    public StatementBudgetFilter(final MeterRegistry meterRegistry, final int maxStatements) {
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        QueryCountHolder.clear();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            record(request, QueryCountHolder.getGrandTotal());
+        }
+    }
+
+    private void record(final HttpServletRequest request, final QueryCount queryCount) {
+        final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        final String uri = pattern == null ? UNKNOWN_URI : pattern.toString();
+        DistributionSummary.builder(STATEMENTS)
+                .description("SQL statements executed per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .serviceLevelObjectives(maxStatements)
+                .register(meterRegistry)
+                .record(queryCount.getTotal());
+        Timer.builder(STATEMENTS_TIME)
+                .description("Time spent executing SQL statements per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(queryCount.getTime(), TimeUnit.MILLISECONDS);
+
+        if (queryCount.getTotal() > maxStatements) {
+            log.warn("{} {} ran {} statements ({} select, {} insert, {} update, {} delete) in {} ms, over the budget of {}",
+                    request.getMethod(), uri, queryCount.getTotal(), queryCount.getSelect(), queryCount.getInsert(),
+                    queryCount.getUpdate(), queryCount.getDelete(), queryCount.getTime(), maxStatements);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.lulippe.paymybuddy.event;
+
+/**
+ * Handles the events of one type once the transaction that published them has committed.
+ * <p>
+ * Handlers are picked up as Spring beans and called by {@link com.lulippe.paymybuddy.service.OutboxRelayService}
+ * on virtual threads, outside any transaction. Delivery is at least once: an event is delivered again to every
+ * handler of its type when one of them fails or when the relay stops before recording the delivery,
+ * so handlers must be idempotent.
+ * </p>
+ *
+ * @param <E> the type of the events handled, stored as JSON in the outbox under its simple name
+ */
+public interface OutboxEventHandler<E> {
+
+    /**
+     * @return the type of the events handled
+     */
+    Class<E> eventType();
+
+    /**
+     * Handles an event; throwing makes it delivered again later.
+     *
+     * @param event the event
+     * @throws Exception if the event could not be handled
+     */
+    void handle(final E event) throws Exception;
+}
@@ -0,0 +1,30 @@
+package com.lulippe.paymybuddy.event;
+
+import com.lulippe.paymybuddy.utils.Money;
+
+import java.time.Instant;
+
+/**
+ * Published when money was transferred between two users, with the transaction recording it.
+ *
+ * @param transactionId    the transaction recording the transfer
+ * @param senderId         the user debited
+ * @param senderUsername   the username of the user debited
+ * @param receiverId       the user credited
+ * @param receiverUsername the username of the user credited
+ * @param amount           the amount transferred
+ * @param commission       the commission paid by the sender, zero when there is none
+ * @param description      the description given by the sender
+ * @param executedAt       when the transfer was executed
+ */
+public record TransferCompletedEvent(
+        Long transactionId,
+        Long senderId,
+        String senderUsername,
+        Long receiverId,
+        String receiverUsername,
+        Money amount,
+        Money commission,
+        String description,
+        Instant executedAt) {
+}
@@ -0,0 +1,23 @@
+package com.lulippe.paymybuddy.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs the completed transfers, out of the transaction that executed them.
+ */
+@Slf4j
+@Component
+public class TransferCompletedLogHandler implements OutboxEventHandler<TransferCompletedEvent> {
+
+    @Override
+    public Class<TransferCompletedEvent> eventType() {
+        return TransferCompletedEvent.class;
+    }
+
+    @Override
+    public void handle(final TransferCompletedEvent event) {
+        log.info("Transfer {} of {} € from {} to {} completed successfully. Commission for app is {} €",
+                event.transactionId(), event.amount(), event.senderUsername(), event.receiverUsername(), event.commission());
+    }
+}
@@ -0,0 +1,25 @@
+package com.lulippe.paymybuddy.job;
+
+import com.lulippe.paymybuddy.service.FriendSuggestionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendGraphRefreshJob {
+    private final FriendSuggestionService friendSuggestionService;
+
+    /**
+     * Loads the friend graph at startup, then reloads it periodically to pick up the friendships added through other instances,
+     * and ranks again the suggestions of the users with the most friends of friends.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.friend-suggestions.refresh-interval:PT10M}")
+    public void refreshFriendGraph() {
+        log.debug("Starting friend graph refresh");
+        friendSuggestionService.loadFriendships();
+        friendSuggestionService.precomputeSuggestions();
+    }
+}
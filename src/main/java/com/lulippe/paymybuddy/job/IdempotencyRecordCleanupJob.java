@@ -0,0 +1,23 @@
+package com.lulippe.paymybuddy.job;
+
+import com.lulippe.paymybuddy.service.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyRecordCleanupJob {
+    private final IdempotencyService idempotencyService;
+
+    /**
+     * Periodically removes the idempotency records past their retention period.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.idempotency.cleanup-interval:PT1H}")
+    public void purgeExpiredRecords() {
+        log.debug("Starting idempotency record cleanup");
+        idempotencyService.purgeExpiredRecords();
+    }
+}
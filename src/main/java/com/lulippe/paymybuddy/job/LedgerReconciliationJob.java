@@ -0,0 +1,23 @@
+package com.lulippe.paymybuddy.job;
+
+import com.lulippe.paymybuddy.service.LedgerReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerReconciliationJob {
+    private final LedgerReconciliationService ledgerReconciliationService;
+
+    /**
+     * Reconciles the balance snapshots against the ledger during the maintenance window.
+     */
+    @Scheduled(cron = "${paymybuddy.reconciliation.cron:0 0 3 * * *}")
+    public void reconcile() {
+        log.debug("Starting ledger reconciliation");
+        ledgerReconciliationService.reconcile();
+    }
+}
@@ -0,0 +1,23 @@
+package com.lulippe.paymybuddy.job;
+
+import com.lulippe.paymybuddy.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerSnapshotJob {
+    private final LedgerService ledgerService;
+
+    /**
+     * Periodically folds the ledger entries recorded since the last run into the balance snapshots.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.ledger.snapshot-interval:PT1M}")
+    public void takeSnapshot() {
+        log.debug("Starting ledger snapshot");
+        ledgerService.takeSnapshot();
+    }
+}
@@ -0,0 +1,23 @@
+package com.lulippe.paymybuddy.job;
+
+import com.lulippe.paymybuddy.service.OutboxRelayService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelayJob {
+    private final OutboxRelayService outboxRelayService;
+
+    /**
+     * Periodically relays the events published to the outbox since the last run to their handlers.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.outbox.poll-interval:PT1S}")
+    public void relayEvents() {
+        log.debug("Starting outbox relay");
+        outboxRelayService.relayAvailableEvents();
+    }
+}
@@ -0,0 +1,24 @@
+package com.lulippe.paymybuddy.job;
+
+import com.lulippe.paymybuddy.service.TransactionPartitionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionPartitionJob {
+    private final TransactionPartitionService transactionPartitionService;
+
+    /**
+     * Creates the upcoming partitions of {@code transactions} at startup, then periodically, and archives the cold ones.
+     */
+    @Scheduled(fixedDelayString = "${paymybuddy.transactions.partition-maintenance-interval:PT24H}")
+    public void maintainPartitions() {
+        log.debug("Starting transactions partition maintenance");
+        transactionPartitionService.createUpcomingPartitions();
+        transactionPartitionService.archiveColdPartitions();
+    }
+}
@@ -4,17 +4,18 @@ import com.lulippe.paymybuddy.bankTransfer.model.BankTransferResponse;
 import com.lulippe.paymybuddy.bankTransfer.model.BankWithdrawResponse;
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
 import com.lulippe.paymybuddy.persistence.enums.Role;
+import com.lulippe.paymybuddy.persistence.projection.UserSearchMatch;
+import com.lulippe.paymybuddy.user.model.FriendSuggestion;
 import com.lulippe.paymybuddy.user.model.InformationsToUpdate;
 import com.lulippe.paymybuddy.user.model.RegisterRequest;
 import com.lulippe.paymybuddy.user.model.UserFriend;
+import com.lulippe.paymybuddy.user.model.UserSearchResult;
+import com.lulippe.paymybuddy.utils.Money;
 import jakarta.validation.constraints.NotNull;
 import org.mapstruct.*;
 import org.mapstruct.factory.Mappers;
 
-import java.math.BigDecimal;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 @Mapper(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
@@ -30,8 +31,8 @@ public interface AppUserMapper {
     AppUser ToAppUser(final String username, final String email, final String hashedPassword, final RegisterRequest.RoleEnum roleEnum);
 
     @Mapping(target = "receiver", source = "username")
-    @Mapping(target = "amount", source = "account")
-    BankTransferResponse ToBankTransferResponse(final AppUser appUser);
+    @Mapping(target = "amount", source = "balance")
+    BankTransferResponse ToBankTransferResponse(final String username, final Money balance);
 
     @Named("mapRoleEnumToRole")
     default Role mapRoleEnumToRole(final RegisterRequest.RoleEnum roleEnum) {
@@ -42,20 +43,30 @@ public interface AppUserMapper {
     }
 
 
-    default  List<UserFriend> toUserFriendList(final Set<AppUser> friends){
-        return friends.stream()
-                .map(friend -> toUserFriend(friend.getUsername()))
-                .sorted(Comparator.comparing(UserFriend::getFriendName))
+    default  List<UserFriend> toUserFriendList(final List<String> friendNames){
+        return friendNames.stream()
+                .map(this::toUserFriend)
                 .collect(Collectors.toList());
     }
 
     @Mapping(target = "friendName", source = "username")
     UserFriend toUserFriend(final String username);
 
+    @Mapping(target = "friendName", source = "username")
+    @Mapping(target = "mutualFriends", source = "mutualFriends")
+    FriendSuggestion toFriendSuggestion(final String username, final Integer mutualFriends);
+
+    @Mapping(target = "friendId", source = "publicId")
+    UserSearchResult toUserSearchResult(final UserSearchMatch userSearchMatch);
+
+    default String formatAmount(final Money amount) {
+        return amount == null ? null : amount.toString();
+    }
+
     @Mapping(target = "receiver", source = "username")
     @Mapping(target = "newBalance", source = "account")
     @Mapping(target = "amount", source = "amountToWithdraw")
-    BankWithdrawResponse toBankWithdrawResponse(final BigDecimal account, final BigDecimal amountToWithdraw, final String username);
+    BankWithdrawResponse toBankWithdrawResponse(final Money account, final Money amountToWithdraw, final String username);
 
     @Mapping(target = "username", source = "username")
     @Mapping(target = "email", source = "email")
@@ -3,11 +3,10 @@ package com.lulippe.paymybuddy.mapper;
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
 import com.lulippe.paymybuddy.persistence.entities.Transaction;
 import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.utils.Money;
 import org.mapstruct.*;
 import org.mapstruct.factory.Mappers;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Instant;
 
 @Mapper(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
@@ -26,10 +25,10 @@ public interface TransactionMapper {
     @Mapping(target = "amount", source = "transferAmount")
     @Mapping(target = "description", source = "description")
     @Mapping(target = "executedAt", source = "executedAt")
-    Transaction toTransaction (final AppUser sender, final AppUser receiver, final BigDecimal transferAmount, final String description, final Instant executedAt);
+    Transaction toTransaction (final AppUser sender, final AppUser receiver, final Money transferAmount, final String description, final Instant executedAt);
 
     @Named("formatAmount")
-    static String formatAmount(final BigDecimal amount) {
-        return amount.setScale(2, RoundingMode.HALF_UP).toString();
+    static String formatAmount(final Money amount) {
+        return amount.toString();
     }
 }
@@ -0,0 +1,24 @@
+package com.lulippe.paymybuddy.persistence.converter;
+
+import com.lulippe.paymybuddy.utils.Money;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps {@link Money} attributes to the {@code NUMERIC(15,2)} columns holding amounts.
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(final Money money) {
+        return money == null ? null : money.toBigDecimal();
+    }
+
+    @Override
+    public Money convertToEntityAttribute(final BigDecimal amount) {
+        return amount == null ? null : Money.of(amount);
+    }
+}
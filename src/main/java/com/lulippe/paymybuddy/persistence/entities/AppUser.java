@@ -1,13 +1,14 @@
 package com.lulippe.paymybuddy.persistence.entities;
 
 import com.lulippe.paymybuddy.persistence.enums.Role;
+import com.lulippe.paymybuddy.utils.Money;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 
 @Builder
 @Data
@@ -18,7 +19,8 @@ import java.util.Set;
 @Table(name = "app_user")
 public class AppUser {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "app_user_id_generator")
+    @SequenceGenerator(name = "app_user_id_generator", sequenceName = "app_user_user_id_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     @Column(name = "user_id",nullable = false)
     private Long userId;
@@ -37,13 +39,31 @@ public class AppUser {
     @Column(name = "role", nullable = false, length = 20)
     private Role role;
 
-    @Column(name = "account", nullable = false, precision = 15, scale = 2)
+    /**
+     * Balance as of the latest ledger snapshot, folded in the database by {@code LedgerMovementRepository#takeSnapshot};
+     * never updated from the entity. The current balance also counts the ledger entries recorded since,
+     * see {@code LedgerService#getBalance}.
+     */
+    @Column(name = "account", nullable = false, updatable = false, precision = 15, scale = 2)
     @Builder.Default
-    private BigDecimal account = BigDecimal.ZERO;
+    private Money account = Money.ZERO;
 
     @Column(name = "system_account",nullable = false)
     private boolean systemAccount;
 
+    /**
+     * Incremented in the database by {@code AppUserRepository#addFriend}; never written from the entity.
+     */
+    @Column(name = "friends_version", nullable = false, insertable = false, updatable = false)
+    private long friendsVersion;
+
+    /**
+     * Opaque identifier generated by the database, given out by the user search instead of the email;
+     * never written from the entity.
+     */
+    @Column(name = "public_id", nullable = false, insertable = false, updatable = false)
+    private UUID publicId;
+
     @ManyToMany
     @JoinTable(
             name = "user_friend",
@@ -54,12 +74,12 @@ public class AppUser {
     @Builder.Default
     private Set<AppUser> friends = new HashSet<>();
 
-    @OneToMany(mappedBy = "sender",cascade = CascadeType.ALL,orphanRemoval = true,fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "sender",cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REMOVE},orphanRemoval = true,fetch = FetchType.LAZY)
     @ToString.Exclude
     @Builder.Default
     private Set<Transaction> sentTransactions = new HashSet<>();
 
-    @OneToMany(mappedBy = "receiver", cascade = CascadeType.ALL,orphanRemoval = true,fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "receiver", cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REMOVE},orphanRemoval = true,fetch = FetchType.LAZY)
     @ToString.Exclude
     @Builder.Default
     private Set<Transaction> receivedTransactions = new HashSet<>();
@@ -0,0 +1,49 @@
+package com.lulippe.paymybuddy.persistence.entities;
+
+import com.lulippe.paymybuddy.persistence.enums.LedgerEntryType;
+import com.lulippe.paymybuddy.utils.Money;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One leg of a ledger movement: an amount credited (positive) or debited (negative) to a user,
+ * or to the bank when there is no user. The legs of a movement sum to zero.
+ * <p>
+ * Entries are only ever inserted, by {@code LedgerMovementRepository#insertMovement}; the transaction id ordering them
+ * against the snapshot horizons is set by the database and not mapped.
+ * </p>
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "ledger_entry")
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ledger_entry_id")
+    private Long ledgerEntryId;
+
+    @Column(name = "movement_id", nullable = false, updatable = false)
+    private UUID movementId;
+
+    @Column(name = "user_id", updatable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, updatable = false, length = 20)
+    private LedgerEntryType entryType;
+
+    @Column(name = "amount", nullable = false, updatable = false, precision = 15, scale = 2)
+    private Money amount;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private Instant createdAt;
+}
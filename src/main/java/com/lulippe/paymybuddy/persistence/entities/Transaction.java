@@ -1,12 +1,12 @@
 package com.lulippe.paymybuddy.persistence.entities;
 
+import com.lulippe.paymybuddy.utils.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 
 @Data
@@ -17,7 +17,8 @@ import java.time.Instant;
 @Table(name = "transactions")
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_id_generator")
+    @SequenceGenerator(name = "transaction_id_generator", sequenceName = "transactions_transaction_id_seq", allocationSize = 50)
     @Column(name = "transaction_id")
     private Long transactionId;
 
@@ -25,9 +26,12 @@ public class Transaction {
     private String description;
 
     @Column(name = "amount")
-    private BigDecimal amount;
+    private Money amount;
 
-    @Column(name = "executed_at")
+    /**
+     * Key of the monthly partitions of {@code transactions}, part of the primary key with {@code transaction_id}.
+     */
+    @Column(name = "executed_at", nullable = false)
     private Instant executedAt;
 
     @ManyToOne(fetch = FetchType.LAZY,optional = false)
@@ -0,0 +1,12 @@
+package com.lulippe.paymybuddy.persistence.enums;
+
+/**
+ * Kind of movement a ledger leg belongs to.
+ */
+public enum LedgerEntryType {
+    TRANSFER,
+    COMMISSION,
+    BANK_DEPOSIT,
+    BANK_WITHDRAWAL,
+    OPENING_BALANCE
+}
@@ -0,0 +1,9 @@
+package com.lulippe.paymybuddy.persistence.projection;
+
+/**
+ * Identifier and username of a friend, enough to address a transfer without loading the friend's account.
+ */
+public record FriendReference(
+        Long userId,
+        String username) {
+}
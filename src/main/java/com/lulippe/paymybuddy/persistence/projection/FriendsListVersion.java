@@ -0,0 +1,16 @@
+package com.lulippe.paymybuddy.persistence.projection;
+
+/**
+ * Version of the friends list of a user, which changes each time a friend is added.
+ */
+public record FriendsListVersion(
+        Long userId,
+        long friendsVersion) {
+
+    /**
+     * @return the entity tag of the friends list, unique across users
+     */
+    public String toETag() {
+        return "\"" + userId + "-" + friendsVersion + "\"";
+    }
+}
@@ -0,0 +1,9 @@
+package com.lulippe.paymybuddy.persistence.projection;
+
+/**
+ * A row of {@code user_friend}: {@code friendId} is in the friends list of {@code userId}.
+ */
+public record Friendship(
+        Long userId,
+        Long friendId) {
+}
@@ -0,0 +1,14 @@
+package com.lulippe.paymybuddy.persistence.projection;
+
+import com.lulippe.paymybuddy.persistence.enums.LedgerEntryType;
+import com.lulippe.paymybuddy.utils.Money;
+
+/**
+ * One leg of a ledger movement about to be recorded.
+ *
+ * @param userId    the user credited or debited, {@code null} for the bank
+ * @param entryType the kind of movement
+ * @param amount    the amount credited, negative when debited
+ */
+public record LedgerLeg(Long userId, LedgerEntryType entryType, Money amount) {
+}
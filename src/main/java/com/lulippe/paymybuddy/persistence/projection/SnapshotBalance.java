@@ -0,0 +1,20 @@
+package com.lulippe.paymybuddy.persistence.projection;
+
+import com.lulippe.paymybuddy.utils.Money;
+
+/**
+ * Balance snapshot of a user next to the sum of the ledger entries it is meant to hold.
+ *
+ * @param userId          the user
+ * @param snapshotBalance the balance kept in {@code app_user.account}
+ * @param ledgerBalance   the sum of the entries of the user recorded before the horizon of the snapshot
+ */
+public record SnapshotBalance(long userId, Money snapshotBalance, Money ledgerBalance) {
+
+    /**
+     * @return whether the snapshot matches the ledger
+     */
+    public boolean isReconciled() {
+        return snapshotBalance.equals(ledgerBalance);
+    }
+}
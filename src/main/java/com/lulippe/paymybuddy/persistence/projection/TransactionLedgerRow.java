@@ -0,0 +1,22 @@
+package com.lulippe.paymybuddy.persistence.projection;
+
+import com.lulippe.paymybuddy.utils.Money;
+
+import java.time.Instant;
+
+/**
+ * Read-only view of a transaction used to export a user's ledger.
+ * <p>
+ * Being a plain projection it is never attached to the persistence context,
+ * so streaming it keeps memory constant whatever the number of rows.
+ * </p>
+ */
+public record TransactionLedgerRow(
+        Long transactionId,
+        Instant executedAt,
+        Long senderId,
+        String senderName,
+        String receiverName,
+        String description,
+        Money amount) {
+}
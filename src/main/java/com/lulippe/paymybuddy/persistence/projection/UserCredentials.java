@@ -0,0 +1,15 @@
+package com.lulippe.paymybuddy.persistence.projection;
+
+import com.lulippe.paymybuddy.persistence.enums.Role;
+
+/**
+ * What authentication needs to know about a user: no balance, friends or transactions.
+ * <p>
+ * Being immutable and detached, it can be kept in the credentials cache across requests.
+ * </p>
+ */
+public record UserCredentials(
+        String email,
+        String password,
+        Role role) {
+}
@@ -0,0 +1,9 @@
+package com.lulippe.paymybuddy.persistence.projection;
+
+/**
+ * Lowest and highest user ids, both {@code null} when there is no user.
+ */
+public record UserIdRange(
+        Long firstUserId,
+        Long lastUserId) {
+}
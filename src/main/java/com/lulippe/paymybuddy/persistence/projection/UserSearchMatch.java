@@ -0,0 +1,14 @@
+package com.lulippe.paymybuddy.persistence.projection;
+
+import java.util.UUID;
+
+/**
+ * A user matching a search term, with the opaque identifier to add them as a friend with. The email only tells
+ * the searching user apart, and is never given out.
+ */
+public record UserSearchMatch(
+        Long userId,
+        UUID publicId,
+        String username,
+        String email) {
+}
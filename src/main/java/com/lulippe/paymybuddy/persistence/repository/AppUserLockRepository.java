@@ -0,0 +1,21 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+
+/**
+ * Repository fragment giving access to row-level locks on {@link AppUser}, which Spring Data cannot derive.
+ */
+public interface AppUserLockRepository {
+
+    /**
+     * Takes a {@code SELECT ... FOR NO KEY UPDATE} lock on the user's row until the end of the current transaction,
+     * so that no concurrent transaction debits the user before this one is over.
+     * <p>
+     * The lock does not conflict with the foreign key checks of rows referencing the user: transfers crediting
+     * the user, or crossing a transfer debiting them, neither wait for it nor deadlock with it.
+     * </p>
+     *
+     * @param userId the user about to be debited
+     */
+    void lockAccount(final Long userId);
+}
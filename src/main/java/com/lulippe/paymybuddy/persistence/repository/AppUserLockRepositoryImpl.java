@@ -0,0 +1,20 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class AppUserLockRepositoryImpl implements AppUserLockRepository {
+    private final JdbcTemplate jdbcTemplate;
+    private final String lockAccountSql;
+
+    AppUserLockRepositoryImpl(final JdbcTemplate jdbcTemplate,
+                              @Value("${spring.jpa.properties.hibernate.default_schema}") final String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lockAccountSql = "SELECT user_id FROM " + schema + ".app_user WHERE user_id = ? FOR NO KEY UPDATE";
+    }
+
+    @Override
+    public void lockAccount(final Long userId) {
+        jdbcTemplate.queryForList(lockAccountSql, Long.class, userId);
+    }
+}
@@ -1,17 +1,109 @@
 package com.lulippe.paymybuddy.persistence.repository;
 
+import com.lulippe.paymybuddy.config.CacheConfiguration;
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.projection.FriendReference;
+import com.lulippe.paymybuddy.persistence.projection.FriendsListVersion;
+import com.lulippe.paymybuddy.persistence.projection.Friendship;
+import com.lulippe.paymybuddy.persistence.projection.UserCredentials;
+import com.lulippe.paymybuddy.persistence.projection.UserIdRange;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface AppUserRepository extends JpaRepository<AppUser, Long> {
+public interface AppUserRepository extends JpaRepository<AppUser, Long>, AppUserLockRepository, AppUserSearchRepository {
 
     boolean existsByUsernameOrEmail(final String username, final String email);
 
     Optional<AppUser> findByEmail(final String Email);
     Optional<AppUser> findByUsername(final String username);
+    Optional<AppUser> findByPublicId(final UUID publicId);
     Optional<AppUser> findBySystemAccountTrue();
+
+    @Query("SELECT new com.lulippe.paymybuddy.persistence.projection.UserIdRange(MIN(u.userId), MAX(u.userId)) FROM AppUser u")
+    UserIdRange findUserIdRange();
+
+    @Cacheable(cacheNames = CacheConfiguration.USER_CREDENTIALS_CACHE, unless = "#result == null")
+    @Query("SELECT new com.lulippe.paymybuddy.persistence.projection.UserCredentials(u.email, u.password, u.role) " +
+            "FROM AppUser u WHERE u.email = :email")
+    Optional<UserCredentials> findCredentialsByEmail(@Param("email") final String email);
+
+    @Query("SELECT new com.lulippe.paymybuddy.persistence.projection.FriendReference(f.userId, f.username) " +
+            "FROM AppUser u JOIN u.friends f " +
+            "WHERE u.userId = :userId AND f.username IN :usernames")
+    List<FriendReference> findFriendsByUsernames(@Param("userId") final Long userId,
+                                                 @Param("usernames") final Collection<String> usernames);
+
+    @Query("SELECT new com.lulippe.paymybuddy.persistence.projection.FriendReference(u.userId, u.username) " +
+            "FROM AppUser u WHERE u.userId IN :userIds")
+    List<FriendReference> findUsernamesByIds(@Param("userIds") final Collection<Long> userIds);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.lulippe.paymybuddy.persistence.projection.Friendship(u.userId, f.userId) " +
+            "FROM AppUser u JOIN u.friends f")
+    Stream<Friendship> streamAllFriendships();
+
+    @Query("SELECT f.username FROM AppUser u JOIN u.friends f WHERE u.email = :email ORDER BY f.username")
+    List<String> findFriendUsernamesByEmail(@Param("email") final String email);
+
+    @Cacheable(cacheNames = CacheConfiguration.FRIENDS_LIST_VERSION_CACHE, unless = "#result == null")
+    @Query("SELECT new com.lulippe.paymybuddy.persistence.projection.FriendsListVersion(u.userId, u.friendsVersion) " +
+            "FROM AppUser u WHERE u.email = :email")
+    Optional<FriendsListVersion> findFriendsListVersionByEmail(@Param("email") final String email);
+
+    /**
+     * Checks whether a user has another one in their friends list.
+     * <p>
+     * A single index lookup on the {@code (user_id, friend_id)} unique constraint of {@code user_friend}:
+     * neither the friends list nor the friends are loaded.
+     * </p>
+     *
+     * @return {@code true} if {@code friendId} is in the friends list of {@code userId}
+     */
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM {h-schema}user_friend WHERE user_id = :userId AND friend_id = :friendId)",
+            nativeQuery = true)
+    boolean existsFriendship(@Param("userId") final Long userId, @Param("friendId") final Long friendId);
+
+    /**
+     * Adds a user to the friends list of another one without loading the list, and increments the version
+     * of the list.
+     * <p>
+     * The {@code (user_id, friend_id)} unique constraint turns an existing friendship, even one committed
+     * concurrently, into no insert rather than an error; the version only changes when a friend is inserted.
+     * The persistence context is cleared afterward, so that a friends list already loaded in the transaction
+     * is read again.
+     * </p>
+     *
+     * @return 1 if the friend was added, 0 if they already were in the friends list
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "WITH added AS (INSERT INTO {h-schema}user_friend (user_id, friend_id) VALUES (:userId, :friendId) "
+            + "ON CONFLICT (user_id, friend_id) DO NOTHING RETURNING user_id) "
+            + "UPDATE {h-schema}app_user SET friends_version = friends_version + 1 "
+            + "WHERE user_id IN (SELECT user_id FROM added)", nativeQuery = true)
+    int addFriend(@Param("userId") final Long userId, @Param("friendId") final Long friendId);
+
+    /**
+     * Increments the version of every friends list holding a user, whose entries are the friends' usernames:
+     * to be called when the user changes their username.
+     *
+     * @return the number of friends lists whose version changed
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE {h-schema}app_user SET friends_version = friends_version + 1 "
+            + "WHERE user_id IN (SELECT user_id FROM {h-schema}user_friend WHERE friend_id = :friendId)", nativeQuery = true)
+    int incrementFriendsVersionOfListsHolding(@Param("friendId") final Long friendId);
 }
\ No newline at end of file
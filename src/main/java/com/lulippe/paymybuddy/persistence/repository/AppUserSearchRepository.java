@@ -0,0 +1,33 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import com.lulippe.paymybuddy.config.CacheConfiguration;
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.projection.UserSearchMatch;
+import org.springframework.cache.annotation.Cacheable;
+
+import java.util.List;
+
+/**
+ * Repository fragment searching {@link AppUser} by a part of their username or their email,
+ * with PostgreSQL specific indexes Spring Data cannot derive queries for.
+ */
+public interface AppUserSearchRepository {
+
+    /**
+     * Searches the users, system account excluded, whose username starts with the term or whose email is the term,
+     * then those whose username contains it.
+     * <p>
+     * Emails are only matched in full: matching their start would let anyone guess them character by character.
+     * Prefix matches come first, then the email match, usernames in alphabetical order; they are read with an ordered
+     * index range scan stopping at {@code limit} rows. Usernames merely containing the term are only searched,
+     * with the trigram index, when prefix matches do not fill the limit. Results are cached for a short time
+     * by term and limit.
+     * </p>
+     *
+     * @param term  the lowercase search term, at least 3 characters for the trigram index to apply
+     * @param limit the maximum number of results
+     * @return the matching users, each at most once
+     */
+    @Cacheable(cacheNames = CacheConfiguration.USER_SEARCH_CACHE)
+    List<UserSearchMatch> searchByUsernameOrEmail(final String term, final int limit);
+}
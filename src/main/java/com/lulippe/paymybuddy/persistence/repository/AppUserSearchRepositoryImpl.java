@@ -0,0 +1,66 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import com.lulippe.paymybuddy.persistence.projection.UserSearchMatch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+class AppUserSearchRepositoryImpl implements AppUserSearchRepository {
+    private static final RowMapper<UserSearchMatch> USER_SEARCH_MATCH_MAPPER = (resultSet, rowNum) ->
+            new UserSearchMatch(resultSet.getLong("user_id"), resultSet.getObject("public_id", UUID.class),
+                    resultSet.getString("username"), resultSet.getString("email"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String prefixSearchSql;
+    private final String substringSearchSql;
+
+    AppUserSearchRepositoryImpl(final JdbcTemplate jdbcTemplate,
+                                @Value("${spring.jpa.properties.hibernate.default_schema}") final String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        // prefixes are ranges of the COLLATE "C" indexes, already in the ORDER BY order; unlike LIKE 'term%',
+        // a range keeps using the index in the generic plan of a statement prepared by the driver
+        this.prefixSearchSql = "SELECT user_id, public_id, username, email FROM ("
+                + "(SELECT user_id, public_id, username, email, 0 AS match_rank, lower(username) COLLATE \"C\" AS sort_key FROM " + schema + ".app_user"
+                + " WHERE lower(username) COLLATE \"C\" >= ? AND lower(username) COLLATE \"C\" < ? AND NOT system_account"
+                + " ORDER BY lower(username) COLLATE \"C\" LIMIT ?)"
+                + " UNION ALL "
+                + "(SELECT user_id, public_id, username, email, 1 AS match_rank, lower(email) COLLATE \"C\" AS sort_key FROM " + schema + ".app_user"
+                + " WHERE lower(email) COLLATE \"C\" = ? AND NOT system_account)"
+                + ") matches ORDER BY match_rank, sort_key";
+        // a GIN index cannot return rows in order: sorting all the matches of a common term would read them all
+        this.substringSearchSql = "SELECT user_id, public_id, username, email FROM " + schema + ".app_user"
+                + " WHERE lower(username) LIKE ? AND NOT system_account LIMIT ?";
+    }
+
+    // a user whose username starts with the term and whose email is the term is returned by both branches, hence the map;
+    // when prefix matches are fewer than the limit they are complete, so substring matches can only add users
+    @Override
+    public List<UserSearchMatch> searchByUsernameOrEmail(final String term, final int limit) {
+        final String upperBound = prefixUpperBound(term);
+        final Map<Long, UserSearchMatch> results = new LinkedHashMap<>();
+        jdbcTemplate.query(prefixSearchSql, USER_SEARCH_MATCH_MAPPER, term, upperBound, limit, term)
+                .forEach(result -> results.putIfAbsent(result.userId(), result));
+        if (results.size() < limit) {
+            jdbcTemplate.query(substringSearchSql, USER_SEARCH_MATCH_MAPPER, "%" + escapeLikePattern(term) + "%", limit).stream()
+                    .sorted((first, second) -> first.username().compareToIgnoreCase(second.username()))
+                    .forEach(result -> results.putIfAbsent(result.userId(), result));
+        }
+        return results.values().stream().limit(limit).toList();
+    }
+
+    // the first string after all those starting with the prefix, in the code point order of COLLATE "C"
+    private static String prefixUpperBound(final String prefix) {
+        final int lastCodePoint = prefix.codePointBefore(prefix.length());
+        final int nextCodePoint = lastCodePoint == Character.MIN_SURROGATE - 1 ? Character.MAX_SURROGATE + 1 : lastCodePoint + 1;
+        return prefix.substring(0, prefix.length() - Character.charCount(lastCodePoint)) + Character.toString(nextCodePoint);
+    }
+
+    private static String escapeLikePattern(final String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,48 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import com.lulippe.paymybuddy.persistence.entities.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    /**
+     * Claims an idempotency key for the current transaction.
+     * <p>
+     * If another transaction holds the same key, the insert waits for it to end: nothing is inserted if it committed,
+     * the key is claimed if it rolled back.
+     * </p>
+     *
+     * @return 1 if the key was claimed, 0 if it was already recorded
+     */
+    @Modifying
+    @Query(value = "INSERT INTO {h-schema}idempotency_record (user_email, operation, idempotency_key, request_hash, created_at) "
+            + "VALUES (:userEmail, :operation, :idempotencyKey, :requestHash, :createdAt) "
+            + "ON CONFLICT (user_email, operation, idempotency_key) DO NOTHING", nativeQuery = true)
+    int claim(@Param("userEmail") final String userEmail,
+              @Param("operation") final String operation,
+              @Param("idempotencyKey") final String idempotencyKey,
+              @Param("requestHash") final String requestHash,
+              @Param("createdAt") final Instant createdAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.responseBody = :responseBody "
+            + "WHERE r.userEmail = :userEmail AND r.operation = :operation AND r.idempotencyKey = :idempotencyKey")
+    void saveResponse(@Param("userEmail") final String userEmail,
+                      @Param("operation") final String operation,
+                      @Param("idempotencyKey") final String idempotencyKey,
+                      @Param("responseBody") final String responseBody);
+
+    Optional<IdempotencyRecord> findByUserEmailAndOperationAndIdempotencyKey(final String userEmail, final String operation, final String idempotencyKey);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :threshold")
+    int deleteCreatedBefore(@Param("threshold") final Instant threshold);
+}
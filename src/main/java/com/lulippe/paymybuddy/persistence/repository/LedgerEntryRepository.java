@@ -0,0 +1,13 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import com.lulippe.paymybuddy.persistence.entities.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long>, LedgerMovementRepository {
+
+    List<LedgerEntry> findAllByUserIdOrderByLedgerEntryId(final Long userId);
+}
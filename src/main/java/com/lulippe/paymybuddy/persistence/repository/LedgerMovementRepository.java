@@ -0,0 +1,66 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import com.lulippe.paymybuddy.persistence.entities.LedgerEntry;
+import com.lulippe.paymybuddy.persistence.projection.LedgerLeg;
+import com.lulippe.paymybuddy.persistence.projection.SnapshotBalance;
+import com.lulippe.paymybuddy.utils.Money;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Repository fragment writing {@link LedgerEntry} movements and deriving balances from the ledger,
+ * with PostgreSQL transaction ids Spring Data cannot map.
+ */
+public interface LedgerMovementRepository {
+
+    /**
+     * Inserts all the legs of a movement with a single statement.
+     *
+     * @param movementId the identifier shared by the legs
+     * @param legs       the legs, whose amounts sum to zero
+     */
+    void insertMovement(final UUID movementId, final List<LedgerLeg> legs);
+
+    /**
+     * Reads the balance of a user: the balance of the latest snapshot, kept in {@code app_user.account},
+     * plus the entries committed since its horizon.
+     * <p>
+     * A single statement, whose cost depends on the entries recorded since the latest snapshot, not on the length
+     * of the history. To debit the balance read, the user's row must be locked beforehand by another statement:
+     * one that waited for the lock would not see the entries committed meanwhile.
+     * </p>
+     *
+     * @param userId the user
+     * @return the current balance of the user
+     */
+    Money findBalance(final Long userId);
+
+    /**
+     * Takes a balance snapshot: folds into {@code app_user.account} the entries of every transaction completed since
+     * the horizon of the latest snapshot, and records the new horizon.
+     * <p>
+     * The new horizon is the oldest transaction still running, so an entry is folded once its transaction is over,
+     * and exactly once. Snapshots are serialized by a lock on {@code ledger_snapshot}, which balance reads do not wait for.
+     * </p>
+     *
+     * @return the number of balances changed
+     */
+    int takeSnapshot();
+
+    /**
+     * Streams the balance snapshot of every user whose id is in a range, next to the sum of their entries recorded
+     * before the horizon of the latest snapshot, ordered by user id.
+     * <p>
+     * A single statement, so the snapshots and the horizon are read as committed together. The sums are computed by
+     * the database from the {@code (user_id, tx_id)} index and rows are fetched through a cursor with a bounded
+     * fetch size: the stream must be consumed, then closed, within a transaction.
+     * </p>
+     *
+     * @param fromUserId the first user id of the range, inclusive
+     * @param toUserId   the last user id of the range, exclusive
+     * @return the snapshots of the users of the range
+     */
+    Stream<SnapshotBalance> streamSnapshotBalances(final long fromUserId, final long toUserId);
+}
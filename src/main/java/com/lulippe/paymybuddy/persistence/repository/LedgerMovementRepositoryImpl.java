@@ -0,0 +1,87 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import com.lulippe.paymybuddy.persistence.projection.LedgerLeg;
+import com.lulippe.paymybuddy.persistence.projection.SnapshotBalance;
+import com.lulippe.paymybuddy.utils.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+class LedgerMovementRepositoryImpl implements LedgerMovementRepository {
+    private static final int SNAPSHOT_BALANCES_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertMovementSql;
+    private final String balanceSql;
+    private final String lockSnapshotsSql;
+    private final String takeSnapshotSql;
+    private final String snapshotBalancesSql;
+
+    LedgerMovementRepositoryImpl(final JdbcTemplate jdbcTemplate,
+                                 @Value("${spring.jpa.properties.hibernate.default_schema}") final String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertMovementSql = "INSERT INTO " + schema + ".ledger_entry (movement_id, user_id, entry_type, amount)"
+                + " SELECT ?, leg.user_id, leg.entry_type, leg.amount"
+                + " FROM unnest(?::bigint[], ?::varchar[], ?::numeric[]) AS leg (user_id, entry_type, amount)";
+        final String latestHorizon = "(SELECT horizon FROM " + schema + ".ledger_snapshot ORDER BY ledger_snapshot_id DESC LIMIT 1)";
+        this.balanceSql = "SELECT u.account + COALESCE((SELECT SUM(e.amount) FROM " + schema + ".ledger_entry e"
+                + " WHERE e.user_id = u.user_id AND e.tx_id >= " + latestHorizon + "), 0)"
+                + " FROM " + schema + ".app_user u WHERE u.user_id = ?";
+        this.lockSnapshotsSql = "LOCK TABLE " + schema + ".ledger_snapshot IN SHARE ROW EXCLUSIVE MODE";
+        // the folded balances and the new horizon are committed together: a balance read sees both or neither
+        this.takeSnapshotSql = "WITH previous AS (SELECT " + latestHorizon + " AS horizon),"
+                + " next AS (SELECT pg_snapshot_xmin(pg_current_snapshot()) AS horizon),"
+                + " deltas AS (SELECT e.user_id, SUM(e.amount) AS delta FROM " + schema + ".ledger_entry e, previous p, next n"
+                + " WHERE e.user_id IS NOT NULL AND e.tx_id >= p.horizon AND e.tx_id < n.horizon GROUP BY e.user_id),"
+                + " folded AS (UPDATE " + schema + ".app_user u SET account = u.account + d.delta FROM deltas d"
+                + " WHERE u.user_id = d.user_id AND d.delta <> 0 RETURNING u.user_id),"
+                + " snapshot AS (INSERT INTO " + schema + ".ledger_snapshot (horizon) SELECT horizon FROM next)"
+                + " SELECT COUNT(*) FROM folded";
+        this.snapshotBalancesSql = "SELECT u.user_id, u.account, COALESCE(SUM(e.amount), 0)"
+                + " FROM " + schema + ".app_user u"
+                + " LEFT JOIN " + schema + ".ledger_entry e ON e.user_id = u.user_id AND e.tx_id < " + latestHorizon
+                + " WHERE u.user_id >= ? AND u.user_id < ?"
+                + " GROUP BY u.user_id ORDER BY u.user_id";
+    }
+
+    @Override
+    public void insertMovement(final UUID movementId, final List<LedgerLeg> legs) {
+        jdbcTemplate.update(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(insertMovementSql);
+            statement.setObject(1, movementId);
+            statement.setArray(2, connection.createArrayOf("bigint", legs.stream().map(LedgerLeg::userId).toArray(Long[]::new)));
+            statement.setArray(3, connection.createArrayOf("varchar", legs.stream().map(leg -> leg.entryType().name()).toArray(String[]::new)));
+            statement.setArray(4, connection.createArrayOf("numeric", legs.stream().map(leg -> leg.amount().toBigDecimal()).toArray(BigDecimal[]::new)));
+            return statement;
+        });
+    }
+
+    @Override
+    public Money findBalance(final Long userId) {
+        return Money.of(jdbcTemplate.queryForObject(balanceSql, BigDecimal.class, userId));
+    }
+
+    // a second snapshot waits on the table lock, then its statement sees the horizon committed by the first one
+    @Override
+    public int takeSnapshot() {
+        jdbcTemplate.execute(lockSnapshotsSql);
+        return jdbcTemplate.queryForObject(takeSnapshotSql, Integer.class);
+    }
+
+    @Override
+    public Stream<SnapshotBalance> streamSnapshotBalances(final long fromUserId, final long toUserId) {
+        return jdbcTemplate.queryForStream(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(snapshotBalancesSql);
+            statement.setFetchSize(SNAPSHOT_BALANCES_FETCH_SIZE);
+            statement.setLong(1, fromUserId);
+            statement.setLong(2, toUserId);
+            return statement;
+        }, (resultSet, rowNum) -> new SnapshotBalance(resultSet.getLong(1),
+                Money.of(resultSet.getBigDecimal(2)), Money.of(resultSet.getBigDecimal(3))));
+    }
+}
@@ -0,0 +1,50 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import com.lulippe.paymybuddy.persistence.entities.OutboxEvent;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Repository fragment writing {@link OutboxEvent}s and leasing them to a relay, with row locks Spring Data cannot express.
+ */
+public interface OutboxEventDeliveryRepository {
+
+    /**
+     * Inserts events of the same type with a single statement, in the current transaction.
+     *
+     * @param eventType the type of the events
+     * @param payloads  the JSON payload of each event
+     */
+    void insertEvents(final String eventType, final List<String> payloads);
+
+    /**
+     * Leases the oldest events available for delivery, which no other relay sees until the lease expires.
+     * <p>
+     * A single statement, skipping the events locked by a concurrent lease instead of waiting for them. An event
+     * neither deleted nor rescheduled before its lease expires is delivered again.
+     * </p>
+     *
+     * @param limit the maximum number of events to lease
+     * @param lease how long the events are leased
+     * @return the leased events, oldest first
+     */
+    List<OutboxEvent> leaseAvailableEvents(final int limit, final Duration lease);
+
+    /**
+     * Makes an event whose delivery failed available again after a delay doubling with each attempt, up to an hour.
+     *
+     * @param outboxEventId the event
+     * @param error         the cause of the failure
+     */
+    void rescheduleEvent(final Long outboxEventId, final String error);
+
+    /**
+     * Moves an event whose last allowed delivery failed from {@code outbox_event} to {@code outbox_dead_letter},
+     * with a single statement: the relay no longer leases it.
+     *
+     * @param outboxEventId the event
+     * @param error         the cause of the last failure
+     */
+    void deadLetterEvent(final Long outboxEventId, final String error);
+}
@@ -0,0 +1,73 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import com.lulippe.paymybuddy.persistence.entities.OutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+
+class OutboxEventDeliveryRepositoryImpl implements OutboxEventDeliveryRepository {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertEventsSql;
+    private final String leaseEventsSql;
+    private final String rescheduleEventSql;
+    private final String deadLetterEventSql;
+
+    OutboxEventDeliveryRepositoryImpl(final JdbcTemplate jdbcTemplate,
+                                      @Value("${spring.jpa.properties.hibernate.default_schema}") final String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertEventsSql = "INSERT INTO " + schema + ".outbox_event (event_type, payload)"
+                + " SELECT ?, payload::jsonb FROM unnest(?::text[]) AS event (payload)";
+        this.leaseEventsSql = "UPDATE " + schema + ".outbox_event SET available_at = LOCALTIMESTAMP + ? * INTERVAL '1 millisecond'"
+                + " WHERE outbox_event_id IN (SELECT outbox_event_id FROM " + schema + ".outbox_event"
+                + " WHERE available_at <= LOCALTIMESTAMP ORDER BY available_at, outbox_event_id LIMIT ? FOR UPDATE SKIP LOCKED)"
+                + " RETURNING outbox_event_id, event_type, payload::text, attempts, last_error, created_at";
+        this.rescheduleEventSql = "UPDATE " + schema + ".outbox_event SET attempts = attempts + 1, last_error = ?,"
+                + " available_at = LOCALTIMESTAMP + LEAST(power(2, attempts), 3600) * INTERVAL '1 second'"
+                + " WHERE outbox_event_id = ?";
+        this.deadLetterEventSql = "WITH dead AS (DELETE FROM " + schema + ".outbox_event WHERE outbox_event_id = ?"
+                + " RETURNING outbox_event_id, event_type, payload, attempts, created_at)"
+                + " INSERT INTO " + schema + ".outbox_dead_letter (outbox_event_id, event_type, payload, attempts, last_error, created_at)"
+                + " SELECT outbox_event_id, event_type, payload, attempts + 1, ?, created_at FROM dead";
+    }
+
+    @Override
+    public void insertEvents(final String eventType, final List<String> payloads) {
+        jdbcTemplate.update(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(insertEventsSql);
+            statement.setString(1, eventType);
+            statement.setArray(2, connection.createArrayOf("text", payloads.toArray(String[]::new)));
+            return statement;
+        });
+    }
+
+    @Override
+    public List<OutboxEvent> leaseAvailableEvents(final int limit, final Duration lease) {
+        return jdbcTemplate.query(leaseEventsSql, (resultSet, rowNum) -> OutboxEvent.builder()
+                .outboxEventId(resultSet.getLong(1))
+                .eventType(resultSet.getString(2))
+                .payload(resultSet.getString(3))
+                .attempts(resultSet.getInt(4))
+                .lastError(resultSet.getString(5))
+                .createdAt(resultSet.getTimestamp(6).toInstant())
+                .build(), lease.toMillis(), limit);
+    }
+
+    @Override
+    public void rescheduleEvent(final Long outboxEventId, final String error) {
+        jdbcTemplate.update(rescheduleEventSql, truncate(error), outboxEventId);
+    }
+
+    @Override
+    public void deadLetterEvent(final Long outboxEventId, final String error) {
+        jdbcTemplate.update(deadLetterEventSql, outboxEventId, truncate(error));
+    }
+
+    private static String truncate(final String error) {
+        return error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,25 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import com.lulippe.paymybuddy.persistence.projection.TransactionLedgerRow;
+
+import java.util.stream.Stream;
+
+/**
+ * Repository fragment reading a user's ledger, sent and received transactions together.
+ */
+public interface TransactionLedgerRepository {
+
+    /**
+     * Streams every transaction sent or received by a user, ordered by execution time then id.
+     * <p>
+     * A single query on {@code sender_id = ? OR receiver_id = ?} can only be sorted once fully read. The sent and the
+     * received transactions are read instead by two cursors, each in the order of its history index, and merged as
+     * they are fetched: the first rows arrive before either query is exhausted, and memory stays bounded by the fetch
+     * size. The stream must be consumed, then closed, within a transaction.
+     * </p>
+     *
+     * @param userId the id of the user
+     * @return the transactions of the user, oldest first
+     */
+    Stream<TransactionLedgerRow> streamLedgerByUserId(final Long userId);
+}
@@ -0,0 +1,118 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import com.lulippe.paymybuddy.persistence.projection.TransactionLedgerRow;
+import com.lulippe.paymybuddy.utils.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+class TransactionLedgerRepositoryImpl implements TransactionLedgerRepository {
+    private static final int LEDGER_FETCH_SIZE = 500;
+    private static final Comparator<TransactionLedgerRow> LEDGER_ORDER = Comparator
+            .comparing(TransactionLedgerRow::executedAt)
+            .thenComparing(TransactionLedgerRow::transactionId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sentLedgerSql;
+    private final String receivedLedgerSql;
+
+    // the user's own name is read once; only the counterparty is joined, row by row, keeping the index order
+    TransactionLedgerRepositoryImpl(final JdbcTemplate jdbcTemplate,
+                                    @Value("${spring.jpa.properties.hibernate.default_schema}") final String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        final String userName = "(SELECT username FROM " + schema + ".app_user WHERE user_id = ?)";
+        this.sentLedgerSql = "SELECT t.transaction_id, t.executed_at, t.sender_id, " + userName + ", c.username,"
+                + " t.description, t.amount"
+                + " FROM " + schema + ".transactions t JOIN " + schema + ".app_user c ON c.user_id = t.receiver_id"
+                + " WHERE t.sender_id = ?"
+                + " ORDER BY t.executed_at, t.transaction_id";
+        // a transaction to oneself is only exported once, as sent
+        this.receivedLedgerSql = "SELECT t.transaction_id, t.executed_at, t.sender_id, c.username, " + userName + ","
+                + " t.description, t.amount"
+                + " FROM " + schema + ".transactions t JOIN " + schema + ".app_user c ON c.user_id = t.sender_id"
+                + " WHERE t.receiver_id = ? AND t.sender_id <> ?"
+                + " ORDER BY t.executed_at, t.transaction_id";
+    }
+
+    @Override
+    public Stream<TransactionLedgerRow> streamLedgerByUserId(final Long userId) {
+        final Stream<TransactionLedgerRow> sent = streamLedger(sentLedgerSql, userId, userId);
+        final Stream<TransactionLedgerRow> received;
+        try {
+            received = streamLedger(receivedLedgerSql, userId, userId, userId);
+        } catch (RuntimeException e) {
+            sent.close();
+            throw e;
+        }
+        final Iterator<TransactionLedgerRow> merged = new OrderedMerge(sent.iterator(), received.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(sent::close)
+                .onClose(received::close);
+    }
+
+    private Stream<TransactionLedgerRow> streamLedger(final String sql, final Long... parameters) {
+        return jdbcTemplate.queryForStream(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(LEDGER_FETCH_SIZE);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setLong(i + 1, parameters[i]);
+            }
+            return statement;
+        }, (resultSet, rowNum) -> new TransactionLedgerRow(
+                resultSet.getLong(1),
+                resultSet.getTimestamp(2).toInstant(),
+                resultSet.getLong(3),
+                resultSet.getString(4),
+                resultSet.getString(5),
+                resultSet.getString(6),
+                Money.of(resultSet.getBigDecimal(7))));
+    }
+
+    // merges two iterators already in ledger order, fetching from each only when its head has been taken
+    private static final class OrderedMerge implements Iterator<TransactionLedgerRow> {
+        private final Iterator<TransactionLedgerRow> first;
+        private final Iterator<TransactionLedgerRow> second;
+        private TransactionLedgerRow firstHead;
+        private TransactionLedgerRow secondHead;
+
+        private OrderedMerge(final Iterator<TransactionLedgerRow> first, final Iterator<TransactionLedgerRow> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (firstHead == null && first.hasNext()) {
+                firstHead = first.next();
+            }
+            if (secondHead == null && second.hasNext()) {
+                secondHead = second.next();
+            }
+            return firstHead != null || secondHead != null;
+        }
+
+        @Override
+        public TransactionLedgerRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final TransactionLedgerRow next;
+            if (secondHead == null || firstHead != null && LEDGER_ORDER.compare(firstHead, secondHead) <= 0) {
+                next = firstHead;
+                firstHead = null;
+            } else {
+                next = secondHead;
+                secondHead = null;
+            }
+            return next;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository fragment managing the monthly partitions of {@code transactions}, with DDL Spring Data cannot express.
+ * <p>
+ * Each month of {@code executed_at} is held by a partition named {@code transactions_yYYYYmMM}; months are identified
+ * by their first day. The statements taking a lock on {@code transactions} give up after a short lock timeout rather
+ * than queueing transfers behind them, and must run in a transaction for that timeout to apply.
+ * </p>
+ */
+public interface TransactionPartitionRepository {
+
+    /**
+     * @return the first day of the current month, in the time zone {@code executed_at} is stored in
+     */
+    LocalDate findCurrentMonth();
+
+    /**
+     * @return the months held by a partition of {@code transactions}, oldest first
+     */
+    List<LocalDate> findPartitionMonths();
+
+    /**
+     * Creates the partition of {@code transactions} holding a month, unless it exists.
+     *
+     * @param month the first day of the month
+     */
+    void createPartition(final LocalDate month);
+
+    /**
+     * Adds to the partition of a month a check constraint on its bounds, not validated yet.
+     * <p>
+     * Once validated, the constraint spares {@link #archivePartition} a scan of the partition under lock.
+     * </p>
+     *
+     * @param month the first day of the month
+     */
+    void addMonthConstraint(final LocalDate month);
+
+    /**
+     * Validates the check constraint added by {@link #addMonthConstraint}, scanning the partition without blocking
+     * reads or writes.
+     *
+     * @param month the first day of the month
+     */
+    void validateMonthConstraint(final LocalDate month);
+
+    /**
+     * Moves the partition of a month from {@code transactions} to {@code transactions_archive}, and drops its history
+     * indexes, which the archive does not need.
+     *
+     * @param month the first day of the month, whose constraint was validated
+     */
+    void archivePartition(final LocalDate month);
+}
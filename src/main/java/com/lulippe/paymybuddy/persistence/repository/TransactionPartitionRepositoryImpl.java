@@ -0,0 +1,95 @@
+package com.lulippe.paymybuddy.persistence.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// partition names and bounds are built from dates, never from user input: DDL cannot take bind parameters
+class TransactionPartitionRepositoryImpl implements TransactionPartitionRepository {
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_y(\\d{4})m(\\d{2})");
+    private static final String LOCK_TIMEOUT_SQL = "SET LOCAL lock_timeout = '5s'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String schema;
+    private final String partitionNamesSql;
+    private final String historyIndexesSql;
+
+    TransactionPartitionRepositoryImpl(final JdbcTemplate jdbcTemplate,
+                                       @Value("${spring.jpa.properties.hibernate.default_schema}") final String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schema = schema;
+        this.partitionNamesSql = "SELECT c.relname FROM pg_inherits i"
+                + " JOIN pg_class c ON c.oid = i.inhrelid"
+                + " JOIN pg_class p ON p.oid = i.inhparent"
+                + " JOIN pg_namespace n ON n.oid = p.relnamespace"
+                + " WHERE n.nspname = ? AND p.relname = 'transactions'";
+        this.historyIndexesSql = "SELECT i.indexrelid::regclass::text FROM pg_index i"
+                + " WHERE i.indrelid = ?::regclass AND NOT i.indisprimary";
+    }
+
+    @Override
+    public LocalDate findCurrentMonth() {
+        return jdbcTemplate.queryForObject("SELECT CAST(date_trunc('month', LOCALTIMESTAMP) AS DATE)", LocalDate.class);
+    }
+
+    @Override
+    public List<LocalDate> findPartitionMonths() {
+        return jdbcTemplate.queryForList(partitionNamesSql, String.class, schema).stream()
+                .map(TransactionPartitionRepositoryImpl::toMonth)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList();
+    }
+
+    @Override
+    public void createPartition(final LocalDate month) {
+        jdbcTemplate.execute(LOCK_TIMEOUT_SQL);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition(month) + " PARTITION OF " + schema + ".transactions"
+                + " FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+    }
+
+    @Override
+    public void addMonthConstraint(final LocalDate month) {
+        jdbcTemplate.execute(LOCK_TIMEOUT_SQL);
+        jdbcTemplate.execute("ALTER TABLE " + partition(month)
+                + " DROP CONSTRAINT IF EXISTS " + monthConstraint(month) + ","
+                + " ADD CONSTRAINT " + monthConstraint(month)
+                + " CHECK (executed_at >= '" + month + "' AND executed_at < '" + month.plusMonths(1) + "') NOT VALID");
+    }
+
+    @Override
+    public void validateMonthConstraint(final LocalDate month) {
+        jdbcTemplate.execute("ALTER TABLE " + partition(month) + " VALIDATE CONSTRAINT " + monthConstraint(month));
+    }
+
+    @Override
+    public void archivePartition(final LocalDate month) {
+        jdbcTemplate.execute(LOCK_TIMEOUT_SQL);
+        jdbcTemplate.execute("ALTER TABLE " + schema + ".transactions DETACH PARTITION " + partition(month));
+        jdbcTemplate.queryForList(historyIndexesSql, String.class, partition(month))
+                .forEach(index -> jdbcTemplate.execute("DROP INDEX " + index));
+        jdbcTemplate.execute("ALTER TABLE " + schema + ".transactions_archive ATTACH PARTITION " + partition(month)
+                + " FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+    }
+
+    private String partition(final LocalDate month) {
+        return schema + "." + String.format("transactions_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static String monthConstraint(final LocalDate month) {
+        return String.format("chk_transactions_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static LocalDate toMonth(final String partitionName) {
+        final Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), 1);
+    }
+}
@@ -2,13 +2,35 @@ package com.lulippe.paymybuddy.persistence.repository;
 
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
 import com.lulippe.paymybuddy.persistence.entities.Transaction;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionPartitionRepository,
+        TransactionLedgerRepository {
+    @EntityGraph(attributePaths = "receiver")
     List<Transaction> findAllBySender(final AppUser appUser);
+
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.receiver " +
+            "WHERE t.sender = :sender " +
+            "ORDER BY t.executedAt DESC, t.transactionId DESC")
+    List<Transaction> findFirstSentPage(@Param("sender") final AppUser sender, final Limit limit);
+
+    // the row comparison alone does not prune partitions: the bound on executed_at skips the months after the cursor
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.receiver " +
+            "WHERE t.sender = :sender " +
+            "AND t.executedAt <= :executedAt " +
+            "AND (t.executedAt, t.transactionId) < (:executedAt, :transactionId) " +
+            "ORDER BY t.executedAt DESC, t.transactionId DESC")
+    List<Transaction> findSentPageAfter(@Param("sender") final AppUser sender,
+                                        @Param("executedAt") final Instant executedAt,
+                                        @Param("transactionId") final Long transactionId,
+                                        final Limit limit);
 }
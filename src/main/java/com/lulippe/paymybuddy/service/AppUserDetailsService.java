@@ -1,6 +1,7 @@
 package com.lulippe.paymybuddy.service;
 
-import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.config.CacheConfiguration;
+import com.lulippe.paymybuddy.persistence.projection.UserCredentials;
 import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -32,6 +33,10 @@ public class AppUserDetailsService implements UserDetailsService {
 
     /**
      * Loads a user's details based on their email (used as the username).
+     * <p>
+     * Credentials are served from the {@value CacheConfiguration#USER_CREDENTIALS_CACHE} cache, evicted when
+     * the email or password of the user changes.
+     * </p>
      *
      * @param email the email of the user attempting to authenticate
      * @return a {@link UserDetails} object containing the user's credentials and authorities
@@ -39,9 +44,9 @@ public class AppUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(final String email) throws UsernameNotFoundException {
-        final AppUser appUser = userRepository.findByEmail(email)
+        final UserCredentials credentials = userRepository.findCredentialsByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("username not found" + email));
-        return new User(appUser.getEmail(), appUser.getPassword(), getGrantedAuthorities(appUser.getRole().getRoleName()));
+        return new User(credentials.email(), credentials.password(), getGrantedAuthorities(credentials.role().getRoleName()));
     }
 
 
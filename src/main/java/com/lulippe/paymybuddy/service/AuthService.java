@@ -1,38 +1,64 @@
 package com.lulippe.paymybuddy.service;
 
+import com.lulippe.paymybuddy.user.model.InformationsToUpdate;
 import com.lulippe.paymybuddy.user.model.RegisterRequest;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+// not transactional: passwords are hashed outside the transactions of UserService,
+// so no connection is held while waiting for the hashing pool
 @Service
 @RequiredArgsConstructor
-@Transactional
 @Slf4j
 public class AuthService {
     private final UserService userService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
     /**
      * Handles a user registration request.
      * <p>
      * This method ensures that the provided username and email are unique,
-     * encodes the raw password, and delegates the user creation to {@link UserService}.
+     * hashes the raw password on the {@link PasswordHashingService} pool, and delegates the user creation to {@link UserService}.
      * </p>
      *
      * @param registerRequest the {@link RegisterRequest} containing the user's registration details
      *                        (username, email, raw password, and role)
      * @throws com.lulippe.paymybuddy.api.exception.EntityAlreadyExistsException if a user with the same username or email already exists
+     * @throws com.lulippe.paymybuddy.api.exception.ServiceUnavailableException if the password hashing queue is full
      */
+    @Timed(value = "paymybuddy.auth.registrations", histogram = true, description = "User registrations")
     public void handleRegisterRequest(final RegisterRequest registerRequest) {
         userService.ensureUsernameAndEmailAreUnique(registerRequest.getUsername(), registerRequest.getEmail());
-        final String hashedPassword = passwordEncoder.encode(registerRequest.getPassword());
+        final String hashedPassword = passwordHashingService.hash(registerRequest.getPassword());
         userService.createAppUser(
                 registerRequest.getUsername(),
                 registerRequest.getEmail(),
                 hashedPassword,
                 registerRequest.getRole());
     }
+
+    /**
+     * Handles a profile update request.
+     * <p>
+     * A new password is hashed on the {@link PasswordHashingService} pool before the update, which
+     * {@link UserService#updateUserProfil} validates and applies in its own transaction. A blank password is left as is
+     * for that validation to reject.
+     * </p>
+     *
+     * @param userEmail            the email of the current user
+     * @param informationsToUpdate the information to update (email, username, raw password)
+     * @throws IllegalArgumentException if no values are provided or values are invalid
+     * @throws com.lulippe.paymybuddy.api.exception.EntityAlreadyExistsException if the new username or email already exists
+     * @throws com.lulippe.paymybuddy.api.exception.NonExistentEntityException if the user does not exist
+     * @throws com.lulippe.paymybuddy.api.exception.ServiceUnavailableException if the password hashing queue is full
+     */
+    public void handleProfileUpdate(final String userEmail, final InformationsToUpdate informationsToUpdate) {
+        if (StringUtils.hasText(informationsToUpdate.getPassword())) {
+            informationsToUpdate.setPassword(passwordHashingService.hash(informationsToUpdate.getPassword()));
+        }
+        userService.updateUserProfil(userEmail, informationsToUpdate);
+    }
 }
@@ -1,5 +1,6 @@
 package com.lulippe.paymybuddy.service;
 
+import com.lulippe.paymybuddy.api.exception.InsufficientFundsException;
 import com.lulippe.paymybuddy.api.exception.InvalidDataException;
 import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
 import com.lulippe.paymybuddy.bankTransfer.model.BankTransferResponse;
@@ -7,27 +8,27 @@ import com.lulippe.paymybuddy.bankTransfer.model.BankWithdrawResponse;
 import com.lulippe.paymybuddy.mapper.AppUserMapper;
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
 import com.lulippe.paymybuddy.utils.IbanUtil;
+import com.lulippe.paymybuddy.utils.Money;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.util.Strings;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-
 @Service
 @RequiredArgsConstructor
 @Transactional
 @Slf4j
 public class BankTransferService {
     private final UserService userService;
+    private final LedgerService ledgerService;
 
     /**
      * Performs a bank transfer from the specified user to their in-app account.
      * <p>
-     * The method validates the transfer request, updates the user’s account balance,
-     * and returns a response containing the updated user information.
+     * The method validates the transfer request, records the deposit in the ledger,
+     * and returns a response containing the updated balance of the user.
      * </p>
      *
      * @param request the {@link BankTransferRequest} containing transfer details (IBAN, amount, bank holder)
@@ -36,11 +37,12 @@ public class BankTransferService {
      * @throws com.lulippe.paymybuddy.api.exception.NonExistentEntityException if no user is found with the given email
      * @throws com.lulippe.paymybuddy.api.exception.InvalidDataException       if the request contains invalid data (e.g., IBAN, amount, or holder)
      */
+    @Timed(value = "paymybuddy.bank.operations", extraTags = {"direction", "from-bank"}, histogram = true, description = "Transfers between a bank account and the app")
     public BankTransferResponse performBankTransfer(final BankTransferRequest request, final String email) {
         final AppUser user = userService.getAppUserByEmail(email);
         validateRequest(request);
-        final AppUser updateUser = userService.performBankTransfer(user, request);
-        return AppUserMapper.INSTANCE.ToBankTransferResponse(updateUser);
+        ledgerService.recordBankDeposit(user.getUserId(), request.getAmount());
+        return AppUserMapper.INSTANCE.ToBankTransferResponse(user.getUsername(), ledgerService.getBalance(user.getUserId()));
     }
 
 
@@ -55,7 +57,7 @@ public class BankTransferService {
             throw new InvalidDataException("Bank holder is invalid");
         }
 
-        if (request.getAmount() <= 0) {
+        if (!request.getAmount().isPositive()) {
             log.error("Invalid amount");
             throw new InvalidDataException("Amount is invalid, amount must be greater than zero");
         }
@@ -64,8 +66,8 @@ public class BankTransferService {
     /**
      * Performs a withdrawal from the user’s in-app account to their bank account.
      * <p>
-     * The method validates the withdrawal request, checks the available funds,
-     * debits the user’s account, and returns a response containing withdrawal details.
+     * The method validates the withdrawal request, locks the user’s account to check the available funds,
+     * records the withdrawal in the ledger, and returns a response containing withdrawal details.
      * </p>
      *
      * @param request the {@link BankTransferRequest} containing withdrawal details (IBAN, amount, bank holder)
@@ -75,11 +77,20 @@ public class BankTransferService {
      * @throws com.lulippe.paymybuddy.api.exception.InvalidDataException       if the request contains invalid data (e.g., IBAN, amount, or holder)
      * @throws com.lulippe.paymybuddy.api.exception.InsufficientFundsException if the user does not have enough balance for the withdrawal
      */
+    @Timed(value = "paymybuddy.bank.operations", extraTags = {"direction", "to-bank"}, histogram = true, description = "Transfers between a bank account and the app")
     public BankWithdrawResponse performTransferToBank(final BankTransferRequest request, final String email) {
         final AppUser user = userService.getAppUserByEmail(email);
         validateRequest(request);
-        final BigDecimal amountToWithdraw = BigDecimal.valueOf(request.getAmount()).setScale(2, RoundingMode.HALF_EVEN);
-        userService.withdrawToBank(user, amountToWithdraw);
-        return AppUserMapper.INSTANCE.toBankWithdrawResponse(user.getAccount(), amountToWithdraw, user.getUsername());
+        final Money amountToWithdraw = request.getAmount();
+        final Money balance = ledgerService.lockBalance(user.getUserId());
+        checkSufficientFunds(balance, amountToWithdraw);
+        ledgerService.recordBankWithdrawal(user.getUserId(), amountToWithdraw);
+        return AppUserMapper.INSTANCE.toBankWithdrawResponse(balance.minus(amountToWithdraw), amountToWithdraw, user.getUsername());
+    }
+
+    private static void checkSufficientFunds(final Money accountFund, final Money amountToTransfer) {
+        if (accountFund.compareTo(amountToTransfer) < 0) {
+            throw new InsufficientFundsException("insufficient funds for transfer");
+        }
     }
 }
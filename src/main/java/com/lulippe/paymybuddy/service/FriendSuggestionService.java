@@ -0,0 +1,130 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.api.exception.NonExistentEntityException;
+import com.lulippe.paymybuddy.mapper.AppUserMapper;
+import com.lulippe.paymybuddy.persistence.projection.FriendReference;
+import com.lulippe.paymybuddy.persistence.projection.Friendship;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.user.model.FriendSuggestion;
+import com.lulippe.paymybuddy.utils.FriendGraph;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Suggests friends of friends, ranked by mutual friends, from an in-memory {@link FriendGraph}.
+ * <p>
+ * The graph is loaded from {@code user_friend} at startup and reloaded periodically by
+ * {@link com.lulippe.paymybuddy.job.FriendGraphRefreshJob}, which picks up the friendships added through other instances.
+ * Friendships added through this instance are applied as soon as they are committed.
+ * The rankings of the users with thousands of friends are precomputed after each load.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class FriendSuggestionService {
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 50;
+
+    private final AppUserRepository appUserRepository;
+    private final FriendGraph friendGraph = new FriendGraph();
+
+    /**
+     * Adds every friendship of {@code user_friend} to the graph, streamed with a bounded fetch size.
+     *
+     * @return the number of friendships the graph did not know yet
+     */
+    public long loadFriendships() {
+        final long started = System.nanoTime();
+        final long added;
+        try (Stream<Friendship> friendships = appUserRepository.streamAllFriendships()) {
+            added = friendships
+                    .filter(friendship -> friendGraph.addFriendship(friendship.userId(), friendship.friendId()))
+                    .count();
+        }
+        log.info("Loaded {} new friendships into the friend graph of {} users in {} ms",
+                added, friendGraph.userCount(), (System.nanoTime() - started) / 1_000_000);
+        return added;
+    }
+
+    /**
+     * Ranks again the suggestions of the users with the most friends of friends, once the friendships are loaded.
+     * <p>
+     * Runs on the graph only, without holding a connection.
+     * </p>
+     *
+     * @return the number of rankings precomputed
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public int precomputeSuggestions() {
+        final long started = System.nanoTime();
+        final int precomputed = friendGraph.precomputeSuggestions();
+        log.info("Precomputed the friend suggestions of {} users in {} ms", precomputed, (System.nanoTime() - started) / 1_000_000);
+        return precomputed;
+    }
+
+    /**
+     * Adds a friendship to the graph once the current transaction commits, or right away outside a transaction.
+     *
+     * @param userId   the user whose friends list received a friend
+     * @param friendId the added friend
+     */
+    public void recordFriendship(final long userId, final long friendId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            friendGraph.addFriendship(userId, friendId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                friendGraph.addFriendship(userId, friendId);
+            }
+        });
+    }
+
+    /**
+     * Suggests to a user the friends of their friends they have not added yet.
+     * <p>
+     * The ranking runs on the graph; only the usernames of the suggested users are read, with a single query.
+     * </p>
+     *
+     * @param email the email of the current user
+     * @param limit the maximum number of suggestions, {@value DEFAULT_LIMIT} if {@code null}, capped at {@value MAX_LIMIT}
+     * @return the suggestions, most mutual friends first
+     * @throws NonExistentEntityException if no user is found with the provided email
+     */
+    public List<FriendSuggestion> getFriendSuggestions(final String email, final Integer limit) {
+        final long userId = appUserRepository.findFriendsListVersionByEmail(email)
+                .orElseThrow(() -> new NonExistentEntityException("User with email " + email + " does not exist"))
+                .userId();
+        final List<FriendGraph.Suggestion> suggestions = friendGraph.suggest(userId, resolveLimit(limit));
+        if (suggestions.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final Map<Long, String> usernames = appUserRepository.findUsernamesByIds(
+                        suggestions.stream().map(FriendGraph.Suggestion::userId).toList()).stream()
+                .collect(Collectors.toMap(FriendReference::userId, FriendReference::username));
+        return suggestions.stream()
+                .filter(suggestion -> usernames.containsKey(suggestion.userId()))
+                .map(suggestion -> AppUserMapper.INSTANCE.toFriendSuggestion(usernames.get(suggestion.userId()), suggestion.mutualFriends()))
+                .toList();
+    }
+
+    private static int resolveLimit(final Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
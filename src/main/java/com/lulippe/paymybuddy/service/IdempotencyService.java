@@ -0,0 +1,151 @@
+package com.lulippe.paymybuddy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lulippe.paymybuddy.api.exception.InvalidDataException;
+import com.lulippe.paymybuddy.persistence.entities.IdempotencyRecord;
+import com.lulippe.paymybuddy.persistence.repository.IdempotencyRecordRepository;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+@Transactional
+public class IdempotencyService {
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+    private final Cache<RecordKey, StoredResponse> recentResponses;
+
+    public IdempotencyService(final IdempotencyRecordRepository idempotencyRecordRepository,
+                              final ObjectMapper objectMapper,
+                              @Value("${paymybuddy.idempotency.retention:PT24H}") final Duration retention,
+                              @Value("${paymybuddy.idempotency.cache-size:10000}") final long cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+        this.recentResponses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    /**
+     * Runs an operation at most once per {@code Idempotency-Key}.
+     * <p>
+     * The first call claims the key and stores the response in the same transaction as the operation itself,
+     * so the key is only kept if the money movement is committed. Retries are answered with the stored response,
+     * from memory when the key is recent, without running the operation again.
+     * A failed operation stores nothing and can be retried with the same key.
+     * </p>
+     *
+     * @param email          the email of the authenticated user, keys are scoped per user
+     * @param operation      the operation the key belongs to
+     * @param idempotencyKey the key sent by the client, or {@code null} to run the operation unconditionally
+     * @param request        the request body, used to detect a key reused for another request
+     * @param responseType   the type of the stored response
+     * @param action         the operation to run
+     * @return the response of the operation, or the stored response of the first call with this key
+     * @throws InvalidDataException if the key was already used with a different request
+     */
+    public <T> T execute(final String email, final IdempotentOperation operation, final String idempotencyKey,
+                         final Object request, final Class<T> responseType, final Supplier<T> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        final RecordKey recordKey = new RecordKey(email, operation, idempotencyKey);
+        final String requestHash = hash(request);
+
+        final StoredResponse cached = recentResponses.getIfPresent(recordKey);
+        if (cached != null) {
+            log.info("Replaying {} for user {} from cache", operation, email);
+            return replay(cached, requestHash, responseType);
+        }
+
+        if (idempotencyRecordRepository.claim(email, operation.name(), idempotencyKey, requestHash, Instant.now()) == 0) {
+            final StoredResponse stored = idempotencyRecordRepository
+                    .findByUserEmailAndOperationAndIdempotencyKey(email, operation.name(), idempotencyKey)
+                    .map(record -> new StoredResponse(record.getRequestHash(), record.getResponseBody()))
+                    .orElseThrow(() -> new IllegalStateException("Idempotency record vanished for key " + idempotencyKey));
+            recentResponses.put(recordKey, stored);
+            log.info("Replaying {} for user {} from database", operation, email);
+            return replay(stored, requestHash, responseType);
+        }
+
+        final T response = action.get();
+        final StoredResponse stored = new StoredResponse(requestHash, write(response));
+        idempotencyRecordRepository.saveResponse(email, operation.name(), idempotencyKey, stored.responseBody());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentResponses.put(recordKey, stored);
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Deletes the idempotency records older than the retention period.
+     *
+     * @return the number of deleted records
+     */
+    public int purgeExpiredRecords() {
+        final int deleted = idempotencyRecordRepository.deleteCreatedBefore(Instant.now().minus(retention));
+        log.info("Purged {} expired idempotency records", deleted);
+        return deleted;
+    }
+
+    private <T> T replay(final StoredResponse stored, final String requestHash, final Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new InvalidDataException("Idempotency-Key already used with a different request");
+        }
+        try {
+            return objectMapper.readValue(stored.responseBody(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+
+    private String write(final Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Idempotent response cannot be stored", e);
+        }
+    }
+
+    private String hash(final Object request) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Request cannot be hashed", e);
+        }
+    }
+
+    public enum IdempotentOperation {
+        TRANSFER_TO_FRIEND_V1,
+        TRANSFER_TO_FRIENDS_V1_BATCH,
+        TRANSFER_FROM_BANK,
+        TRANSFER_TO_BANK
+    }
+
+    private record RecordKey(String email, IdempotentOperation operation, String idempotencyKey) {
+    }
+
+    private record StoredResponse(String requestHash, String responseBody) {
+    }
+}
@@ -0,0 +1,190 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.persistence.projection.SnapshotBalance;
+import com.lulippe.paymybuddy.persistence.projection.UserIdRange;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.persistence.repository.LedgerEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Checks that every balance snapshot matches the ledger: {@code app_user.account} must equal the sum of the entries
+ * of the user recorded before the horizon of the latest snapshot.
+ * <p>
+ * User ids are split into ranges reconciled in parallel on a dedicated fork-join pool. Each range is streamed in its
+ * own read-only transaction through a cursor with a bounded fetch size, the sums being computed by the database from
+ * the ledger index, so memory stays constant whatever the size of the ledger. The parallelism is also the number of
+ * connections taken from the pool, keep it well below its size.
+ * </p>
+ */
+@Slf4j
+@Service
+public class LedgerReconciliationService {
+    private static final int MAX_REPORTED_DISCREPANCIES = 100;
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final AppUserRepository appUserRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int parallelism;
+    private final long partitionSize;
+    private final Timer reconciliationTimer;
+    private final Counter accountsCounter;
+    private final AtomicLong lastDiscrepancies = new AtomicLong();
+    private final AtomicLong lastThroughput = new AtomicLong();
+
+    public LedgerReconciliationService(final LedgerEntryRepository ledgerEntryRepository,
+                                       final AppUserRepository appUserRepository,
+                                       final PlatformTransactionManager transactionManager,
+                                       final MeterRegistry meterRegistry,
+                                       @Value("${paymybuddy.reconciliation.parallelism:4}") final int parallelism,
+                                       @Value("${paymybuddy.reconciliation.partition-size:50000}") final long partitionSize) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.appUserRepository = appUserRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.parallelism = parallelism;
+        this.partitionSize = partitionSize;
+        this.reconciliationTimer = Timer.builder("paymybuddy.reconciliation")
+                .description("Duration of a reconciliation of the balance snapshots against the ledger")
+                .register(meterRegistry);
+        this.accountsCounter = Counter.builder("paymybuddy.reconciliation.accounts")
+                .description("Accounts reconciled against the ledger")
+                .register(meterRegistry);
+        Gauge.builder("paymybuddy.reconciliation.discrepancies", lastDiscrepancies, AtomicLong::get)
+                .description("Accounts whose snapshot did not match the ledger at the last reconciliation")
+                .register(meterRegistry);
+        Gauge.builder("paymybuddy.reconciliation.throughput", lastThroughput, AtomicLong::get)
+                .description("Accounts reconciled per second by the last reconciliation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reconciles the balance snapshot of every user against the ledger, and logs the accounts that do not match.
+     *
+     * @return the report of the reconciliation
+     */
+    public ReconciliationReport reconcile() {
+        final long started = System.nanoTime();
+        final UserIdRange userIds = appUserRepository.findUserIdRange();
+        final RangeReport result;
+        if (userIds.firstUserId() == null) {
+            result = new RangeReport();
+        } else {
+            try (ForkJoinPool pool = new ForkJoinPool(parallelism, LedgerReconciliationService::newWorker, null, false)) {
+                result = pool.invoke(new RangeReconciliation(userIds.firstUserId(), userIds.lastUserId() + 1));
+            }
+        }
+        final Duration duration = Duration.ofNanos(System.nanoTime() - started);
+        final ReconciliationReport report = new ReconciliationReport(
+                result.accountsChecked, result.discrepancyCount, List.copyOf(result.discrepancies), duration);
+        record(report);
+        return report;
+    }
+
+    private RangeReport reconcileRange(final long fromUserId, final long toUserId) {
+        return readOnlyTransaction.execute(status -> {
+            final RangeReport report = new RangeReport();
+            try (Stream<SnapshotBalance> balances = ledgerEntryRepository.streamSnapshotBalances(fromUserId, toUserId)) {
+                balances.forEach(report::add);
+            }
+            return report;
+        });
+    }
+
+    private void record(final ReconciliationReport report) {
+        reconciliationTimer.record(report.duration());
+        accountsCounter.increment(report.accountsChecked());
+        lastDiscrepancies.set(report.discrepancyCount());
+        lastThroughput.set(report.accountsChecked() * 1000 / Math.max(1, report.duration().toMillis()));
+        report.discrepancies().forEach(discrepancy -> log.warn("Balance snapshot of user {} is {}, the ledger says {}",
+                discrepancy.userId(), discrepancy.snapshotBalance(), discrepancy.ledgerBalance()));
+        if (report.discrepancyCount() > 0) {
+            log.error("Reconciled {} accounts in {} ms: {} do not match the ledger, {} reported",
+                    report.accountsChecked(), report.duration().toMillis(), report.discrepancyCount(), report.discrepancies().size());
+        } else {
+            log.info("Reconciled {} accounts in {} ms, all match the ledger", report.accountsChecked(), report.duration().toMillis());
+        }
+    }
+
+    private static ForkJoinWorkerThread newWorker(final ForkJoinPool pool) {
+        final ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("ledger-reconciliation-" + worker.getPoolIndex());
+        return worker;
+    }
+
+    /**
+     * Outcome of a reconciliation.
+     *
+     * @param accountsChecked  the number of accounts reconciled
+     * @param discrepancyCount the number of accounts whose snapshot does not match the ledger
+     * @param discrepancies    those accounts, by user id, up to {@value MAX_REPORTED_DISCREPANCIES}
+     * @param duration         the time the reconciliation took
+     */
+    public record ReconciliationReport(long accountsChecked, long discrepancyCount,
+                                       List<SnapshotBalance> discrepancies, Duration duration) {
+    }
+
+    // splits a range of user ids in halves until it fits in a partition, then reconciles it
+    private final class RangeReconciliation extends RecursiveTask<RangeReport> {
+        private final long fromUserId;
+        private final long toUserId;
+
+        private RangeReconciliation(final long fromUserId, final long toUserId) {
+            this.fromUserId = fromUserId;
+            this.toUserId = toUserId;
+        }
+
+        @Override
+        protected RangeReport compute() {
+            if (toUserId - fromUserId <= partitionSize) {
+                return reconcileRange(fromUserId, toUserId);
+            }
+            final long middle = fromUserId + (toUserId - fromUserId) / 2;
+            final RangeReconciliation upper = new RangeReconciliation(middle, toUserId);
+            upper.fork();
+            final RangeReport lower = new RangeReconciliation(fromUserId, middle).compute();
+            return lower.merge(upper.join());
+        }
+    }
+
+    private static final class RangeReport {
+        private long accountsChecked;
+        private long discrepancyCount;
+        private final List<SnapshotBalance> discrepancies = new ArrayList<>();
+
+        private void add(final SnapshotBalance balance) {
+            accountsChecked++;
+            if (!balance.isReconciled()) {
+                discrepancyCount++;
+                if (discrepancies.size() < MAX_REPORTED_DISCREPANCIES) {
+                    discrepancies.add(balance);
+                }
+            }
+        }
+
+        // the other range follows this one, so discrepancies stay ordered by user id
+        private RangeReport merge(final RangeReport other) {
+            accountsChecked += other.accountsChecked;
+            discrepancyCount += other.discrepancyCount;
+            discrepancies.addAll(other.discrepancies.subList(0,
+                    Math.min(other.discrepancies.size(), MAX_REPORTED_DISCREPANCIES - discrepancies.size())));
+            return this;
+        }
+    }
+}
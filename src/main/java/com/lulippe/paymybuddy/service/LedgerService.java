@@ -0,0 +1,160 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.api.exception.NonExistentEntityException;
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.enums.LedgerEntryType;
+import com.lulippe.paymybuddy.persistence.projection.LedgerLeg;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.persistence.repository.LedgerEntryRepository;
+import com.lulippe.paymybuddy.utils.Money;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Service recording every movement of money in the double-entry ledger, and deriving balances from it.
+ * <p>
+ * Movements are only ever inserted: no balance row is updated when money moves. A balance is the one of the latest
+ * snapshot, kept in {@code app_user.account}, plus the entries recorded since; {@link #takeSnapshot()} periodically
+ * folds those entries into the snapshot, which keeps the read bounded whatever the length of the history.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class LedgerService {
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final AppUserRepository appUserRepository;
+
+    // the platform account never changes, resolve it once
+    private volatile Long platformUserId;
+
+    /**
+     * Reads the current balance of a user, without locking it.
+     *
+     * @param userId the user
+     * @return the current balance of the user
+     */
+    public Money getBalance(final Long userId) {
+        return ledgerEntryRepository.findBalance(userId);
+    }
+
+    /**
+     * Reads the current balance of the platform account, credited with the commissions.
+     *
+     * @return the current balance of the platform account
+     * @throws NonExistentEntityException if the system account does not exist
+     */
+    public Money getPlatformBalance() {
+        return getBalance(getPlatformUserId());
+    }
+
+    /**
+     * Locks the account of a user until the end of the current transaction, then reads its balance.
+     * <p>
+     * Concurrent debits of the same user wait for each other, so the balance read stays valid until this transaction
+     * records its debit. Credits do not wait.
+     * </p>
+     *
+     * @param userId the user about to be debited
+     * @return the current balance of the user
+     */
+    public Money lockBalance(final Long userId) {
+        appUserRepository.lockAccount(userId);
+        return ledgerEntryRepository.findBalance(userId);
+    }
+
+    /**
+     * Records a transfer between two users, with the commission it costs the sender credited to the platform account.
+     *
+     * @param senderId   the user debited
+     * @param receiverId the user credited
+     * @param amount     the amount transferred
+     * @param commission the commission, zero when there is none
+     * @throws NonExistentEntityException if there is a commission and the system account does not exist
+     */
+    public void recordTransfer(final Long senderId, final Long receiverId, final Money amount, final Money commission) {
+        recordTransfers(senderId, Map.of(receiverId, amount), commission);
+    }
+
+    /**
+     * Records transfers from a user to several others as a single movement, with the commission they cost the sender
+     * credited to the platform account.
+     *
+     * @param senderId            the user debited
+     * @param amountsByReceiverId the amount transferred to each user credited, by user id
+     * @param commission          the total commission, zero when there is none
+     * @throws NonExistentEntityException if there is a commission and the system account does not exist
+     */
+    public void recordTransfers(final Long senderId, final Map<Long, Money> amountsByReceiverId, final Money commission) {
+        final List<LedgerLeg> legs = new ArrayList<>(amountsByReceiverId.size() + 3);
+        Money total = Money.ZERO;
+        for (final Map.Entry<Long, Money> transfer : amountsByReceiverId.entrySet()) {
+            legs.add(new LedgerLeg(transfer.getKey(), LedgerEntryType.TRANSFER, transfer.getValue()));
+            total = total.plus(transfer.getValue());
+        }
+        legs.add(new LedgerLeg(senderId, LedgerEntryType.TRANSFER, total.negate()));
+        if (!commission.isZero()) {
+            legs.add(new LedgerLeg(senderId, LedgerEntryType.COMMISSION, commission.negate()));
+            legs.add(new LedgerLeg(getPlatformUserId(), LedgerEntryType.COMMISSION, commission));
+        }
+        recordMovement(legs);
+    }
+
+    /**
+     * Records money coming from the bank account of a user into their account.
+     *
+     * @param userId the user credited
+     * @param amount the amount deposited
+     */
+    public void recordBankDeposit(final Long userId, final Money amount) {
+        recordMovement(List.of(
+                new LedgerLeg(null, LedgerEntryType.BANK_DEPOSIT, amount.negate()),
+                new LedgerLeg(userId, LedgerEntryType.BANK_DEPOSIT, amount)));
+    }
+
+    /**
+     * Records money leaving the account of a user for their bank account.
+     *
+     * @param userId the user debited
+     * @param amount the amount withdrawn
+     */
+    public void recordBankWithdrawal(final Long userId, final Money amount) {
+        recordMovement(List.of(
+                new LedgerLeg(userId, LedgerEntryType.BANK_WITHDRAWAL, amount.negate()),
+                new LedgerLeg(null, LedgerEntryType.BANK_WITHDRAWAL, amount)));
+    }
+
+    /**
+     * Folds the entries recorded since the latest snapshot into the balance snapshots.
+     *
+     * @return the number of balances changed
+     */
+    public int takeSnapshot() {
+        final int folded = ledgerEntryRepository.takeSnapshot();
+        if (folded > 0) {
+            log.info("Folded ledger entries into {} balance snapshots", folded);
+        }
+        return folded;
+    }
+
+    private void recordMovement(final List<LedgerLeg> legs) {
+        ledgerEntryRepository.insertMovement(UUID.randomUUID(), legs);
+    }
+
+    private Long getPlatformUserId() {
+        if (platformUserId == null) {
+            platformUserId = appUserRepository.findBySystemAccountTrue()
+                    .map(AppUser::getUserId)
+                    .orElseThrow(() -> new NonExistentEntityException("System not found"));
+        }
+        return platformUserId;
+    }
+}
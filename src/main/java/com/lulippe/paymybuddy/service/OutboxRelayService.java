@@ -0,0 +1,172 @@
+package com.lulippe.paymybuddy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lulippe.paymybuddy.event.OutboxEventHandler;
+import com.lulippe.paymybuddy.persistence.entities.OutboxEvent;
+import com.lulippe.paymybuddy.persistence.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Relays the events of the outbox to their handlers, at least once.
+ * <p>
+ * Events are leased in batches with a single statement, so several instances can relay side by side without
+ * delivering the same event twice while its lease runs. Each event is handled on its own virtual thread, outside any
+ * transaction: a slow handler neither holds a connection nor delays the other events of the batch. The events handled
+ * are deleted with one statement per batch; the others are rescheduled with a growing delay, until their
+ * {@code max-attempts}th failure moves them to {@code outbox_dead_letter}, where the relay no longer leases them. An
+ * event whose delivery could not be recorded, e.g. because the instance stopped, is delivered again when its lease expires.
+ * </p>
+ */
+@Slf4j
+@Service
+public class OutboxRelayService {
+    private final OutboxEventRepository outboxEventRepository;
+    private final Map<String, List<OutboxEventHandler<?>>> handlersByEventType;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Timer lagTimer;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("outbox-relay-", 0).factory());
+
+    public OutboxRelayService(final OutboxEventRepository outboxEventRepository,
+                              final List<OutboxEventHandler<?>> handlers,
+                              final ObjectMapper objectMapper,
+                              final MeterRegistry meterRegistry,
+                              @Value("${paymybuddy.outbox.batch-size:100}") final int batchSize,
+                              @Value("${paymybuddy.outbox.lease:PT1M}") final Duration lease,
+                              @Value("${paymybuddy.outbox.max-attempts:20}") final int maxAttempts) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlersByEventType = handlers.stream()
+                .collect(Collectors.groupingBy(handler -> handler.eventType().getSimpleName()));
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.lagTimer = Timer.builder("paymybuddy.outbox.lag")
+                .description("Time from the publication of an event to its delivery to all its handlers")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Relays the available events, batch after batch, until a batch is not full.
+     *
+     * @return the number of events delivered to all their handlers
+     */
+    public int relayAvailableEvents() {
+        int delivered = 0;
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxEventRepository.leaseAvailableEvents(batchSize, lease);
+            delivered += relay(batch);
+        } while (batch.size() == batchSize);
+        return delivered;
+    }
+
+    private int relay(final List<OutboxEvent> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        final List<OutboxEvent> events = new ArrayList<>(batch);
+        events.sort(Comparator.comparing(OutboxEvent::getOutboxEventId));
+        final List<Future<?>> deliveries = new ArrayList<>(events.size());
+        for (final OutboxEvent event : events) {
+            deliveries.add(executor.submit(() -> {
+                deliver(event);
+                return null;
+            }));
+        }
+        // events left undelivered past half of the lease are rescheduled, well before another relay could lease them
+        final long deadline = System.nanoTime() + lease.toNanos() / 2;
+        final List<Long> deliveredIds = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            final OutboxEvent event = events.get(i);
+            try {
+                deliveries.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                deliveredIds.add(event.getOutboxEventId());
+                count(event, "delivered");
+                if (event.getCreatedAt() != null) {
+                    lagTimer.record(Duration.between(event.getCreatedAt(), Instant.now()));
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                deliveries.get(i).cancel(true);
+                final Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                failed(event, cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!deliveredIds.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(deliveredIds);
+        }
+        return deliveredIds.size();
+    }
+
+    private void failed(final OutboxEvent event, final Throwable cause) {
+        final int attempts = event.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            log.error("Delivery {} of outbox event {} ({}) failed, moved to the dead letters",
+                    attempts, event.getOutboxEventId(), event.getEventType(), cause);
+            outboxEventRepository.deadLetterEvent(event.getOutboxEventId(), String.valueOf(cause));
+            count(event, "dead-lettered");
+        } else {
+            log.warn("Delivery {} of outbox event {} ({}) failed, rescheduled",
+                    attempts, event.getOutboxEventId(), event.getEventType(), cause);
+            outboxEventRepository.rescheduleEvent(event.getOutboxEventId(), String.valueOf(cause));
+            count(event, "failed");
+        }
+    }
+
+    private void deliver(final OutboxEvent event) throws Exception {
+        final List<OutboxEventHandler<?>> handlers = handlersByEventType.getOrDefault(event.getEventType(), List.of());
+        if (handlers.isEmpty()) {
+            log.debug("No handler for outbox event {} ({}), dropped", event.getOutboxEventId(), event.getEventType());
+            return;
+        }
+        for (final OutboxEventHandler<?> handler : handlers) {
+            handle(handler, event);
+        }
+    }
+
+    private <E> void handle(final OutboxEventHandler<E> handler, final OutboxEvent event) throws Exception {
+        handler.handle(objectMapper.readValue(event.getPayload(), handler.eventType()));
+    }
+
+    private void count(final OutboxEvent event, final String outcome) {
+        Counter.builder("paymybuddy.outbox.deliveries")
+                .description("Deliveries of outbox events to their handlers")
+                .tag("type", event.getEventType())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
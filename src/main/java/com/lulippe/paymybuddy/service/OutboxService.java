@@ -0,0 +1,47 @@
+package com.lulippe.paymybuddy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lulippe.paymybuddy.persistence.repository.OutboxEventRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes events to the transactional outbox, from which {@link OutboxRelayService} relays them to their handlers.
+ * <p>
+ * Events are written in the transaction of the change they describe: they are relayed if and only if it commits,
+ * and their handlers do not lengthen it.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(Transactional.TxType.MANDATORY)
+public class OutboxService {
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Publishes events of the same type with a single statement.
+     *
+     * @param events the events, serialized as JSON
+     * @param <E>    the type of the events, whose simple name is the event type
+     */
+    public <E> void publish(final List<E> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        final List<String> payloads = new ArrayList<>(events.size());
+        for (final E event : events) {
+            try {
+                payloads.add(objectMapper.writeValueAsString(event));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Event " + event + " cannot be serialized", e);
+            }
+        }
+        outboxEventRepository.insertEvents(events.getFirst().getClass().getSimpleName(), payloads);
+    }
+}
@@ -0,0 +1,87 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.api.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes passwords on a dedicated, bounded thread pool.
+ * <p>
+ * BCrypt costs tens of milliseconds of CPU per call. Running it here caps the number of cores a burst of
+ * registrations or password changes can take from the request threads serving transfers.
+ * Once the pool and its queue are full, new requests are rejected instead of piling up.
+ * </p>
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer hashTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(final PasswordEncoder passwordEncoder,
+                                  final MeterRegistry meterRegistry,
+                                  @Value("${paymybuddy.password-hashing.pool-size:2}") final int poolSize,
+                                  @Value("${paymybuddy.password-hashing.queue-capacity:20}") final int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"));
+        this.hashTimer = Timer.builder("paymybuddy.password.hashing")
+                .description("Time spent hashing a password, queue wait excluded")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("paymybuddy.password.hashing.rejected")
+                .description("Password hashes rejected because the hashing queue was full")
+                .register(meterRegistry);
+        Gauge.builder("paymybuddy.password.hashing.queue", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hashes a raw password on the hashing pool and waits for the result.
+     *
+     * @param rawPassword the password to hash
+     * @return the encoded password
+     * @throws ServiceUnavailableException if the hashing queue is full
+     */
+    public String hash(final String rawPassword) {
+        final Future<String> hashedPassword;
+        try {
+            hashedPassword = executor.submit(() -> hashTimer.record(() -> passwordEncoder.encode(rawPassword)));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("Password hashing queue is full, request rejected");
+            throw new ServiceUnavailableException("Too many requests, please retry later");
+        }
+        try {
+            return hashedPassword.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            hashedPassword.cancel(true);
+            throw new ServiceUnavailableException("Password hashing was interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
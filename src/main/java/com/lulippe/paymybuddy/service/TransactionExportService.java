@@ -0,0 +1,157 @@
+package com.lulippe.paymybuddy.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lulippe.paymybuddy.api.exception.InvalidDataException;
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.projection.TransactionLedgerRow;
+import com.lulippe.paymybuddy.persistence.repository.TransactionRepository;
+import jakarta.transaction.Transactional;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class TransactionExportService {
+    private static final int FLUSH_EVERY_ROWS = 500;
+    private static final String CSV_HEADER = "transaction_id,executed_at,direction,counterparty,description,amount";
+    private static final String SENT = "SENT";
+    private static final String RECEIVED = "RECEIVED";
+
+    private final UserService userService;
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes every transaction sent or received by a user to the given stream, oldest first.
+     * <p>
+     * Rows are read through a forward-only database cursor with a bounded fetch size and written as they arrive,
+     * so the export runs in constant memory and the first bytes leave before the query is exhausted.
+     * </p>
+     *
+     * @param email        the email of the user whose ledger should be exported
+     * @param format       the output format
+     * @param outputStream the stream to write to, left open
+     * @throws com.lulippe.paymybuddy.api.exception.NonExistentEntityException if no user is found with the provided email
+     * @throws IOException                                                     if writing to the stream fails
+     */
+    public void exportLedger(final String email, final ExportFormat format, final OutputStream outputStream) throws IOException {
+        final AppUser appUser = userService.getAppUserByEmail(email);
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long rowCount = 0;
+
+        try (Stream<TransactionLedgerRow> rows = transactionRepository.streamLedgerByUserId(appUser.getUserId())) {
+            final RowWriter rowWriter = format == ExportFormat.CSV ? csvWriter(writer) : ndjsonWriter(writer);
+            final Iterator<TransactionLedgerRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.write(iterator.next(), appUser.getUserId());
+                if (++rowCount % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        log.info("Exported {} transactions as {} for user {}", rowCount, format, email);
+    }
+
+    private RowWriter csvWriter(final Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        return (row, userId) -> {
+            final boolean sent = userId.equals(row.senderId());
+            writer.write(String.valueOf(row.transactionId()));
+            writer.write(',');
+            writer.write(String.valueOf(row.executedAt()));
+            writer.write(',');
+            writer.write(sent ? SENT : RECEIVED);
+            writer.write(',');
+            writer.write(escapeCsv(sent ? row.receiverName() : row.senderName()));
+            writer.write(',');
+            writer.write(escapeCsv(row.description()));
+            writer.write(',');
+            writer.write(formatAmount(row));
+            writer.write('\n');
+        };
+    }
+
+    private RowWriter ndjsonWriter(final Writer writer) throws IOException {
+        final JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        return (row, userId) -> {
+            final boolean sent = userId.equals(row.senderId());
+            generator.writeStartObject();
+            generator.writeNumberField("transactionId", row.transactionId());
+            generator.writeStringField("executedAt", String.valueOf(row.executedAt()));
+            generator.writeStringField("direction", sent ? SENT : RECEIVED);
+            generator.writeStringField("counterparty", sent ? row.receiverName() : row.senderName());
+            generator.writeStringField("description", row.description());
+            generator.writeStringField("amount", formatAmount(row));
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        };
+    }
+
+    private static String formatAmount(final TransactionLedgerRow row) {
+        return row.amount().toString();
+    }
+
+    private static String escapeCsv(final String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(TransactionLedgerRow row, Long userId) throws IOException;
+    }
+
+    /**
+     * Supported export formats.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum ExportFormat {
+        CSV("csv", "text/csv"),
+        NDJSON("ndjson", "application/x-ndjson");
+
+        private final String extension;
+        private final String mediaType;
+
+        /**
+         * Resolves a format from its extension, case-insensitively.
+         *
+         * @param value the requested format
+         * @return the matching {@link ExportFormat}
+         * @throws InvalidDataException if the format is not supported
+         */
+        public static ExportFormat fromValue(final String value) {
+            for (final ExportFormat format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new InvalidDataException("Export format is invalid, supported formats are csv and ndjson");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.persistence.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Maintains the monthly partitions of {@code transactions}: creates them ahead of time and archives the cold ones.
+ * <p>
+ * Transactions are only ever inserted in the current month, so the partitions are created a few months ahead: there is
+ * no default partition, which would keep the history queries from reading the partitions in order. Months older than
+ * the retention are moved to {@code transactions_archive}, out of the reach of the history queries. Each change runs in
+ * its own short transaction, so a slow one never holds the lock on {@code transactions} taken by another.
+ * </p>
+ */
+@Slf4j
+@Service
+public class TransactionPartitionService {
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public TransactionPartitionService(final TransactionRepository transactionRepository,
+                                       final PlatformTransactionManager transactionManager,
+                                       @Value("${paymybuddy.transactions.partitions-ahead:3}") final int monthsAhead,
+                                       @Value("${paymybuddy.transactions.retention-months:24}") final int retentionMonths) {
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    /**
+     * Creates the partitions of the current month and of the months ahead that do not exist yet.
+     *
+     * @return the number of partitions created
+     */
+    public int createUpcomingPartitions() {
+        final LocalDate currentMonth = transactionRepository.findCurrentMonth();
+        final List<LocalDate> existing = transactionRepository.findPartitionMonths();
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            final LocalDate month = currentMonth.plusMonths(i);
+            if (!existing.contains(month)) {
+                transactionTemplate.executeWithoutResult(status -> transactionRepository.createPartition(month));
+                log.info("Created the transactions partition of {}", month);
+                created++;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Moves the partitions of the months older than the retention to the archive.
+     * <p>
+     * A partition that cannot be archived, e.g. because the lock on {@code transactions} timed out, is left in place
+     * for the next run.
+     * </p>
+     *
+     * @return the number of partitions archived
+     */
+    public int archiveColdPartitions() {
+        final LocalDate oldestHotMonth = transactionRepository.findCurrentMonth().minusMonths(retentionMonths);
+        int archived = 0;
+        for (final LocalDate month : transactionRepository.findPartitionMonths()) {
+            if (!month.isBefore(oldestHotMonth)) {
+                break;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> transactionRepository.addMonthConstraint(month));
+                transactionTemplate.executeWithoutResult(status -> transactionRepository.validateMonthConstraint(month));
+                transactionTemplate.executeWithoutResult(status -> transactionRepository.archivePartition(month));
+                log.info("Archived the transactions partition of {}", month);
+                archived++;
+            } catch (DataAccessException e) {
+                log.warn("Could not archive the transactions partition of {}, left for the next run", month, e);
+            }
+        }
+        return archived;
+    }
+}
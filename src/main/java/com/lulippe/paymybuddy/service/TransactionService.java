@@ -2,31 +2,45 @@ package com.lulippe.paymybuddy.service;
 
 import com.lulippe.paymybuddy.api.exception.InsufficientFundsException;
 import com.lulippe.paymybuddy.api.exception.NonExistentEntityException;
+import com.lulippe.paymybuddy.event.TransferCompletedEvent;
 import com.lulippe.paymybuddy.mapper.TransactionMapper;
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
 import com.lulippe.paymybuddy.persistence.entities.Transaction;
+import com.lulippe.paymybuddy.persistence.projection.FriendReference;
 import com.lulippe.paymybuddy.persistence.repository.TransactionRepository;
 import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.transaction.model.TransferBatchResult;
+import com.lulippe.paymybuddy.transaction.model.TransferPage;
+import com.lulippe.paymybuddy.utils.Money;
+import com.lulippe.paymybuddy.utils.TransactionCursor;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
-import static com.lulippe.paymybuddy.utils.BigDecimalUtils.stringToBigDecimal;
-
 @Service
 @RequiredArgsConstructor
 @Transactional
 @Slf4j
 public class TransactionService {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final long COMMISSION_PER_THOUSAND = 5;
+
     private final UserService userService;
     private final TransactionRepository transactionRepository;
+    private final LedgerService ledgerService;
+    private final OutboxService outboxService;
 
     /**
      * Retrieves the list of transactions sent by a given user.
@@ -48,6 +62,54 @@ public class TransactionService {
         return transactionRepository.findAllBySender(appUser);
     }
 
+    /**
+     * Retrieves one page of the transactions sent by a given user, most recent first.
+     * <p>
+     * Pages are addressed by a keyset cursor on {@code (executed_at, transaction_id)} rather than by offset,
+     * so the cost of fetching a page does not grow with the length of the history.
+     * </p>
+     *
+     * @param email  the email of the user whose sent transactions should be retrieved
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param size   the requested page size, capped at {@value MAX_PAGE_SIZE}
+     * @return a {@link TransferPage} holding the transfers and the cursor of the next page, if any
+     * @throws NonExistentEntityException                                if no user is found with the provided email
+     * @throws com.lulippe.paymybuddy.api.exception.InvalidDataException if the cursor is malformed
+     */
+    public TransferPage getUserSentTransactionPage(final String email, final String cursor, final Integer size) {
+        final AppUser appUser = userService.getAppUserByEmail(email);
+        final int pageSize = resolvePageSize(size);
+        final Limit limit = Limit.of(pageSize + 1);
+
+        final List<Transaction> transactions = cursor == null
+                ? transactionRepository.findFirstSentPage(appUser, limit)
+                : findSentPageAfter(appUser, TransactionCursor.decode(cursor), limit);
+
+        final boolean hasNextPage = transactions.size() > pageSize;
+        final List<Transaction> pageContent = hasNextPage ? transactions.subList(0, pageSize) : transactions;
+
+        final TransferPage transferPage = new TransferPage();
+        transferPage.setTransfers(pageContent.stream()
+                .map(TransactionMapper.INSTANCE::toTransfert)
+                .collect(Collectors.toList()));
+        if (hasNextPage) {
+            final Transaction last = pageContent.get(pageContent.size() - 1);
+            transferPage.setNextCursor(new TransactionCursor(last.getExecutedAt(), last.getTransactionId()).encode());
+        }
+        return transferPage;
+    }
+
+    private List<Transaction> findSentPageAfter(final AppUser appUser, final TransactionCursor cursor, final Limit limit) {
+        return transactionRepository.findSentPageAfter(appUser, cursor.executedAt(), cursor.transactionId(), limit);
+    }
+
+    private static int resolvePageSize(final Integer size) {
+        if (size == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
     /**
      * Sends money from the current user to a friend without commission.
      *
@@ -58,20 +120,22 @@ public class TransactionService {
      * @throws IllegalArgumentException                                        if the receiver is not in the sender's friends list
      * @throws InsufficientFundsException                                      if the sender has insufficient funds
      */
+    @Timed(value = "paymybuddy.transfers", extraTags = {"version", "v0"}, histogram = true, description = "Transfers to a friend")
     public String sendMoneyToFriend(final Transfer transfer, final String userEmail) {
         final AppUser senderAppUser = userService.getAppUserByEmail(userEmail);
         final AppUser receiverAppUser = userService.getAppUserByName(transfer.getFriendName());
         userService.checkIfReceiverIsAFriend(receiverAppUser, senderAppUser);
-        final BigDecimal transferAmount = stringToBigDecimal(transfer.getAmount());
+        final Money transferAmount = Money.parse(transfer.getAmount());
         checkPositiveTransfertAmount(transferAmount);
-        checkSufficientFunds(transferAmount, senderAppUser.getAccount());
+        checkSufficientFunds(transferAmount, ledgerService.lockBalance(senderAppUser.getUserId()));
         return processMoneyTransfer(senderAppUser, receiverAppUser, transferAmount, transfer.getDescription());
     }
 
     /**
      * Sends money from the current user to a friend with a commission applied.
      * <p>
-     * The commission is calculated as 0.5% of the transfer amount and is credited to the system account.
+     * The commission is calculated as 0.5% of the transfer amount; it is recorded in the ledger with the transfer,
+     * as a debit of the sender and a credit of the system account.
      * </p>
      *
      * @param transfer  the {@link Transfer} object containing the recipient and transfer details
@@ -81,54 +145,128 @@ public class TransactionService {
      * @throws IllegalArgumentException                                        if the receiver is not in the sender's friends list
      * @throws InsufficientFundsException                                      if the sender has insufficient funds for both the transfer and the commission
      */
+    @Timed(value = "paymybuddy.transfers", extraTags = {"version", "v1"}, histogram = true, description = "Transfers to a friend")
     public String sendMoneyToFriendV1(final Transfer transfer, final String userEmail) {
         final AppUser senderAppUser = userService.getAppUserByEmail(userEmail);
         final AppUser receiverAppUser = userService.getAppUserByName(transfer.getFriendName());
         userService.checkIfReceiverIsAFriend(receiverAppUser, senderAppUser);
-        final BigDecimal transferAmount = stringToBigDecimal(transfer.getAmount());
+        final Money transferAmount = Money.parse(transfer.getAmount());
         checkPositiveTransfertAmount(transferAmount);
-        final BigDecimal commission = transferAmount.multiply(BigDecimal.valueOf(0.005)).setScale(2, RoundingMode.HALF_EVEN);
-        final BigDecimal totalDebit = transferAmount.add(commission);
-        checkSufficientFunds(totalDebit, senderAppUser.getAccount());
-        return processMoneyTransferV1(senderAppUser, receiverAppUser, transferAmount, commission, totalDebit, transfer.getDescription());
+        final Money commission = commissionOf(transferAmount);
+        final Money totalDebit = transferAmount.plus(commission);
+        checkSufficientFunds(totalDebit, ledgerService.lockBalance(senderAppUser.getUserId()));
+        return processMoneyTransferV1(senderAppUser, receiverAppUser, transferAmount, commission, transfer.getDescription());
+    }
+
+    /**
+     * Sends money from the current user to several friends at once, with a commission applied to each transfer.
+     * <p>
+     * All recipients are resolved with one query and only the sender's account is locked. All the transfers and
+     * their commissions are recorded in the ledger as a single movement, and the transactions are written as a JDBC batch,
+     * so the whole batch costs a fixed number of round trips. Either every transfer is applied or none is.
+     * </p>
+     *
+     * @param transfers the transfers to perform, each with its recipient and details
+     * @param userEmail the email of the sender user
+     * @return a {@link TransferBatchResult} summarizing the amounts moved
+     * @throws com.lulippe.paymybuddy.api.exception.NonExistentEntityException if the sender does not exist
+     * @throws IllegalArgumentException                                        if a receiver is not in the sender's friends list or an amount is not positive
+     * @throws InsufficientFundsException                                      if the sender has insufficient funds for all the transfers and their commissions
+     */
+    public TransferBatchResult sendMoneyToFriendsV1(final List<Transfer> transfers, final String userEmail) {
+        final AppUser senderAppUser = userService.getAppUserByEmail(userEmail);
+        final Map<String, FriendReference> friends = userService.getFriendsByUsernames(senderAppUser,
+                transfers.stream().map(Transfer::getFriendName).collect(Collectors.toSet()));
+
+        final Map<Long, Money> amountsByReceiverId = new HashMap<>();
+        final List<Money> transferAmounts = new ArrayList<>(transfers.size());
+        Money totalAmount = Money.ZERO;
+        Money totalCommission = Money.ZERO;
+        for (final Transfer transfer : transfers) {
+            final Money transferAmount = Money.parse(transfer.getAmount());
+            checkPositiveTransfertAmount(transferAmount);
+            transferAmounts.add(transferAmount);
+            amountsByReceiverId.merge(friends.get(transfer.getFriendName()).userId(), transferAmount, Money::plus);
+            totalAmount = totalAmount.plus(transferAmount);
+            totalCommission = totalCommission.plus(commissionOf(transferAmount));
+        }
+        final Money totalDebit = totalAmount.plus(totalCommission);
+
+        checkSufficientFunds(totalDebit, ledgerService.lockBalance(senderAppUser.getUserId()));
+        ledgerService.recordTransfers(senderAppUser.getUserId(), amountsByReceiverId, totalCommission);
+
+        final Instant executedAt = now();
+        final List<Transaction> transactions = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            final Transfer transfer = transfers.get(i);
+            transactions.add(TransactionMapper.INSTANCE.toTransaction(senderAppUser,
+                    userService.getAppUserReference(friends.get(transfer.getFriendName()).userId()),
+                    transferAmounts.get(i), transfer.getDescription(), executedAt));
+        }
+        transactionRepository.saveAll(transactions);
+        final List<TransferCompletedEvent> events = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            final FriendReference receiver = friends.get(transfers.get(i).getFriendName());
+            events.add(transferCompleted(transactions.get(i), senderAppUser, receiver.userId(), receiver.username(),
+                    commissionOf(transferAmounts.get(i))));
+        }
+        outboxService.publish(events);
+
+        log.info("Batch of {} transfers ({} €) from {} completed successfully. Commission for app is {} €",
+                transfers.size(), totalAmount, senderAppUser.getUsername(), totalCommission);
+        final TransferBatchResult result = new TransferBatchResult();
+        result.setTransferCount(transfers.size());
+        result.setTotalAmount(totalAmount.toString());
+        result.setTotalCommission(totalCommission.toString());
+        return result;
+    }
+
+    // package-private so the commission can be benchmarked on its own (src/jmh)
+    static Money commissionOf(final Money transferAmount) {
+        return transferAmount.times(COMMISSION_PER_THOUSAND, 1000);
     }
 
-    private static void checkPositiveTransfertAmount(final BigDecimal transferAmount) {
-        if(transferAmount.compareTo(BigDecimal.ZERO) <= 0) {
+    private static void checkPositiveTransfertAmount(final Money transferAmount) {
+        if(!transferAmount.isPositive()) {
             log.error("Transfer amount must be greater than zero : {}", transferAmount);
             throw new IllegalArgumentException("Transfer amount must be greater than zero");
         }
     }
 
-    private void checkSufficientFunds(final BigDecimal transferAmount, final BigDecimal currentBalance) {
+    private void checkSufficientFunds(final Money transferAmount, final Money currentBalance) {
         if (currentBalance.compareTo(transferAmount) < 0) {
             log.error("Insufficient funds!");
             throw new InsufficientFundsException("Insufficient funds");
         }
     }
 
-    private String processMoneyTransfer(final AppUser senderAppUser, final AppUser receiverAppUser, final BigDecimal transferAmount, final String description) {
-        senderAppUser.setAccount(senderAppUser.getAccount().subtract(transferAmount));
-        receiverAppUser.setAccount(receiverAppUser.getAccount().add(transferAmount));
+    // executed_at is stored with microsecond precision, keep the in-memory value aligned so keyset cursors match the stored one
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
 
-        final Transaction transaction = TransactionMapper.INSTANCE.toTransaction(senderAppUser, receiverAppUser, transferAmount, description, Instant.now());
+    private String processMoneyTransfer(final AppUser senderAppUser, final AppUser receiverAppUser, final Money transferAmount, final String description) {
+        final Transaction transaction = TransactionMapper.INSTANCE.toTransaction(senderAppUser, receiverAppUser, transferAmount, description, now());
 
         transactionRepository.save(transaction);
-        userService.saveTransactionAppUsers(senderAppUser, receiverAppUser);
-        log.info("Transfer of {} from {} to {} completed successfully.", transferAmount, senderAppUser.getUsername(), receiverAppUser.getUsername());
+        ledgerService.recordTransfer(senderAppUser.getUserId(), receiverAppUser.getUserId(), transferAmount, Money.ZERO);
+        outboxService.publish(List.of(transferCompleted(transaction, senderAppUser, receiverAppUser.getUserId(), receiverAppUser.getUsername(), Money.ZERO)));
         return "Transfer of " + transferAmount + " from " + senderAppUser.getUsername() + " to " + receiverAppUser.getUsername() + " completed successfully.";
     }
 
-    private String processMoneyTransferV1(final AppUser senderAppUser, final AppUser receiverAppUser, final BigDecimal transferAmount, final BigDecimal commission, final BigDecimal totalDebit, final String description) {
-        senderAppUser.setAccount(senderAppUser.getAccount().subtract(totalDebit));
-        receiverAppUser.setAccount(receiverAppUser.getAccount().add(transferAmount));
-        userService.handleSystemAccount(commission);
-
-        final Transaction transaction = TransactionMapper.INSTANCE.toTransaction(senderAppUser, receiverAppUser, transferAmount, description, Instant.now());
+    private String processMoneyTransferV1(final AppUser senderAppUser, final AppUser receiverAppUser, final Money transferAmount, final Money commission, final String description) {
+        final Transaction transaction = TransactionMapper.INSTANCE.toTransaction(senderAppUser, receiverAppUser, transferAmount, description, now());
         transactionRepository.save(transaction);
-        userService.saveTransactionAppUsers(senderAppUser, receiverAppUser);
+        ledgerService.recordTransfer(senderAppUser.getUserId(), receiverAppUser.getUserId(), transferAmount, commission);
+        outboxService.publish(List.of(transferCompleted(transaction, senderAppUser, receiverAppUser.getUserId(), receiverAppUser.getUsername(), commission)));
 
-        log.info("Transfer of {} € from {} to {} completed successfully. Commission for app is {} €", transferAmount, senderAppUser.getUsername(), receiverAppUser.getUsername(), commission);
         return "Transfer of " + transferAmount + " € from " + senderAppUser.getUsername() + " to " + receiverAppUser.getUsername() + " completed successfully. A commission of " + commission + " € has been deducted from your account";
     }
+
+    // published in the transaction of the transfer, handled once it commits (see TransferCompletedLogHandler)
+    private static TransferCompletedEvent transferCompleted(final Transaction transaction, final AppUser senderAppUser,
+                                                            final Long receiverId, final String receiverUsername, final Money commission) {
+        return new TransferCompletedEvent(transaction.getTransactionId(), senderAppUser.getUserId(), senderAppUser.getUsername(),
+                receiverId, receiverUsername, transaction.getAmount(), commission, transaction.getDescription(), transaction.getExecutedAt());
+    }
 }
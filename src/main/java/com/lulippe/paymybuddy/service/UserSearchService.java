@@ -0,0 +1,65 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.api.exception.InvalidDataException;
+import com.lulippe.paymybuddy.mapper.AppUserMapper;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.user.model.UserSearchResult;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Searches the users to add as friends while the connected user types their username or email.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class UserSearchService {
+    private static final int MIN_TERM_LENGTH = 3;
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 50;
+
+    private final AppUserRepository appUserRepository;
+
+    /**
+     * Searches the users whose username starts with the term or whose email is the term, then those whose username
+     * contains it, ignoring case.
+     * <p>
+     * Only the username and the opaque identifier to add them as a friend with are returned, never the email.
+     * </p>
+     * <p>
+     * Matches are cached by term for every user searching: one more is read than the limit, for the connected user
+     * to be removed from them.
+     * </p>
+     *
+     * @param email the email of the current user
+     * @param term  the search term, at least {@value MIN_TERM_LENGTH} characters once stripped
+     * @param limit the maximum number of users, {@value DEFAULT_LIMIT} if {@code null}, capped at {@value MAX_LIMIT}
+     * @return the matching users, prefix matches first
+     * @throws InvalidDataException if the term is shorter than {@value MIN_TERM_LENGTH} characters
+     */
+    public List<UserSearchResult> searchUsers(final String email, final String term, final Integer limit) {
+        final String normalizedTerm = term == null ? "" : term.strip().toLowerCase(Locale.ROOT);
+        if (normalizedTerm.length() < MIN_TERM_LENGTH) {
+            throw new InvalidDataException("Search term must have at least " + MIN_TERM_LENGTH + " characters");
+        }
+        final int resolvedLimit = resolveLimit(limit);
+        return appUserRepository.searchByUsernameOrEmail(normalizedTerm, resolvedLimit + 1).stream()
+                .filter(match -> !match.email().equalsIgnoreCase(email))
+                .limit(resolvedLimit)
+                .map(AppUserMapper.INSTANCE::toUserSearchResult)
+                .toList();
+    }
+
+    private static int resolveLimit(final Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -1,27 +1,32 @@
 package com.lulippe.paymybuddy.service;
 
 import com.lulippe.paymybuddy.api.exception.EntityAlreadyExistsException;
-import com.lulippe.paymybuddy.api.exception.InsufficientFundsException;
 import com.lulippe.paymybuddy.api.exception.NonExistentEntityException;
-import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
+import com.lulippe.paymybuddy.config.CacheConfiguration;
 import com.lulippe.paymybuddy.mapper.AppUserMapper;
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.projection.FriendReference;
+import com.lulippe.paymybuddy.persistence.projection.FriendsListVersion;
 import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
 import com.lulippe.paymybuddy.user.model.InformationsToUpdate;
 import com.lulippe.paymybuddy.user.model.RegisterRequest;
 import com.lulippe.paymybuddy.user.model.UserFriend;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.util.Strings;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
@@ -29,12 +34,12 @@ import java.util.stream.Stream;
 @Transactional
 @Slf4j
 /**
- * Service class for managing application users, their friends and accounts.
+ * Service class for managing application users and their friends.
  * Provides methods to handle user registration, profile updates and friend management.
  */
 public class UserService {
     private final AppUserRepository appUserRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final FriendSuggestionService friendSuggestionService;
 
     /**
      * Ensures that the provided username and email are unique across the system.
@@ -77,16 +82,15 @@ public class UserService {
     }
 
     /**
-     * Checks whether the receiver user is in the sender's friend list.
+     * Checks whether the receiver user is in the sender's friend list, with an indexed existence query
+     * that does not load the friend list.
      *
      * @param receiverAppUser the user receiving the transfer
      * @param senderAppUser   the user sending the transfer
      * @throws IllegalArgumentException if the receiver is not in the sender's friend list
      */
     public void checkIfReceiverIsAFriend(final AppUser receiverAppUser, final AppUser senderAppUser) {
-        final Set<AppUser> friends = senderAppUser.getFriends();
-
-        if (!friends.contains(receiverAppUser)) {
+        if (!appUserRepository.existsFriendship(senderAppUser.getUserId(), receiverAppUser.getUserId())) {
             log.debug("Receiver {} is not a friend", receiverAppUser.getUsername());
             throw new IllegalArgumentException("Receiver " + receiverAppUser.getUsername() + " is not in your friends list");
         }
@@ -105,36 +109,34 @@ public class UserService {
     }
 
     /**
-     * Persists both sender and receiver after a transaction.
+     * Resolves, with a single query, the friends of a user matching the given usernames.
      *
-     * @param receiver the receiving user
-     * @param sender   the sending user
+     * @param senderAppUser the user whose friends list is searched
+     * @param usernames     the usernames to resolve
+     * @return the matching friends, by username
+     * @throws IllegalArgumentException if one of the usernames is not in the user's friends list
      */
-    public void saveTransactionAppUsers(final AppUser receiver, final AppUser sender) {
-        log.info("Saving users with updated transaction history");
-        appUserRepository.save(sender);
-        appUserRepository.save(receiver);
-    }
-
-    private void saveTransactionSystem(final AppUser system) {
-        log.info("Saving transaction history of the system");
-        appUserRepository.save(system);
+    public Map<String, FriendReference> getFriendsByUsernames(final AppUser senderAppUser, final Collection<String> usernames) {
+        final Map<String, FriendReference> friends = appUserRepository.findFriendsByUsernames(senderAppUser.getUserId(), usernames).stream()
+                .collect(Collectors.toMap(FriendReference::username, Function.identity()));
+        usernames.stream()
+                .filter(username -> !friends.containsKey(username))
+                .findFirst()
+                .ifPresent(username -> {
+                    log.debug("Receiver {} is not a friend", username);
+                    throw new IllegalArgumentException("Receiver " + username + " is not in your friends list");
+                });
+        return friends;
     }
 
     /**
-     * Performs a bank transfer operation for a user, adding the requested amount
-     * to their account balance.
+     * Retrieves a reference to a user without loading it, for use as an association.
      *
-     * @param user    the user performing the bank transfer
-     * @param request the bank transfer request containing the amount to transfer
-     * @return the updated {@link AppUser} after the transfer
+     * @param userId the identifier of the user
+     * @return a reference to the {@link AppUser}
      */
-    public AppUser performBankTransfer(final AppUser user, final BankTransferRequest request) {
-        final BigDecimal actualAccountBalance = user.getAccount();
-        final BigDecimal amountToAdd = BigDecimal.valueOf(request.getAmount());
-        final BigDecimal newBalance = actualAccountBalance.add(amountToAdd).setScale(2, RoundingMode.HALF_EVEN);
-        user.setAccount(newBalance);
-        return appUserRepository.save(user);
+    public AppUser getAppUserReference(final Long userId) {
+        return appUserRepository.getReferenceById(userId);
     }
 
     /**
@@ -146,6 +148,8 @@ public class UserService {
      * @throws EntityAlreadyExistsException if the friend is already in the friend list
      * @throws IllegalArgumentException     if the friend is invalid (same user, or system account)
      */
+    @Timed(value = "paymybuddy.friends.additions", histogram = true, description = "Friend additions")
+    @CacheEvict(cacheNames = CacheConfiguration.FRIENDS_LIST_VERSION_CACHE, key = "#userEmail")
     public void handleFriendAddition(final String userEmail, final String friendEmail) {
         final AppUser currentAppUser = getAppUserByEmail(userEmail);
         final AppUser friendAppUser = getAppUserByEmail(friendEmail);
@@ -153,9 +157,23 @@ public class UserService {
         processAddFriendRequest(currentAppUser, friendAppUser);
     }
 
-    private AppUser getSystemUser() {
-        return appUserRepository.findBySystemAccountTrue()
-                .orElseThrow(() -> new NonExistentEntityException("System not found"));
+    /**
+     * Handles the addition of a friend, found by the user search, to the current user's friend list.
+     *
+     * @param userEmail the email of the current authenticated user
+     * @param friendId  the opaque identifier of the friend given by the user search
+     * @throws NonExistentEntityException   if either user does not exist
+     * @throws EntityAlreadyExistsException if the friend is already in the friend list
+     * @throws IllegalArgumentException     if the friend is invalid (same user, or system account)
+     */
+    @Timed(value = "paymybuddy.friends.additions", histogram = true, description = "Friend additions")
+    @CacheEvict(cacheNames = CacheConfiguration.FRIENDS_LIST_VERSION_CACHE, key = "#userEmail")
+    public void handleFriendAddition(final String userEmail, final UUID friendId) {
+        final AppUser currentAppUser = getAppUserByEmail(userEmail);
+        final AppUser friendAppUser = appUserRepository.findByPublicId(friendId)
+                .orElseThrow(() -> new NonExistentEntityException("User with id " + friendId + " does not exist"));
+        ensureFriendValidity(currentAppUser, friendAppUser);
+        processAddFriendRequest(currentAppUser, friendAppUser);
     }
 
     private void ensureFriendValidity(final AppUser currentAppUser, final AppUser friendAppUser) {
@@ -167,81 +185,67 @@ public class UserService {
             log.error("User {} attempted to add the system account as a friend", currentAppUser.getUsername());
             throw new IllegalArgumentException("Invalid friend selection");
         }
-
-        ensureFriendNotAlreadyAdded(currentAppUser, friendAppUser);
     }
 
     private void processAddFriendRequest(final AppUser currentAppUser, final AppUser friendAppUser) {
-        currentAppUser.getFriends().add(friendAppUser);
-        appUserRepository.save(currentAppUser);
-    }
-
-    private void ensureFriendNotAlreadyAdded(final AppUser currentAppUser, final AppUser friendAppUser) {
-        if (currentAppUser.getFriends().contains(friendAppUser)) {
-            throw new EntityAlreadyExistsException("Friend already added in current user friend list : " + friendAppUser.getEmail());
+        if (appUserRepository.addFriend(currentAppUser.getUserId(), friendAppUser.getUserId()) == 0) {
+            throw new EntityAlreadyExistsException("Friend already added in current user friend list : " + friendAppUser.getUsername());
         }
+        friendSuggestionService.recordFriendship(currentAppUser.getUserId(), friendAppUser.getUserId());
     }
 
     /**
-     * Handles the update of the system account by adding a commission to its balance.
-     *
-     * @param commission the commission amount to add to the system account
-     * @throws NonExistentEntityException if the system account does not exist
-     */
-    public void handleSystemAccount(final BigDecimal commission) {
-        final AppUser system = getSystemUser();
-        system.setAccount(system.getAccount().add(commission));
-        saveTransactionSystem(system);
-    }
-
-    /**
-     * Retrieves all friends of a given user.
+     * Retrieves all friends of a given user, sorted by name.
+     * <p>
+     * Only the usernames are read, sorted by the database: neither the user nor their friends are loaded.
+     * </p>
      *
      * @param userEmail the email of the current user
      * @return a list of {@link UserFriend} representing the user's friends
-     * @throws NonExistentEntityException if the user does not exist
      */
     public List<UserFriend> getAllUserFriend(final String userEmail) {
-        final AppUser currentUser = getAppUserByEmail(userEmail);
-        return AppUserMapper.INSTANCE.toUserFriendList(currentUser.getFriends());
+        return AppUserMapper.INSTANCE.toUserFriendList(appUserRepository.findFriendUsernamesByEmail(userEmail));
     }
 
     /**
-     * Withdraws funds from a user's account to a bank account.
+     * Retrieves the version of the friends list of a user, cached until a friend is added or renamed.
      *
-     * @param user             the user performing the withdrawal
-     * @param amountToWithdraw the amount to withdraw
-     * @throws InsufficientFundsException if the user has insufficient funds
+     * @param userEmail the email of the current user
+     * @return the {@link FriendsListVersion} of the user
+     * @throws NonExistentEntityException if the user does not exist
      */
-    public void withdrawToBank(final AppUser user, final BigDecimal amountToWithdraw) {
-
-        checkSufficientFunds(user.getAccount(), amountToWithdraw);
-        user.setAccount(user.getAccount().subtract(amountToWithdraw));
-        appUserRepository.save(user);
-    }
-
-    private void checkSufficientFunds(final BigDecimal accountFund, final BigDecimal amountToTransfer) {
-        if (accountFund.compareTo(amountToTransfer) < 0) {
-            throw new InsufficientFundsException("insufficient funds for transfer");
-        }
+    public FriendsListVersion getFriendsListVersion(final String userEmail) {
+        return appUserRepository.findFriendsListVersionByEmail(userEmail)
+                .orElseThrow(() -> new NonExistentEntityException("User with email " + userEmail + " does not exist"));
     }
 
     /**
      * Updates the profile of a user with the provided information.
+     * <p>
+     * A change of email or password evicts the cached credentials of the user once the transaction commits,
+     * and a change of email its cached friends list version. A change of username changes the version of every
+     * friends list holding the user, and evicts all the cached versions: a rename is rare, and the lists holding
+     * the user are only known by id.
+     * </p>
      *
      * @param userEmail            the email of the current user
-     * @param informationsToUpdate the information to update (email, username, password)
+     * @param informationsToUpdate the information to update (email, username, password already hashed by {@link AuthService})
      * @throws IllegalArgumentException     if no values are provided or values are invalid
      * @throws EntityAlreadyExistsException if the new username or email already exists
      * @throws NonExistentEntityException   if the user does not exist
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfiguration.USER_CREDENTIALS_CACHE, key = "#userEmail",
+                    condition = "#informationsToUpdate.email != null || #informationsToUpdate.password != null"),
+            @CacheEvict(cacheNames = CacheConfiguration.FRIENDS_LIST_VERSION_CACHE, key = "#userEmail",
+                    condition = "#informationsToUpdate.email != null"),
+            @CacheEvict(cacheNames = CacheConfiguration.FRIENDS_LIST_VERSION_CACHE, allEntries = true,
+                    condition = "#informationsToUpdate.username != null")
+    })
     public void updateUserProfil(final String userEmail, final InformationsToUpdate informationsToUpdate) {
         final AppUser currentUser = getAppUserByEmail(userEmail);
         validateInformationsToUpdate(informationsToUpdate);
         ensureUsernameAndEmailAreUniqueForUpdate(informationsToUpdate);
-        if (informationsToUpdate.getPassword() != null) {
-            informationsToUpdate.setPassword(passwordEncoder.encode(informationsToUpdate.getPassword()));
-        }
         updateUserInformation(currentUser, informationsToUpdate);
     }
 
@@ -253,6 +257,9 @@ public class UserService {
 
     private void updateUserInformation(final AppUser currentUser, final InformationsToUpdate informationsToUpdate) {
         appUserRepository.save(AppUserMapper.INSTANCE.updateUserInformation(currentUser, informationsToUpdate));
+        if (informationsToUpdate.getUsername() != null) {
+            appUserRepository.incrementFriendsVersionOfListsHolding(currentUser.getUserId());
+        }
     }
 
     private void validateInformationsToUpdate(final InformationsToUpdate informationsToUpdate) {
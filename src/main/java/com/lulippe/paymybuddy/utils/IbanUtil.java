@@ -4,68 +4,105 @@ import lombok.experimental.UtilityClass;
 
 @UtilityClass
 public class IbanUtil {
-    private static final int IBAN_MIN_SIZE = 15;
-    private static final int IBAN_MAX_SIZE = 34;
-    private static final long IBAN_MAX = 999999999;
     private static final int IBAN_MODULUS = 97;
+    private static final int ALPHABET_SIZE = 26;
+
+    /**
+     * IBAN length by country, indexed by {@link #countryIndex(int, int)}; 0 for a country without IBAN.
+     * Source: SWIFT IBAN registry.
+     */
+    private static final byte[] IBAN_LENGTHS = new byte[ALPHABET_SIZE * ALPHABET_SIZE];
+
+    static {
+        final String registry = "AD24 AE23 AL28 AT20 AZ28 BA20 BE16 BG22 BH22 BI27 BR29 BY28 CH21 CR22 CY28 CZ24 "
+                + "DE22 DJ27 DK18 DO28 EE20 EG29 ES24 FI18 FK18 FO18 FR27 GB22 GE22 GI23 GL18 GR27 GT28 HN28 "
+                + "HR21 HU28 IE22 IL23 IQ23 IS26 IT27 JO30 KW30 KZ20 LB28 LC32 LI21 LT20 LU20 LV21 LY25 MC27 "
+                + "MD24 ME22 MK19 MN20 MR27 MT31 MU30 NI28 NL18 NO15 OM23 PK24 PL28 PS29 PT25 QA29 RO24 RS22 "
+                + "RU33 SA24 SC31 SD18 SE24 SI19 SK24 SM27 SO23 ST25 SV28 TL23 TN24 TR26 UA29 VA22 VG24 XK20 YE30";
+        for (final String entry : registry.split(" ")) {
+            IBAN_LENGTHS[countryIndex(entry.charAt(0), entry.charAt(1))] = Byte.parseByte(entry.substring(2));
+        }
+    }
+
     /**
      * Checks whether an IBAN (International Bank Account Number) is valid.
      *
-     * <p>The validation process follows the IBAN standard:</p>
+     * <p>The validation follows the IBAN standard, in a single pass over the characters and without building any
+     * intermediate string:</p>
      * <ol>
-     *     <li>Normalization: removes spaces and converts all letters to uppercase.</li>
-     *     <li>Length check: the IBAN must contain between {@value IBAN_MIN_SIZE} and {@value IBAN_MAX_SIZE} characters.</li>
-     *     <li>Rearrangement: the first four characters (country code + check digits) are moved to the end of the string.</li>
-     *     <li>Letter-to-number conversion: letters are replaced with numeric values (A=10, B=11, ..., Z=35).</li>
-     *     <li>Modulo 97 calculation: the resulting number is divided by 97; the IBAN is valid if the remainder is 1.</li>
+     *     <li>Normalization: whitespace is skipped and letters are read case-insensitively.</li>
+     *     <li>Format check: a two-letter country code, two check digits, then letters and digits only.</li>
+     *     <li>Length check: the IBAN must have the length registered for its country.</li>
+     *     <li>Rearrangement: the first four characters (country code + check digits) are set aside and folded in
+     *     after the rest, as if they had been moved to the end.</li>
+     *     <li>Letter-to-number conversion: letters count as their numeric values (A=10, B=11, ..., Z=35).</li>
+     *     <li>Modulo 97 calculation: the remainder is folded digit by digit; the IBAN is valid if it is 1.</li>
      * </ol>
      *
-     * @param iban the string representing the IBAN to validate, can contain spaces or lowercase letters
+     * @param iban the IBAN to validate, can contain spaces or lowercase letters
      * @return {@code true} if the IBAN is valid according to the standard, {@code false} otherwise
      */
-    public boolean isIbanValid(final String iban) {
-        final String trimmed = normalizeIban(iban);
-
-        if (!hasValidLength(trimmed)) {
+    public boolean isIbanValid(final CharSequence iban) {
+        if (iban == null) {
             return false;
         }
+        int length = 0;
+        int country0 = -1;
+        int country1 = -1;
+        int checkDigits = 0;
+        int remainder = 0;
 
-        final String reformat = reformatIban(trimmed);
-
-        return computeMod97(reformat) == 1;
-    }
+        for (int i = 0; i < iban.length(); i++) {
+            final char character = iban.charAt(i);
+            if (Character.isWhitespace(character)) {
+                continue;
+            }
+            final int value = alphanumericValue(character);
+            if (value < 0) {
+                return false;
+            }
+            switch (length) {
+                case 0 -> country0 = value;
+                case 1 -> country1 = value;
+                case 2, 3 -> {
+                    if (value > 9) {
+                        return false;
+                    }
+                    checkDigits = checkDigits * 10 + value;
+                }
+                default -> remainder = foldMod97(remainder, value);
+            }
+            length++;
+        }
 
-    private String normalizeIban(final String iban) {
-        return iban == null ? "" : iban
-                .replaceAll("\\s+", "")
-                .toUpperCase();
+        if (length < 4 || country0 < 10 || country1 < 10
+                || IBAN_LENGTHS[countryIndex(country0 - 10 + 'A', country1 - 10 + 'A')] != length) {
+            return false;
+        }
+        remainder = foldMod97(remainder, country0);
+        remainder = foldMod97(remainder, country1);
+        remainder = (remainder * 100 + checkDigits) % IBAN_MODULUS;
+        return remainder == 1;
     }
 
-    private boolean hasValidLength(final String trimmedIban) {
-        return trimmedIban.length() >= IBAN_MIN_SIZE && trimmedIban.length() <= IBAN_MAX_SIZE;
+    private static int countryIndex(final int letter0, final int letter1) {
+        return (letter0 - 'A') * ALPHABET_SIZE + (letter1 - 'A');
     }
 
-    private String reformatIban(final String trimmedIban) {
-        return trimmedIban.substring(4) + trimmedIban.substring(0, 4);
+    private static int alphanumericValue(final char character) {
+        if (character >= '0' && character <= '9') {
+            return character - '0';
+        }
+        if (character >= 'A' && character <= 'Z') {
+            return character - 'A' + 10;
+        }
+        if (character >= 'a' && character <= 'z') {
+            return character - 'a' + 10;
+        }
+        return -1;
     }
 
-    private int computeMod97(final String reformatIban) {
-        long total = 0;
-
-        for (int i = 0; i < reformatIban.length(); i++) {
-
-            final int charValue = Character.getNumericValue(reformatIban.charAt(i));
-
-            if (charValue < 0 || charValue > 35) {
-                return -1;
-            }
-
-            total = (charValue > 9 ? total * 100 : total * 10) + charValue;
-
-            if (total > IBAN_MAX) {
-                total = (total % IBAN_MODULUS);
-            }
-        }
-        return (int) (total % IBAN_MODULUS);
+    private static int foldMod97(final int remainder, final int value) {
+        return ((value > 9 ? remainder * 100 : remainder * 10) + value) % IBAN_MODULUS;
     }
 }
@@ -0,0 +1,221 @@
+package com.lulippe.paymybuddy.utils;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount of euros held as a number of cents.
+ * <p>
+ * Amounts are stored as {@code NUMERIC(15,2)}, so a {@code long} of cents represents every balance exactly:
+ * additions and comparisons are plain integer operations and no {@link BigDecimal} is built on the transfer path.
+ * Amounts with more than two decimals are rounded half-even to the cent when they are parsed.
+ * </p>
+ *
+ * @param cents the amount in cents, negative for a debit
+ */
+@JsonSerialize(using = MoneySerializer.class)
+@JsonDeserialize(using = MoneyDeserializer.class)
+public record Money(long cents) implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+    private static final long CENTS_PER_UNIT = 100;
+    /**
+     * Integer digits of the largest amount a {@code long} of cents can hold, about 9.2e16.
+     */
+    private static final int MAX_INTEGER_DIGITS = 17;
+
+    /**
+     * Creates an amount from a number of cents.
+     *
+     * @param cents the amount in cents
+     * @return the amount
+     */
+    public static Money ofCents(final long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Creates an amount from a decimal value, rounded half-even to the cent.
+     *
+     * @param amount the decimal amount
+     * @return the amount
+     * @throws ArithmeticException if the amount does not fit in a {@code long} of cents
+     */
+    public static Money of(final BigDecimal amount) {
+        // checked on the exponent before rescaling: setScale on "1e99999999" or "1e-99999999" builds a power of ten
+        // with as many digits as the exponent
+        final long integerDigits = (long) amount.precision() - amount.scale();
+        if (integerDigits > MAX_INTEGER_DIGITS) {
+            throw new ArithmeticException("Amount does not fit in a long of cents");
+        }
+        if (integerDigits < -SCALE) {
+            // below a thousandth, which rounds to zero cents
+            return ZERO;
+        }
+        return ofCents(amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Parses a decimal amount such as {@code "12.5"}, {@code "-3"} or {@code " 0.125 "}, rounded half-even to the cent.
+     * <p>
+     * Plain decimal notation is read in a single pass without allocating; any other notation accepted by
+     * {@link BigDecimal#BigDecimal(String)} (e.g. an exponent) falls back to it.
+     * </p>
+     *
+     * @param value the amount to parse
+     * @return the amount
+     * @throws IllegalArgumentException if the value is null or blank
+     * @throws NumberFormatException    if the value is not a valid number
+     */
+    public static Money parse(final CharSequence value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null or empty");
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            throw new IllegalArgumentException("Value cannot be null or empty");
+        }
+
+        final boolean negative = value.charAt(start) == '-';
+        int index = negative || value.charAt(start) == '+' ? start + 1 : start;
+        long cents = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        int roundingDigit = 0;
+        boolean sticky = false;
+        for (; index < end; index++) {
+            final char character = value.charAt(index);
+            if (character == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            if (character < '0' || character > '9') {
+                return parseDecimal(value);
+            }
+            final int digit = character - '0';
+            if (fractionDigits < SCALE) {
+                cents = appendDigit(cents, digit);
+                if (cents < 0) {
+                    return parseDecimal(value);
+                }
+            } else if (fractionDigits == SCALE) {
+                roundingDigit = digit;
+            } else {
+                sticky |= digit != 0;
+            }
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+            digits++;
+        }
+        if (digits == 0) {
+            return parseDecimal(value);
+        }
+        for (int scale = Math.max(fractionDigits, 0); scale < SCALE; scale++) {
+            cents = appendDigit(cents, 0);
+        }
+        if (roundingDigit > 5 || roundingDigit == 5 && (sticky || (cents & 1) == 1)) {
+            cents = appendRounding(cents);
+        }
+        if (cents < 0) {
+            // beyond a long of cents: parseDecimal rejects it
+            return parseDecimal(value);
+        }
+        return ofCents(negative ? -cents : cents);
+    }
+
+    // -1 once the cents no longer fit in a long, which every later step keeps
+    private static long appendDigit(final long cents, final int digit) {
+        if (cents < 0) {
+            return -1;
+        }
+        try {
+            return Math.addExact(Math.multiplyExact(cents, 10), digit);
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    private static long appendRounding(final long cents) {
+        return cents < 0 || cents == Long.MAX_VALUE ? -1 : cents + 1;
+    }
+
+    private static Money parseDecimal(final CharSequence value) {
+        try {
+            return of(new BigDecimal(value.toString().trim()));
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new NumberFormatException("Value is not a valid number : " + value);
+        }
+    }
+
+    public Money plus(final Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(final Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    /**
+     * Multiplies this amount by a rate expressed as a fraction, rounded half-even to the cent.
+     * For instance {@code times(5, 1000)} is 0.5% of the amount.
+     *
+     * @param numerator   the numerator of the rate
+     * @param denominator the denominator of the rate, positive
+     * @return the rounded product
+     */
+    public Money times(final long numerator, final long denominator) {
+        final long product = Math.multiplyExact(cents, numerator);
+        long quotient = Math.floorDiv(product, denominator);
+        final long twiceRemainder = 2 * Math.floorMod(product, denominator);
+        if (twiceRemainder > denominator || twiceRemainder == denominator && (quotient & 1) == 1) {
+            quotient++;
+        }
+        return ofCents(quotient);
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    /**
+     * @return this amount as a decimal with a scale of 2, for the persistence and API boundaries
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    @Override
+    public int compareTo(final Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    /**
+     * @return the amount in plain notation with two decimals, e.g. {@code "-12.50"}
+     */
+    @Override
+    public String toString() {
+        final long units = Math.abs(cents / CENTS_PER_UNIT);
+        final long fraction = Math.abs(cents % CENTS_PER_UNIT);
+        return (cents < 0 ? "-" : "") + units + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,36 @@
+package com.lulippe.paymybuddy.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads a {@link Money} from a JSON number or string.
+ * <p>
+ * Numbers are parsed from their text as written in the document, so an amount like {@code 0.1} never goes
+ * through a {@code double}.
+ * </p>
+ */
+public class MoneyDeserializer extends StdScalarDeserializer<Money> {
+
+    public MoneyDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+        final JsonToken token = parser.currentToken();
+        if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_STRING) {
+            return (Money) context.handleUnexpectedToken(Money.class, parser);
+        }
+        final String text = parser.getText();
+        try {
+            return Money.parse(text);
+        } catch (IllegalArgumentException e) {
+            return (Money) context.handleWeirdStringValue(Money.class, text, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.lulippe.paymybuddy.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link Money} as a JSON number with two decimals, e.g. {@code 20.00}.
+ */
+public class MoneySerializer extends StdSerializer<Money> {
+
+    public MoneySerializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public void serialize(final Money value, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+        generator.writeNumber(value.toString());
+    }
+}
@@ -0,0 +1,54 @@
+package com.lulippe.paymybuddy.utils;
+
+import com.lulippe.paymybuddy.api.exception.InvalidDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a transaction history ordered by {@code executed_at DESC, transaction_id DESC}.
+ * <p>
+ * The cursor is exposed to clients as an opaque URL-safe string so the ordering keys can evolve
+ * without breaking the API contract.
+ * </p>
+ *
+ * @param executedAt    execution instant of the last transaction of the previous page
+ * @param transactionId identifier of the last transaction of the previous page, used as tie-breaker
+ */
+public record TransactionCursor(Instant executedAt, long transactionId) {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Encodes this position as an opaque cursor.
+     *
+     * @return the URL-safe cursor
+     */
+    public String encode() {
+        final String raw = executedAt + SEPARATOR + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param cursor the opaque cursor sent back by the client
+     * @return the decoded position
+     * @throws InvalidDataException if the cursor is malformed
+     */
+    public static TransactionCursor decode(final String cursor) {
+        try {
+            final String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final int separatorIndex = raw.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new InvalidDataException("Cursor is invalid");
+            }
+            return new TransactionCursor(
+                    Instant.parse(raw.substring(0, separatorIndex)),
+                    Long.parseLong(raw.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidDataException("Cursor is invalid");
+        }
+    }
+}
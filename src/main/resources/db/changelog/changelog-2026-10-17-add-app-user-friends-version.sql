@@ -0,0 +1,5 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment version of the friends list of each user, incremented by every friend addition; it is the ETag of the friends list endpoint
+ALTER TABLE app_user ADD COLUMN friends_version BIGINT NOT NULL DEFAULT 0;
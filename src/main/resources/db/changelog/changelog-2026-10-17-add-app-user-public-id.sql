@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment add an opaque identifier of each user, given out by the user search instead of the email to add a friend with
+ALTER TABLE app_user ADD COLUMN IF NOT EXISTS public_id UUID NOT NULL DEFAULT gen_random_uuid();
+CREATE UNIQUE INDEX IF NOT EXISTS idx_app_user_public_id
+    ON app_user (public_id);
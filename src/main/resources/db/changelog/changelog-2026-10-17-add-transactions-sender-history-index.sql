@@ -0,0 +1,6 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment add composite index backing the keyset pagination of a user's sent transactions
+CREATE INDEX IF NOT EXISTS idx_transactions_sender_executed_at
+    ON transactions (sender_id, executed_at DESC, transaction_id DESC);
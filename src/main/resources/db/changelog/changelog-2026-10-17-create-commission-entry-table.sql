@@ -0,0 +1,10 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment append-only commission entries, folded into the platform account by the compaction job
+CREATE TABLE IF NOT EXISTS commission_entry
+(
+    commission_entry_id BIGSERIAL      NOT NULL PRIMARY KEY,
+    amount              NUMERIC(15, 2) NOT NULL,
+    created_at          TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
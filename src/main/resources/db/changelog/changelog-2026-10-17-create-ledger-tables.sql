@@ -0,0 +1,43 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment double-entry ledger: each movement is a set of legs summing to zero, only ever inserted; a leg without user is the bank, outside the app; tx_id orders the legs against the snapshot horizons
+CREATE TABLE IF NOT EXISTS ledger_entry
+(
+    ledger_entry_id BIGSERIAL      NOT NULL PRIMARY KEY,
+    movement_id     UUID           NOT NULL,
+    user_id         BIGINT,
+    entry_type      VARCHAR(20)    NOT NULL,
+    amount          NUMERIC(15, 2) NOT NULL,
+    tx_id           XID8           NOT NULL DEFAULT pg_current_xact_id(),
+    created_at      TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_ledger_entry_user FOREIGN KEY (user_id) REFERENCES app_user (user_id)
+);
+CREATE INDEX IF NOT EXISTS idx_ledger_entry_user_tx ON ledger_entry (user_id, tx_id);
+CREATE INDEX IF NOT EXISTS idx_ledger_entry_tx ON ledger_entry (tx_id);
+
+--changeset lulippe:2
+--comment balance snapshots: app_user.account holds the balance of every entry whose transaction is older than the horizon of the latest snapshot
+CREATE TABLE IF NOT EXISTS ledger_snapshot
+(
+    ledger_snapshot_id BIGSERIAL NOT NULL PRIMARY KEY,
+    horizon            XID8      NOT NULL,
+    taken_at           TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+--changeset lulippe:3
+--comment open the ledger with the current balances, already in app_user.account, so before the first horizon
+INSERT INTO ledger_entry (movement_id, user_id, entry_type, amount, tx_id)
+SELECT opening.movement_id, leg.user_id, 'OPENING_BALANCE', leg.amount, '0'
+FROM (SELECT gen_random_uuid() AS movement_id, user_id, account FROM app_user WHERE account <> 0) opening
+         CROSS JOIN LATERAL (VALUES (opening.user_id, opening.account), (NULL::BIGINT, -opening.account)) AS leg (user_id, amount);
+INSERT INTO ledger_snapshot (horizon) VALUES ('1');
+
+--changeset lulippe:4
+--comment commissions not folded yet become a ledger movement after the first horizon, credited to the platform account; the ledger replaces commission_entry
+INSERT INTO ledger_entry (movement_id, user_id, entry_type, amount)
+SELECT pending.movement_id, leg.user_id, leg.entry_type, leg.amount
+FROM (SELECT gen_random_uuid() AS movement_id, SUM(amount) AS total FROM commission_entry HAVING SUM(amount) <> 0) pending
+         CROSS JOIN LATERAL (VALUES ((SELECT user_id FROM app_user WHERE system_account), 'COMMISSION', pending.total),
+                                    (NULL::BIGINT, 'OPENING_BALANCE', -pending.total)) AS leg (user_id, entry_type, amount);
+DROP TABLE IF EXISTS commission_entry;
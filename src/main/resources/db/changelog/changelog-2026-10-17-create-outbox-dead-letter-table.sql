@@ -0,0 +1,14 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment events still undelivered after paymybuddy.outbox.max-attempts deliveries, moved out of outbox_event so the relay stops leasing them; kept for an operator to inspect and replay
+CREATE TABLE IF NOT EXISTS outbox_dead_letter
+(
+    outbox_event_id  BIGINT        NOT NULL PRIMARY KEY,
+    event_type       VARCHAR(100)  NOT NULL,
+    payload          JSONB         NOT NULL,
+    attempts         INTEGER       NOT NULL,
+    last_error       VARCHAR(1000),
+    created_at       TIMESTAMP     NOT NULL,
+    dead_lettered_at TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,61 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment rebuild transactions partitioned by month of executed_at, which becomes part of the primary key and mandatory; the id sequence is kept
+ALTER SEQUENCE transactions_transaction_id_seq OWNED BY NONE;
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+CREATE TABLE transactions
+(
+    transaction_id BIGINT         NOT NULL DEFAULT nextval('transactions_transaction_id_seq'),
+    sender_id      INTEGER        NOT NULL,
+    receiver_id    INTEGER        NOT NULL,
+    description    VARCHAR(255),
+    amount         NUMERIC(15, 2) NOT NULL,
+    executed_at    TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_transactions_sender FOREIGN KEY (sender_id) REFERENCES app_user (user_id),
+    CONSTRAINT fk_transactions_receiver FOREIGN KEY (receiver_id) REFERENCES app_user (user_id)
+) PARTITION BY RANGE (executed_at);
+ALTER SEQUENCE transactions_transaction_id_seq OWNED BY transactions.transaction_id;
+
+--changeset lulippe:2 splitStatements:false
+--comment one partition per month from the oldest transaction to three months ahead, named transactions_yYYYYmMM; TransactionPartitionJob keeps creating them ahead
+DO
+$$
+    DECLARE
+        month DATE;
+    BEGIN
+        FOR month IN SELECT generate_series(
+                                    date_trunc('month', COALESCE((SELECT MIN(executed_at) FROM transactions_unpartitioned), LOCALTIMESTAMP)),
+                                    date_trunc('month', LOCALTIMESTAMP) + INTERVAL '3 months',
+                                    INTERVAL '1 month')::DATE
+            LOOP
+                EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                               'transactions_y' || to_char(month, 'YYYY') || 'm' || to_char(month, 'MM'),
+                               month, (month + INTERVAL '1 month')::DATE);
+            END LOOP;
+    END
+$$;
+
+--changeset lulippe:3
+--comment move the rows, then index the partitioned table: the history indexes are created on every partition; executed_at was always set by the application
+INSERT INTO transactions (transaction_id, sender_id, receiver_id, description, amount, executed_at)
+SELECT transaction_id, sender_id, receiver_id, description, amount, COALESCE(executed_at, LOCALTIMESTAMP)
+FROM transactions_unpartitioned;
+DROP TABLE transactions_unpartitioned;
+ALTER TABLE transactions ADD PRIMARY KEY (transaction_id, executed_at);
+CREATE INDEX IF NOT EXISTS idx_transactions_sender_executed_at
+    ON transactions (sender_id, executed_at DESC, transaction_id DESC);
+CREATE INDEX IF NOT EXISTS idx_transactions_receiver_executed_at
+    ON transactions (receiver_id, executed_at, transaction_id);
+
+--changeset lulippe:4
+--comment cold months are detached from transactions and attached here by TransactionPartitionJob, without their history indexes
+CREATE TABLE IF NOT EXISTS transactions_archive
+(
+    transaction_id BIGINT         NOT NULL,
+    sender_id      INTEGER        NOT NULL,
+    receiver_id    INTEGER        NOT NULL,
+    description    VARCHAR(255),
+    amount         NUMERIC(15, 2) NOT NULL,
+    executed_at    TIMESTAMP      NOT NULL
+) PARTITION BY RANGE (executed_at);
@@ -0,0 +1,15 @@
+package com.lulippe.paymybuddy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+// web slice tests run without the metrics auto-configuration, which the error handler needs a registry from
+@TestConfiguration
+public class TestMeterRegistryConfig {
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+}
@@ -1,21 +1,31 @@
 package com.lulippe.paymybuddy.api.controller;
 
+import com.lulippe.paymybuddy.TestMeterRegistryConfig;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lulippe.paymybuddy.api.exception.InvalidDataException;
 import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
 import com.lulippe.paymybuddy.bankTransfer.model.BankTransferResponse;
 import com.lulippe.paymybuddy.bankTransfer.model.BankWithdrawResponse;
 import com.lulippe.paymybuddy.service.BankTransferService;
+import com.lulippe.paymybuddy.service.IdempotencyService;
+import com.lulippe.paymybuddy.utils.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doThrow;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -25,6 +35,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(controllers = BankTransferController.class)
 @AutoConfigureMockMvc
+@Import(TestMeterRegistryConfig.class)
 class BankTransferControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -32,9 +43,21 @@ class BankTransferControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockitoBean
     private BankTransferService bankTransferService;
 
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void runIdempotentOperationsDirectly() {
+        given(idempotencyService.execute(any(), any(), any(), any(), any(), any()))
+                .willAnswer(invocation -> invocation.<Supplier<?>>getArgument(5).get());
+    }
+
     @Test
     @WithMockUser(username = "test@test.com", roles = "USER")
     @DisplayName("should return a BankTransferResponse")
@@ -43,7 +66,7 @@ class BankTransferControllerTest {
         final String email = "test@test.com";
         final String iban = "FR7712739000408237965421Y19";
         final String testBankHolder = "testBankHolder";
-        final double amount = 20.126;
+        final Money amount = Money.parse("20.126");
         final BankTransferRequest request = new BankTransferRequest();
         request.setAmount(amount);
         request.setBankHolder(testBankHolder);
@@ -74,7 +97,7 @@ class BankTransferControllerTest {
         final String email = "test@test.com";
         final String iban = "invalidIban";
         final String testBankHolder = "testBankHolder";
-        final double amount = 20.126;
+        final Money amount = Money.parse("20.126");
         final BankTransferRequest request = new BankTransferRequest();
         request.setAmount(amount);
         request.setBankHolder(testBankHolder);
@@ -90,6 +113,10 @@ class BankTransferControllerTest {
                         .content(objectMapper.writeValueAsString(request))
                 )
                 .andExpect(status().isBadRequest());
+        assertEquals(1, meterRegistry.get("paymybuddy.api.errors")
+                .tag("exception", "InvalidDataException")
+                .tag("status", "400")
+                .counter().count());
     }
 
     @Test
@@ -101,7 +128,7 @@ class BankTransferControllerTest {
         final String username = "testUsername";
         final String iban = "FR7712739000408237965421Y19";
         final String testBankHolder = "testBankHolder";
-        final double amount = 20.126;
+        final Money amount = Money.parse("20.126");
         final BankTransferRequest request = new BankTransferRequest();
         request.setAmount(amount);
         request.setBankHolder(testBankHolder);
@@ -1,35 +1,59 @@
 package com.lulippe.paymybuddy.api.controller;
 
+import com.lulippe.paymybuddy.TestMeterRegistryConfig;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lulippe.paymybuddy.api.exception.InsufficientFundsException;
+import com.lulippe.paymybuddy.api.exception.InvalidDataException;
 import com.lulippe.paymybuddy.api.exception.NonExistentEntityException;
+import com.lulippe.paymybuddy.service.IdempotencyService;
+import com.lulippe.paymybuddy.service.IdempotencyService.IdempotentOperation;
+import com.lulippe.paymybuddy.service.TransactionExportService;
+import com.lulippe.paymybuddy.service.TransactionExportService.ExportFormat;
 import com.lulippe.paymybuddy.service.TransactionService;
 import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.transaction.model.TransferBatch;
+import com.lulippe.paymybuddy.transaction.model.TransferBatchResult;
+import com.lulippe.paymybuddy.transaction.model.TransferPage;
+import com.lulippe.paymybuddy.utils.Money;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.CannotCreateTransactionException;
 
-import java.math.BigDecimal;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = TransactionController.class)
 @AutoConfigureMockMvc
+@Import(TestMeterRegistryConfig.class)
 class TransactionControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -39,6 +63,18 @@ class TransactionControllerTest {
     @MockitoBean
     private TransactionService transactionService;
 
+    @MockitoBean
+    private TransactionExportService transactionExportService;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void runIdempotentOperationsDirectly() {
+        given(idempotencyService.execute(any(), any(), any(), any(), any(), any()))
+                .willAnswer(invocation -> invocation.<Supplier<?>>getArgument(5).get());
+    }
+
     @Test
     @WithMockUser(username = "test@test.com", roles = "USER")
     @DisplayName("should return a list of transfers")
@@ -80,6 +116,98 @@ class TransactionControllerTest {
                 .andExpect(content().string("User with email test@test.com does not exist"));
     }
 
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return a page of transfers")
+    void shouldReturnAPageOfTransfers() throws Exception {
+        //given
+        final String email = "test@test.com";
+        final String friend = "friend";
+        final String amount = "10.00";
+        final String cursor = "cursor";
+        final String nextCursor = "nextCursor";
+
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName(friend);
+        transfer.setAmount(amount);
+
+        final TransferPage transferPage = new TransferPage();
+        transferPage.setTransfers(Collections.singletonList(transfer));
+        transferPage.setNextCursor(nextCursor);
+        given(transactionService.getUserSentTransactionPage(email, cursor, 10)).willReturn(transferPage);
+
+        //when & then
+        mockMvc.perform(get("/transactions/v0/me/page")
+                        .param("cursor", cursor)
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transfers", hasSize(1)))
+                .andExpect(jsonPath("$.transfers[0].friendName").value(friend))
+                .andExpect(jsonPath("$.transfers[0].amount").value(amount))
+                .andExpect(jsonPath("$.nextCursor").value(nextCursor));
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return Bad Request if page size is above the cap")
+    void shouldReturnBadRequestIfPageSizeIsAboveTheCap() throws Exception {
+        //when & then
+        mockMvc.perform(get("/transactions/v0/me/page")
+                        .param("size", "51"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return Bad Request if cursor is invalid")
+    void shouldReturnBadRequestIfCursorIsInvalid() throws Exception {
+        //given
+        final String email = "test@test.com";
+        final String cursor = "invalid";
+        doThrow(new InvalidDataException("Cursor is invalid")).when(transactionService).getUserSentTransactionPage(email, cursor, 20);
+
+        //when & then
+        mockMvc.perform(get("/transactions/v0/me/page")
+                        .param("cursor", cursor))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Cursor is invalid"));
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should stream the transaction export as an attachment")
+    void shouldStreamTheTransactionExportAsAnAttachment() throws Exception {
+        //given
+        final String email = "test@test.com";
+        final String csv = "transaction_id,executed_at,direction,counterparty,description,amount\n";
+        willAnswer(invocation -> {
+            invocation.getArgument(2, OutputStream.class).write(csv.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).given(transactionExportService).exportLedger(eq(email), eq(ExportFormat.CSV), any(OutputStream.class));
+
+        //when
+        final MvcResult mvcResult = mockMvc.perform(get("/transactions/v0/me/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"transactions.csv\""))
+                .andExpect(content().string(csv));
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return Bad Request if export format is unknown")
+    void shouldReturnBadRequestIfExportFormatIsUnknown() throws Exception {
+        //when & then
+        mockMvc.perform(get("/transactions/v0/me/export")
+                        .param("format", "xlsx"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "test@test.com", roles = "USER")
     @DisplayName("should transfer money to friend")
@@ -160,7 +288,7 @@ class TransactionControllerTest {
         transfer.setFriendName(friendName);
         transfer.setAmount(amount);
         transfer.setDescription(description);
-        final BigDecimal commission = BigDecimal.valueOf(0.02);
+        final Money commission = Money.parse("0.02");
         final String response = "Transfer of " + amount + " € from " + email + " to " + friendName + " completed successfully. A commission of " + commission + " € has been deducted from your account";
         given(transactionService.sendMoneyToFriendV1(transfer,email)).willReturn(response);
 
@@ -172,6 +300,53 @@ class TransactionControllerTest {
         ).andExpect(status().isOk());
     }
 
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should hand the Idempotency-Key header over to the idempotency service")
+    void shouldHandTheIdempotencyKeyHeaderOverToTheIdempotencyService() throws Exception {
+        //given
+        final String email = "test@test.com";
+        final String idempotencyKey = "2f1c6c1e-retry";
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName("friend");
+        transfer.setAmount("10.00");
+        transfer.setDescription("description");
+        willReturn("stored response").given(idempotencyService)
+                .execute(eq(email), eq(IdempotentOperation.TRANSFER_TO_FRIEND_V1), eq(idempotencyKey), eq(transfer), eq(String.class), any());
+
+        //when & then
+        mockMvc.perform(post("/transactions/v1/me")
+                .with(csrf())
+                .header("Idempotency-Key", idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transfer))
+        ).andExpect(status().isOk())
+                .andExpect(content().string("stored response"));
+        verify(transactionService, never()).sendMoneyToFriendV1(any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return Service Unavailable with Retry-After if no database connection frees up in time V1")
+    void shouldReturnServiceUnavailableIfNoDatabaseConnectionFreesUpInTimeV1() throws Exception {
+        //given
+        final String email = "test@test.com";
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName("friend");
+        transfer.setAmount("10.00");
+        transfer.setDescription("description");
+        doThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction"))
+                .when(transactionService).sendMoneyToFriendV1(transfer, email);
+
+        //when & then
+        mockMvc.perform(post("/transactions/v1/me")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transfer))
+        ).andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
     @Test
     @WithMockUser(username = "test@test.com", roles = "USER")
     @DisplayName("should return Conflict if fund is not sufficient V1")
@@ -258,4 +433,54 @@ class TransactionControllerTest {
                 .content(objectMapper.writeValueAsString(transfer))
         ).andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should transfer money to several friends in one batch V1")
+    void shouldTransferMoneyToSeveralFriendsInOneBatchV1() throws Exception {
+        //given
+        final String email = "test@test.com";
+        final Transfer first = new Transfer();
+        first.setFriendName("first");
+        first.setAmount("10.00");
+        first.setDescription("description");
+        final Transfer second = new Transfer();
+        second.setFriendName("second");
+        second.setAmount("20.00");
+        second.setDescription("description");
+        final TransferBatch transferBatch = new TransferBatch();
+        transferBatch.setTransfers(List.of(first, second));
+        final TransferBatchResult result = new TransferBatchResult();
+        result.setTransferCount(2);
+        result.setTotalAmount("30.00");
+        result.setTotalCommission("0.15");
+        given(transactionService.sendMoneyToFriendsV1(List.of(first, second), email)).willReturn(result);
+
+        //when & then
+        mockMvc.perform(post("/transactions/v1/me/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transferBatch))
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("$.transferCount").value(2))
+                .andExpect(jsonPath("$.totalAmount").value("30.00"))
+                .andExpect(jsonPath("$.totalCommission").value("0.15"));
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return Bad Request when the transfer batch is empty")
+    void shouldReturnBadRequestWhenTheTransferBatchIsEmpty() throws Exception {
+        //given
+        final TransferBatch transferBatch = new TransferBatch();
+        transferBatch.setTransfers(Collections.emptyList());
+
+        //when & then
+        mockMvc.perform(post("/transactions/v1/me/batch")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transferBatch))
+        ).andExpect(status().isBadRequest());
+        verify(transactionService, never()).sendMoneyToFriendsV1(any(), any());
+    }
+}
@@ -1,15 +1,24 @@
 package com.lulippe.paymybuddy.api.controller;
 
+import com.lulippe.paymybuddy.TestMeterRegistryConfig;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lulippe.paymybuddy.api.exception.EntityAlreadyExistsException;
+import com.lulippe.paymybuddy.persistence.projection.FriendsListVersion;
+import com.lulippe.paymybuddy.service.AuthService;
+import com.lulippe.paymybuddy.service.FriendSuggestionService;
+import com.lulippe.paymybuddy.service.UserSearchService;
 import com.lulippe.paymybuddy.service.UserService;
+import com.lulippe.paymybuddy.user.model.FriendSuggestion;
 import com.lulippe.paymybuddy.user.model.InformationsToUpdate;
 import com.lulippe.paymybuddy.user.model.UserFriend;
+import com.lulippe.paymybuddy.user.model.UserSearchResult;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -17,11 +26,16 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -29,6 +43,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(controllers = UserController.class)
 @AutoConfigureMockMvc
+@Import(TestMeterRegistryConfig.class)
 class UserControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -37,6 +52,15 @@ class UserControllerTest {
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private FriendSuggestionService friendSuggestionService;
+
+    @MockitoBean
+    private UserSearchService userSearchService;
+
+    @MockitoBean
+    private AuthService authService;
+
     @Test
     @WithMockUser(username = "test@test.com", roles = "USER")
     @DisplayName("should add new friend")
@@ -56,6 +80,53 @@ class UserControllerTest {
                 .andExpect(content().string("User added"));
     }
 
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should add new friend by the identifier given by the user search")
+    void shouldAddNewFriendByTheIdentifierGivenByTheUserSearch() throws Exception {
+        //given
+        final UUID friendId = UUID.randomUUID();
+        final String userEmail = "test@test.com";
+
+        //when
+        mockMvc.perform(post("/users/me/friends/v0")
+                        .with(csrf())
+                        .param("friendId", friendId.toString())
+                )
+                .andExpect(status().isOk())
+                .andExpect(content().string("User added"));
+
+        //then
+        verify(userService).handleFriendAddition(userEmail, friendId);
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return BAD_REQUEST without a friend identifier nor email")
+    void shouldReturnBadRequestWithoutAFriendIdentifierNorEmail() throws Exception {
+        //when & then
+        mockMvc.perform(post("/users/me/friends/v0")
+                        .with(csrf())
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Exactly one of friendId and friendEmail is required"));
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return BAD_REQUEST with both a friend identifier and email")
+    void shouldReturnBadRequestWithBothAFriendIdentifierAndEmail() throws Exception {
+        //when & then
+        mockMvc.perform(post("/users/me/friends/v0")
+                        .with(csrf())
+                        .param("friendId", UUID.randomUUID().toString())
+                        .param("friendEmail", "friend@test.com")
+                )
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(userService);
+    }
+
     @Test
     @WithMockUser(username = "test@test.com", roles = "USER")
     @DisplayName("should return CONFLICT")
@@ -63,7 +134,7 @@ class UserControllerTest {
         //given
         final String friendEmail = "friend@test.com";
         final String userEmail = "test@test.com";
-        doThrow(new EntityAlreadyExistsException("Friend already added in current user friend list : " + friendEmail)).when(userService).handleFriendAddition(userEmail, friendEmail);
+        doThrow(new EntityAlreadyExistsException("Friend already added in current user friend list : friend")).when(userService).handleFriendAddition(userEmail, friendEmail);
 
         //when & then
         mockMvc.perform(post("/users/me/friends/v0")
@@ -72,7 +143,7 @@ class UserControllerTest {
                         .param("friendEmail", friendEmail)
                 )
                 .andExpect(status().isConflict())
-                .andExpect(content().string("Friend already added in current user friend list : " + friendEmail));
+                .andExpect(content().string("Friend already added in current user friend list : friend"));
     }
 
     @Test
@@ -108,11 +179,14 @@ class UserControllerTest {
         userFriend2.setFriendName(friendName2);
 
         final List<UserFriend> userFriendList = List.of(userFriend1, userFriend2);
+        given(userService.getFriendsListVersion(userEmail)).willReturn(new FriendsListVersion(1L, 2L));
         given(userService.getAllUserFriend(userEmail)).willReturn(userFriendList);
 
         //when & then
         mockMvc.perform(get("/users/me/friends/v0"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-2\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0].friendName").value(friendName1))
                 .andExpect(jsonPath("$[1].friendName").value(friendName2));
@@ -125,6 +199,7 @@ class UserControllerTest {
         final String userEmail = "test@test.com";
 
         final List<UserFriend> userFriendList = Collections.emptyList();
+        given(userService.getFriendsListVersion(userEmail)).willReturn(new FriendsListVersion(1L, 0L));
         given(userService.getAllUserFriend(userEmail)).willReturn(userFriendList);
 
         //when & then
@@ -133,6 +208,90 @@ class UserControllerTest {
                 .andExpect(jsonPath("$", hasSize(0)));
     }
 
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return 304 without reading the friend list when If-None-Match holds the current version")
+    void shouldReturnNotModifiedWhenIfNoneMatchHoldsTheCurrentVersion() throws Exception {
+        //given
+        final String userEmail = "test@test.com";
+        given(userService.getFriendsListVersion(userEmail)).willReturn(new FriendsListVersion(1L, 2L));
+
+        //when & then
+        mockMvc.perform(get("/users/me/friends/v0").header(HttpHeaders.IF_NONE_MATCH, "\"1-1\", W/\"1-2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-2\""))
+                .andExpect(content().string(""));
+        verify(userService, never()).getAllUserFriend(userEmail);
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return the friend list when If-None-Match holds an older version")
+    void shouldReturnTheFriendListWhenIfNoneMatchHoldsAnOlderVersion() throws Exception {
+        //given
+        final String userEmail = "test@test.com";
+        final UserFriend userFriend = new UserFriend();
+        userFriend.setFriendName("Albert");
+        given(userService.getFriendsListVersion(userEmail)).willReturn(new FriendsListVersion(1L, 3L));
+        given(userService.getAllUserFriend(userEmail)).willReturn(List.of(userFriend));
+
+        //when & then
+        mockMvc.perform(get("/users/me/friends/v0").header(HttpHeaders.IF_NONE_MATCH, "\"1-2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""))
+                .andExpect(jsonPath("$[0].friendName").value("Albert"));
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return the friend suggestions of the connected user")
+    void shouldReturnTheFriendSuggestionsOfTheConnectedUser() throws Exception {
+        //given
+        final String userEmail = "test@test.com";
+        final FriendSuggestion suggestion = new FriendSuggestion();
+        suggestion.setFriendName("Charlie");
+        suggestion.setMutualFriends(2);
+        given(friendSuggestionService.getFriendSuggestions(userEmail, 5)).willReturn(List.of(suggestion));
+
+        //when & then
+        mockMvc.perform(get("/users/me/friends/suggestions/v0").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].friendName").value("Charlie"))
+                .andExpect(jsonPath("$[0].mutualFriends").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return the users matching the search term")
+    void shouldReturnTheUsersMatchingTheSearchTerm() throws Exception {
+        //given
+        final String userEmail = "test@test.com";
+        final UUID friendId = UUID.randomUUID();
+        final UserSearchResult result = new UserSearchResult();
+        result.setUsername("Charlie");
+        result.setFriendId(friendId);
+        given(userSearchService.searchUsers(userEmail, "char", 10)).willReturn(List.of(result));
+
+        //when & then
+        mockMvc.perform(get("/users/search/v0").param("q", "char"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].username").value("Charlie"))
+                .andExpect(jsonPath("$[0].friendId").value(friendId.toString()))
+                .andExpect(jsonPath("$[0].email").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "test@test.com", roles = "USER")
+    @DisplayName("should return BAD_REQUEST for a search term shorter than 3 characters")
+    void shouldReturnBadRequestForASearchTermShorterThan3Characters() throws Exception {
+        //when & then
+        mockMvc.perform(get("/users/search/v0").param("q", "ch"))
+                .andExpect(status().isBadRequest());
+        verify(userSearchService, never()).searchUsers(any(), any(), any());
+    }
+
     @Test
     @WithMockUser(username = "test@test.com", roles = "USER")
     @DisplayName("Should update user information")
@@ -148,7 +307,7 @@ class UserControllerTest {
         informationsToUpdate.setPassword(newPassword);
         informationsToUpdate.setUsername(newUsername);
 
-        doNothing().when(userService).updateUserProfil(userEmail,informationsToUpdate);
+        doNothing().when(authService).handleProfileUpdate(userEmail,informationsToUpdate);
 
         //when & then
         mockMvc.perform(patch("/users/me/v0")
@@ -156,6 +315,7 @@ class UserControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(informationsToUpdate))
         ).andExpect(status().isOk());
+        verify(authService).handleProfileUpdate(userEmail, informationsToUpdate);
     }
 
 
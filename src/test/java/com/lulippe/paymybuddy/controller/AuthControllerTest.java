@@ -1,9 +1,11 @@
 package com.lulippe.paymybuddy.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lulippe.paymybuddy.TestMeterRegistryConfig;
 import com.lulippe.paymybuddy.TestSecurityConfig;
 import com.lulippe.paymybuddy.api.controller.AuthController;
 import com.lulippe.paymybuddy.api.exception.EntityAlreadyExistsException;
+import com.lulippe.paymybuddy.api.exception.ServiceUnavailableException;
 import com.lulippe.paymybuddy.service.AuthService;
 import com.lulippe.paymybuddy.user.model.RegisterRequest;
 import org.junit.jupiter.api.DisplayName;
@@ -20,11 +22,12 @@ import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = AuthController.class)
 @AutoConfigureMockMvc
-@Import(TestSecurityConfig.class)
+@Import({TestSecurityConfig.class, TestMeterRegistryConfig.class})
 class AuthControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -81,4 +84,24 @@ class AuthControllerTest {
                 .andExpect(status().isConflict())
                 .andExpect(content().string("A user with this email or username already exists"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("should return Service Unavailable when the password hashing queue is full")
+    void shouldReturnServiceUnavailableWhenThePasswordHashingQueueIsFull() throws Exception {
+        //given
+        final RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setUsername("username");
+        registerRequest.setPassword("password");
+        registerRequest.setEmail("email@email.com");
+        registerRequest.setRole(RegisterRequest.RoleEnum.USER);
+
+        doThrow(new ServiceUnavailableException("Too many requests, please retry later")).when(authService).handleRegisterRequest(registerRequest);
+
+        //when & then
+        mockMvc.perform(post("/auth/register/v0")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+}
@@ -4,7 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
 import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.service.LedgerService;
 import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import com.lulippe.paymybuddy.utils.Money;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +18,6 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -39,6 +40,9 @@ public class BankTransferControllerIT {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private LedgerService ledgerService;
+
     @Test
     @DisplayName("should add money to the user account")
     void shouldAddMoneyToTheUserAccount() throws Exception {
@@ -49,10 +53,10 @@ public class BankTransferControllerIT {
         final AppUser user = createUserInDB(username, email, password);
         final String iban = "FR7712739000408237965421Y19";
         final String receivedAmount = "100.00";
-        final BigDecimal amount = new BigDecimal(receivedAmount);
+        final Money amount = Money.parse(receivedAmount);
         final BankTransferRequest bankTransferRequest = new BankTransferRequest();
         bankTransferRequest.setBankHolder(username);
-        bankTransferRequest.setAmount(100.00);
+        bankTransferRequest.setAmount(Money.parse("100.00"));
         bankTransferRequest.setIban(iban);
 
         //when & then
@@ -68,7 +72,7 @@ public class BankTransferControllerIT {
 
         final AppUser refreshUser = appUserRepository.findByUsername(username)
                 .orElseThrow(() -> new AssertionError("Expected user not found"));
-        assertEquals(amount, refreshUser.getAccount());
+        assertEquals(amount, ledgerService.getBalance(refreshUser.getUserId()));
     }
 
     @Test
@@ -81,7 +85,7 @@ public class BankTransferControllerIT {
         final AppUser user = createUserInDB(username, email, password);
         final BankTransferRequest bankTransferRequest = new BankTransferRequest();
         bankTransferRequest.setBankHolder(username);
-        bankTransferRequest.setAmount(100.00);
+        bankTransferRequest.setAmount(Money.parse("100.00"));
         bankTransferRequest.setIban(iban);
         final String expectedError = "IBAN is invalid";
         //when & then
@@ -107,12 +111,12 @@ public class BankTransferControllerIT {
         final String iban = "FR7712739000408237965421Y19";
         final BankTransferRequest bankTransferRequest = new BankTransferRequest();
         bankTransferRequest.setBankHolder(username);
-        bankTransferRequest.setAmount(100.00);
+        bankTransferRequest.setAmount(Money.parse("100.00"));
         bankTransferRequest.setIban(iban);
         final AppUser refreshUser = performTransferFromBank(user,bankTransferRequest);
 
         final BankTransferRequest request = new BankTransferRequest();
-        request.setAmount(50.00);
+        request.setAmount(Money.parse("50.00"));
         request.setBankHolder(username);
         request.setIban(iban);
 
@@ -141,12 +145,12 @@ public class BankTransferControllerIT {
         final String iban = "FR7712739000408237965421Y19";
         final BankTransferRequest bankTransferRequest = new BankTransferRequest();
         bankTransferRequest.setBankHolder(username);
-        bankTransferRequest.setAmount(100.00);
+        bankTransferRequest.setAmount(Money.parse("100.00"));
         bankTransferRequest.setIban(iban);
         final AppUser refreshUser = performTransferFromBank(user,bankTransferRequest);
 
         final BankTransferRequest request = new BankTransferRequest();
-        request.setAmount(150.00);
+        request.setAmount(Money.parse("150.00"));
         request.setBankHolder(username);
         request.setIban(iban);
 
@@ -0,0 +1,127 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.lulippe.paymybuddy.service.FriendSuggestionService;
+import com.lulippe.paymybuddy.service.UserService;
+import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import jakarta.persistence.EntityManager;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Friend suggestions from the friendships committed through the service, and from those only found in the table.
+ * <p>
+ * Not transactional on purpose: the friend graph only takes committed friendships. The users created here are removed after each test.
+ * </p>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class FriendSuggestionIT {
+    private static final String EMAIL_PREFIX = "suggestions-";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private FriendSuggestionService friendSuggestionService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        for (final String name : new String[]{"alice", "bob", "carol", "dave", "eve"}) {
+            userService.createAppUser("Suggestions " + name, email(name), "hashed", RegisterRequest.RoleEnum.USER);
+        }
+        userService.handleFriendAddition(email("alice"), email("bob"));
+        userService.handleFriendAddition(email("alice"), email("carol"));
+        userService.handleFriendAddition(email("bob"), email("dave"));
+        userService.handleFriendAddition(email("carol"), email("dave"));
+        userService.handleFriendAddition(email("bob"), email("eve"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("DELETE FROM {h-schema}user_friend WHERE user_id IN "
+                            + "(SELECT user_id FROM {h-schema}app_user WHERE email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}app_user WHERE email LIKE :prefix")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("should suggest the friends of friends added through the service, most mutual friends first, with 2 statements")
+    void shouldSuggestTheFriendsOfFriendsAddedThroughTheService() throws Exception {
+        //when
+        mockMvc.perform(get("/users/me/friends/suggestions/v0")
+                        .with(user(email("alice")).roles("USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].friendName").value("Suggestions dave"))
+                .andExpect(jsonPath("$[0].mutualFriends").value(2))
+                .andExpect(jsonPath("$[1].friendName").value("Suggestions eve"))
+                .andExpect(jsonPath("$[1].mutualFriends").value(1));
+
+        //then
+        assertEquals(2, QueryCountHolder.getGrandTotal().getTotal());
+    }
+
+    @Test
+    @DisplayName("should suggest the friendships found in the table once the graph is reloaded")
+    void shouldSuggestTheFriendshipsFoundInTheTableOnceTheGraphIsReloaded() throws Exception {
+        //given
+        transactionTemplate.executeWithoutResult(status -> entityManager.createNativeQuery(
+                        "INSERT INTO {h-schema}user_friend (user_id, friend_id) "
+                                + "SELECT u.user_id, f.user_id FROM {h-schema}app_user u, {h-schema}app_user f "
+                                + "WHERE u.email = :carol AND f.email = :eve")
+                .setParameter("carol", email("carol"))
+                .setParameter("eve", email("eve"))
+                .executeUpdate());
+
+        //when
+        friendSuggestionService.loadFriendships();
+
+        //then
+        mockMvc.perform(get("/users/me/friends/suggestions/v0")
+                        .with(user(email("alice")).roles("USER"))
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].friendName").value("Suggestions dave"))
+                .andExpect(jsonPath("$[0].mutualFriends").value(2));
+        mockMvc.perform(get("/users/me/friends/suggestions/v0")
+                        .with(user(email("alice")).roles("USER")))
+                .andExpect(jsonPath("$[1].friendName").value("Suggestions eve"))
+                .andExpect(jsonPath("$[1].mutualFriends").value(2));
+    }
+
+    private static String email(final String name) {
+        return EMAIL_PREFIX + name + "@mail.com";
+    }
+}
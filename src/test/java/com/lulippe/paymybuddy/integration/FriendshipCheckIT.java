@@ -0,0 +1,114 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.service.UserService;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Friendship checks for a user with 5,000 friends: the existence query against loading the friends list,
+ * which is what the transfers used to do.
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class FriendshipCheckIT {
+    private static final int FRIEND_COUNT = 5_000;
+    private static final int CHECK_COUNT = 200;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private AppUser popularUser;
+    private AppUser lastFriend;
+    private AppUser stranger;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.createNativeQuery("INSERT INTO {h-schema}app_user (username, email, password, role, account, system_account) "
+                        + "SELECT 'Popular ' || i, 'popular-' || i || '@mail.com', 'hashed', 'USER', 0, false "
+                        + "FROM generate_series(0, :friendCount + 1) AS i")
+                .setParameter("friendCount", FRIEND_COUNT)
+                .executeUpdate();
+        entityManager.createNativeQuery("INSERT INTO {h-schema}user_friend (user_id, friend_id) "
+                        + "SELECT u.user_id, f.user_id FROM {h-schema}app_user u, {h-schema}app_user f "
+                        + "WHERE u.email = 'popular-0@mail.com' AND f.email LIKE 'popular-%' "
+                        + "AND f.email NOT IN ('popular-0@mail.com', 'popular-' || (:friendCount + 1) || '@mail.com')")
+                .setParameter("friendCount", FRIEND_COUNT)
+                .executeUpdate();
+        popularUser = userService.getAppUserByEmail("popular-0@mail.com");
+        lastFriend = userService.getAppUserByEmail("popular-" + FRIEND_COUNT + "@mail.com");
+        stranger = userService.getAppUserByEmail("popular-" + (FRIEND_COUNT + 1) + "@mail.com");
+    }
+
+    @Test
+    @DisplayName("should check a friendship among 5,000 friends with a single statement")
+    void shouldCheckAFriendshipAmong5000FriendsWithASingleStatement() {
+        //given
+        entityManager.clear();
+        QueryCountHolder.clear();
+
+        //when
+        userService.checkIfReceiverIsAFriend(lastFriend, popularUser);
+        assertThrows(IllegalArgumentException.class, () -> userService.checkIfReceiverIsAFriend(stranger, popularUser));
+
+        //then
+        assertEquals(2, QueryCountHolder.getGrandTotal().getTotal());
+    }
+
+    @Test
+    @DisplayName("should check a friendship among 5,000 friends faster than by loading the friends list")
+    void shouldCheckAFriendshipAmong5000FriendsFasterThanByLoadingTheFriendsList() {
+        //given
+        final String email = popularUser.getEmail();
+        for (int i = 0; i < CHECK_COUNT / 10; i++) {
+            loadFriendsListContains(email);
+            appUserRepository.existsFriendship(popularUser.getUserId(), lastFriend.getUserId());
+        }
+
+        //when
+        final long loadStart = System.nanoTime();
+        for (int i = 0; i < CHECK_COUNT; i++) {
+            assertTrue(loadFriendsListContains(email));
+        }
+        final long loadMicros = (System.nanoTime() - loadStart) / 1_000 / CHECK_COUNT;
+        final long existsStart = System.nanoTime();
+        for (int i = 0; i < CHECK_COUNT; i++) {
+            entityManager.clear();
+            assertTrue(appUserRepository.existsFriendship(popularUser.getUserId(), lastFriend.getUserId()));
+        }
+        final long existsMicros = (System.nanoTime() - existsStart) / 1_000 / CHECK_COUNT;
+        log.info("friendship check among {} friends: {} us loading the friends list, {} us with the existence query",
+                FRIEND_COUNT, loadMicros, existsMicros);
+
+        //then
+        assertFalse(appUserRepository.existsFriendship(popularUser.getUserId(), stranger.getUserId()));
+        assertTrue(existsMicros < loadMicros, () -> existsMicros + " us is not faster than " + loadMicros + " us");
+    }
+
+    private boolean loadFriendsListContains(final String email) {
+        entityManager.clear();
+        return userService.getAppUserByEmail(email).getFriends().contains(lastFriend);
+    }
+}
@@ -0,0 +1,245 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
+import com.lulippe.paymybuddy.persistence.entities.LedgerEntry;
+import com.lulippe.paymybuddy.persistence.enums.LedgerEntryType;
+import com.lulippe.paymybuddy.persistence.projection.SnapshotBalance;
+import com.lulippe.paymybuddy.service.BankTransferService;
+import com.lulippe.paymybuddy.service.LedgerReconciliationService;
+import com.lulippe.paymybuddy.service.LedgerService;
+import com.lulippe.paymybuddy.service.TransactionService;
+import com.lulippe.paymybuddy.service.UserService;
+import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import com.lulippe.paymybuddy.utils.Money;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Movements recorded in the ledger, and balances derived from it across snapshots.
+ * <p>
+ * Not transactional on purpose: a snapshot only folds the entries of transactions that are over. The users created here
+ * are removed after each test, with the ledger movements they took part in, once folded into a snapshot: the platform
+ * account then gets back its balance from before the test.
+ * </p>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class LedgerIT {
+    private static final String EMAIL_PREFIX = "ledger-";
+    private static final String SENDER = "sender";
+    private static final String RECEIVER = "receiver";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BankTransferService bankTransferService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerReconciliationService ledgerReconciliationService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Money platformBalanceBefore;
+
+    @BeforeEach
+    void setUp() {
+        platformBalanceBefore = ledgerService.getPlatformBalance();
+        createFundedUser(SENDER);
+        createFundedUser(RECEIVER);
+        userService.handleFriendAddition(email(SENDER), email(RECEIVER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerService.takeSnapshot();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("UPDATE {h-schema}app_user SET account = :account WHERE system_account = true")
+                    .setParameter("account", platformBalanceBefore.toBigDecimal())
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}ledger_entry WHERE movement_id IN "
+                            + "(SELECT e.movement_id FROM {h-schema}ledger_entry e JOIN {h-schema}app_user u ON u.user_id = e.user_id "
+                            + "WHERE u.email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}transactions WHERE sender_id IN "
+                            + "(SELECT user_id FROM {h-schema}app_user WHERE email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}user_friend WHERE user_id IN "
+                            + "(SELECT user_id FROM {h-schema}app_user WHERE email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}app_user WHERE email LIKE :prefix")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("should record every movement as legs summing to zero")
+    void shouldRecordEveryMovementAsLegsSummingToZero() {
+        //when
+        transactionService.sendMoneyToFriendV1(transfer("20.00"), email(SENDER));
+        bankTransferService.performTransferToBank(bankTransferRequest(RECEIVER, "10.00"), email(RECEIVER));
+
+        //then
+        final Map<UUID, List<LedgerEntry>> movements = transactionTemplate.execute(status -> entityManager
+                .createQuery("SELECT e FROM LedgerEntry e WHERE e.movementId IN "
+                        + "(SELECT m.movementId FROM LedgerEntry m WHERE m.userId IN :userIds)", LedgerEntry.class)
+                .setParameter("userIds", List.of(userId(SENDER), userId(RECEIVER)))
+                .getResultStream()
+                .collect(Collectors.groupingBy(LedgerEntry::getMovementId)));
+        assertEquals(4, movements.size());
+        movements.values().forEach(legs -> assertEquals(Money.ZERO,
+                legs.stream().map(LedgerEntry::getAmount).reduce(Money.ZERO, Money::plus)));
+        assertTrue(movements.values().stream().anyMatch(legs -> legs.stream()
+                .anyMatch(leg -> leg.getEntryType() == LedgerEntryType.COMMISSION && leg.getAmount().equals(Money.parse("0.10")))));
+        assertEquals(Money.parse("79.90"), balance(SENDER));
+        assertEquals(Money.parse("110.00"), balance(RECEIVER));
+        assertEquals(platformBalanceBefore.plus(Money.parse("0.10")), ledgerService.getPlatformBalance());
+    }
+
+    @Test
+    @DisplayName("should keep every balance when the entries are folded into a snapshot")
+    void shouldKeepEveryBalanceWhenTheEntriesAreFoldedIntoASnapshot() {
+        //given
+        transactionService.sendMoneyToFriendV1(transfer("20.00"), email(SENDER));
+        final Money platformBalance = ledgerService.getPlatformBalance();
+
+        //when
+        ledgerService.takeSnapshot();
+
+        //then
+        assertEquals(Money.parse("79.90"), balance(SENDER));
+        assertEquals(Money.parse("120.00"), balance(RECEIVER));
+        assertEquals(platformBalance, ledgerService.getPlatformBalance());
+        assertEquals(Money.parse("79.90"), snapshotBalance(SENDER));
+        assertEquals(Money.parse("120.00"), snapshotBalance(RECEIVER));
+    }
+
+    @Test
+    @DisplayName("should fold the entries of a transaction still running at the snapshot into the next one, exactly once")
+    void shouldFoldTheEntriesOfATransactionStillRunningIntoTheNextSnapshot() throws Exception {
+        //given
+        final CountDownLatch recorded = new CountDownLatch(1);
+        final CountDownLatch snapshotTaken = new CountDownLatch(1);
+        final CompletableFuture<Void> deposit = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            bankTransferService.performBankTransfer(bankTransferRequest(SENDER, "50.00"), email(SENDER));
+            recorded.countDown();
+            try {
+                assertTrue(snapshotTaken.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertTrue(recorded.await(10, TimeUnit.SECONDS));
+
+        //when
+        ledgerService.takeSnapshot();
+        // read before the deposit commits: once it has, the scheduled snapshot may fold it at any time
+        final Money snapshotBalanceWhileRunning = snapshotBalance(SENDER);
+        snapshotTaken.countDown();
+        deposit.get(10, TimeUnit.SECONDS);
+
+        //then
+        assertEquals(Money.parse("100.00"), snapshotBalanceWhileRunning);
+        assertEquals(Money.parse("150.00"), balance(SENDER));
+        ledgerService.takeSnapshot();
+        assertEquals(Money.parse("150.00"), balance(SENDER));
+        assertEquals(Money.parse("150.00"), snapshotBalance(SENDER));
+    }
+
+    @Test
+    @DisplayName("should report the snapshots that do not match the ledger")
+    void shouldReportTheSnapshotsThatDoNotMatchTheLedger() {
+        //given
+        transactionService.sendMoneyToFriendV1(transfer("20.00"), email(SENDER));
+        ledgerService.takeSnapshot();
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createNativeQuery("UPDATE {h-schema}app_user SET account = account + 1 WHERE email = :email")
+                .setParameter("email", email(SENDER))
+                .executeUpdate());
+
+        //when
+        final LedgerReconciliationService.ReconciliationReport report = ledgerReconciliationService.reconcile();
+
+        //then
+        final List<Long> discrepantUserIds = report.discrepancies().stream().map(SnapshotBalance::userId).toList();
+        assertTrue(discrepantUserIds.contains(userId(SENDER)));
+        assertFalse(discrepantUserIds.contains(userId(RECEIVER)));
+        assertTrue(report.discrepancies().contains(
+                new SnapshotBalance(userId(SENDER), Money.parse("80.90"), Money.parse("79.90"))));
+    }
+
+    private void createFundedUser(final String suffix) {
+        userService.createAppUser("Ledger " + suffix, email(suffix), "hashed", RegisterRequest.RoleEnum.USER);
+        bankTransferService.performBankTransfer(bankTransferRequest(suffix, "100.00"), email(suffix));
+    }
+
+    private Long userId(final String suffix) {
+        return userService.getAppUserByEmail(email(suffix)).getUserId();
+    }
+
+    private Money balance(final String suffix) {
+        return ledgerService.getBalance(userId(suffix));
+    }
+
+    private Money snapshotBalance(final String suffix) {
+        return Money.of((BigDecimal) entityManager.createNativeQuery("SELECT account FROM {h-schema}app_user WHERE email = :email")
+                .setParameter("email", email(suffix))
+                .getSingleResult());
+    }
+
+    private static BankTransferRequest bankTransferRequest(final String suffix, final String amount) {
+        final BankTransferRequest request = new BankTransferRequest();
+        request.setBankHolder("Ledger " + suffix);
+        request.setIban("FR7712739000408237965421Y19");
+        request.setAmount(Money.parse(amount));
+        return request;
+    }
+
+    private static Transfer transfer(final String amount) {
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName("Ledger " + RECEIVER);
+        transfer.setAmount(amount);
+        transfer.setDescription("ledger");
+        return transfer;
+    }
+
+    private static String email(final String suffix) {
+        return EMAIL_PREFIX + suffix + "@mail.com";
+    }
+}
@@ -0,0 +1,114 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
+import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import com.lulippe.paymybuddy.utils.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@Transactional
+class MetricsIT {
+    private static final String EMAIL = "metrics@mail.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("should expose operation, error, statement, pool and Hibernate metrics to Prometheus")
+    void shouldExposeMetricsToPrometheus() throws Exception {
+        //given
+        register();
+        mockMvc.perform(post("/transfer-from-bank/v0")
+                        .with(user(EMAIL).roles("USER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bankTransferRequest("100.00"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/transfer-to-bank/v0")
+                        .with(user(EMAIL).roles("USER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bankTransferRequest("150.00"))))
+                .andExpect(status().isConflict());
+        mockMvc.perform(formLogin("/auth/login").user(EMAIL).password("wrong password"));
+
+        //when
+        final String scrape = mockMvc.perform(get("/actuator/prometheus").with(user("prometheus").roles("ACTUATOR")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        //then
+        assertMetric(scrape, "paymybuddy_auth_registrations_seconds_count", "exception=\"none\"");
+        assertMetric(scrape, "paymybuddy_bank_operations_seconds_count", "direction=\"from-bank\"", "exception=\"none\"");
+        assertMetric(scrape, "paymybuddy_bank_operations_seconds_count", "direction=\"to-bank\"", "exception=\"InsufficientFundsException\"");
+        assertMetric(scrape, "paymybuddy_bank_operations_seconds_bucket", "direction=\"from-bank\"", "le=\"0.1\"");
+        assertMetric(scrape, "paymybuddy_api_errors_total", "exception=\"InsufficientFundsException\"", "status=\"409\"");
+        assertMetric(scrape, "paymybuddy_auth_logins_total", "outcome=\"failure\"", "exception=\"BadCredentialsException\"");
+        assertMetric(scrape, "paymybuddy_http_statements_count", "method=\"POST\"", "uri=\"/transfer-from-bank/v0\"");
+        assertMetric(scrape, "paymybuddy_http_statements_bucket", "uri=\"/transfer-from-bank/v0\"", "le=\"10.0\"");
+        assertMetric(scrape, "paymybuddy_http_statements_time_seconds_count", "uri=\"/transfer-from-bank/v0\"");
+        assertMetric(scrape, "hikaricp_connections_active");
+        assertMetric(scrape, "hibernate_sessions_open_total");
+    }
+
+    @Test
+    @DisplayName("should only open the health check on the public port")
+    void shouldOnlyOpenTheHealthCheckOnThePublicPort() throws Exception {
+        //when & then
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(user(EMAIL).roles("USER")))
+                .andExpect(status().isForbidden());
+    }
+
+    private void register() throws Exception {
+        final RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setUsername("Metrics");
+        registerRequest.setEmail(EMAIL);
+        registerRequest.setPassword("123");
+        registerRequest.setRole(RegisterRequest.RoleEnum.USER);
+        mockMvc.perform(post("/auth/register/v0")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isCreated());
+    }
+
+    private static BankTransferRequest bankTransferRequest(final String amount) {
+        final BankTransferRequest request = new BankTransferRequest();
+        request.setBankHolder("Metrics");
+        request.setIban("FR7712739000408237965421Y19");
+        request.setAmount(Money.parse(amount));
+        return request;
+    }
+
+    private static void assertMetric(final String scrape, final String name, final String... labels) {
+        assertTrue(scrape.lines().anyMatch(line -> line.startsWith(name)
+                        && Arrays.stream(labels).allMatch(line::contains)),
+                () -> name + " " + Arrays.toString(labels) + " not found in the Prometheus scrape");
+    }
+}
@@ -0,0 +1,210 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.lulippe.paymybuddy.api.exception.InsufficientFundsException;
+import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
+import com.lulippe.paymybuddy.event.TransferCompletedEvent;
+import com.lulippe.paymybuddy.service.BankTransferService;
+import com.lulippe.paymybuddy.service.LedgerService;
+import com.lulippe.paymybuddy.service.OutboxRelayService;
+import com.lulippe.paymybuddy.service.TransactionService;
+import com.lulippe.paymybuddy.service.UserService;
+import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import com.lulippe.paymybuddy.utils.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Events published to the outbox by the transfers, and their relay.
+ * <p>
+ * Not transactional on purpose: events are only relayed once the transfer commits. The scheduled relay runs alongside,
+ * so the events are told apart by the description of their transfer and the relay is awaited rather than expected
+ * at a given time. The users created here are removed after each test, with their ledger movements and events.
+ * </p>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class OutboxIT {
+    private static final String EMAIL_PREFIX = "outbox-";
+    private static final String SENDER = "sender";
+    private static final String RECEIVER = "receiver";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BankTransferService bankTransferService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private OutboxRelayService outboxRelayService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema}")
+    private String schema;
+
+    @Value("${paymybuddy.outbox.max-attempts}")
+    private int maxAttempts;
+
+    private Money platformBalanceBefore;
+
+    private String description;
+
+    @BeforeEach
+    void setUp() {
+        platformBalanceBefore = ledgerService.getPlatformBalance();
+        description = "outbox " + UUID.randomUUID();
+        createFundedUser(SENDER);
+        createFundedUser(RECEIVER);
+        userService.handleFriendAddition(email(SENDER), email(RECEIVER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerService.takeSnapshot();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM " + schema + ".outbox_event WHERE payload ->> 'description' = ?", description);
+            jdbcTemplate.update("DELETE FROM " + schema + ".outbox_dead_letter WHERE payload ->> 'description' = ?", description);
+            jdbcTemplate.update("UPDATE " + schema + ".app_user SET account = ? WHERE system_account = true",
+                    platformBalanceBefore.toBigDecimal());
+            jdbcTemplate.update("DELETE FROM " + schema + ".ledger_entry WHERE movement_id IN (SELECT e.movement_id FROM "
+                    + schema + ".ledger_entry e JOIN " + schema + ".app_user u ON u.user_id = e.user_id WHERE u.email LIKE ?)",
+                    EMAIL_PREFIX + "%");
+            jdbcTemplate.update("DELETE FROM " + schema + ".transactions WHERE sender_id IN (SELECT user_id FROM "
+                    + schema + ".app_user WHERE email LIKE ?)", EMAIL_PREFIX + "%");
+            jdbcTemplate.update("DELETE FROM " + schema + ".user_friend WHERE user_id IN (SELECT user_id FROM "
+                    + schema + ".app_user WHERE email LIKE ?)", EMAIL_PREFIX + "%");
+            jdbcTemplate.update("DELETE FROM " + schema + ".app_user WHERE email LIKE ?", EMAIL_PREFIX + "%");
+        });
+    }
+
+    @Test
+    @DisplayName("should publish the transfer in its own transaction and relay it once committed")
+    void shouldPublishTheTransferInItsOwnTransactionAndRelayItOnceCommitted() throws Exception {
+        //when
+        final Map<String, Object> published = transactionTemplate.execute(status -> {
+            transactionService.sendMoneyToFriendV1(transfer("20.00"), email(SENDER));
+            // read before the transfer commits: the scheduled relay may deliver the event at any time after
+            return jdbcTemplate.queryForMap("SELECT event_type, payload ->> 'amount' AS amount, payload ->> 'commission' AS commission"
+                    + " FROM " + schema + ".outbox_event WHERE payload ->> 'description' = ?", description);
+        });
+        outboxRelayService.relayAvailableEvents();
+
+        //then
+        assertNotNull(published);
+        assertEquals(TransferCompletedEvent.class.getSimpleName(), published.get("event_type"));
+        assertEquals("20.00", published.get("amount"));
+        assertEquals("0.10", published.get("commission"));
+        await(() -> pendingEvents() == 0);
+    }
+
+    @Test
+    @DisplayName("should publish nothing when the transfer rolls back")
+    void shouldPublishNothingWhenTheTransferRollsBack() {
+        //when
+        assertThrows(InsufficientFundsException.class,
+                () -> transactionService.sendMoneyToFriendV1(transfer("1000.00"), email(SENDER)));
+
+        //then
+        assertEquals(0, pendingEvents());
+    }
+
+    @Test
+    @DisplayName("should reschedule an event its handler cannot handle, with the error")
+    void shouldRescheduleAnEventItsHandlerCannotHandle() throws Exception {
+        //given
+        jdbcTemplate.update("INSERT INTO " + schema + ".outbox_event (event_type, payload) VALUES (?, ?::jsonb)",
+                TransferCompletedEvent.class.getSimpleName(), "{\"description\": \"" + description + "\", \"amount\": \"not money\"}");
+
+        //when
+        outboxRelayService.relayAvailableEvents();
+
+        //then
+        await(() -> jdbcTemplate.queryForObject("SELECT attempts FROM " + schema + ".outbox_event WHERE payload ->> 'description' = ?",
+                Integer.class, description) == 1);
+        final Map<String, Object> event = jdbcTemplate.queryForMap("SELECT last_error, available_at > LOCALTIMESTAMP AS delayed"
+                + " FROM " + schema + ".outbox_event WHERE payload ->> 'description' = ?", description);
+        assertNotNull(event.get("last_error"));
+        assertTrue((Boolean) event.get("delayed"));
+    }
+
+    @Test
+    @DisplayName("should move an event to the dead letters when its last allowed delivery fails")
+    void shouldMoveAnEventToTheDeadLettersWhenItsLastAllowedDeliveryFails() throws Exception {
+        //given
+        jdbcTemplate.update("INSERT INTO " + schema + ".outbox_event (event_type, payload, attempts) VALUES (?, ?::jsonb, ?)",
+                TransferCompletedEvent.class.getSimpleName(), "{\"description\": \"" + description + "\", \"amount\": \"not money\"}",
+                maxAttempts - 1);
+
+        //when
+        outboxRelayService.relayAvailableEvents();
+
+        //then
+        await(() -> pendingEvents() == 0);
+        final Map<String, Object> deadLetter = jdbcTemplate.queryForMap("SELECT attempts, last_error FROM " + schema
+                + ".outbox_dead_letter WHERE payload ->> 'description' = ?", description);
+        assertEquals(maxAttempts, deadLetter.get("attempts"));
+        assertNotNull(deadLetter.get("last_error"));
+    }
+
+    private long pendingEvents() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + schema + ".outbox_event WHERE payload ->> 'description' = ?",
+                Long.class, description);
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 10 seconds");
+            Thread.sleep(50);
+        }
+    }
+
+    private void createFundedUser(final String suffix) {
+        userService.createAppUser("Outbox " + suffix, email(suffix), "hashed", RegisterRequest.RoleEnum.USER);
+        final BankTransferRequest request = new BankTransferRequest();
+        request.setBankHolder("Outbox " + suffix);
+        request.setIban("FR7712739000408237965421Y19");
+        request.setAmount(Money.parse("100.00"));
+        bankTransferService.performBankTransfer(request, email(suffix));
+    }
+
+    private Transfer transfer(final String amount) {
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName("Outbox " + RECEIVER);
+        transfer.setAmount(amount);
+        transfer.setDescription(description);
+        return transfer;
+    }
+
+    private static String email(final String suffix) {
+        return EMAIL_PREFIX + suffix + "@mail.com";
+    }
+}
@@ -0,0 +1,408 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
+import com.lulippe.paymybuddy.service.BankTransferService;
+import com.lulippe.paymybuddy.service.LedgerService;
+import com.lulippe.paymybuddy.service.UserService;
+import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.transaction.model.TransferBatch;
+import com.lulippe.paymybuddy.user.model.InformationsToUpdate;
+import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import com.lulippe.paymybuddy.utils.Money;
+import jakarta.persistence.EntityManager;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of SQL statements each endpoint runs, as counted by the statement budget filter,
+ * so that a change adding a lazy load or an N+1 select fails here.
+ * <p>
+ * Not transactional on purpose: within a test transaction the writes would never be flushed, nor counted.
+ * The users created here are removed after each test, with their ledger movements. Sequence fetches are left out of the counts: with ids
+ * allocated by 50, whether a request fetches the next block depends on the requests run before it.
+ * </p>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class StatementCountIT {
+    private static final String EMAIL_PREFIX = "statements-";
+    private static final String SENDER = "sender";
+    private static final String FRIEND = "friend";
+    private static final String STRANGER = "stranger";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BankTransferService bankTransferService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SequenceFetchCounter sequenceFetchCounter;
+
+    private Money platformBalanceBefore;
+
+    @TestConfiguration
+    static class SequenceFetchCounterConfiguration {
+        @Bean
+        SequenceFetchCounter sequenceFetchCounter() {
+            return new SequenceFetchCounter();
+        }
+    }
+
+    /**
+     * Counts the {@code nextval} calls of the current thread.
+     */
+    static class SequenceFetchCounter implements QueryExecutionListener {
+        private final ThreadLocal<AtomicLong> fetches = ThreadLocal.withInitial(AtomicLong::new);
+
+        @Override
+        public void beforeQuery(final ExecutionInfo execInfo, final List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(final ExecutionInfo execInfo, final List<QueryInfo> queryInfoList) {
+            if (queryInfoList.stream().anyMatch(queryInfo -> queryInfo.getQuery().contains("nextval("))) {
+                fetches.get().incrementAndGet();
+            }
+        }
+
+        void reset() {
+            fetches.get().set(0);
+        }
+
+        long get() {
+            return fetches.get().get();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        platformBalanceBefore = ledgerService.getPlatformBalance();
+        createFundedUser(SENDER);
+        createFundedUser(FRIEND);
+        createFundedUser(STRANGER);
+        userService.handleFriendAddition(email(SENDER), email(FRIEND));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerService.takeSnapshot();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("UPDATE {h-schema}app_user SET account = :account WHERE system_account = true")
+                    .setParameter("account", platformBalanceBefore.toBigDecimal())
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}ledger_entry WHERE movement_id IN "
+                            + "(SELECT e.movement_id FROM {h-schema}ledger_entry e JOIN {h-schema}app_user u ON u.user_id = e.user_id "
+                            + "WHERE u.email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}idempotency_record WHERE user_email LIKE :prefix")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}transactions WHERE sender_id IN "
+                            + "(SELECT user_id FROM {h-schema}app_user WHERE email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}user_friend WHERE user_id IN "
+                            + "(SELECT user_id FROM {h-schema}app_user WHERE email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}app_user WHERE email LIKE :prefix")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("should register a user with 2 statements")
+    void shouldRegisterAUserWith2Statements() throws Exception {
+        //given
+        final RegisterRequest registerRequest = new RegisterRequest();
+        registerRequest.setUsername("Statements new");
+        registerRequest.setEmail(email("new"));
+        registerRequest.setPassword("123");
+        registerRequest.setRole(RegisterRequest.RoleEnum.USER);
+
+        //when
+        final long statements = statementsOf(post("/auth/register/v0")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(registerRequest)), status().isCreated());
+
+        //then
+        assertEquals(2, statements);
+    }
+
+    @Test
+    @DisplayName("should list the friends with 2 statements")
+    void shouldListTheFriendsWith2Statements() throws Exception {
+        //when
+        final long statements = statementsOf(get("/users/me/friends/v0")
+                .with(user(email(SENDER)).roles("USER")), status().isOk());
+
+        //then
+        assertEquals(2, statements);
+    }
+
+    @Test
+    @DisplayName("should revalidate an unchanged friends list without any statement")
+    void shouldRevalidateAnUnchangedFriendsListWithoutAnyStatement() throws Exception {
+        //given
+        final String eTag = mockMvc.perform(get("/users/me/friends/v0")
+                        .with(user(email(SENDER)).roles("USER")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //when
+        final long statements = statementsOf(get("/users/me/friends/v0")
+                .with(user(email(SENDER)).roles("USER"))
+                .header(HttpHeaders.IF_NONE_MATCH, eTag), status().isNotModified());
+
+        //then
+        assertEquals(0, statements);
+    }
+
+    @Test
+    @DisplayName("should change the friends list ETag when a friend is added")
+    void shouldChangeTheFriendsListETagWhenAFriendIsAdded() throws Exception {
+        //given
+        final String eTag = mockMvc.perform(get("/users/me/friends/v0")
+                        .with(user(email(SENDER)).roles("USER")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(post("/users/me/friends/v0")
+                        .with(csrf())
+                        .with(user(email(SENDER)).roles("USER"))
+                        .param("friendEmail", email(STRANGER)))
+                .andExpect(status().isOk());
+
+        //when & then
+        mockMvc.perform(get("/users/me/friends/v0")
+                        .with(user(email(SENDER)).roles("USER"))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    @DisplayName("should change the friends list ETag when a friend renames themselves")
+    void shouldChangeTheFriendsListETagWhenAFriendRenamesThemselves() throws Exception {
+        //given
+        final String eTag = mockMvc.perform(get("/users/me/friends/v0")
+                        .with(user(email(SENDER)).roles("USER")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        final InformationsToUpdate informationsToUpdate = new InformationsToUpdate();
+        informationsToUpdate.setUsername("Statements renamed friend");
+        mockMvc.perform(patch("/users/me/v0")
+                        .with(csrf())
+                        .with(user(email(FRIEND)).roles("USER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(informationsToUpdate)))
+                .andExpect(status().isOk());
+
+        //when & then
+        mockMvc.perform(get("/users/me/friends/v0")
+                        .with(user(email(SENDER)).roles("USER"))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$[0].friendName").value("Statements renamed friend"));
+    }
+
+    @Test
+    @DisplayName("should add a friend with 3 statements")
+    void shouldAddAFriendWith3Statements() throws Exception {
+        //when
+        final long statements = statementsOf(post("/users/me/friends/v0")
+                .with(csrf())
+                .with(user(email(SENDER)).roles("USER"))
+                .param("friendEmail", email(STRANGER)), status().isOk());
+
+        //then
+        assertEquals(3, statements);
+    }
+
+    @Test
+    @DisplayName("should rename the user with 4 statements")
+    void shouldRenameTheUserWith4Statements() throws Exception {
+        //given
+        final InformationsToUpdate informationsToUpdate = new InformationsToUpdate();
+        informationsToUpdate.setUsername("Statements renamed");
+
+        //when
+        final long statements = statementsOf(patch("/users/me/v0")
+                .with(csrf())
+                .with(user(email(SENDER)).roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(informationsToUpdate)), status().isOk());
+
+        //then
+        assertEquals(4, statements);
+    }
+
+    @Test
+    @DisplayName("should list the sent transactions with 2 statements")
+    void shouldListTheSentTransactionsWith2Statements() throws Exception {
+        //when
+        final long statements = statementsOf(get("/transactions/v0/me")
+                .with(user(email(SENDER)).roles("USER")), status().isOk());
+
+        //then
+        assertEquals(2, statements);
+    }
+
+    @Test
+    @DisplayName("should page the sent transactions with 2 statements")
+    void shouldPageTheSentTransactionsWith2Statements() throws Exception {
+        //when
+        final long statements = statementsOf(get("/transactions/v0/me/page")
+                .with(user(email(SENDER)).roles("USER")), status().isOk());
+
+        //then
+        assertEquals(2, statements);
+    }
+
+    @Test
+    @DisplayName("should transfer to a friend V1 with 8 statements")
+    void shouldTransferToAFriendV1With8Statements() throws Exception {
+        //when
+        final long statements = statementsOf(post("/transactions/v1/me")
+                .with(csrf())
+                .with(user(email(SENDER)).roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transfer())), status().isOk());
+
+        //then
+        assertEquals(8, statements);
+    }
+
+    @Test
+    @DisplayName("should transfer a batch of 10 V1 with 7 statements")
+    void shouldTransferABatchOf10V1With7Statements() throws Exception {
+        //given
+        final TransferBatch transferBatch = new TransferBatch();
+        for (int i = 0; i < 10; i++) {
+            transferBatch.addTransfersItem(transfer());
+        }
+
+        //when
+        final long statements = statementsOf(post("/transactions/v1/me/batch")
+                .with(csrf())
+                .with(user(email(SENDER)).roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transferBatch)), status().isOk());
+
+        //then
+        assertEquals(7, statements);
+    }
+
+    @Test
+    @DisplayName("should transfer from the bank with 3 statements")
+    void shouldTransferFromTheBankWith3Statements() throws Exception {
+        //when
+        final long statements = statementsOf(post("/transfer-from-bank/v0")
+                .with(csrf())
+                .with(user(email(SENDER)).roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bankTransferRequest(SENDER))), status().isOk());
+
+        //then
+        assertEquals(3, statements);
+    }
+
+    @Test
+    @DisplayName("should transfer to the bank with 4 statements")
+    void shouldTransferToTheBankWith4Statements() throws Exception {
+        //when
+        final long statements = statementsOf(post("/transfer-to-bank/v0")
+                .with(csrf())
+                .with(user(email(SENDER)).roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bankTransferRequest(SENDER))), status().isOk());
+
+        //then
+        assertEquals(4, statements);
+    }
+
+    private long statementsOf(final MockHttpServletRequestBuilder request, final ResultMatcher expectedStatus) throws Exception {
+        sequenceFetchCounter.reset();
+        mockMvc.perform(request).andExpect(expectedStatus);
+        return QueryCountHolder.getGrandTotal().getTotal() - sequenceFetchCounter.get();
+    }
+
+    private void createFundedUser(final String suffix) {
+        userService.createAppUser("Statements " + suffix, email(suffix), "hashed", RegisterRequest.RoleEnum.USER);
+        bankTransferService.performBankTransfer(bankTransferRequest(suffix), email(suffix));
+    }
+
+    private static BankTransferRequest bankTransferRequest(final String suffix) {
+        final BankTransferRequest request = new BankTransferRequest();
+        request.setBankHolder("Statements " + suffix);
+        request.setIban("FR7712739000408237965421Y19");
+        request.setAmount(Money.parse("100.00"));
+        return request;
+    }
+
+    private static Transfer transfer() {
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName("Statements " + FRIEND);
+        transfer.setAmount("1.00");
+        transfer.setDescription("statements");
+        return transfer;
+    }
+
+    private static String email(final String suffix) {
+        return EMAIL_PREFIX + suffix + "@mail.com";
+    }
+}
@@ -3,9 +3,20 @@ package com.lulippe.paymybuddy.integration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.entities.Transaction;
 import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.service.LedgerService;
+import com.lulippe.paymybuddy.service.TransactionExportService;
+import com.lulippe.paymybuddy.service.TransactionExportService.ExportFormat;
 import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.transaction.model.TransferBatch;
+import com.lulippe.paymybuddy.transaction.model.TransferPage;
 import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import com.lulippe.paymybuddy.utils.Money;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,19 +25,26 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @ActiveProfiles("test")
 @AutoConfigureMockMvc
 @Transactional
@@ -40,6 +58,18 @@ public class TransactionControllerIT {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     @DisplayName("should send money to friend ")
     void shouldSendMoneyToFriend() throws Exception {
@@ -59,7 +89,7 @@ public class TransactionControllerIT {
         final String iban = "FR7712739000408237965421Y19";
         final BankTransferRequest bankTransferRequest = new BankTransferRequest();
         bankTransferRequest.setBankHolder(username);
-        bankTransferRequest.setAmount(100.00);
+        bankTransferRequest.setAmount(Money.parse("100.00"));
         bankTransferRequest.setIban(iban);
 
         final AppUser refreshUser1 = performTransferFromBank(updateWithFriendUser1,bankTransferRequest);
@@ -69,8 +99,8 @@ public class TransactionControllerIT {
         transfer.setAmount("20.00");
         transfer.setDescription(description);
 
-        final BigDecimal expectedAmountUser1 = new BigDecimal("80.00");
-        final BigDecimal expectedAmountUser2 = new BigDecimal("20.00");
+        final Money expectedAmountUser1 = Money.parse("80.00");
+        final Money expectedAmountUser2 = Money.parse("20.00");
         //when & then
         mockMvc.perform(post("/transactions/v0/me")
                 .with(csrf())
@@ -85,8 +115,8 @@ public class TransactionControllerIT {
         final AppUser updateUser2 = appUserRepository.findByUsername(username2)
                 .orElseThrow(() -> new AssertionError("User not found in DB"));
 
-        assertEquals(expectedAmountUser1,updateUser1.getAccount());
-        assertEquals(expectedAmountUser2,updateUser2.getAccount());
+        assertEquals(expectedAmountUser1,balanceOf(updateUser1));
+        assertEquals(expectedAmountUser2,balanceOf(updateUser2));
     }
 
     @Test
@@ -108,7 +138,7 @@ public class TransactionControllerIT {
         final String iban = "FR7712739000408237965421Y19";
         final BankTransferRequest bankTransferRequest = new BankTransferRequest();
         bankTransferRequest.setBankHolder(username);
-        bankTransferRequest.setAmount(100.00);
+        bankTransferRequest.setAmount(Money.parse("100.00"));
         bankTransferRequest.setIban(iban);
 
         final AppUser refreshUser1 = performTransferFromBank(updateWithFriendUser1,bankTransferRequest);
@@ -118,8 +148,8 @@ public class TransactionControllerIT {
         transfer.setAmount("150.00");
         transfer.setDescription(description);
         final String expectedError = "Insufficient funds";
-        final BigDecimal expectedAmountUser1 = new BigDecimal("100.00");
-        final BigDecimal expectedAmountUser2 = new BigDecimal("0");
+        final Money expectedAmountUser1 = Money.parse("100.00");
+        final Money expectedAmountUser2 = Money.parse("0.00");
 
         //when & then
         mockMvc.perform(post("/transactions/v0/me")
@@ -136,8 +166,8 @@ public class TransactionControllerIT {
         final AppUser updateUser2 = appUserRepository.findByUsername(username2)
                 .orElseThrow(() -> new AssertionError("User not found in DB"));
 
-        assertEquals(expectedAmountUser1,updateUser1.getAccount());
-        assertEquals(expectedAmountUser2,updateUser2.getAccount());
+        assertEquals(expectedAmountUser1,balanceOf(updateUser1));
+        assertEquals(expectedAmountUser2,balanceOf(updateUser2));
 
     }
 
@@ -160,7 +190,7 @@ public class TransactionControllerIT {
         final String iban = "FR7712739000408237965421Y19";
         final BankTransferRequest bankTransferRequest = new BankTransferRequest();
         bankTransferRequest.setBankHolder(username);
-        bankTransferRequest.setAmount(1000.00);
+        bankTransferRequest.setAmount(Money.parse("1000.00"));
         bankTransferRequest.setIban(iban);
 
         final AppUser refreshUser1 = performTransferFromBank(updateWithFriendUser1,bankTransferRequest);
@@ -170,9 +200,10 @@ public class TransactionControllerIT {
         transfer.setAmount("200.00");
         transfer.setDescription(description);
 
-        final BigDecimal expectedAmountUser1 = new BigDecimal("799.00");
-        final BigDecimal expectedAmountUser2 = new BigDecimal("200.00");
-        final BigDecimal appCommission = new BigDecimal("1.00");
+        final Money expectedAmountUser1 = Money.parse("799.00");
+        final Money expectedAmountUser2 = Money.parse("200.00");
+        final Money appCommission = Money.parse("1.00");
+        final Money platformBalanceBefore = ledgerService.getPlatformBalance();
         mockMvc.perform(post("/transactions/v1/me")
                 .with(csrf())
                 .with(user(refreshUser1.getEmail()).roles("USER"))
@@ -186,12 +217,365 @@ public class TransactionControllerIT {
         final AppUser updateUser2 = appUserRepository.findByUsername(username2)
                 .orElseThrow(() -> new AssertionError("User not found in DB"));
 
-        assertEquals(expectedAmountUser1,updateUser1.getAccount());
-        assertEquals(expectedAmountUser2,updateUser2.getAccount());
+        assertEquals(expectedAmountUser1,balanceOf(updateUser1));
+        assertEquals(expectedAmountUser2,balanceOf(updateUser2));
 
-        final AppUser system = appUserRepository.findByUsername("PLATFORM")
-                .orElseThrow(() -> new AssertionError("User not found in DB"));
-        assertEquals(appCommission,system.getAccount());
+        assertEquals(platformBalanceBefore.plus(appCommission),ledgerService.getPlatformBalance());
+    }
+
+    @Test
+    @DisplayName("should move money once when a V1 transfer is retried with the same Idempotency-Key")
+    void shouldMoveMoneyOnceWhenAV1TransferIsRetriedWithTheSameIdempotencyKey() throws Exception {
+        //given
+        final String username = "Jean Reno";
+        final AppUser user1 = createUserInDB(username, "jean.reno@mail.com", "123");
+        final String username2 = "Christian Clavier";
+        final AppUser user2 = createUserInDB(username2, "cc@mail.com", "123");
+        final AppUser updateWithFriendUser1 = addFriendToUserInDB(user1, user2);
+
+        final BankTransferRequest bankTransferRequest = new BankTransferRequest();
+        bankTransferRequest.setBankHolder(username);
+        bankTransferRequest.setAmount(Money.parse("1000.00"));
+        bankTransferRequest.setIban("FR7712739000408237965421Y19");
+        final AppUser refreshUser1 = performTransferFromBank(updateWithFriendUser1, bankTransferRequest);
+
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName(username2);
+        transfer.setAmount("200.00");
+        transfer.setDescription("description");
+        final String idempotencyKey = "4b8f0c1a-retry";
+
+        //when
+        final List<String> responses = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            responses.add(mockMvc.perform(post("/transactions/v1/me")
+                            .with(csrf())
+                            .with(user(refreshUser1.getEmail()).roles("USER"))
+                            .header("Idempotency-Key", idempotencyKey)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(transfer)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+        }
+        transfer.setAmount("300.00");
+        mockMvc.perform(post("/transactions/v1/me")
+                        .with(csrf())
+                        .with(user(refreshUser1.getEmail()).roles("USER"))
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfer)))
+                .andExpect(status().isBadRequest());
+
+        //then
+        assertEquals(responses.get(0), responses.get(1));
+        assertEquals(Money.parse("799.00"), balanceOf(appUserRepository.findByUsername(username)
+                .orElseThrow(() -> new AssertionError("User not found in DB"))));
+        assertEquals(Money.parse("200.00"), balanceOf(appUserRepository.findByUsername(username2)
+                .orElseThrow(() -> new AssertionError("User not found in DB"))));
+    }
+
+    @Test
+    @DisplayName("should settle a batch of V1 transfers to several friends")
+    void shouldSettleABatchOfV1TransfersToSeveralFriends() throws Exception {
+        //given
+        final String username = "Jean Reno";
+        final AppUser user1 = createUserInDB(username, "jean.reno@mail.com", "123");
+        final AppUser user2 = createUserInDB("Christian Clavier", "cc@mail.com", "123");
+        final AppUser user3 = createUserInDB("Valerie Lemercier", "vl@mail.com", "123");
+        addFriendToUserInDB(user1, user2);
+        final AppUser updateWithFriendsUser1 = addFriendToUserInDB(user1, user3);
+
+        final BankTransferRequest bankTransferRequest = new BankTransferRequest();
+        bankTransferRequest.setBankHolder(username);
+        bankTransferRequest.setAmount(Money.parse("1000.00"));
+        bankTransferRequest.setIban("FR7712739000408237965421Y19");
+        final AppUser refreshUser1 = performTransferFromBank(updateWithFriendsUser1, bankTransferRequest);
+
+        final TransferBatch transferBatch = new TransferBatch();
+        transferBatch.setTransfers(List.of(
+                transfer(user2.getUsername(), "100.00"),
+                transfer(user3.getUsername(), "50.00"),
+                transfer(user2.getUsername(), "10.00")));
+        final Money platformBalanceBefore = ledgerService.getPlatformBalance();
+
+        //when
+        mockMvc.perform(post("/transactions/v1/me/batch")
+                        .with(csrf())
+                        .with(user(refreshUser1.getEmail()).roles("USER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferBatch)))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.transferCount").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalAmount").value("160.00"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.totalCommission").value("0.80"));
+
+        //then
+        assertEquals(Money.parse("839.20"), balanceOf(user1));
+        assertEquals(Money.parse("110.00"), balanceOf(user2));
+        assertEquals(Money.parse("50.00"), balanceOf(user3));
+        assertEquals(platformBalanceBefore.plus(Money.parse("0.80")), ledgerService.getPlatformBalance());
+        final List<Transaction> transactions = entityManager
+                .createQuery("SELECT t FROM Transaction t WHERE t.sender.userId = :senderId ORDER BY t.transactionId", Transaction.class)
+                .setParameter("senderId", user1.getUserId())
+                .getResultList();
+        assertEquals(3, transactions.size());
+        assertEquals(user3.getUserId(), transactions.get(1).getReceiver().getUserId());
+        assertEquals(Money.parse("50.00"), transactions.get(1).getAmount());
+    }
+
+    @Test
+    @DisplayName("should reject the whole batch when one receiver is not a friend")
+    void shouldRejectTheWholeBatchWhenOneReceiverIsNotAFriend() throws Exception {
+        //given
+        final String username = "Jean Reno";
+        final AppUser user1 = createUserInDB(username, "jean.reno@mail.com", "123");
+        final AppUser user2 = createUserInDB("Christian Clavier", "cc@mail.com", "123");
+        final AppUser user3 = createUserInDB("Valerie Lemercier", "vl@mail.com", "123");
+        final AppUser updateWithFriendUser1 = addFriendToUserInDB(user1, user2);
+
+        final BankTransferRequest bankTransferRequest = new BankTransferRequest();
+        bankTransferRequest.setBankHolder(username);
+        bankTransferRequest.setAmount(Money.parse("1000.00"));
+        bankTransferRequest.setIban("FR7712739000408237965421Y19");
+        final AppUser refreshUser1 = performTransferFromBank(updateWithFriendUser1, bankTransferRequest);
+
+        final TransferBatch transferBatch = new TransferBatch();
+        transferBatch.setTransfers(List.of(
+                transfer(user2.getUsername(), "100.00"),
+                transfer(user3.getUsername(), "50.00")));
+
+        //when & then
+        mockMvc.perform(post("/transactions/v1/me/batch")
+                        .with(csrf())
+                        .with(user(refreshUser1.getEmail()).roles("USER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transferBatch)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Receiver " + user3.getUsername() + " is not in your friends list"));
+        assertEquals(Money.parse("1000.00"), balanceOf(user1));
+        assertEquals(Money.parse("0.00"), balanceOf(user2));
+    }
+
+    @Test
+    @DisplayName("should only load sender and receiver rows when transferring money")
+    void shouldOnlyLoadSenderAndReceiverRowsWhenTransferringMoney() throws Exception {
+        //given
+        final String username = "Jean Reno";
+        final String email = "jean.reno@mail.com";
+        final String password = "123";
+        final AppUser user1 = createUserInDB(username, email, password);
+
+        final String username2 = "Christian Clavier";
+        final String email2 = "cc@mail.com";
+        final String password2 = "123";
+        final AppUser user2 = createUserInDB(username2, email2, password2);
+
+        final AppUser updateWithFriendUser1 = addFriendToUserInDB(user1, user2);
+
+        final String iban = "FR7712739000408237965421Y19";
+        final BankTransferRequest bankTransferRequest = new BankTransferRequest();
+        bankTransferRequest.setBankHolder(username);
+        bankTransferRequest.setAmount(Money.parse("100.00"));
+        bankTransferRequest.setIban(iban);
+
+        final AppUser refreshUser1 = performTransferFromBank(updateWithFriendUser1, bankTransferRequest);
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName(user2.getUsername());
+        transfer.setAmount("5.00");
+        transfer.setDescription("description");
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/transactions/v0/me")
+                    .with(csrf())
+                    .with(user(refreshUser1.getEmail()).roles("USER"))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transfer))
+            ).andExpect(status().isOk());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        mockMvc.perform(post("/transactions/v0/me")
+                .with(csrf())
+                .with(user(refreshUser1.getEmail()).roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transfer))
+        ).andExpect(status().isOk());
+        entityManager.flush();
+
+        //then
+        // sender and receiver are read once; the lock and the balance are plain statements, not entity loads
+        assertEquals(2, statistics.getEntityStatistics(AppUser.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(Transaction.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getCollectionStatistics(AppUser.class.getName() + ".sentTransactions").getLoadCount());
+        assertEquals(0, statistics.getCollectionStatistics(AppUser.class.getName() + ".receivedTransactions").getLoadCount());
+    }
+
+    @Test
+    @DisplayName("should page through the sent transactions most recent first")
+    void shouldPageThroughTheSentTransactionsMostRecentFirst() throws Exception {
+        //given
+        final String username = "Jean Reno";
+        final String email = "jean.reno@mail.com";
+        final String password = "123";
+        final AppUser user1 = createUserInDB(username, email, password);
+
+        final String username2 = "Christian Clavier";
+        final String email2 = "cc@mail.com";
+        final String password2 = "123";
+        final AppUser user2 = createUserInDB(username2, email2, password2);
+
+        final AppUser updateWithFriendUser1 = addFriendToUserInDB(user1, user2);
+
+        final String iban = "FR7712739000408237965421Y19";
+        final BankTransferRequest bankTransferRequest = new BankTransferRequest();
+        bankTransferRequest.setBankHolder(username);
+        bankTransferRequest.setAmount(Money.parse("100.00"));
+        bankTransferRequest.setIban(iban);
+
+        final AppUser refreshUser1 = performTransferFromBank(updateWithFriendUser1, bankTransferRequest);
+        for (int i = 1; i <= 5; i++) {
+            final Transfer transfer = new Transfer();
+            transfer.setFriendName(user2.getUsername());
+            transfer.setAmount(i + ".00");
+            transfer.setDescription("description " + i);
+            mockMvc.perform(post("/transactions/v0/me")
+                    .with(csrf())
+                    .with(user(refreshUser1.getEmail()).roles("USER"))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transfer))
+            ).andExpect(status().isOk());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        //when
+        final List<String> amounts = new ArrayList<>();
+        String cursor = null;
+        int pageCount = 0;
+        do {
+            final TransferPage page = getTransactionPage(refreshUser1, cursor);
+            page.getTransfers().forEach(transfer -> amounts.add(transfer.getAmount()));
+            cursor = page.getNextCursor();
+            pageCount++;
+        } while (cursor != null);
+
+        //then
+        assertEquals(3, pageCount);
+        assertEquals(List.of("5.00", "4.00", "3.00", "2.00", "1.00"), amounts);
+    }
+
+    @Test
+    @DisplayName("should return an empty last page without cursor")
+    void shouldReturnAnEmptyLastPageWithoutCursor() throws Exception {
+        //given
+        final AppUser user1 = createUserInDB("Jean Reno", "jean.reno@mail.com", "123");
+
+        //when
+        final TransferPage page = getTransactionPage(user1, null);
+
+        //then
+        assertEquals(0, page.getTransfers().size());
+        assertNull(page.getNextCursor());
+    }
+
+    private TransferPage getTransactionPage(final AppUser appUser, final String cursor) throws Exception {
+        final MockHttpServletRequestBuilder request = get("/transactions/v0/me/page")
+                .with(user(appUser.getEmail()).roles("USER"))
+                .param("size", "2");
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        final String json = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readValue(json, TransferPage.class);
+    }
+
+    @Test
+    @DisplayName("should export sent and received transactions of a user")
+    void shouldExportSentAndReceivedTransactionsOfAUser() throws Exception {
+        //given
+        final String username = "Jean Reno";
+        final String email = "jean.reno@mail.com";
+        final AppUser user1 = createUserInDB(username, email, "123");
+
+        final String username2 = "Christian Clavier";
+        final String email2 = "cc@mail.com";
+        final AppUser user2 = createUserInDB(username2, email2, "123");
+
+        final AppUser updateWithFriendUser1 = addFriendToUserInDB(user1, user2);
+        final AppUser updateWithFriendUser2 = addFriendToUserInDB(user2, user1);
+
+        final BankTransferRequest bankTransferRequest = new BankTransferRequest();
+        bankTransferRequest.setBankHolder(username);
+        bankTransferRequest.setAmount(Money.parse("100.00"));
+        bankTransferRequest.setIban("FR7712739000408237965421Y19");
+        final AppUser refreshUser1 = performTransferFromBank(updateWithFriendUser1, bankTransferRequest);
+
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName(username2);
+        transfer.setAmount("20.00");
+        transfer.setDescription("dinner");
+        mockMvc.perform(post("/transactions/v0/me")
+                .with(csrf())
+                .with(user(refreshUser1.getEmail()).roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(transfer))
+        ).andExpect(status().isOk());
+
+        final Transfer refund = new Transfer();
+        refund.setFriendName(username);
+        refund.setAmount("5.00");
+        refund.setDescription("refund");
+        mockMvc.perform(post("/transactions/v0/me")
+                .with(csrf())
+                .with(user(updateWithFriendUser2.getEmail()).roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(refund))
+        ).andExpect(status().isOk());
+
+        final Transfer drinks = new Transfer();
+        drinks.setFriendName(username2);
+        drinks.setAmount("7.00");
+        drinks.setDescription("drinks");
+        mockMvc.perform(post("/transactions/v0/me")
+                .with(csrf())
+                .with(user(refreshUser1.getEmail()).roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(drinks))
+        ).andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        //when
+        transactionExportService.exportLedger(email, ExportFormat.CSV, outputStream);
+
+        //then
+        final String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[1].matches("\\d+,.+,SENT,Christian Clavier,dinner,20.00"));
+        assertTrue(lines[2].matches("\\d+,.+,RECEIVED,Christian Clavier,refund,5.00"));
+        assertTrue(lines[3].matches("\\d+,.+,SENT,Christian Clavier,drinks,7.00"));
+    }
+
+    private Money balanceOf(final AppUser appUser) {
+        return ledgerService.getBalance(appUser.getUserId());
+    }
+
+    private static Transfer transfer(final String friendName, final String amount) {
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName(friendName);
+        transfer.setAmount(amount);
+        transfer.setDescription("batch");
+        return transfer;
     }
 
     private AppUser createUserInDB(final String username, final String email, final String password) throws Exception {
@@ -0,0 +1,166 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.entities.Transaction;
+import com.lulippe.paymybuddy.persistence.repository.TransactionRepository;
+import com.lulippe.paymybuddy.service.TransactionPartitionService;
+import com.lulippe.paymybuddy.service.UserService;
+import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Monthly partitions of {@code transactions}: creation ahead of time, history reads across months and archival.
+ * <p>
+ * Not transactional on purpose: each partition change commits on its own. The partitions created here for past months
+ * are dropped after each test, with the users created here.
+ * </p>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class TransactionPartitionIT {
+    private static final String EMAIL_PREFIX = "partition-";
+
+    @Autowired
+    private TransactionPartitionService transactionPartitionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema}")
+    private String schema;
+
+    private final List<LocalDate> createdMonths = new ArrayList<>();
+
+    private LocalDate currentMonth;
+
+    @BeforeEach
+    void setUp() {
+        currentMonth = transactionRepository.findCurrentMonth();
+        userService.createAppUser("Partition sender", email("sender"), "hashed", RegisterRequest.RoleEnum.USER);
+        userService.createAppUser("Partition receiver", email("receiver"), "hashed", RegisterRequest.RoleEnum.USER);
+    }
+
+    @AfterEach
+    void tearDown() {
+        createdMonths.forEach(month -> jdbcTemplate.execute("DROP TABLE IF EXISTS " + schema + "."
+                + String.format("transactions_y%04dm%02d", month.getYear(), month.getMonthValue())));
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("DELETE FROM {h-schema}transactions WHERE sender_id IN "
+                            + "(SELECT user_id FROM {h-schema}app_user WHERE email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}app_user WHERE email LIKE :prefix")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("should hold the current month and the months ahead in partitions")
+    void shouldHoldTheCurrentMonthAndTheMonthsAheadInPartitions() {
+        //when
+        transactionPartitionService.createUpcomingPartitions();
+
+        //then
+        final List<LocalDate> months = transactionRepository.findPartitionMonths();
+        for (int i = 0; i <= 3; i++) {
+            assertTrue(months.contains(currentMonth.plusMonths(i)));
+        }
+        assertEquals(0, transactionPartitionService.createUpcomingPartitions());
+    }
+
+    @Test
+    @DisplayName("should page through the sent transactions across monthly partitions")
+    void shouldPageThroughTheSentTransactionsAcrossMonthlyPartitions() {
+        //given
+        final LocalDate previousMonth = createPastPartition(1);
+        insertTransaction(previousMonth.atTime(12, 0), "last month");
+        insertTransaction(currentMonth.atTime(0, 0), "this month");
+        final AppUser sender = userService.getAppUserByEmail(email("sender"));
+
+        //when
+        final List<Transaction> firstPage = transactionTemplate.execute(status -> transactionRepository.findFirstSentPage(sender, Limit.of(1)));
+        final Transaction newest = firstPage.getFirst();
+        final List<Transaction> secondPage = transactionTemplate.execute(status ->
+                transactionRepository.findSentPageAfter(sender, newest.getExecutedAt(), newest.getTransactionId(), Limit.of(1)));
+
+        //then
+        assertEquals("this month", newest.getDescription());
+        assertEquals(1, secondPage.size());
+        assertEquals("last month", secondPage.getFirst().getDescription());
+    }
+
+    @Test
+    @DisplayName("should move the months older than the retention to the archive")
+    void shouldMoveTheMonthsOlderThanTheRetentionToTheArchive() {
+        //given
+        final LocalDate coldMonth = createPastPartition(30);
+        insertTransaction(coldMonth.atTime(12, 0), "cold");
+
+        //when
+        final int archived = transactionPartitionService.archiveColdPartitions();
+
+        //then
+        assertEquals(1, archived);
+        assertFalse(transactionRepository.findPartitionMonths().contains(coldMonth));
+        assertEquals(0, countBySenderIn("transactions"));
+        assertEquals(1, countBySenderIn("transactions_archive"));
+    }
+
+    private LocalDate createPastPartition(final int monthsAgo) {
+        final LocalDate month = currentMonth.minusMonths(monthsAgo);
+        if (!transactionRepository.findPartitionMonths().contains(month)) {
+            transactionTemplate.executeWithoutResult(status -> transactionRepository.createPartition(month));
+            createdMonths.add(month);
+        }
+        return month;
+    }
+
+    private void insertTransaction(final LocalDateTime executedAt, final String description) {
+        jdbcTemplate.update("INSERT INTO " + schema + ".transactions (sender_id, receiver_id, description, amount, executed_at)"
+                        + " SELECT s.user_id, r.user_id, ?, 1.00, ? FROM " + schema + ".app_user s, " + schema + ".app_user r"
+                        + " WHERE s.email = ? AND r.email = ?",
+                description, executedAt, email("sender"), email("receiver"));
+    }
+
+    private long countBySenderIn(final String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + schema + "." + table + " t JOIN " + schema + ".app_user u"
+                + " ON u.user_id = t.sender_id WHERE u.email = ?", Long.class, email("sender"));
+    }
+
+    private static String email(final String suffix) {
+        return EMAIL_PREFIX + suffix + "@mail.com";
+    }
+}
@@ -0,0 +1,84 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.entities.Transaction;
+import com.lulippe.paymybuddy.persistence.repository.TransactionRepository;
+import com.lulippe.paymybuddy.service.UserService;
+import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import com.lulippe.paymybuddy.utils.Money;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Transactional
+public class TransactionRepositoryIT {
+    private static final int TRANSACTION_COUNT = 10_000;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("should insert 10k transactions with a bounded number of statements")
+    void shouldInsert10kTransactionsWithABoundedNumberOfStatements() {
+        //given
+        userService.createAppUser("Jean Reno", "jean.reno@mail.com", "hashed", RegisterRequest.RoleEnum.USER);
+        userService.createAppUser("Christian Clavier", "cc@mail.com", "hashed", RegisterRequest.RoleEnum.USER);
+        final AppUser sender = userService.getAppUserByEmail("jean.reno@mail.com");
+        final AppUser receiver = userService.getAppUserByEmail("cc@mail.com");
+        final Instant executedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        final List<Transaction> transactions = new ArrayList<>(TRANSACTION_COUNT);
+        for (int i = 0; i < TRANSACTION_COUNT; i++) {
+            transactions.add(Transaction.builder()
+                    .sender(sender)
+                    .receiver(receiver)
+                    .amount(Money.parse("1"))
+                    .description("backfill " + i)
+                    .executedAt(executedAt)
+                    .build());
+        }
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        transactionRepository.saveAll(transactions);
+        entityManager.flush();
+
+        //then
+        // one sequence call per block of ids and one batched insert per batch, instead of one round trip per row
+        final long statements = statistics.getPrepareStatementCount();
+        log.info("{} transactions inserted with {} statements", TRANSACTION_COUNT, statements);
+        assertTrue(statements <= 2L * TRANSACTION_COUNT / BATCH_SIZE + 10, "Too many statements: " + statements);
+        assertEquals(TRANSACTION_COUNT, statistics.getEntityInsertCount());
+        entityManager.clear();
+        assertEquals(TRANSACTION_COUNT, transactionRepository.findAllBySender(sender).size());
+    }
+}
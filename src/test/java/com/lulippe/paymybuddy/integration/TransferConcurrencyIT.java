@@ -0,0 +1,307 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.lulippe.paymybuddy.api.exception.InsufficientFundsException;
+import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.service.BankTransferService;
+import com.lulippe.paymybuddy.service.LedgerService;
+import com.lulippe.paymybuddy.service.TransactionService;
+import com.lulippe.paymybuddy.service.UserService;
+import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import com.lulippe.paymybuddy.utils.Money;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs transfers from many threads at once: crossing transfers between a small group of friends,
+ * and commissioned transfers from many independent senders.
+ * <p>
+ * Not transactional on purpose: every transfer has to commit on its own for the row locks to be contended.
+ * The users created here are removed after each test, with the ledger movements they took part in, once folded into
+ * a snapshot: the platform account then gets back its balance from before the test.
+ * </p>
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+public class TransferConcurrencyIT {
+    private static final String EMAIL_PREFIX = "stress-";
+    private static final int USER_COUNT = 6;
+    private static final int TRANSFER_COUNT = 1_000;
+    private static final Money INITIAL_BALANCE = Money.parse("1000.00");
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BankTransferService bankTransferService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<AppUser> users = new ArrayList<>();
+
+    private Money platformBalanceBefore;
+
+    @BeforeEach
+    void setUp() {
+        platformBalanceBefore = platformBalance();
+    }
+    @AfterEach
+    void tearDown() {
+        ledgerService.takeSnapshot();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("UPDATE {h-schema}app_user SET account = :account WHERE system_account = true")
+                    .setParameter("account", platformBalanceBefore.toBigDecimal())
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}ledger_entry WHERE movement_id IN "
+                            + "(SELECT e.movement_id FROM {h-schema}ledger_entry e JOIN {h-schema}app_user u ON u.user_id = e.user_id "
+                            + "WHERE u.email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}transactions WHERE sender_id IN "
+                            + "(SELECT user_id FROM {h-schema}app_user WHERE email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}user_friend WHERE user_id IN "
+                            + "(SELECT user_id FROM {h-schema}app_user WHERE email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}app_user WHERE email LIKE :prefix")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+        });
+        users.clear();
+    }
+
+    @Test
+    @DisplayName("should conserve the total balance under concurrent crossing transfers")
+    void shouldConserveTheTotalBalanceUnderConcurrentCrossingTransfers() throws Exception {
+        //given
+        for (int i = 0; i < USER_COUNT; i++) {
+            createFundedUser(String.valueOf(i));
+        }
+        for (int i = 0; i < USER_COUNT; i++) {
+            for (int j = 0; j < USER_COUNT; j++) {
+                if (i != j) {
+                    userService.handleFriendAddition(email(String.valueOf(i)), email(String.valueOf(j)));
+                }
+            }
+            users.add(userService.getAppUserByEmail(email(String.valueOf(i))));
+        }
+        final int threads = Runtime.getRuntime().availableProcessors() * 2;
+        final Money expectedTotal = INITIAL_BALANCE.times(USER_COUNT, 1);
+
+        //when
+        final RunResult sequential = runTransfers(1);
+        final RunResult concurrent = runTransfers(threads);
+        log.info("{} transfers: {} tx/s with 1 thread, {} tx/s with {} threads",
+                TRANSFER_COUNT, sequential.throughput(), concurrent.throughput(), threads);
+
+        //then
+        assertTrue(sequential.unexpectedFailures().isEmpty(), "Unexpected failures: " + sequential.unexpectedFailures());
+        assertTrue(concurrent.unexpectedFailures().isEmpty(), "Unexpected failures: " + concurrent.unexpectedFailures());
+
+        final Money total = users.stream()
+                .map(appUser -> ledgerService.getBalance(appUser.getUserId()))
+                .reduce(Money.ZERO, Money::plus);
+        assertEquals(expectedTotal, total);
+
+        final Long transactionCount = transactionTemplate.execute(status -> entityManager
+                .createQuery("SELECT COUNT(t) FROM Transaction t WHERE t.sender.email LIKE :prefix", Long.class)
+                .setParameter("prefix", EMAIL_PREFIX + "%")
+                .getSingleResult());
+        assertEquals(sequential.succeeded() + concurrent.succeeded(), transactionCount);
+    }
+
+    @Test
+    @DisplayName("should collect every commission while 64 senders transfer with commission concurrently")
+    void shouldCollectEveryCommissionWhile64SendersTransferWithCommissionConcurrently() throws Exception {
+        //given
+        final int senders = 64;
+        final int transfersPerSender = 20;
+        for (int i = 0; i < senders; i++) {
+            createFundedUser("s" + i);
+            createFundedUser("r" + i);
+            userService.handleFriendAddition(email("s" + i), email("r" + i));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(senders);
+        final ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        //when
+        final long start = System.nanoTime();
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < senders; i++) {
+                final String senderEmail = email("s" + i);
+                final Transfer transfer = new Transfer();
+                transfer.setFriendName("Stress r" + i);
+                transfer.setAmount("10.00");
+                transfer.setDescription("stress");
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < transfersPerSender; j++) {
+                        try {
+                            transactionService.sendMoneyToFriendV1(transfer, senderEmail);
+                        } catch (Exception e) {
+                            failures.add(e);
+                        }
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        final double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        log.info("{} V1 transfers from {} concurrent senders: {} tx/s",
+                senders * transfersPerSender, senders, (long) (senders * transfersPerSender / seconds));
+
+        //then
+        assertTrue(failures.isEmpty(), "Unexpected failures: " + failures);
+        final Money expectedCommissions = Money.parse("0.05").times((long) senders * transfersPerSender, 1);
+        assertEquals(platformBalanceBefore.plus(expectedCommissions), platformBalance());
+        assertEquals(Money.parse("799.00"), balance("s0"));
+        assertEquals(Money.parse("1200.00"), balance("r0"));
+    }
+
+    @Test
+    @DisplayName("should settle a batch of 100 transfers like 100 single V1 transfers")
+    void shouldSettleABatchOf100TransfersLike100SingleV1Transfers() {
+        //given
+        final int friendCount = 10;
+        final int transferCount = 100;
+        createFundedUser("single");
+        createFundedUser("batch");
+        for (int i = 0; i < friendCount; i++) {
+            createFundedUser("f" + i);
+            userService.handleFriendAddition(email("single"), email("f" + i));
+            userService.handleFriendAddition(email("batch"), email("f" + i));
+        }
+        final List<Transfer> transfers = new ArrayList<>();
+        for (int i = 0; i < transferCount; i++) {
+            final Transfer transfer = new Transfer();
+            transfer.setFriendName("Stress f" + (i % friendCount));
+            transfer.setAmount("2.00");
+            transfer.setDescription("benchmark");
+            transfers.add(transfer);
+        }
+
+        //when
+        final long singleStart = System.nanoTime();
+        transfers.forEach(transfer -> transactionService.sendMoneyToFriendV1(transfer, email("single")));
+        final long singleMillis = (System.nanoTime() - singleStart) / 1_000_000;
+        final long batchStart = System.nanoTime();
+        transactionService.sendMoneyToFriendsV1(transfers, email("batch"));
+        final long batchMillis = (System.nanoTime() - batchStart) / 1_000_000;
+        log.info("{} V1 transfers: {} ms as single calls, {} ms as one batch", transferCount, singleMillis, batchMillis);
+
+        //then
+        final Money expectedSenderBalance = Money.parse("799.00");
+        assertEquals(expectedSenderBalance, balance("single"));
+        assertEquals(expectedSenderBalance, balance("batch"));
+        assertEquals(Money.parse("1040.00"), balance("f0"));
+        assertEquals(platformBalanceBefore.plus(Money.parse("2.00")), platformBalance());
+    }
+
+    private void createFundedUser(final String suffix) {
+        userService.createAppUser("Stress " + suffix, email(suffix), "hashed", RegisterRequest.RoleEnum.USER);
+
+        final BankTransferRequest request = new BankTransferRequest();
+        request.setBankHolder("Stress " + suffix);
+        request.setIban("FR7712739000408237965421Y19");
+        request.setAmount(INITIAL_BALANCE);
+        bankTransferService.performBankTransfer(request, email(suffix));
+    }
+
+    private static String email(final String suffix) {
+        return EMAIL_PREFIX + suffix + "@mail.com";
+    }
+
+    private Money balance(final String suffix) {
+        return ledgerService.getBalance(userService.getAppUserByEmail(email(suffix)).getUserId());
+    }
+
+    private Money platformBalance() {
+        return ledgerService.getPlatformBalance();
+    }
+
+    private RunResult runTransfers(final int threads) throws Exception {
+        final AtomicInteger succeeded = new AtomicInteger();
+        final ConcurrentLinkedQueue<Throwable> unexpectedFailures = new ConcurrentLinkedQueue<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final long start = System.nanoTime();
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < TRANSFER_COUNT; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        sendRandomTransfer();
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientFundsException e) {
+                        // expected once an account has been drained
+                    } catch (Exception e) {
+                        unexpectedFailures.add(e);
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        final double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        return new RunResult(succeeded.get(), List.copyOf(unexpectedFailures), (long) (TRANSFER_COUNT / seconds));
+    }
+
+    private void sendRandomTransfer() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int senderIndex = random.nextInt(USER_COUNT);
+        final int receiverIndex = (senderIndex + 1 + random.nextInt(USER_COUNT - 1)) % USER_COUNT;
+
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName(users.get(receiverIndex).getUsername());
+        transfer.setAmount(random.nextInt(1, 51) + ".00");
+        transfer.setDescription("stress");
+        transactionService.sendMoneyToFriend(transfer, users.get(senderIndex).getEmail());
+    }
+
+    private record RunResult(long succeeded, List<Throwable> unexpectedFailures, long throughput) {
+    }
+}
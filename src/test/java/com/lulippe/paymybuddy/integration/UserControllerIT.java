@@ -12,12 +12,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -38,6 +40,9 @@ public class UserControllerIT {
     @Autowired
     private AppUserRepository appUserRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -73,6 +78,28 @@ public class UserControllerIT {
                 .anyMatch(friend -> friend.getEmail().equals(user2.getEmail())));
     }
 
+    @Test
+    @DisplayName("should add a new friend by the identifier given by the user search")
+    void shouldAddANewFriendByTheIdentifierGivenByTheUserSearch() throws Exception {
+        //given
+        final AppUser user1 = createUserInDB("Jean Reno", "jean.reno@mail.com", "123");
+        final AppUser user2 = createUserInDB("Christian Clavier", "cc@mail.com", "123");
+        // generated by the database, not read back into the entity registered in this transaction
+        final UUID friendId = jdbcTemplate.queryForObject(
+                "SELECT public_id FROM pay_my_buddy.app_user WHERE user_id = ?", UUID.class, user2.getUserId());
+
+        //when
+        mockMvc.perform(post("/users/me/friends/v0")
+                        .with(csrf())
+                        .with(user(user1.getEmail()).roles("USER"))
+                        .param("friendId", friendId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("User added"));
+
+        //then
+        assertEquals(List.of("Christian Clavier"), appUserRepository.findFriendUsernamesByEmail(user1.getEmail()));
+    }
+
     @Test
     @DisplayName("should not be able to add yourself as friend")
     void ShouldNotBeAbleToAddYourselfAsFriend() throws Exception {
@@ -108,7 +135,7 @@ public class UserControllerIT {
         final AppUser user2 = createUserInDB(username2, email2, password2);
 
         final AppUser refreshUser1 = addFriendToUserInDB(user1, user2);
-        final String expectedJson = "Friend already added in current user friend list : " + user2.getEmail();
+        final String expectedJson = "Friend already added in current user friend list : " + user2.getUsername();
 
         //when & then
         mockMvc.perform(post("/users/me/friends/v0")
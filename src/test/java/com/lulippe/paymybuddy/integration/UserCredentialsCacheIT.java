@@ -0,0 +1,131 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.lulippe.paymybuddy.config.CacheConfiguration;
+import com.lulippe.paymybuddy.service.AppUserDetailsService;
+import com.lulippe.paymybuddy.service.AuthService;
+import com.lulippe.paymybuddy.service.UserService;
+import com.lulippe.paymybuddy.user.model.InformationsToUpdate;
+import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Not transactional on purpose: the credentials cache is only written and evicted when a transaction commits.
+ * The user created here is removed after each test.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class UserCredentialsCacheIT {
+    private static final String EMAIL = "cache-user@mail.com";
+
+    @Autowired
+    private AppUserDetailsService appUserDetailsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = cacheManager.getCache(CacheConfiguration.USER_CREDENTIALS_CACHE);
+        cache.clear();
+        userService.createAppUser("Cache User", EMAIL, "hashed", RegisterRequest.RoleEnum.USER);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createNativeQuery("DELETE FROM {h-schema}app_user WHERE username = 'Cache User'")
+                .executeUpdate());
+        cache.clear();
+    }
+
+    @Test
+    @DisplayName("should serve repeated logins from the credentials cache")
+    void shouldServeRepeatedLoginsFromTheCredentialsCache() {
+        //given
+        final double hitsBefore = cacheGets("hit");
+        final double missesBefore = cacheGets("miss");
+
+        //when
+        appUserDetailsService.loadUserByUsername(EMAIL);
+        appUserDetailsService.loadUserByUsername(EMAIL);
+        appUserDetailsService.loadUserByUsername(EMAIL);
+
+        //then
+        assertEquals(1, cacheGets("miss") - missesBefore);
+        assertEquals(2, cacheGets("hit") - hitsBefore);
+        assertNotNull(cache.get(EMAIL));
+    }
+
+    @Test
+    @DisplayName("should evict cached credentials when the password changes")
+    void shouldEvictCachedCredentialsWhenThePasswordChanges() {
+        //given
+        appUserDetailsService.loadUserByUsername(EMAIL);
+        final InformationsToUpdate informationsToUpdate = new InformationsToUpdate();
+        informationsToUpdate.setPassword("newPassword");
+
+        //when
+        authService.handleProfileUpdate(EMAIL, informationsToUpdate);
+
+        //then
+        assertNull(cache.get(EMAIL));
+        assertEquals(userService.getAppUserByEmail(EMAIL).getPassword(), appUserDetailsService.loadUserByUsername(EMAIL).getPassword());
+    }
+
+    @Test
+    @DisplayName("should not cache unknown emails")
+    void shouldNotCacheUnknownEmails() {
+        //given
+        final String unknownEmail = "unknown@mail.com";
+
+        //when
+        try {
+            appUserDetailsService.loadUserByUsername(unknownEmail);
+        } catch (Exception e) {
+            // expected, the user does not exist
+        }
+
+        //then
+        assertNull(cache.get(unknownEmail));
+    }
+
+    private double cacheGets(final String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", CacheConfiguration.USER_CREDENTIALS_CACHE)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
@@ -0,0 +1,150 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.lulippe.paymybuddy.service.UserService;
+import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import jakarta.persistence.EntityManager;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * User search through the endpoint, with the results cached between searches.
+ * <p>
+ * Not transactional on purpose: search results are only cached once committed. Each test searches its own term,
+ * so that it does not read the results cached by another one. The users created here are removed after each test.
+ * </p>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class UserSearchIT {
+    private static final String EMAIL_DOMAIN = "@user-search.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        userService.createAppUser("Quokka Alpha", "alpha" + EMAIL_DOMAIN, "hashed", RegisterRequest.RoleEnum.USER);
+        userService.createAppUser("Beta Quokka", "beta" + EMAIL_DOMAIN, "hashed", RegisterRequest.RoleEnum.USER);
+        userService.createAppUser("Gamma", "quokka.gamma" + EMAIL_DOMAIN, "hashed", RegisterRequest.RoleEnum.USER);
+        userService.createAppUser("Quokka Delta", "delta" + EMAIL_DOMAIN, "hashed", RegisterRequest.RoleEnum.USER);
+        userService.createAppUser("Epsilon Quo_ka", "epsilon" + EMAIL_DOMAIN, "hashed", RegisterRequest.RoleEnum.USER);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createNativeQuery("DELETE FROM {h-schema}app_user WHERE email LIKE :domain")
+                .setParameter("domain", "%" + EMAIL_DOMAIN)
+                .executeUpdate());
+    }
+
+    @Test
+    @DisplayName("should find prefix matches first, then usernames containing the term, without the connected user")
+    void shouldFindPrefixMatchesFirstThenUsernamesContainingTheTerm() throws Exception {
+        //when
+        mockMvc.perform(get("/users/search/v0")
+                        .with(user("delta" + EMAIL_DOMAIN).roles("USER"))
+                        .param("q", " QUOKKA "))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].username").value("Quokka Alpha"))
+                .andExpect(jsonPath("$[0].friendId").isNotEmpty())
+                .andExpect(jsonPath("$[0].email").doesNotExist())
+                .andExpect(jsonPath("$[1].username").value("Beta Quokka"));
+
+        //then
+        assertEquals(2, QueryCountHolder.getGrandTotal().getTotal());
+    }
+
+    @Test
+    @DisplayName("should find a user by their whole email only, never by its start")
+    void shouldFindAUserByTheirWholeEmailOnly() throws Exception {
+        //when & then
+        mockMvc.perform(get("/users/search/v0")
+                        .with(user("alpha" + EMAIL_DOMAIN).roles("USER"))
+                        .param("q", "quokka.gam"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/users/search/v0")
+                        .with(user("alpha" + EMAIL_DOMAIN).roles("USER"))
+                        .param("q", "Quokka.Gamma" + EMAIL_DOMAIN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].username").value("Gamma"))
+                .andExpect(jsonPath("$[0].email").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("should answer the same search again from the cache, without statement")
+    void shouldAnswerTheSameSearchAgainFromTheCache() throws Exception {
+        //given
+        mockMvc.perform(get("/users/search/v0")
+                        .with(user("alpha" + EMAIL_DOMAIN).roles("USER"))
+                        .param("q", "quokka d"))
+                .andExpect(status().isOk());
+
+        //when
+        mockMvc.perform(get("/users/search/v0")
+                        .with(user("beta" + EMAIL_DOMAIN).roles("USER"))
+                        .param("q", "Quokka D"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].username").value("Quokka Delta"));
+
+        //then
+        assertEquals(0, QueryCountHolder.getGrandTotal().getTotal());
+    }
+
+    @Test
+    @DisplayName("should match LIKE wildcards of the term literally")
+    void shouldMatchLikeWildcardsOfTheTermLiterally() throws Exception {
+        //when & then
+        mockMvc.perform(get("/users/search/v0")
+                        .with(user("alpha" + EMAIL_DOMAIN).roles("USER"))
+                        .param("q", "quo_k"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].username").value("Epsilon Quo_ka"));
+        mockMvc.perform(get("/users/search/v0")
+                        .with(user("alpha" + EMAIL_DOMAIN).roles("USER"))
+                        .param("q", "qu%ka"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("should reject a term shorter than 3 characters")
+    void shouldRejectATermShorterThan3Characters() throws Exception {
+        //when & then
+        mockMvc.perform(get("/users/search/v0")
+                        .with(user("alpha" + EMAIL_DOMAIN).roles("USER"))
+                        .param("q", "qu"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,121 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.lulippe.paymybuddy.persistence.projection.UserSearchMatch;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * User search among 100,000 users: the plans of its queries and its latency.
+ * <p>
+ * The search cache only keeps results once the transaction commits: every search of this rolled back test runs its queries.
+ * </p>
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class UserSearchIndexIT {
+    private static final int USER_COUNT = 100_000;
+    private static final int SEARCH_COUNT = 50;
+    private static final List<String> TERMS = List.of("indexed 4242", "dexed 4242", "indexed-9@mail.com", "xed 999", "zzz");
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        entityManager.createNativeQuery("INSERT INTO {h-schema}app_user (username, email, password, role, account, system_account) "
+                        + "SELECT 'Indexed ' || i, 'indexed-' || i || '@mail.com', 'hashed', 'USER', 0, false "
+                        + "FROM generate_series(1, :userCount) AS i")
+                .setParameter("userCount", USER_COUNT)
+                .executeUpdate();
+        entityManager.createNativeQuery("ANALYZE {h-schema}app_user").executeUpdate();
+    }
+
+    @Test
+    @DisplayName("should read username prefixes and whole emails from their ordered indexes")
+    void shouldReadUsernamePrefixesAndWholeEmailsFromTheirOrderedIndexes() {
+        //when
+        final String usernamePlan = explain("WHERE lower(username) COLLATE \"C\" >= 'indexed 42' AND lower(username) COLLATE \"C\" < 'indexed 43' "
+                + "AND NOT system_account "
+                + "ORDER BY lower(username) COLLATE \"C\" LIMIT 11");
+        final String emailPlan = explain("WHERE lower(email) COLLATE \"C\" = 'indexed-42@mail.com' AND NOT system_account");
+
+        //then
+        assertTrue(usernamePlan.contains("Index Scan using idx_app_user_username_prefix"), usernamePlan);
+        assertTrue(emailPlan.contains("Index Scan using idx_app_user_email_prefix"), emailPlan);
+    }
+
+    @Test
+    @DisplayName("should only match a whole email, never its start")
+    void shouldOnlyMatchAWholeEmailNeverItsStart() {
+        //when
+        final List<UserSearchMatch> prefixMatches = appUserRepository.searchByUsernameOrEmail("indexed-4242", 11);
+        final List<UserSearchMatch> wholeEmailMatches = appUserRepository.searchByUsernameOrEmail("indexed-4242@mail.com", 11);
+
+        //then
+        assertEquals(List.of(), prefixMatches);
+        assertEquals(List.of("Indexed 4242"), wholeEmailMatches.stream().map(UserSearchMatch::username).toList());
+        assertNotNull(wholeEmailMatches.getFirst().publicId());
+    }
+
+    @Test
+    @DisplayName("should read usernames containing the term from the trigram index")
+    void shouldReadUsernamesContainingTheTermFromTheTrigramIndex() {
+        //when
+        final String plan = explain("WHERE lower(username) LIKE '%dexed 4242%' AND NOT system_account LIMIT 11");
+
+        //then
+        assertTrue(plan.contains("Bitmap Index Scan on idx_app_user_username_trgm"), plan);
+    }
+
+    @Test
+    @DisplayName("should search 100,000 users in less than 20 ms")
+    void shouldSearch100000UsersInLessThan20Ms() {
+        //given
+        TERMS.forEach(term -> appUserRepository.searchByUsernameOrEmail(term, 11));
+
+        //when
+        final long start = System.nanoTime();
+        for (int i = 0; i < SEARCH_COUNT; i++) {
+            for (final String term : TERMS) {
+                appUserRepository.searchByUsernameOrEmail(term, 11);
+            }
+        }
+        final long averageMicros = (System.nanoTime() - start) / 1_000 / SEARCH_COUNT / TERMS.size();
+        log.info("user search among {} users: {} us on average", USER_COUNT, averageMicros);
+
+        //then
+        assertEquals(List.of("Indexed 4242", "Indexed 42420", "Indexed 42421", "Indexed 42422", "Indexed 42423", "Indexed 42424",
+                        "Indexed 42425", "Indexed 42426", "Indexed 42427", "Indexed 42428", "Indexed 42429"),
+                appUserRepository.searchByUsernameOrEmail("indexed 4242", 11).stream().map(UserSearchMatch::username).toList());
+        final List<UserSearchMatch> substringMatches = appUserRepository.searchByUsernameOrEmail("dexed 4242", 11);
+        assertEquals(11, substringMatches.size());
+        assertTrue(substringMatches.stream().allMatch(match -> match.username().contains("dexed 4242")));
+        assertTrue(averageMicros < 20_000, () -> averageMicros + " us is not less than 20 ms");
+    }
+
+    private String explain(final String condition) {
+        @SuppressWarnings("unchecked")
+        final List<String> plan = entityManager.createNativeQuery("EXPLAIN SELECT user_id, username, email FROM {h-schema}app_user " + condition)
+                .getResultList();
+        return String.join("\n", plan);
+    }
+}
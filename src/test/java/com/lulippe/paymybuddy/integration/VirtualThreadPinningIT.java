@@ -0,0 +1,206 @@
+package com.lulippe.paymybuddy.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
+import com.lulippe.paymybuddy.service.BankTransferService;
+import com.lulippe.paymybuddy.service.LedgerService;
+import com.lulippe.paymybuddy.service.UserService;
+import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.transaction.model.TransferBatch;
+import com.lulippe.paymybuddy.user.model.RegisterRequest;
+import com.lulippe.paymybuddy.utils.Money;
+import jakarta.persistence.EntityManager;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the transfer endpoints on virtual threads, many more than connections in the pool, while JFR records every
+ * {@code jdk.VirtualThreadPinned} event: a virtual thread blocking inside a {@code synchronized} block, e.g. waiting
+ * for a connection or a row lock, holds its carrier thread and defeats the virtual-thread mode.
+ * <p>
+ * Not transactional on purpose: every transfer has to commit on its own for connections and row locks to be waited for.
+ * The users created here are removed after each test, with their ledger movements.
+ * </p>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class VirtualThreadPinningIT {
+    private static final String EMAIL_PREFIX = "pinning-";
+    private static final int SENDER_COUNT = 16;
+    private static final int REQUEST_COUNT = 128;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BankTransferService bankTransferService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Money platformBalanceBefore;
+
+    @BeforeEach
+    void setUp() {
+        platformBalanceBefore = ledgerService.getPlatformBalance();
+        for (int i = 0; i < SENDER_COUNT; i++) {
+            createFundedUser("s" + i);
+            createFundedUser("r" + i);
+            userService.handleFriendAddition(email("s" + i), email("r" + i));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerService.takeSnapshot();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("UPDATE {h-schema}app_user SET account = :account WHERE system_account = true")
+                    .setParameter("account", platformBalanceBefore.toBigDecimal())
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}ledger_entry WHERE movement_id IN "
+                            + "(SELECT e.movement_id FROM {h-schema}ledger_entry e JOIN {h-schema}app_user u ON u.user_id = e.user_id "
+                            + "WHERE u.email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}transactions WHERE sender_id IN "
+                            + "(SELECT user_id FROM {h-schema}app_user WHERE email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}user_friend WHERE user_id IN "
+                            + "(SELECT user_id FROM {h-schema}app_user WHERE email LIKE :prefix)")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DELETE FROM {h-schema}app_user WHERE email LIKE :prefix")
+                    .setParameter("prefix", EMAIL_PREFIX + "%")
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("should transfer on virtual threads without pinning their carriers")
+    void shouldTransferOnVirtualThreadsWithoutPinningTheirCarriers() throws Exception {
+        //given
+        final ConcurrentLinkedQueue<String> pinnedStacks = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        //when
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withoutThreshold().withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinnedStacks.add(stackOf(event)));
+            recording.startAsync();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                final List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < REQUEST_COUNT; i++) {
+                    final int sender = i % SENDER_COUNT;
+                    final boolean batch = i / SENDER_COUNT % 4 == 0;
+                    futures.add(executor.submit(() -> {
+                        try {
+                            transfer(sender, batch);
+                        } catch (Exception e) {
+                            failures.add(e);
+                        }
+                    }));
+                }
+                for (final Future<?> future : futures) {
+                    future.get();
+                }
+            }
+            recording.stop();
+        }
+
+        //then
+        assertTrue(failures.isEmpty(), "Unexpected failures: " + failures);
+        assertTrue(pinnedStacks.isEmpty(), "Carriers pinned:\n" + String.join("\n\n", pinnedStacks));
+        // 8 requests per sender, 2 of them batches of 2: 10 transfers of 1.00, too small to be commissioned
+        assertEquals(Money.parse("990.00"), ledgerService.getBalance(userService.getAppUserByEmail(email("s0")).getUserId()));
+    }
+
+    private void transfer(final int sender, final boolean batch) throws Exception {
+        final Object body;
+        if (batch) {
+            final TransferBatch transferBatch = new TransferBatch();
+            transferBatch.addTransfersItem(transferTo(sender));
+            transferBatch.addTransfersItem(transferTo(sender));
+            body = transferBatch;
+        } else {
+            body = transferTo(sender);
+        }
+        mockMvc.perform(post(batch ? "/transactions/v1/me/batch" : "/transactions/v1/me")
+                        .with(csrf())
+                        .with(user(email("s" + sender)).roles("USER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk());
+    }
+
+    private static String stackOf(final RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "(no stack trace)";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .map(RecordedFrame::getMethod)
+                .map(method -> "  at " + method.getType().getName() + "." + method.getName())
+                .collect(Collectors.joining("\n"));
+    }
+
+    private void createFundedUser(final String suffix) {
+        userService.createAppUser("Pinning " + suffix, email(suffix), "hashed", RegisterRequest.RoleEnum.USER);
+        final BankTransferRequest request = new BankTransferRequest();
+        request.setBankHolder("Pinning " + suffix);
+        request.setIban("FR7712739000408237965421Y19");
+        request.setAmount(Money.parse("1000.00"));
+        bankTransferService.performBankTransfer(request, email(suffix));
+    }
+
+    private static Transfer transferTo(final int sender) {
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName("Pinning r" + sender);
+        transfer.setAmount("1.00");
+        transfer.setDescription("pinning");
+        return transfer;
+    }
+
+    private static String email(final String suffix) {
+        return EMAIL_PREFIX + suffix + "@mail.com";
+    }
+}
@@ -1,12 +1,11 @@
 package com.lulippe.paymybuddy.mapper;
 
+import com.lulippe.paymybuddy.utils.Money;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.math.BigDecimal;
-
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 
@@ -16,7 +15,7 @@ class TransactionMapperTest {
     @DisplayName("should map to String")
     void shouldMapToString() {
         //given
-        final BigDecimal amount = BigDecimal.valueOf(18.15683);
+        final Money amount = Money.parse("18.15683");
 
         //when
         final String amountString = TransactionMapper.formatAmount(amount);
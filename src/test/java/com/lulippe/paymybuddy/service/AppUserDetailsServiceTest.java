@@ -1,7 +1,7 @@
 package com.lulippe.paymybuddy.service;
 
-import com.lulippe.paymybuddy.persistence.entities.AppUser;
 import com.lulippe.paymybuddy.persistence.enums.Role;
+import com.lulippe.paymybuddy.persistence.projection.UserCredentials;
 import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -32,13 +32,8 @@ class AppUserDetailsServiceTest {
         String email = "username@email.com";
         Role userRole = Role.USER;
         String hashedPassword = "hashedPassword";
-        final AppUser appUser = AppUser.builder()
-                .username(username)
-                .email(email)
-                .role(userRole)
-                .password(hashedPassword)
-                .build();
-        given(appUserRepository.findByEmail(username)).willReturn(Optional.of(appUser));
+        final UserCredentials credentials = new UserCredentials(email, hashedPassword, userRole);
+        given(appUserRepository.findCredentialsByEmail(username)).willReturn(Optional.of(credentials));
         //when
         final UserDetails userDetails = appUserDetailsService.loadUserByUsername(username);
 
@@ -54,7 +49,7 @@ class AppUserDetailsServiceTest {
     void shouldThrowUsernameNotFoundException() {
         //given
         final String username = "username";
-        given(appUserRepository.findByEmail(username)).willReturn(Optional.empty());
+        given(appUserRepository.findCredentialsByEmail(username)).willReturn(Optional.empty());
 
         //when & then
         assertThrows(UsernameNotFoundException.class, () -> appUserDetailsService.loadUserByUsername(username));
@@ -1,16 +1,18 @@
 package com.lulippe.paymybuddy.service;
 
 import com.lulippe.paymybuddy.api.exception.EntityAlreadyExistsException;
+import com.lulippe.paymybuddy.user.model.InformationsToUpdate;
 import com.lulippe.paymybuddy.user.model.RegisterRequest;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
@@ -20,7 +22,7 @@ class AuthServiceTest {
     @Mock
     private UserService userService;
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @InjectMocks
     private AuthService authService;
@@ -41,7 +43,7 @@ class AuthServiceTest {
         registerRequest.setRole(user);
 
         doNothing().when(userService).ensureUsernameAndEmailAreUnique(registerRequest.getUsername(), registerRequest.getEmail());
-        given(passwordEncoder.encode(registerRequest.getPassword())).willReturn(hashedPassword);
+        given(passwordHashingService.hash(registerRequest.getPassword())).willReturn(hashedPassword);
         doNothing().when(userService).createAppUser(username, email, hashedPassword, registerRequest.getRole());
 
         //when & then
@@ -71,4 +73,39 @@ class AuthServiceTest {
         //then
         verify(userService, times(0)).createAppUser(username, email, hashedPassword, registerRequest.getRole());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("should hash the new password before updating the profile")
+    void shouldHashTheNewPasswordBeforeUpdatingTheProfile() {
+        //given
+        final String email = "email@email.com";
+        final InformationsToUpdate informationsToUpdate = new InformationsToUpdate();
+        informationsToUpdate.setPassword("password");
+        given(passwordHashingService.hash("password")).willReturn("hashedPassword");
+
+        //when
+        authService.handleProfileUpdate(email, informationsToUpdate);
+
+        //then
+        final InOrder inOrder = inOrder(passwordHashingService, userService);
+        inOrder.verify(passwordHashingService).hash("password");
+        inOrder.verify(userService).updateUserProfil(email, informationsToUpdate);
+        assertEquals("hashedPassword", informationsToUpdate.getPassword());
+    }
+
+    @Test
+    @DisplayName("should leave a blank password to the profile validation")
+    void shouldLeaveABlankPasswordToTheProfileValidation() {
+        //given
+        final String email = "email@email.com";
+        final InformationsToUpdate informationsToUpdate = new InformationsToUpdate();
+        informationsToUpdate.setPassword("  ");
+        doThrow(IllegalArgumentException.class).when(userService).updateUserProfil(email, informationsToUpdate);
+
+        //when
+        assertThrows(IllegalArgumentException.class, () -> authService.handleProfileUpdate(email, informationsToUpdate));
+
+        //then
+        verifyNoInteractions(passwordHashingService);
+    }
+}
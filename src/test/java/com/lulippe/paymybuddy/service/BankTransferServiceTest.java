@@ -1,11 +1,13 @@
 package com.lulippe.paymybuddy.service;
 
+import com.lulippe.paymybuddy.api.exception.InsufficientFundsException;
 import com.lulippe.paymybuddy.api.exception.InvalidDataException;
 import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
 import com.lulippe.paymybuddy.bankTransfer.model.BankTransferResponse;
 import com.lulippe.paymybuddy.bankTransfer.model.BankWithdrawResponse;
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
 import com.lulippe.paymybuddy.persistence.enums.Role;
+import com.lulippe.paymybuddy.utils.Money;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,22 +15,23 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.Mockito.doAnswer;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class BankTransferServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private LedgerService ledgerService;
+
     @InjectMocks
     private BankTransferService bankTransferService;
 
@@ -39,7 +42,7 @@ class BankTransferServiceTest {
         final String email = "test@email.com";
         final String iban = "FR7712739000408237965421Y19";
         final BankTransferRequest request = new BankTransferRequest();
-        request.setAmount(20.126);
+        request.setAmount(Money.parse("20.126"));
         request.setBankHolder("testBankHolder");
         request.setIban(iban);
         final String username = "testUsername";
@@ -48,26 +51,19 @@ class BankTransferServiceTest {
                 .email(email)
                 .role(Role.USER)
                 .password("hashedPassword")
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .build();
-        final AppUser updatedUser =
-                AppUser.builder()
-                        .username(username)
-                        .email(email)
-                        .role(Role.USER)
-                        .password("hashedPassword")
-                        .account(BigDecimal.valueOf(30.13))
-                        .build();
         final BankTransferResponse bankTransferResponse = new BankTransferResponse();
         bankTransferResponse.setReceiver(username);
         bankTransferResponse.setAmount("30.13");
         given(userService.getAppUserByEmail(email)).willReturn(user);
-        given(userService.performBankTransfer(user, request)).willReturn(updatedUser);
+        given(ledgerService.getBalance(user.getUserId())).willReturn(Money.parse("30.13"));
 
         //when
         final BankTransferResponse expectedBankTransferResponse = bankTransferService.performBankTransfer(request,email);
 
         //then
+        verify(ledgerService).recordBankDeposit(user.getUserId(), Money.parse("20.13"));
         assertEquals(expectedBankTransferResponse, bankTransferResponse);
     }
 
@@ -78,7 +74,7 @@ class BankTransferServiceTest {
         final String email = "test@email.com";
         final String iban = "invalidIban";
         final BankTransferRequest request = new BankTransferRequest();
-        request.setAmount(20.126);
+        request.setAmount(Money.parse("20.126"));
         request.setBankHolder("testBankHolder");
         request.setIban(iban);
         final String username = "testUsername";
@@ -87,7 +83,7 @@ class BankTransferServiceTest {
                 .email(email)
                 .role(Role.USER)
                 .password("hashedPassword")
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .build();
         given(userService.getAppUserByEmail(email)).willReturn(user);
 
@@ -102,7 +98,7 @@ class BankTransferServiceTest {
         final String email = "test@email.com";
         final String iban = "FR7712739000408237965421Y19";
         final String testBankHolder = "  ";
-        final double amount = 20.126;
+        final Money amount = Money.parse("20.126");
         final BankTransferRequest request = new BankTransferRequest();
         request.setAmount(amount);
         request.setBankHolder(testBankHolder);
@@ -113,7 +109,7 @@ class BankTransferServiceTest {
                 .email(email)
                 .role(Role.USER)
                 .password("hashedPassword")
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .build();
         given(userService.getAppUserByEmail(email)).willReturn(user);
 
@@ -128,7 +124,7 @@ class BankTransferServiceTest {
         final String email = "test@email.com";
         final String iban = "FR7712739000408237965421Y19";
         final String testBankHolder = "testBankHolder";
-        final double amount = -20.126;
+        final Money amount = Money.parse("-20.126");
         final BankTransferRequest request = new BankTransferRequest();
         request.setAmount(amount);
         request.setBankHolder(testBankHolder);
@@ -139,7 +135,7 @@ class BankTransferServiceTest {
                 .email(email)
                 .role(Role.USER)
                 .password("hashedPassword")
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .build();
         given(userService.getAppUserByEmail(email)).willReturn(user);
         //when & then
@@ -152,7 +148,7 @@ class BankTransferServiceTest {
         //given
         final String email = "test@email.com";
         final String iban = "FR7712739000408237965421Y19";
-        final double amount = 5.0;
+        final Money amount = Money.parse("5.0");
         final String testUser = "testUser";
         final BankTransferRequest request = new BankTransferRequest();
         request.setAmount(amount);
@@ -164,21 +160,40 @@ class BankTransferServiceTest {
                 .email(email)
                 .role(Role.USER)
                 .password("hashedPassword")
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .build();
-        final BigDecimal amountToWithdraw = BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_EVEN);
+        final Money amountToWithdraw = amount;
         given(userService.getAppUserByEmail(email)).willReturn(user);
-        doAnswer(invocation -> {
-                AppUser u = invocation.getArgument(0);
-                BigDecimal amountBD = invocation.getArgument(1);
-                u.setAccount(u.getAccount().subtract(amountBD));
-                return null;
-        }).when(userService).withdrawToBank(user,amountToWithdraw);
+        given(ledgerService.lockBalance(user.getUserId())).willReturn(Money.parse("10"));
 
         //when
         final BankWithdrawResponse response = bankTransferService.performTransferToBank(request,email);
-        assertEquals(BigDecimal.valueOf(amount).setScale(2,RoundingMode.HALF_EVEN), new BigDecimal(response.getAmount()));
+        verify(ledgerService).recordBankWithdrawal(user.getUserId(), amountToWithdraw);
+        assertEquals(amount, Money.parse(response.getAmount()));
         assertEquals(testUser, response.getReceiver());
         assertEquals(String.valueOf(amountToWithdraw), response.getNewBalance());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("should throw InsufficientFundsException when the balance does not cover the withdrawal")
+    void transferFromAppWithInsufficientFunds() {
+        //given
+        final String email = "test@email.com";
+        final BankTransferRequest request = new BankTransferRequest();
+        request.setAmount(Money.parse("10.01"));
+        request.setBankHolder("testUser");
+        request.setIban("FR7712739000408237965421Y19");
+        final AppUser user = AppUser.builder()
+                .username("testUser")
+                .email(email)
+                .role(Role.USER)
+                .password("hashedPassword")
+                .build();
+        given(userService.getAppUserByEmail(email)).willReturn(user);
+        given(ledgerService.lockBalance(user.getUserId())).willReturn(Money.parse("10"));
+
+        //when & then
+        assertThrows(InsufficientFundsException.class, () -> bankTransferService.performTransferToBank(request, email));
+        verify(ledgerService, never()).recordBankWithdrawal(any(), any());
+    }
+}
@@ -0,0 +1,115 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.api.exception.NonExistentEntityException;
+import com.lulippe.paymybuddy.persistence.projection.FriendReference;
+import com.lulippe.paymybuddy.persistence.projection.Friendship;
+import com.lulippe.paymybuddy.persistence.projection.FriendsListVersion;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.user.model.FriendSuggestion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class FriendSuggestionServiceTest {
+    private static final String EMAIL = "test@test.com";
+
+    @Mock
+    private AppUserRepository appUserRepository;
+
+    @InjectMocks
+    private FriendSuggestionService friendSuggestionService;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("should suggest friends of friends with their usernames, most mutual friends first")
+    void shouldSuggestFriendsOfFriendsWithTheirUsernames() {
+        //given
+        given(appUserRepository.streamAllFriendships()).willReturn(Stream.of(
+                new Friendship(1L, 2L), new Friendship(1L, 3L),
+                new Friendship(2L, 4L), new Friendship(3L, 4L), new Friendship(3L, 5L)));
+        given(appUserRepository.findFriendsListVersionByEmail(EMAIL)).willReturn(Optional.of(new FriendsListVersion(1L, 2L)));
+        given(appUserRepository.findUsernamesByIds(List.of(4L, 5L)))
+                .willReturn(List.of(new FriendReference(5L, "Eve"), new FriendReference(4L, "Dave")));
+        friendSuggestionService.loadFriendships();
+
+        //when
+        final List<FriendSuggestion> suggestions = friendSuggestionService.getFriendSuggestions(EMAIL, null);
+
+        //then
+        assertEquals(List.of(suggestion("Dave", 2), suggestion("Eve", 1)), suggestions);
+    }
+
+    @Test
+    @DisplayName("should not query usernames when there is nothing to suggest")
+    void shouldNotQueryUsernamesWhenThereIsNothingToSuggest() {
+        //given
+        given(appUserRepository.findFriendsListVersionByEmail(EMAIL)).willReturn(Optional.of(new FriendsListVersion(1L, 0L)));
+
+        //when
+        final List<FriendSuggestion> suggestions = friendSuggestionService.getFriendSuggestions(EMAIL, 5);
+
+        //then
+        assertTrue(suggestions.isEmpty());
+        verify(appUserRepository, never()).findUsernamesByIds(any());
+    }
+
+    @Test
+    @DisplayName("should throw NonExistentEntityException for an unknown user")
+    void shouldThrowNonExistentEntityExceptionForAnUnknownUser() {
+        //given
+        given(appUserRepository.findFriendsListVersionByEmail(EMAIL)).willReturn(Optional.empty());
+
+        //when & then
+        assertThrows(NonExistentEntityException.class, () -> friendSuggestionService.getFriendSuggestions(EMAIL, 5));
+    }
+
+    @Test
+    @DisplayName("should apply a recorded friendship only once the transaction commits")
+    void shouldApplyARecordedFriendshipOnlyOnceTheTransactionCommits() {
+        //given
+        given(appUserRepository.findFriendsListVersionByEmail(EMAIL)).willReturn(Optional.of(new FriendsListVersion(1L, 1L)));
+        given(appUserRepository.findUsernamesByIds(List.of(3L))).willReturn(List.of(new FriendReference(3L, "Carol")));
+        friendSuggestionService.recordFriendship(2L, 3L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        //when
+        friendSuggestionService.recordFriendship(1L, 2L);
+
+        //then
+        assertTrue(friendSuggestionService.getFriendSuggestions(EMAIL, 5).isEmpty());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of(suggestion("Carol", 1)), friendSuggestionService.getFriendSuggestions(EMAIL, 5));
+    }
+
+    private static FriendSuggestion suggestion(final String friendName, final int mutualFriends) {
+        final FriendSuggestion suggestion = new FriendSuggestion();
+        suggestion.setFriendName(friendName);
+        suggestion.setMutualFriends(mutualFriends);
+        return suggestion;
+    }
+}
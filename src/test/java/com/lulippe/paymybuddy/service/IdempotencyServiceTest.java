@@ -0,0 +1,161 @@
+package com.lulippe.paymybuddy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lulippe.paymybuddy.api.exception.InvalidDataException;
+import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
+import com.lulippe.paymybuddy.bankTransfer.model.BankWithdrawResponse;
+import com.lulippe.paymybuddy.persistence.entities.IdempotencyRecord;
+import com.lulippe.paymybuddy.persistence.repository.IdempotencyRecordRepository;
+import com.lulippe.paymybuddy.service.IdempotencyService.IdempotentOperation;
+import com.lulippe.paymybuddy.utils.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+    private static final String EMAIL = "test@test.com";
+    private static final String KEY = "retry-key";
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, objectMapper, Duration.ofHours(24), 100);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("should run the operation without recording anything when no key is given")
+    void shouldRunTheOperationWithoutRecordingAnythingWhenNoKeyIsGiven() {
+        //given
+        final AtomicInteger calls = new AtomicInteger();
+
+        //when
+        final String result = idempotencyService.execute(EMAIL, IdempotentOperation.TRANSFER_TO_FRIEND_V1, null,
+                withdrawRequest(), String.class, () -> "done " + calls.incrementAndGet());
+
+        //then
+        assertEquals("done 1", result);
+        verify(idempotencyRecordRepository, never()).claim(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("should store the response and replay it from memory once committed")
+    void shouldStoreTheResponseAndReplayItFromMemoryOnceCommitted() {
+        //given
+        final BankTransferRequest request = withdrawRequest();
+        final AtomicInteger calls = new AtomicInteger();
+        given(idempotencyRecordRepository.claim(eq(EMAIL), eq("TRANSFER_TO_BANK"), eq(KEY), anyString(), any())).willReturn(1);
+
+        //when
+        final BankWithdrawResponse first = idempotencyService.execute(EMAIL, IdempotentOperation.TRANSFER_TO_BANK, KEY,
+                request, BankWithdrawResponse.class, () -> withdrawResponse(calls.incrementAndGet()));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        final BankWithdrawResponse retry = idempotencyService.execute(EMAIL, IdempotentOperation.TRANSFER_TO_BANK, KEY,
+                request, BankWithdrawResponse.class, () -> withdrawResponse(calls.incrementAndGet()));
+
+        //then
+        assertEquals(1, calls.get());
+        assertEquals(first, retry);
+        verify(idempotencyRecordRepository, times(1)).saveResponse(eq(EMAIL), eq("TRANSFER_TO_BANK"), eq(KEY), anyString());
+        verify(idempotencyRecordRepository, times(1)).claim(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("should replay the stored response when the key is already recorded")
+    void shouldReplayTheStoredResponseWhenTheKeyIsAlreadyRecorded() {
+        //given
+        final String firstResponse = "Transfer of 10.00 € completed successfully.";
+        given(idempotencyRecordRepository.claim(eq(EMAIL), eq("TRANSFER_TO_FRIEND_V1"), eq(KEY), anyString(), any())).willReturn(1, 0);
+        final AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute(EMAIL, IdempotentOperation.TRANSFER_TO_FRIEND_V1, KEY, withdrawRequest(), String.class, () -> {
+            calls.incrementAndGet();
+            return firstResponse;
+        });
+        given(idempotencyRecordRepository.findByUserEmailAndOperationAndIdempotencyKey(EMAIL, "TRANSFER_TO_FRIEND_V1", KEY))
+                .willAnswer(invocation -> Optional.of(IdempotencyRecord.builder()
+                        .requestHash(hashOf(withdrawRequest()))
+                        .responseBody(objectMapper.writeValueAsString(firstResponse))
+                        .build()));
+
+        //when
+        final String retry = idempotencyService.execute(EMAIL, IdempotentOperation.TRANSFER_TO_FRIEND_V1, KEY, withdrawRequest(), String.class, () -> {
+            calls.incrementAndGet();
+            return "second response";
+        });
+
+        //then
+        assertEquals(firstResponse, retry);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("should throw InvalidDataException when the key is reused for another request")
+    void shouldThrowInvalidDataExceptionWhenTheKeyIsReusedForAnotherRequest() {
+        //given
+        given(idempotencyRecordRepository.claim(eq(EMAIL), eq("TRANSFER_TO_BANK"), eq(KEY), anyString(), any())).willReturn(1);
+        idempotencyService.execute(EMAIL, IdempotentOperation.TRANSFER_TO_BANK, KEY, withdrawRequest(),
+                BankWithdrawResponse.class, () -> withdrawResponse(1));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        final BankTransferRequest otherRequest = withdrawRequest();
+        otherRequest.setAmount(Money.parse("99.0"));
+
+        //when & then
+        assertThrows(InvalidDataException.class, () -> idempotencyService.execute(EMAIL, IdempotentOperation.TRANSFER_TO_BANK, KEY,
+                otherRequest, BankWithdrawResponse.class, () -> withdrawResponse(2)));
+    }
+
+    private String hashOf(final Object request) throws Exception {
+        final byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        return HexFormat.of().formatHex(digest);
+    }
+
+    private static BankTransferRequest withdrawRequest() {
+        final BankTransferRequest request = new BankTransferRequest();
+        request.setBankHolder("holder");
+        request.setIban("FR7712739000408237965421Y19");
+        request.setAmount(Money.parse("10.0"));
+        return request;
+    }
+
+    private static BankWithdrawResponse withdrawResponse(final int call) {
+        final BankWithdrawResponse response = new BankWithdrawResponse();
+        response.setAmount("10.00");
+        response.setReceiver("holder");
+        response.setNewBalance(String.valueOf(call));
+        return response;
+    }
+}
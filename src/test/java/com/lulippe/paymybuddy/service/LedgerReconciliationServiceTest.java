@@ -0,0 +1,136 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.persistence.projection.SnapshotBalance;
+import com.lulippe.paymybuddy.persistence.projection.UserIdRange;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.persistence.repository.LedgerEntryRepository;
+import com.lulippe.paymybuddy.utils.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerReconciliationServiceTest {
+    private static final long PARTITION_SIZE = 10;
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private AppUserRepository appUserRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LedgerReconciliationService ledgerReconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ledgerReconciliationService = new LedgerReconciliationService(
+                ledgerEntryRepository, appUserRepository, transactionManager, meterRegistry, 4, PARTITION_SIZE);
+    }
+
+    @Test
+    @DisplayName("should reconcile every user id exactly once, one partition at a time")
+    void shouldReconcileEveryUserIdExactlyOnceOnePartitionAtATime() {
+        //given
+        given(appUserRepository.findUserIdRange()).willReturn(new UserIdRange(1L, 35L));
+        given(ledgerEntryRepository.streamSnapshotBalances(anyLong(), anyLong())).willAnswer(invocation -> {
+            final long from = invocation.getArgument(0);
+            final long to = invocation.getArgument(1);
+            assertTrue(to - from <= PARTITION_SIZE);
+            return LongStream.range(from, to).mapToObj(userId -> balance(userId, "10.00", "10.00"));
+        });
+
+        //when
+        final LedgerReconciliationService.ReconciliationReport report = ledgerReconciliationService.reconcile();
+
+        //then
+        assertEquals(35, report.accountsChecked());
+        assertEquals(0, report.discrepancyCount());
+        assertEquals(35, meterRegistry.get("paymybuddy.reconciliation.accounts").counter().count());
+        assertEquals(1, meterRegistry.get("paymybuddy.reconciliation").timer().count());
+    }
+
+    @Test
+    @DisplayName("should report the accounts whose snapshot does not match the ledger, by user id")
+    void shouldReportTheAccountsWhoseSnapshotDoesNotMatchTheLedger() {
+        //given
+        given(appUserRepository.findUserIdRange()).willReturn(new UserIdRange(1L, 20L));
+        given(ledgerEntryRepository.streamSnapshotBalances(anyLong(), anyLong())).willAnswer(invocation -> {
+            final long from = invocation.getArgument(0);
+            final long to = invocation.getArgument(1);
+            return LongStream.range(from, to).mapToObj(userId -> userId == 3 || userId == 17
+                    ? balance(userId, "10.00", "9.50")
+                    : balance(userId, "10.00", "10.00"));
+        });
+
+        //when
+        final LedgerReconciliationService.ReconciliationReport report = ledgerReconciliationService.reconcile();
+
+        //then
+        assertEquals(20, report.accountsChecked());
+        assertEquals(2, report.discrepancyCount());
+        assertEquals(List.of(balance(3, "10.00", "9.50"), balance(17, "10.00", "9.50")), report.discrepancies());
+        assertEquals(2, meterRegistry.get("paymybuddy.reconciliation.discrepancies").gauge().value());
+    }
+
+    @Test
+    @DisplayName("should cap the discrepancies reported while counting them all")
+    void shouldCapTheDiscrepanciesReportedWhileCountingThemAll() {
+        //given
+        ledgerReconciliationService = new LedgerReconciliationService(
+                ledgerEntryRepository, appUserRepository, transactionManager, meterRegistry, 4, 50);
+        given(appUserRepository.findUserIdRange()).willReturn(new UserIdRange(1L, 250L));
+        given(ledgerEntryRepository.streamSnapshotBalances(anyLong(), anyLong())).willAnswer(invocation -> {
+            final long from = invocation.getArgument(0);
+            final long to = invocation.getArgument(1);
+            return LongStream.range(from, to).mapToObj(userId -> balance(userId, "1.00", "0.00"));
+        });
+
+        //when
+        final LedgerReconciliationService.ReconciliationReport report = ledgerReconciliationService.reconcile();
+
+        //then
+        assertEquals(250, report.discrepancyCount());
+        assertEquals(100, report.discrepancies().size());
+        assertEquals(1, report.discrepancies().getFirst().userId());
+        assertEquals(100, report.discrepancies().getLast().userId());
+    }
+
+    @Test
+    @DisplayName("should not stream anything when there is no user")
+    void shouldNotStreamAnythingWhenThereIsNoUser() {
+        //given
+        given(appUserRepository.findUserIdRange()).willReturn(new UserIdRange(null, null));
+
+        //when
+        final LedgerReconciliationService.ReconciliationReport report = ledgerReconciliationService.reconcile();
+
+        //then
+        assertEquals(0, report.accountsChecked());
+        verify(ledgerEntryRepository, never()).streamSnapshotBalances(anyLong(), anyLong());
+    }
+
+    private static SnapshotBalance balance(final long userId, final String snapshot, final String ledger) {
+        return new SnapshotBalance(userId, Money.parse(snapshot), Money.parse(ledger));
+    }
+}
@@ -0,0 +1,167 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.api.exception.NonExistentEntityException;
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.enums.LedgerEntryType;
+import com.lulippe.paymybuddy.persistence.projection.LedgerLeg;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.persistence.repository.LedgerEntryRepository;
+import com.lulippe.paymybuddy.utils.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+    private static final AppUser PLATFORM = AppUser.builder().userId(99L).username("PLATFORM").systemAccount(true).build();
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private AppUserRepository appUserRepository;
+
+    @InjectMocks
+    private LedgerService ledgerService;
+
+    @Captor
+    private ArgumentCaptor<List<LedgerLeg>> legsCaptor;
+
+    @Test
+    @DisplayName("should record a transfer and its commission as one movement whose legs sum to zero")
+    void shouldRecordATransferAndItsCommissionAsOneMovement() {
+        //given
+        given(appUserRepository.findBySystemAccountTrue()).willReturn(Optional.of(PLATFORM));
+
+        //when
+        ledgerService.recordTransfer(1L, 2L, Money.parse("200.00"), Money.parse("1.00"));
+
+        //then
+        verify(ledgerEntryRepository).insertMovement(any(UUID.class), legsCaptor.capture());
+        assertEquals(List.of(
+                new LedgerLeg(2L, LedgerEntryType.TRANSFER, Money.parse("200.00")),
+                new LedgerLeg(1L, LedgerEntryType.TRANSFER, Money.parse("-200.00")),
+                new LedgerLeg(1L, LedgerEntryType.COMMISSION, Money.parse("-1.00")),
+                new LedgerLeg(99L, LedgerEntryType.COMMISSION, Money.parse("1.00"))), legsCaptor.getValue());
+        assertEquals(Money.ZERO, sum(legsCaptor.getValue()));
+    }
+
+    @Test
+    @DisplayName("should record a transfer without commission with no platform leg")
+    void shouldRecordATransferWithoutCommissionWithNoPlatformLeg() {
+        //when
+        ledgerService.recordTransfer(1L, 2L, Money.parse("20.00"), Money.ZERO);
+
+        //then
+        verify(ledgerEntryRepository).insertMovement(any(UUID.class), legsCaptor.capture());
+        assertEquals(List.of(
+                new LedgerLeg(2L, LedgerEntryType.TRANSFER, Money.parse("20.00")),
+                new LedgerLeg(1L, LedgerEntryType.TRANSFER, Money.parse("-20.00"))), legsCaptor.getValue());
+        verify(appUserRepository, never()).findBySystemAccountTrue();
+    }
+
+    @Test
+    @DisplayName("should debit the sender once for a batch of transfers")
+    void shouldDebitTheSenderOnceForABatchOfTransfers() {
+        //given
+        given(appUserRepository.findBySystemAccountTrue()).willReturn(Optional.of(PLATFORM));
+        final Map<Long, Money> amountsByReceiverId = new LinkedHashMap<>();
+        amountsByReceiverId.put(2L, Money.parse("110.00"));
+        amountsByReceiverId.put(3L, Money.parse("50.00"));
+
+        //when
+        ledgerService.recordTransfers(1L, amountsByReceiverId, Money.parse("0.80"));
+
+        //then
+        verify(ledgerEntryRepository).insertMovement(any(UUID.class), legsCaptor.capture());
+        final List<LedgerLeg> legs = legsCaptor.getValue();
+        assertEquals(5, legs.size());
+        assertEquals(new LedgerLeg(1L, LedgerEntryType.TRANSFER, Money.parse("-160.00")), legs.get(2));
+        assertEquals(Money.ZERO, sum(legs));
+    }
+
+    @Test
+    @DisplayName("should balance bank deposits and withdrawals with a leg of the bank")
+    void shouldBalanceBankDepositsAndWithdrawalsWithALegOfTheBank() {
+        //when
+        ledgerService.recordBankDeposit(1L, Money.parse("100.00"));
+        ledgerService.recordBankWithdrawal(1L, Money.parse("40.00"));
+
+        //then
+        verify(ledgerEntryRepository, times(2)).insertMovement(any(UUID.class), legsCaptor.capture());
+        assertEquals(List.of(
+                new LedgerLeg(null, LedgerEntryType.BANK_DEPOSIT, Money.parse("-100.00")),
+                new LedgerLeg(1L, LedgerEntryType.BANK_DEPOSIT, Money.parse("100.00"))), legsCaptor.getAllValues().get(0));
+        assertEquals(List.of(
+                new LedgerLeg(1L, LedgerEntryType.BANK_WITHDRAWAL, Money.parse("-40.00")),
+                new LedgerLeg(null, LedgerEntryType.BANK_WITHDRAWAL, Money.parse("40.00"))), legsCaptor.getAllValues().get(1));
+    }
+
+    @Test
+    @DisplayName("should resolve the platform account once")
+    void shouldResolveThePlatformAccountOnce() {
+        //given
+        given(appUserRepository.findBySystemAccountTrue()).willReturn(Optional.of(PLATFORM));
+        given(ledgerEntryRepository.findBalance(99L)).willReturn(Money.parse("3.00"));
+
+        //when
+        ledgerService.getPlatformBalance();
+        ledgerService.recordTransfer(1L, 2L, Money.parse("200.00"), Money.parse("1.00"));
+
+        //then
+        verify(appUserRepository, times(1)).findBySystemAccountTrue();
+    }
+
+    @Test
+    @DisplayName("should throw NonExistentEntityException when the platform account does not exist")
+    void shouldThrowNonExistentEntityExceptionWhenThePlatformAccountDoesNotExist() {
+        //given
+        given(appUserRepository.findBySystemAccountTrue()).willReturn(Optional.empty());
+
+        //when & then
+        assertThrows(NonExistentEntityException.class,
+                () -> ledgerService.recordTransfer(1L, 2L, Money.parse("200.00"), Money.parse("1.00")));
+        verify(ledgerEntryRepository, never()).insertMovement(any(), any());
+    }
+
+    @Test
+    @DisplayName("should lock the account before reading its balance")
+    void shouldLockTheAccountBeforeReadingItsBalance() {
+        //given
+        given(ledgerEntryRepository.findBalance(1L)).willReturn(Money.parse("10.00"));
+
+        //when
+        final Money balance = ledgerService.lockBalance(1L);
+
+        //then
+        assertEquals(Money.parse("10.00"), balance);
+        final InOrder inOrder = inOrder(appUserRepository, ledgerEntryRepository);
+        inOrder.verify(appUserRepository).lockAccount(1L);
+        inOrder.verify(ledgerEntryRepository).findBalance(1L);
+    }
+
+    private static Money sum(final List<LedgerLeg> legs) {
+        return legs.stream().map(LedgerLeg::amount).reduce(Money.ZERO, Money::plus);
+    }
+}
@@ -0,0 +1,211 @@
+package com.lulippe.paymybuddy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lulippe.paymybuddy.event.OutboxEventHandler;
+import com.lulippe.paymybuddy.event.TransferCompletedEvent;
+import com.lulippe.paymybuddy.persistence.entities.OutboxEvent;
+import com.lulippe.paymybuddy.persistence.repository.OutboxEventRepository;
+import com.lulippe.paymybuddy.utils.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayServiceTest {
+    private static final Duration LEASE = Duration.ofSeconds(10);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final List<TransferCompletedEvent> handled = new CopyOnWriteArrayList<>();
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OutboxRelayService outboxRelayService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelayService = relayWith(new RecordingHandler(), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRelayService.shutdown();
+    }
+
+    @Test
+    @DisplayName("should hand each leased event to its handler and delete the batch once handled")
+    void shouldHandEachLeasedEventToItsHandlerAndDeleteTheBatchOnceHandled() throws Exception {
+        //given
+        given(outboxEventRepository.leaseAvailableEvents(2, LEASE)).willReturn(List.of(event(2L, "second")));
+
+        //when
+        final int delivered = outboxRelayService.relayAvailableEvents();
+
+        //then
+        assertEquals(1, delivered);
+        assertEquals(List.of(transferCompleted("second")), handled);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(2L));
+        verify(outboxEventRepository, never()).rescheduleEvent(eq(2L), anyString());
+        assertEquals(1, meterRegistry.get("paymybuddy.outbox.deliveries").tag("outcome", "delivered").counter().count());
+    }
+
+    @Test
+    @DisplayName("should keep leasing while the batches are full")
+    void shouldKeepLeasingWhileTheBatchesAreFull() throws Exception {
+        //given
+        given(outboxEventRepository.leaseAvailableEvents(2, LEASE))
+                .willReturn(List.of(event(2L, "second"), event(1L, "first")))
+                .willReturn(List.of(event(3L, "third")));
+
+        //when
+        final int delivered = outboxRelayService.relayAvailableEvents();
+
+        //then
+        assertEquals(3, delivered);
+        verify(outboxEventRepository, times(2)).leaseAvailableEvents(2, LEASE);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(3L));
+    }
+
+    @Test
+    @DisplayName("should reschedule the events whose handler failed and delete the others")
+    void shouldRescheduleTheEventsWhoseHandlerFailed() throws Exception {
+        //given
+        outboxRelayService.shutdown();
+        outboxRelayService = relayWith(new RecordingHandler() {
+            @Override
+            public void handle(final TransferCompletedEvent event) {
+                if ("failing".equals(event.description())) {
+                    throw new IllegalStateException("downstream unavailable");
+                }
+                super.handle(event);
+            }
+        }, 10);
+        given(outboxEventRepository.leaseAvailableEvents(10, LEASE)).willReturn(
+                List.of(event(1L, "failing"), event(2L, "fine")));
+
+        //when
+        final int delivered = outboxRelayService.relayAvailableEvents();
+
+        //then
+        assertEquals(1, delivered);
+        verify(outboxEventRepository).rescheduleEvent(eq(1L), anyString());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(2L));
+        assertEquals(1, meterRegistry.get("paymybuddy.outbox.deliveries").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    @DisplayName("should move an event to the dead letters when its last allowed delivery fails")
+    void shouldMoveAnEventToTheDeadLettersWhenItsLastAllowedDeliveryFails() throws Exception {
+        //given
+        outboxRelayService.shutdown();
+        outboxRelayService = relayWith(new RecordingHandler() {
+            @Override
+            public void handle(final TransferCompletedEvent event) {
+                throw new IllegalStateException("downstream unavailable");
+            }
+        }, 10);
+        final OutboxEvent lastAttempt = event(1L, "last attempt");
+        lastAttempt.setAttempts(MAX_ATTEMPTS - 1);
+        final OutboxEvent earlierAttempt = event(2L, "earlier attempt");
+        earlierAttempt.setAttempts(MAX_ATTEMPTS - 2);
+        given(outboxEventRepository.leaseAvailableEvents(10, LEASE)).willReturn(List.of(lastAttempt, earlierAttempt));
+
+        //when
+        final int delivered = outboxRelayService.relayAvailableEvents();
+
+        //then
+        assertEquals(0, delivered);
+        verify(outboxEventRepository).deadLetterEvent(eq(1L), anyString());
+        verify(outboxEventRepository, never()).rescheduleEvent(eq(1L), anyString());
+        verify(outboxEventRepository).rescheduleEvent(eq(2L), anyString());
+        verify(outboxEventRepository, never()).deadLetterEvent(eq(2L), anyString());
+        assertEquals(1, meterRegistry.get("paymybuddy.outbox.deliveries").tag("outcome", "dead-lettered").counter().count());
+        assertEquals(1, meterRegistry.get("paymybuddy.outbox.deliveries").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    @DisplayName("should drop the events no handler is registered for")
+    void shouldDropTheEventsNoHandlerIsRegisteredFor() throws Exception {
+        //given
+        final OutboxEvent unknown = OutboxEvent.builder().outboxEventId(5L).eventType("UnknownEvent").payload("{}")
+                .createdAt(Instant.now()).build();
+        given(outboxEventRepository.leaseAvailableEvents(2, LEASE)).willReturn(List.of(unknown));
+
+        //when
+        outboxRelayService.relayAvailableEvents();
+
+        //then
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(5L));
+        assertEquals(List.of(), handled);
+    }
+
+    @Test
+    @DisplayName("should neither delete nor reschedule anything when no event is available")
+    void shouldDoNothingWhenNoEventIsAvailable() {
+        //given
+        given(outboxEventRepository.leaseAvailableEvents(2, LEASE)).willReturn(List.of());
+
+        //when
+        final int delivered = outboxRelayService.relayAvailableEvents();
+
+        //then
+        assertEquals(0, delivered);
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    private OutboxRelayService relayWith(final OutboxEventHandler<?> handler, final int batchSize) {
+        return new OutboxRelayService(outboxEventRepository, List.of(handler), objectMapper, meterRegistry, batchSize, LEASE,
+                MAX_ATTEMPTS);
+    }
+
+    private OutboxEvent event(final Long outboxEventId, final String description) throws Exception {
+        return OutboxEvent.builder()
+                .outboxEventId(outboxEventId)
+                .eventType(TransferCompletedEvent.class.getSimpleName())
+                .payload(objectMapper.writeValueAsString(transferCompleted(description)))
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    private static TransferCompletedEvent transferCompleted(final String description) {
+        return new TransferCompletedEvent(7L, 1L, "sender", 2L, "receiver", Money.parse("10.00"), Money.parse("0.05"),
+                description, Instant.parse("2026-10-17T10:00:00Z"));
+    }
+
+    private class RecordingHandler implements OutboxEventHandler<TransferCompletedEvent> {
+        @Override
+        public Class<TransferCompletedEvent> eventType() {
+            return TransferCompletedEvent.class;
+        }
+
+        @Override
+        public void handle(final TransferCompletedEvent event) {
+            handled.add(event);
+        }
+    }
+}
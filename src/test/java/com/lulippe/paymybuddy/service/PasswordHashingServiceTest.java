@@ -0,0 +1,77 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.api.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordHashingServiceTest {
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PasswordHashingService passwordHashingService;
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    @DisplayName("should hash the password on the hashing pool and time it")
+    void shouldHashThePasswordOnTheHashingPoolAndTimeIt() {
+        //given
+        passwordHashingService = new PasswordHashingService(passwordEncoder, meterRegistry, 1, 1);
+        given(passwordEncoder.encode("password")).willAnswer(invocation -> Thread.currentThread().getName());
+
+        //when
+        final String hashedPassword = passwordHashingService.hash("password");
+
+        //then
+        assertTrue(hashedPassword.startsWith("password-hashing-"));
+        assertEquals(1, meterRegistry.get("paymybuddy.password.hashing").timer().count());
+    }
+
+    @Test
+    @DisplayName("should reject hashing when the pool and its queue are full")
+    void shouldRejectHashingWhenThePoolAndItsQueueAreFull() throws Exception {
+        //given
+        passwordHashingService = new PasswordHashingService(passwordEncoder, meterRegistry, 1, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        given(passwordEncoder.encode("slow")).willAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hashed";
+        });
+        final CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHashingService.hash("slow"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHashingService.hash("slow"));
+        while (meterRegistry.get("paymybuddy.password.hashing.queue").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        //when & then
+        assertThrows(ServiceUnavailableException.class, () -> passwordHashingService.hash("slow"));
+        assertEquals(1, meterRegistry.get("paymybuddy.password.hashing.rejected").counter().count());
+        release.countDown();
+        assertEquals("hashed", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hashed", queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,154 @@
+package com.lulippe.paymybuddy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lulippe.paymybuddy.api.exception.InvalidDataException;
+import com.lulippe.paymybuddy.persistence.entities.AppUser;
+import com.lulippe.paymybuddy.persistence.projection.TransactionLedgerRow;
+import com.lulippe.paymybuddy.persistence.repository.TransactionRepository;
+import com.lulippe.paymybuddy.service.TransactionExportService.ExportFormat;
+import com.lulippe.paymybuddy.utils.Money;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private TransactionExportService transactionExportService;
+
+    @Test
+    @DisplayName("should export sent and received transactions as csv")
+    void shouldExportSentAndReceivedTransactionsAsCsv() throws Exception {
+        //given
+        final String email = "test@test.com";
+        final AppUser appUser = AppUser.builder()
+                .userId(1L)
+                .email(email)
+                .username("test")
+                .build();
+        final Instant executedAt = Instant.parse("2025-10-01T10:15:30Z");
+        final TransactionLedgerRow sent = new TransactionLedgerRow(1L, executedAt, 1L, "test", "friend", "dinner, drinks", Money.parse("12.5"));
+        final TransactionLedgerRow received = new TransactionLedgerRow(2L, executedAt, 2L, "friend", "test", "the \"loan\"", Money.parse("10"));
+        final AtomicBoolean closed = new AtomicBoolean(false);
+        given(userService.getAppUserByEmail(email)).willReturn(appUser);
+        given(transactionRepository.streamLedgerByUserId(1L)).willReturn(Stream.of(sent, received).onClose(() -> closed.set(true)));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        //when
+        transactionExportService.exportLedger(email, ExportFormat.CSV, outputStream);
+
+        //then
+        assertEquals("transaction_id,executed_at,direction,counterparty,description,amount\n" +
+                "1,2025-10-01T10:15:30Z,SENT,friend,\"dinner, drinks\",12.50\n" +
+                "2,2025-10-01T10:15:30Z,RECEIVED,friend,\"the \"\"loan\"\"\",10.00\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("should tell sent from received transactions by the sender id, not the name")
+    void shouldTellSentFromReceivedTransactionsByTheSenderId() throws Exception {
+        //given
+        final String email = "test@test.com";
+        final AppUser appUser = AppUser.builder()
+                .userId(1L)
+                .email(email)
+                .username("test")
+                .build();
+        final Instant executedAt = Instant.parse("2025-10-01T10:15:30Z");
+        final TransactionLedgerRow received = new TransactionLedgerRow(1L, executedAt, 2L, "test", "renamed", "gift", Money.parse("3"));
+        given(userService.getAppUserByEmail(email)).willReturn(appUser);
+        given(transactionRepository.streamLedgerByUserId(1L)).willReturn(Stream.of(received));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        //when
+        transactionExportService.exportLedger(email, ExportFormat.CSV, outputStream);
+
+        //then
+        assertEquals("transaction_id,executed_at,direction,counterparty,description,amount\n" +
+                        "1,2025-10-01T10:15:30Z,RECEIVED,test,gift,3.00\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("should export transactions as ndjson")
+    void shouldExportTransactionsAsNdjson() throws Exception {
+        //given
+        final String email = "test@test.com";
+        final AppUser appUser = AppUser.builder()
+                .userId(1L)
+                .email(email)
+                .username("test")
+                .build();
+        final Instant executedAt = Instant.parse("2025-10-01T10:15:30Z");
+        final TransactionLedgerRow sent = new TransactionLedgerRow(1L, executedAt, 1L, "test", "friend", null, Money.parse("12.5"));
+        given(userService.getAppUserByEmail(email)).willReturn(appUser);
+        given(transactionRepository.streamLedgerByUserId(1L)).willReturn(Stream.of(sent));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        //when
+        transactionExportService.exportLedger(email, ExportFormat.NDJSON, outputStream);
+
+        //then
+        assertEquals("{\"transactionId\":1,\"executedAt\":\"2025-10-01T10:15:30Z\",\"direction\":\"SENT\",\"counterparty\":\"friend\",\"description\":null,\"amount\":\"12.50\"}\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("should only write the csv header if user has no transaction")
+    void shouldOnlyWriteTheCsvHeaderIfUserHasNoTransaction() throws Exception {
+        //given
+        final String email = "test@test.com";
+        final AppUser appUser = AppUser.builder()
+                .userId(1L)
+                .email(email)
+                .username("test")
+                .build();
+        given(userService.getAppUserByEmail(email)).willReturn(appUser);
+        given(transactionRepository.streamLedgerByUserId(1L)).willReturn(Stream.empty());
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        //when
+        transactionExportService.exportLedger(email, ExportFormat.CSV, outputStream);
+
+        //then
+        assertEquals("transaction_id,executed_at,direction,counterparty,description,amount\n", outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("should resolve export format ignoring case")
+    void shouldResolveExportFormatIgnoringCase() {
+        //when & then
+        assertEquals(ExportFormat.NDJSON, ExportFormat.fromValue("NDJSON"));
+        assertEquals(ExportFormat.CSV, ExportFormat.fromValue("csv"));
+    }
+
+    @Test
+    @DisplayName("should throw InvalidDataException if export format is unknown")
+    void shouldThrowInvalidDataExceptionIfExportFormatIsUnknown() {
+        //when & then
+        assertThrows(InvalidDataException.class, () -> ExportFormat.fromValue("xlsx"));
+    }
+}
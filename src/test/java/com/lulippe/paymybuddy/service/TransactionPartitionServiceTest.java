@@ -0,0 +1,96 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.persistence.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPartitionServiceTest {
+    private static final LocalDate CURRENT_MONTH = LocalDate.of(2026, 10, 1);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionPartitionService transactionPartitionService;
+
+    @BeforeEach
+    void setUp() {
+        transactionPartitionService = new TransactionPartitionService(transactionRepository, transactionManager, 3, 24);
+        given(transactionRepository.findCurrentMonth()).willReturn(CURRENT_MONTH);
+    }
+
+    @Test
+    @DisplayName("should create the partitions of the current month and the months ahead that do not exist yet")
+    void shouldCreateTheMissingPartitionsAhead() {
+        //given
+        given(transactionRepository.findPartitionMonths()).willReturn(List.of(
+                LocalDate.of(2026, 9, 1), LocalDate.of(2026, 10, 1), LocalDate.of(2026, 11, 1)));
+
+        //when
+        final int created = transactionPartitionService.createUpcomingPartitions();
+
+        //then
+        assertEquals(2, created);
+        verify(transactionRepository).createPartition(LocalDate.of(2026, 12, 1));
+        verify(transactionRepository).createPartition(LocalDate.of(2027, 1, 1));
+        verify(transactionRepository, never()).createPartition(CURRENT_MONTH);
+    }
+
+    @Test
+    @DisplayName("should archive the months older than the retention, once their bounds are validated")
+    void shouldArchiveTheMonthsOlderThanTheRetention() {
+        //given
+        final LocalDate cold = LocalDate.of(2024, 9, 1);
+        given(transactionRepository.findPartitionMonths()).willReturn(List.of(cold, LocalDate.of(2024, 10, 1), CURRENT_MONTH));
+
+        //when
+        final int archived = transactionPartitionService.archiveColdPartitions();
+
+        //then
+        assertEquals(1, archived);
+        final InOrder inOrder = inOrder(transactionRepository);
+        inOrder.verify(transactionRepository).addMonthConstraint(cold);
+        inOrder.verify(transactionRepository).validateMonthConstraint(cold);
+        inOrder.verify(transactionRepository).archivePartition(cold);
+        verify(transactionRepository, never()).archivePartition(LocalDate.of(2024, 10, 1));
+    }
+
+    @Test
+    @DisplayName("should leave a partition that cannot be archived for the next run and archive the others")
+    void shouldLeaveAPartitionThatCannotBeArchivedForTheNextRun() {
+        //given
+        final LocalDate locked = LocalDate.of(2024, 1, 1);
+        final LocalDate cold = LocalDate.of(2024, 2, 1);
+        given(transactionRepository.findPartitionMonths()).willReturn(List.of(locked, cold, CURRENT_MONTH));
+        willThrow(new QueryTimeoutException("lock timeout")).given(transactionRepository).archivePartition(locked);
+
+        //when
+        final int archived = transactionPartitionService.archiveColdPartitions();
+
+        //then
+        assertEquals(1, archived);
+        verify(transactionRepository).archivePartition(cold);
+        verify(transactionRepository, never()).createPartition(any());
+    }
+}
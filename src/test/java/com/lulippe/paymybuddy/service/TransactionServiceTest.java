@@ -4,8 +4,13 @@ import com.lulippe.paymybuddy.api.exception.InsufficientFundsException;
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
 import com.lulippe.paymybuddy.persistence.entities.Transaction;
 import com.lulippe.paymybuddy.persistence.enums.Role;
+import com.lulippe.paymybuddy.persistence.projection.FriendReference;
 import com.lulippe.paymybuddy.persistence.repository.TransactionRepository;
 import com.lulippe.paymybuddy.transaction.model.Transfer;
+import com.lulippe.paymybuddy.transaction.model.TransferBatchResult;
+import com.lulippe.paymybuddy.transaction.model.TransferPage;
+import com.lulippe.paymybuddy.utils.TransactionCursor;
+import com.lulippe.paymybuddy.utils.Money;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,12 +19,13 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,12 +40,21 @@ class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private OutboxService outboxService;
+
     @InjectMocks
     private TransactionService transactionService;
 
     @Captor
     private ArgumentCaptor<Transaction> transactionCaptor;
 
+    @Captor
+    private ArgumentCaptor<List<Transaction>> transactionListCaptor;
+
     @Test
     @DisplayName("should return a list of transfert")
     void shouldReturnAListOfTransfert() {
@@ -47,8 +62,8 @@ class TransactionServiceTest {
         final String email = "test@test.com";
         final String test = "test";
         final String testDescription = "testDescription";
-        final BigDecimal amount = BigDecimal.valueOf(10.14569);
-        final String amountString = amount.setScale(2, RoundingMode.HALF_UP).toString();
+        final Money amount = Money.parse("10.14569");
+        final String amountString = "10.15";
         final String friend = "friend";
         final AppUser appUser = AppUser.builder()
                 .email(email)
@@ -100,6 +115,106 @@ class TransactionServiceTest {
         assertEquals(0, transfers.size());
     }
 
+    @Test
+    @DisplayName("should return the first page of transfers with a cursor to the next page")
+    void shouldReturnTheFirstPageOfTransfersWithACursorToTheNextPage() {
+        //given
+        final String email = "test@test.com";
+        final AppUser appUser = AppUser.builder()
+                .email(email)
+                .username("test")
+                .build();
+        final AppUser appUserFriend = AppUser.builder()
+                .username("friend")
+                .build();
+        final Instant now = Instant.parse("2025-10-01T10:15:30.123456Z");
+        final Transaction newest = Transaction.builder()
+                .transactionId(3L)
+                .amount(Money.parse("1"))
+                .executedAt(now)
+                .sender(appUser)
+                .receiver(appUserFriend)
+                .build();
+        final Transaction middle = Transaction.builder()
+                .transactionId(2L)
+                .amount(Money.parse("10"))
+                .executedAt(now.minusSeconds(60))
+                .sender(appUser)
+                .receiver(appUserFriend)
+                .build();
+        final Transaction oldest = Transaction.builder()
+                .transactionId(1L)
+                .amount(Money.parse("2"))
+                .executedAt(now.minusSeconds(120))
+                .sender(appUser)
+                .receiver(appUserFriend)
+                .build();
+        given(userService.getAppUserByEmail(email)).willReturn(appUser);
+        given(transactionRepository.findFirstSentPage(appUser, Limit.of(3))).willReturn(List.of(newest, middle, oldest));
+
+        //when
+        final TransferPage transferPage = transactionService.getUserSentTransactionPage(email, null, 2);
+
+        //then
+        assertEquals(2, transferPage.getTransfers().size());
+        assertEquals("1.00", transferPage.getTransfers().get(0).getAmount());
+        assertEquals("10.00", transferPage.getTransfers().get(1).getAmount());
+        assertEquals(new TransactionCursor(middle.getExecutedAt(), 2L), TransactionCursor.decode(transferPage.getNextCursor()));
+    }
+
+    @Test
+    @DisplayName("should return the last page of transfers without cursor")
+    void shouldReturnTheLastPageOfTransfersWithoutCursor() {
+        //given
+        final String email = "test@test.com";
+        final AppUser appUser = AppUser.builder()
+                .email(email)
+                .username("test")
+                .build();
+        final AppUser appUserFriend = AppUser.builder()
+                .username("friend")
+                .build();
+        final TransactionCursor cursor = new TransactionCursor(Instant.parse("2025-10-01T10:15:30Z"), 2L);
+        final Transaction oldest = Transaction.builder()
+                .transactionId(1L)
+                .amount(Money.parse("2"))
+                .executedAt(cursor.executedAt().minusSeconds(60))
+                .sender(appUser)
+                .receiver(appUserFriend)
+                .build();
+        given(userService.getAppUserByEmail(email)).willReturn(appUser);
+        given(transactionRepository.findSentPageAfter(appUser, cursor.executedAt(), cursor.transactionId(), Limit.of(3)))
+                .willReturn(List.of(oldest));
+
+        //when
+        final TransferPage transferPage = transactionService.getUserSentTransactionPage(email, cursor.encode(), 2);
+
+        //then
+        assertEquals(1, transferPage.getTransfers().size());
+        assertEquals("2.00", transferPage.getTransfers().get(0).getAmount());
+        assertNull(transferPage.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("should cap the page size")
+    void shouldCapThePageSize() {
+        //given
+        final String email = "test@test.com";
+        final AppUser appUser = AppUser.builder()
+                .email(email)
+                .username("test")
+                .build();
+        given(userService.getAppUserByEmail(email)).willReturn(appUser);
+        given(transactionRepository.findFirstSentPage(appUser, Limit.of(51))).willReturn(Collections.emptyList());
+
+        //when
+        final TransferPage transferPage = transactionService.getUserSentTransactionPage(email, null, 500);
+
+        //then
+        assertTrue(transferPage.getTransfers().isEmpty());
+        assertNull(transferPage.getNextCursor());
+    }
+
     @Test
     @DisplayName("should send money to Friend")
     void shouldSendMoneyToFriend() {
@@ -121,7 +236,7 @@ class TransactionServiceTest {
                 .email(friendEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(friendFriends)
                 .build();
         final Set<AppUser> userFriends = new HashSet<>();
@@ -130,22 +245,23 @@ class TransactionServiceTest {
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(userFriends)
                 .build();
         given(userService.getAppUserByEmail(userEmail)).willReturn(currentUser);
         given(userService.getAppUserByName(friendName)).willReturn(friendUser);
         doNothing().when(userService).checkIfReceiverIsAFriend(friendUser,currentUser);
-        doNothing().when(userService).saveTransactionAppUsers(currentUser,friendUser);
+        given(ledgerService.lockBalance(currentUser.getUserId())).willReturn(Money.parse("10"));
 
         //when
         transactionService.sendMoneyToFriend(transfer,userEmail);
 
         //then
+        verify(ledgerService,times(1)).recordTransfer(currentUser.getUserId(), friendUser.getUserId(), Money.parse(amount), Money.ZERO);
         verify(transactionRepository,times(1)).save(transactionCaptor.capture());
         final Transaction transaction = transactionCaptor.getValue();
         assertEquals(descriptionTest, transaction.getDescription());
-        assertEquals(new BigDecimal(amount), transaction.getAmount());
+        assertEquals(Money.parse(amount), transaction.getAmount());
         assertEquals(transaction.getReceiver(), friendUser);
         assertEquals(transaction.getSender(), currentUser);
     }
@@ -171,7 +287,7 @@ class TransactionServiceTest {
                 .email(friendEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(friendFriends)
                 .build();
         final Set<AppUser> userFriends = new HashSet<>();
@@ -180,15 +296,17 @@ class TransactionServiceTest {
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(userFriends)
                 .build();
         given(userService.getAppUserByEmail(userEmail)).willReturn(currentUser);
         given(userService.getAppUserByName(friendName)).willReturn(friendUser);
         doNothing().when(userService).checkIfReceiverIsAFriend(friendUser,currentUser);
+        given(ledgerService.lockBalance(currentUser.getUserId())).willReturn(Money.parse("10"));
 
         //when & then
         assertThrows(InsufficientFundsException.class, () -> transactionService.sendMoneyToFriend(transfer,userEmail));
+        verify(ledgerService, never()).recordTransfer(any(), any(), any(), any());
     }
 
     @Test
@@ -201,7 +319,7 @@ class TransactionServiceTest {
         final String friendName = "friendName";
         final String descriptionTest = "test";
         final String amount = "5.00";
-        final BigDecimal commission = BigDecimal.valueOf(0.02);
+        final Money commission = Money.parse("0.02");
         final Transfer transfer = new Transfer();
         transfer.setFriendName(friendName);
         transfer.setAmount(amount);
@@ -213,7 +331,7 @@ class TransactionServiceTest {
                 .email(friendEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(friendFriends)
                 .build();
         final Set<AppUser> userFriends = new HashSet<>();
@@ -223,21 +341,22 @@ class TransactionServiceTest {
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(userFriends)
                 .build();
         given(userService.getAppUserByEmail(userEmail)).willReturn(currentUser);
         given(userService.getAppUserByName(friendName)).willReturn(friendUser);
         doNothing().when(userService).checkIfReceiverIsAFriend(friendUser,currentUser);
-        doNothing().when(userService).handleSystemAccount(any());
+        given(ledgerService.lockBalance(currentUser.getUserId())).willReturn(Money.parse("10"));
 
         final String expected = "Transfer of " + amount + " € from " + currentUser.getUsername() + " to " + friendUser.getUsername() + " completed successfully. A commission of " + commission + " € has been deducted from your account";
         //when
         final String result = transactionService.sendMoneyToFriendV1(transfer,userEmail);
+        verify(ledgerService,times(1)).recordTransfer(currentUser.getUserId(), friendUser.getUserId(), Money.parse(amount), commission);
         verify(transactionRepository,times(1)).save(transactionCaptor.capture());
         final Transaction transaction = transactionCaptor.getValue();
         assertEquals(descriptionTest, transaction.getDescription());
-        assertEquals(new BigDecimal(amount), transaction.getAmount());
+        assertEquals(Money.parse(amount), transaction.getAmount());
         assertEquals(transaction.getReceiver(), friendUser);
         assertEquals(transaction.getSender(), currentUser);
         assertEquals(result,expected);
@@ -264,7 +383,7 @@ class TransactionServiceTest {
                 .email(friendEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(friendFriends)
                 .build();
         final Set<AppUser> userFriends = new HashSet<>();
@@ -273,12 +392,13 @@ class TransactionServiceTest {
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(userFriends)
                 .build();
         given(userService.getAppUserByEmail(userEmail)).willReturn(currentUser);
         given(userService.getAppUserByName(friendName)).willReturn(friendUser);
         doNothing().when(userService).checkIfReceiverIsAFriend(friendUser,currentUser);
+        given(ledgerService.lockBalance(currentUser.getUserId())).willReturn(Money.parse("10"));
 
         //when & then
         assertThrows(InsufficientFundsException.class, () -> transactionService.sendMoneyToFriendV1(transfer,userEmail));
@@ -304,7 +424,7 @@ class TransactionServiceTest {
                 .email(friendEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(friendFriends)
                 .build();
         final Set<AppUser> userFriends = new HashSet<>();
@@ -314,7 +434,7 @@ class TransactionServiceTest {
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(userFriends)
                 .build();
         given(userService.getAppUserByEmail(userEmail)).willReturn(currentUser);
@@ -324,4 +444,80 @@ class TransactionServiceTest {
         //when & then
         assertThrows(IllegalArgumentException.class, () -> transactionService.sendMoneyToFriendV1(transfer,userEmail));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("should send money to several friends V1 in one batch")
+    void shouldSendMoneyToSeveralFriendsV1InOneBatch() {
+        //given
+        final String userEmail = "test@email.com";
+        final AppUser currentUser = AppUser.builder()
+                .userId(1L)
+                .username("currentUser")
+                .email(userEmail)
+                .role(Role.USER)
+                .account(Money.parse("10"))
+                .build();
+        final AppUser firstFriend = AppUser.builder().userId(2L).username("first").build();
+        final AppUser secondFriend = AppUser.builder().userId(3L).username("second").build();
+        final List<Transfer> transfers = List.of(
+                transfer("first", "2.00"),
+                transfer("second", "3.00"),
+                transfer("first", "1.00"));
+        given(userService.getAppUserByEmail(userEmail)).willReturn(currentUser);
+        given(userService.getFriendsByUsernames(currentUser, Set.of("first", "second"))).willReturn(Map.of(
+                "first", new FriendReference(2L, "first"),
+                "second", new FriendReference(3L, "second")));
+        given(ledgerService.lockBalance(1L)).willReturn(Money.parse("10"));
+        given(userService.getAppUserReference(2L)).willReturn(firstFriend);
+        given(userService.getAppUserReference(3L)).willReturn(secondFriend);
+
+        //when
+        final TransferBatchResult result = transactionService.sendMoneyToFriendsV1(transfers, userEmail);
+
+        //then
+        assertEquals(3, result.getTransferCount());
+        assertEquals("6.00", result.getTotalAmount());
+        assertEquals("0.03", result.getTotalCommission());
+        verify(ledgerService).recordTransfers(1L, Map.of(
+                2L, Money.parse("3.00"),
+                3L, Money.parse("3.00")), Money.parse("0.03"));
+        verify(transactionRepository).saveAll(transactionListCaptor.capture());
+        final List<Transaction> transactions = transactionListCaptor.getValue();
+        assertEquals(3, transactions.size());
+        assertEquals(secondFriend, transactions.get(1).getReceiver());
+        assertEquals(currentUser, transactions.get(1).getSender());
+        assertEquals(Money.parse("3.00"), transactions.get(1).getAmount());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("should not apply any transfer of the batch when funds are insufficient")
+    void shouldNotApplyAnyTransferOfTheBatchWhenFundsAreInsufficient() {
+        //given
+        final String userEmail = "test@email.com";
+        final AppUser currentUser = AppUser.builder()
+                .userId(1L)
+                .username("currentUser")
+                .email(userEmail)
+                .role(Role.USER)
+                .account(Money.parse("10"))
+                .build();
+        final List<Transfer> transfers = List.of(transfer("first", "5.00"), transfer("first", "5.00"));
+        given(userService.getAppUserByEmail(userEmail)).willReturn(currentUser);
+        given(userService.getFriendsByUsernames(currentUser, Set.of("first"))).willReturn(Map.of("first", new FriendReference(2L, "first")));
+        given(ledgerService.lockBalance(1L)).willReturn(Money.parse("10"));
+
+        //when & then
+        assertThrows(InsufficientFundsException.class, () -> transactionService.sendMoneyToFriendsV1(transfers, userEmail));
+        verify(ledgerService, never()).recordTransfers(any(), any(), any());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private static Transfer transfer(final String friendName, final String amount) {
+        final Transfer transfer = new Transfer();
+        transfer.setFriendName(friendName);
+        transfer.setAmount(amount);
+        transfer.setDescription("batch");
+        return transfer;
+    }
+}
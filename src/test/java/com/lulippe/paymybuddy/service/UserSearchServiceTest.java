@@ -0,0 +1,100 @@
+package com.lulippe.paymybuddy.service;
+
+import com.lulippe.paymybuddy.api.exception.InvalidDataException;
+import com.lulippe.paymybuddy.persistence.projection.UserSearchMatch;
+import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
+import com.lulippe.paymybuddy.user.model.UserSearchResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class UserSearchServiceTest {
+    private static final String EMAIL = "test@test.com";
+    private static final UUID CHARLIE_ID = UUID.randomUUID();
+    private static final UUID CHARLES_ID = UUID.randomUUID();
+    private static final UUID RICHARD_ID = UUID.randomUUID();
+
+    @Mock
+    private AppUserRepository appUserRepository;
+
+    @InjectMocks
+    private UserSearchService userSearchService;
+
+    @Test
+    @DisplayName("should search the stripped lowercase term and leave the connected user out of the matches")
+    void shouldSearchTheStrippedLowercaseTermAndLeaveTheConnectedUserOut() {
+        //given
+        given(appUserRepository.searchByUsernameOrEmail("char", 3)).willReturn(List.of(
+                new UserSearchMatch(1L, CHARLIE_ID, "Charlie", "charlie@test.com"),
+                new UserSearchMatch(2L, CHARLES_ID, "Charles", EMAIL),
+                new UserSearchMatch(3L, RICHARD_ID, "Richard", "richard@test.com")));
+
+        //when
+        final List<UserSearchResult> results = userSearchService.searchUsers(EMAIL, "  Char ", 2);
+
+        //then
+        assertEquals(List.of(result("Charlie", CHARLIE_ID), result("Richard", RICHARD_ID)), results);
+    }
+
+    @Test
+    @DisplayName("should keep the limit when the connected user is not among the matches")
+    void shouldKeepTheLimitWhenTheConnectedUserIsNotAmongTheMatches() {
+        //given
+        given(appUserRepository.searchByUsernameOrEmail("char", 3)).willReturn(List.of(
+                new UserSearchMatch(1L, CHARLIE_ID, "Charlie", "charlie@test.com"),
+                new UserSearchMatch(2L, CHARLES_ID, "Charles", "charles@test.com"),
+                new UserSearchMatch(3L, RICHARD_ID, "Richard", "richard@test.com")));
+
+        //when
+        final List<UserSearchResult> results = userSearchService.searchUsers(EMAIL, "char", 2);
+
+        //then
+        assertEquals(List.of(result("Charlie", CHARLIE_ID), result("Charles", CHARLES_ID)), results);
+    }
+
+    @Test
+    @DisplayName("should search 10 users by default and 50 at most")
+    void shouldSearch10UsersByDefaultAnd50AtMost() {
+        //given
+        given(appUserRepository.searchByUsernameOrEmail("char", 11)).willReturn(List.of());
+        given(appUserRepository.searchByUsernameOrEmail("char", 51)).willReturn(List.of());
+
+        //when
+        userSearchService.searchUsers(EMAIL, "char", null);
+        userSearchService.searchUsers(EMAIL, "char", 500);
+
+        //then
+        verify(appUserRepository).searchByUsernameOrEmail("char", 11);
+        verify(appUserRepository).searchByUsernameOrEmail("char", 51);
+    }
+
+    @Test
+    @DisplayName("should throw InvalidDataException for a term shorter than 3 characters once stripped")
+    void shouldThrowInvalidDataExceptionForATermShorterThan3Characters() {
+        //when & then
+        assertThrows(InvalidDataException.class, () -> userSearchService.searchUsers(EMAIL, " ch  ", 10));
+        verify(appUserRepository, never()).searchByUsernameOrEmail(anyString(), anyInt());
+    }
+
+    private static UserSearchResult result(final String username, final UUID friendId) {
+        final UserSearchResult result = new UserSearchResult();
+        result.setUsername(username);
+        result.setFriendId(friendId);
+        return result;
+    }
+}
@@ -6,26 +6,29 @@ import com.lulippe.paymybuddy.api.exception.NonExistentEntityException;
 import com.lulippe.paymybuddy.bankTransfer.model.BankTransferRequest;
 import com.lulippe.paymybuddy.persistence.entities.AppUser;
 import com.lulippe.paymybuddy.persistence.enums.Role;
+import com.lulippe.paymybuddy.persistence.projection.FriendsListVersion;
 import com.lulippe.paymybuddy.persistence.repository.AppUserRepository;
 import com.lulippe.paymybuddy.user.model.InformationsToUpdate;
 import com.lulippe.paymybuddy.user.model.RegisterRequest;
 import com.lulippe.paymybuddy.user.model.UserFriend;
+import com.lulippe.paymybuddy.utils.Money;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.math.BigDecimal;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -35,7 +38,7 @@ class UserServiceTest {
     private AppUserRepository appUserRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private FriendSuggestionService friendSuggestionService;
 
     @InjectMocks
     private UserService userService;
@@ -97,7 +100,7 @@ class UserServiceTest {
                 .email(email)
                 .role(Role.USER)
                 .password("hashedPassword")
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .build();
         given(appUserRepository.findByEmail(email)).willReturn(Optional.of(appUser));
 
@@ -120,31 +123,6 @@ class UserServiceTest {
         assertEquals("User with email test@email.com does not exist", exception.getMessage());
     }
 
-    @Test
-    @DisplayName("Should perform Bank Transfer with half even rounding")
-    void shouldPerformBankTransfer() {
-        //given
-        final String email = "test@email.com";
-        final AppUser user = AppUser.builder()
-                .email(email)
-                .role(Role.USER)
-                .password("hashedPassword")
-                .account(BigDecimal.TEN)
-                .build();
-        final BankTransferRequest request = new BankTransferRequest();
-        request.setAmount(20.126);
-        request.setBankHolder("testBankHolder");
-
-        //when
-        userService.performBankTransfer(user, request);
-
-        //then
-        verify(appUserRepository, (times(1))).save(userArgumentCaptor.capture());
-        final AppUser updateUser = userArgumentCaptor.getValue();
-        assertEquals(email, updateUser.getEmail());
-        assertEquals(new BigDecimal("30.13"), updateUser.getAccount());
-    }
-
     @Test
     @DisplayName("should add a new friend")
     void shouldAddNewFriend() {
@@ -155,31 +133,75 @@ class UserServiceTest {
         final Set<AppUser> friendFriends = new HashSet<>();
         final String userPassword = "hashedPassword";
         final AppUser currentUser = AppUser.builder()
+                .userId(1L)
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(userFriends)
                 .build();
         final AppUser friendUser = AppUser.builder()
+                .userId(2L)
                 .email(friendEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(friendFriends)
                 .build();
         given(appUserRepository.findByEmail(userEmail)).willReturn(Optional.of(currentUser));
         given(appUserRepository.findByEmail(friendEmail)).willReturn(Optional.of(friendUser));
+        given(appUserRepository.addFriend(1L, 2L)).willReturn(1);
 
         //when
         userService.handleFriendAddition(userEmail, friendEmail);
 
         //then
-        verify(appUserRepository, (times(1))).save(userArgumentCaptor.capture());
-        final AppUser updateUser = userArgumentCaptor.getValue();
-        assertEquals(userEmail, updateUser.getEmail());
-        assertNotNull(updateUser.getFriends());
-        assertTrue(updateUser.getFriends().contains(friendUser));
+        verify(appUserRepository, times(1)).addFriend(1L, 2L);
+        verify(appUserRepository, never()).save(any(AppUser.class));
+        verify(friendSuggestionService).recordFriendship(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("should add a new friend by the identifier given by the user search")
+    void shouldAddNewFriendByTheIdentifierGivenByTheUserSearch() {
+        //given
+        final String userEmail = "test@email.com";
+        final UUID friendId = UUID.randomUUID();
+        final AppUser currentUser = AppUser.builder()
+                .userId(1L)
+                .email(userEmail)
+                .role(Role.USER)
+                .build();
+        final AppUser friendUser = AppUser.builder()
+                .userId(2L)
+                .email("friend@email.com")
+                .role(Role.USER)
+                .publicId(friendId)
+                .build();
+        given(appUserRepository.findByEmail(userEmail)).willReturn(Optional.of(currentUser));
+        given(appUserRepository.findByPublicId(friendId)).willReturn(Optional.of(friendUser));
+        given(appUserRepository.addFriend(1L, 2L)).willReturn(1);
+
+        //when
+        userService.handleFriendAddition(userEmail, friendId);
+
+        //then
+        verify(appUserRepository).addFriend(1L, 2L);
+        verify(friendSuggestionService).recordFriendship(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("should throw NonExistentEntityException for an unknown friend identifier")
+    void shouldThrowNonExistentEntityExceptionForAnUnknownFriendIdentifier() {
+        //given
+        final String userEmail = "test@email.com";
+        final UUID friendId = UUID.randomUUID();
+        given(appUserRepository.findByEmail(userEmail)).willReturn(Optional.of(AppUser.builder().userId(1L).email(userEmail).build()));
+        given(appUserRepository.findByPublicId(friendId)).willReturn(Optional.empty());
+
+        //when & then
+        assertThrows(NonExistentEntityException.class, () -> userService.handleFriendAddition(userEmail, friendId));
+        verify(appUserRepository, never()).addFriend(any(), any());
     }
 
     @Test
@@ -193,7 +215,7 @@ class UserServiceTest {
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(userFriends)
                 .build();
         given(appUserRepository.findByEmail(userEmail)).willReturn(Optional.of(currentUser));
@@ -212,27 +234,31 @@ class UserServiceTest {
         final String userPassword = "hashedPassword";
         final Set<AppUser> friendFriends = new HashSet<>();
         final AppUser friendUser = AppUser.builder()
+                .userId(2L)
                 .email(friendEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(friendFriends)
                 .build();
         final Set<AppUser> userFriends = new HashSet<>();
         userFriends.add(friendUser);
         final AppUser currentUser = AppUser.builder()
+                .userId(1L)
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(userFriends)
                 .build();
 
         given(appUserRepository.findByEmail(userEmail)).willReturn(Optional.of(currentUser));
         given(appUserRepository.findByEmail(friendEmail)).willReturn(Optional.of(friendUser));
+        given(appUserRepository.addFriend(1L, 2L)).willReturn(0);
 
         //when
         assertThrows(EntityAlreadyExistsException.class, () -> userService.handleFriendAddition(userEmail, friendEmail));
+        verify(friendSuggestionService, never()).recordFriendship(1L, 2L);
     }
 
     @Test
@@ -247,7 +273,7 @@ class UserServiceTest {
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(userFriends)
                 .systemAccount(false)
                 .build();
@@ -273,22 +299,26 @@ class UserServiceTest {
         final String userPassword = "hashedPassword";
         final Set<AppUser> friendFriends = new HashSet<>();
         final AppUser friendUser = AppUser.builder()
+                .userId(2L)
                 .email(friendEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(friendFriends)
                 .build();
         final Set<AppUser> userFriends = new HashSet<>();
         userFriends.add(friendUser);
         final AppUser currentUser = AppUser.builder()
+                .userId(1L)
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(userFriends)
                 .build();
 
+        given(appUserRepository.existsFriendship(1L, 2L)).willReturn(true);
+
         //when & then
         assertDoesNotThrow(() -> userService.checkIfReceiverIsAFriend(friendUser, currentUser));
     }
@@ -302,22 +332,26 @@ class UserServiceTest {
         final String userPassword = "hashedPassword";
         final Set<AppUser> friendFriends = new HashSet<>();
         final AppUser sender = AppUser.builder()
+                .userId(1L)
                 .email(friendEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(friendFriends)
                 .build();
         final Set<AppUser> userFriends = new HashSet<>();
         userFriends.add(sender);
         final AppUser receiver = AppUser.builder()
+                .userId(2L)
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(userFriends)
                 .build();
 
+        given(appUserRepository.existsFriendship(1L, 2L)).willReturn(false);
+
         //when & then
         assertThrows(IllegalArgumentException.class, () -> userService.checkIfReceiverIsAFriend(receiver, sender));
     }
@@ -334,7 +368,7 @@ class UserServiceTest {
                 .email(userEmail)
                 .role(Role.USER)
                 .password(userPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(Collections.emptySet())
                 .build();
         given(appUserRepository.findByUsername(username)).willReturn(Optional.of(currentUser));
@@ -360,99 +394,12 @@ class UserServiceTest {
     }
 
     @Test
-    @DisplayName("should save sender and receiver")
-    void shouldSaveSenderAndReceiver() {
-        //given
-        final String userEmail = "test@email.com";
-        final String friendEmail = "friend@email.com";
-        final String userPassword = "hashedPassword";
-        final Set<AppUser> friendFriends = new HashSet<>();
-        final AppUser friendUser = AppUser.builder()
-                .email(friendEmail)
-                .role(Role.USER)
-                .password(userPassword)
-                .account(BigDecimal.TEN)
-                .friends(friendFriends)
-                .build();
-        final Set<AppUser> userFriends = new HashSet<>();
-        userFriends.add(friendUser);
-        final AppUser currentUser = AppUser.builder()
-                .email(userEmail)
-                .role(Role.USER)
-                .password(userPassword)
-                .account(BigDecimal.TEN)
-                .friends(userFriends)
-                .build();
-
-        //when
-        userService.saveTransactionAppUsers(friendUser, currentUser);
-
-        //then
-        verify(appUserRepository, times(1)).save(currentUser);
-        verify(appUserRepository, times(1)).save(friendUser);
-    }
-
-    @Test
-    @DisplayName("Should add commission to account system")
-    void shouldAddCommissionToAccountSystem() {
-        // given
-        final BigDecimal commission = BigDecimal.TEN;
-        final String systemEmail = "platform@paymybuddy.com";
-        final BigDecimal systemAccount = BigDecimal.valueOf(200.00);
-        final AppUser system = AppUser.builder()
-                .email(systemEmail)
-                .role(Role.ROLE_SYSTEM)
-                .systemAccount(true)
-                .account(systemAccount)
-                .build();
-        final BigDecimal expectedAccountSystem = systemAccount.add(commission);
-        given(appUserRepository.findBySystemAccountTrue()).willReturn(Optional.of(system));
-
-        //when
-        userService.handleSystemAccount(commission);
-
-        //then
-        verify(appUserRepository, times(1)).save(userArgumentCaptor.capture());
-        final AppUser expectedSystem = userArgumentCaptor.getValue();
-        assertEquals(expectedSystem.getAccount(), expectedAccountSystem );
-    }
-
-    @Test
-    @DisplayName("should throw an NonexistentEntityException if no system found")
-    void shouldThrowAnNonExistentEntityExceptionIfNoSystemFound() {
-        //given
-        final BigDecimal commission = BigDecimal.TEN;
-        given(appUserRepository.findBySystemAccountTrue()).willReturn(Optional.empty());
-
-        assertThrows(NonExistentEntityException.class, () -> userService.handleSystemAccount(commission));
-    }
-
-    @Test
-    @DisplayName("should return a list of UserFriend sorted alphabetically")
-    void shouldReturnAListOfUserFriendSortedAlphabetically() {
+    @DisplayName("should return the list of UserFriend in the order of the query")
+    void shouldReturnTheListOfUserFriendInTheOrderOfTheQuery() {
         //given
         final String userEmail = "test@email.com";
-        final String userPassword = "hashedPassword";
         final String friendName1 = "Albert";
         final String friendName2 = "Bernard";
-        final AppUser friendUser1 = AppUser.builder()
-                .username(friendName1)
-                .email("friend1@email.com")
-                .role(Role.USER)
-                .build();
-        final AppUser friendUser2 = AppUser.builder()
-                .username(friendName2)
-                .email("friend2@email.com")
-                .role(Role.USER)
-                .build();
-
-        final Set<AppUser> userFriends = Set.of(friendUser1, friendUser2);
-        final AppUser currentUser = AppUser.builder()
-                .email(userEmail)
-                .role(Role.USER)
-                .password(userPassword)
-                .friends(userFriends)
-                .build();
         final UserFriend userFriend1 = new UserFriend();
         userFriend1.setFriendName(friendName1);
 
@@ -460,11 +407,12 @@ class UserServiceTest {
         userFriend2.setFriendName(friendName2);
 
         final List<UserFriend> expected = List.of(userFriend1, userFriend2);
-        given(appUserRepository.findByEmail(userEmail)).willReturn(Optional.of(currentUser));
+        given(appUserRepository.findFriendUsernamesByEmail(userEmail)).willReturn(List.of(friendName1, friendName2));
         //when
         final List<UserFriend> result = userService.getAllUserFriend(userEmail);
         //then
         assertEquals(expected, result);
+        verify(appUserRepository, never()).findByEmail(userEmail);
     }
 
     @Test
@@ -472,15 +420,7 @@ class UserServiceTest {
     void shouldReturnAnEmptyListIfNoFriend() {
         //given
         final String userEmail = "test@email.com";
-        final String userPassword = "hashedPassword";
-        final Set<AppUser> userFriends = Collections.emptySet();
-        final AppUser currentUser = AppUser.builder()
-                .email(userEmail)
-                .role(Role.USER)
-                .password(userPassword)
-                .friends(userFriends)
-                .build();
-        given(appUserRepository.findByEmail(userEmail)).willReturn(Optional.of(currentUser));
+        given(appUserRepository.findFriendUsernamesByEmail(userEmail)).willReturn(Collections.emptyList());
         //when
         final List<UserFriend> result = userService.getAllUserFriend(userEmail);
 
@@ -489,47 +429,27 @@ class UserServiceTest {
     }
 
     @Test
-    @DisplayName("should withdraw the amount to bank")
-    void shouldWithdrawTheAmountToBank() {
+    @DisplayName("should return the friends list version")
+    void shouldReturnTheFriendsListVersion() {
         //given
         final String userEmail = "test@email.com";
-        final String userPassword = "hashedPassword";
-        final AppUser currentUser = AppUser.builder()
-                .email(userEmail)
-                .role(Role.USER)
-                .password(userPassword)
-                .account(BigDecimal.TEN)
-                .friends(Collections.emptySet())
-                .build();
-        final BigDecimal amountToWithdraw = BigDecimal.valueOf(5.00);
-
+        final FriendsListVersion version = new FriendsListVersion(1L, 3L);
+        given(appUserRepository.findFriendsListVersionByEmail(userEmail)).willReturn(Optional.of(version));
         //when
-        userService.withdrawToBank(currentUser, amountToWithdraw);
-
+        final FriendsListVersion result = userService.getFriendsListVersion(userEmail);
         //then
-        verify(appUserRepository, times(1)).save(userArgumentCaptor.capture());
-        final AppUser expectedUser = userArgumentCaptor.getValue();
-        assertEquals(expectedUser.getAccount(), amountToWithdraw);
+        assertEquals(version, result);
+        assertEquals("\"1-3\"", result.toETag());
     }
 
     @Test
-    @DisplayName("should throw InsufficientFundsException if amount to withdraw is too much")
-    void shouldThrowInsufficientFundsExceptionIfInsufficientFundsException() {
+    @DisplayName("should throw NonExistentEntityException when reading the friends list version of an unknown user")
+    void shouldThrowNonExistentEntityExceptionWhenReadingTheFriendsListVersionOfAnUnknownUser() {
         //given
-        final String userEmail = "test@email.com";
-        final String userPassword = "hashedPassword";
-        final AppUser currentUser = AppUser.builder()
-                .email(userEmail)
-                .role(Role.USER)
-                .password(userPassword)
-                .account(BigDecimal.TEN)
-                .friends(Collections.emptySet())
-                .build();
-        final BigDecimal amountToWithdraw = BigDecimal.valueOf(15.00);
-
+        final String userEmail = "unknown@email.com";
+        given(appUserRepository.findFriendsListVersionByEmail(userEmail)).willReturn(Optional.empty());
         //when & then
-        assertThrows(InsufficientFundsException.class, () -> userService.withdrawToBank(currentUser, amountToWithdraw));
-        verify(appUserRepository, times(0)).save(any());
+        assertThrows(NonExistentEntityException.class, () -> userService.getFriendsListVersion(userEmail));
     }
 
     @Test
@@ -553,11 +473,10 @@ class UserServiceTest {
                 .username(oldUsername)
                 .role(Role.USER)
                 .password(oldPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(Collections.emptySet())
                 .build();
         given(appUserRepository.findByEmail(oldUserEmail)).willReturn(Optional.of(currentUser));
-        given(passwordEncoder.encode(newPassword)).willReturn(newPassword);
 
         //when
         userService.updateUserProfil(oldUserEmail,informationsToUpdate);
@@ -591,7 +510,7 @@ class UserServiceTest {
                 .username(oldUsername)
                 .role(Role.USER)
                 .password(oldPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(Collections.emptySet())
                 .build();
         given(appUserRepository.findByEmail(oldUserEmail)).willReturn(Optional.of(currentUser));
@@ -621,7 +540,7 @@ class UserServiceTest {
                 .username(oldUsername)
                 .role(Role.USER)
                 .password(oldPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(Collections.emptySet())
                 .build();
         given(appUserRepository.findByEmail(oldUserEmail)).willReturn(Optional.of(currentUser));
@@ -651,7 +570,7 @@ class UserServiceTest {
                 .username(oldUsername)
                 .role(Role.USER)
                 .password(oldPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(Collections.emptySet())
                 .build();
         given(appUserRepository.findByEmail(oldUserEmail)).willReturn(Optional.of(currentUser));
@@ -681,7 +600,7 @@ class UserServiceTest {
                 .username(oldUsername)
                 .role(Role.USER)
                 .password(oldPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(Collections.emptySet())
                 .build();
         given(appUserRepository.findByEmail(oldUserEmail)).willReturn(Optional.of(currentUser));
@@ -694,7 +613,7 @@ class UserServiceTest {
         assertEquals(oldPassword, expectedUser.getPassword());
         assertEquals(oldUserEmail, expectedUser.getEmail());
         assertEquals(currentUser.getAccount(), expectedUser.getAccount());
-        assertEquals(currentUser.getFriends(), expectedUser.getFriends());
+        assertEquals(currentUser.getFriends(), expectedUser.getFriends());        verify(appUserRepository).incrementFriendsVersionOfListsHolding(currentUser.getUserId());
     }
 
     @Test
@@ -718,7 +637,7 @@ class UserServiceTest {
                 .username(oldUsername)
                 .role(Role.USER)
                 .password(oldPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(Collections.emptySet())
                 .build();
         given(appUserRepository.findByEmail(oldUserEmail)).willReturn(Optional.of(currentUser));
@@ -755,11 +674,10 @@ class UserServiceTest {
                 .username(oldUsername)
                 .role(Role.USER)
                 .password(oldPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(Collections.emptySet())
                 .build();
         given(appUserRepository.findByEmail(oldUserEmail)).willReturn(Optional.of(currentUser));
-        given(passwordEncoder.encode(newPassword)).willReturn(newPassword);
         //when
         userService.updateUserProfil(oldUserEmail,informationsToUpdate);
         verify(appUserRepository, times(1)).save(userArgumentCaptor.capture());
@@ -792,7 +710,7 @@ class UserServiceTest {
                 .username(oldUsername)
                 .role(Role.USER)
                 .password(oldPassword)
-                .account(BigDecimal.TEN)
+                .account(Money.parse("10"))
                 .friends(Collections.emptySet())
                 .build();
         given(appUserRepository.findByEmail(oldUserEmail)).willReturn(Optional.of(currentUser));
@@ -800,5 +718,4 @@ class UserServiceTest {
         //when & then
         assertThrows(IllegalArgumentException.class, () -> userService.updateUserProfil(oldUserEmail,informationsToUpdate));
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,171 @@
+package com.lulippe.paymybuddy.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FriendGraphTest {
+    @Test
+    @DisplayName("should rank friends of friends by mutual friends then by user id")
+    void shouldRankFriendsOfFriendsByMutualFriendsThenByUserId() {
+        //given
+        final FriendGraph friendGraph = new FriendGraph();
+        friendGraph.addFriendship(1L, 2L);
+        friendGraph.addFriendship(1L, 3L);
+        friendGraph.addFriendship(1L, 4L);
+        friendGraph.addFriendship(2L, 10L);
+        friendGraph.addFriendship(3L, 10L);
+        friendGraph.addFriendship(4L, 10L);
+        friendGraph.addFriendship(2L, 12L);
+        friendGraph.addFriendship(3L, 12L);
+        friendGraph.addFriendship(2L, 11L);
+        friendGraph.addFriendship(3L, 11L);
+        friendGraph.addFriendship(4L, 13L);
+
+        //when
+        final List<FriendGraph.Suggestion> suggestions = friendGraph.suggest(1L, 10);
+
+        //then
+        assertEquals(List.of(
+                new FriendGraph.Suggestion(10L, 3),
+                new FriendGraph.Suggestion(11L, 2),
+                new FriendGraph.Suggestion(12L, 2),
+                new FriendGraph.Suggestion(13L, 1)), suggestions);
+    }
+
+    @Test
+    @DisplayName("should not suggest the user nor their friends")
+    void shouldNotSuggestTheUserNorTheirFriends() {
+        //given
+        final FriendGraph friendGraph = new FriendGraph();
+        friendGraph.addFriendship(1L, 2L);
+        friendGraph.addFriendship(1L, 3L);
+        friendGraph.addFriendship(2L, 1L);
+        friendGraph.addFriendship(2L, 3L);
+        friendGraph.addFriendship(3L, 4L);
+
+        //when
+        final List<FriendGraph.Suggestion> suggestions = friendGraph.suggest(1L, 10);
+
+        //then
+        assertEquals(List.of(new FriendGraph.Suggestion(4L, 1)), suggestions);
+    }
+
+    @Test
+    @DisplayName("should keep the best suggestions up to the limit")
+    void shouldKeepTheBestSuggestionsUpToTheLimit() {
+        //given
+        final FriendGraph friendGraph = new FriendGraph();
+        for (long friendId = 2; friendId <= 5; friendId++) {
+            friendGraph.addFriendship(1L, friendId);
+            for (long candidateId = 100; candidateId < 100 + friendId; candidateId++) {
+                friendGraph.addFriendship(friendId, candidateId);
+            }
+        }
+
+        //when
+        final List<FriendGraph.Suggestion> suggestions = friendGraph.suggest(1L, 2);
+
+        //then
+        assertEquals(List.of(new FriendGraph.Suggestion(100L, 4), new FriendGraph.Suggestion(101L, 4)), suggestions);
+    }
+
+    @Test
+    @DisplayName("should precompute the rankings of the users walking at least the threshold of friendships")
+    void shouldPrecomputeTheRankingsOfTheUsersWalkingAtLeastTheThreshold() {
+        //given
+        final FriendGraph friendGraph = new FriendGraph(10, 4);
+        friendGraph.addFriendship(1L, 2L);
+        friendGraph.addFriendship(1L, 3L);
+        friendGraph.addFriendship(2L, 10L);
+        friendGraph.addFriendship(2L, 11L);
+        friendGraph.addFriendship(3L, 10L);
+        friendGraph.addFriendship(3L, 12L);
+        friendGraph.addFriendship(4L, 2L);
+
+        //when
+        final int precomputed = friendGraph.precomputeSuggestions();
+
+        //then
+        assertEquals(1, precomputed);
+        assertEquals(List.of(
+                new FriendGraph.Suggestion(10L, 2),
+                new FriendGraph.Suggestion(11L, 1),
+                new FriendGraph.Suggestion(12L, 1)), friendGraph.suggest(1L, 10));
+    }
+
+    @Test
+    @DisplayName("should leave the friends added since out of a precomputed ranking, and update its counts on the next precomputation")
+    void shouldLeaveTheFriendsAddedSinceOutOfAPrecomputedRanking() {
+        //given
+        final FriendGraph friendGraph = new FriendGraph(10, 4);
+        friendGraph.addFriendship(1L, 2L);
+        friendGraph.addFriendship(1L, 3L);
+        friendGraph.addFriendship(2L, 10L);
+        friendGraph.addFriendship(2L, 11L);
+        friendGraph.addFriendship(3L, 10L);
+        friendGraph.addFriendship(3L, 12L);
+        friendGraph.precomputeSuggestions();
+        friendGraph.addFriendship(1L, 10L);
+        friendGraph.addFriendship(10L, 12L);
+
+        //when
+        final List<FriendGraph.Suggestion> beforePrecomputation = friendGraph.suggest(1L, 10);
+        friendGraph.precomputeSuggestions();
+        final List<FriendGraph.Suggestion> afterPrecomputation = friendGraph.suggest(1L, 10);
+
+        //then
+        assertEquals(List.of(new FriendGraph.Suggestion(11L, 1), new FriendGraph.Suggestion(12L, 1)), beforePrecomputation);
+        assertEquals(List.of(new FriendGraph.Suggestion(12L, 2), new FriendGraph.Suggestion(11L, 1)), afterPrecomputation);
+    }
+
+    @Test
+    @DisplayName("should rank live beyond the precomputed limit")
+    void shouldRankLiveBeyondThePrecomputedLimit() {
+        //given
+        final FriendGraph friendGraph = new FriendGraph(1, 1);
+        friendGraph.addFriendship(1L, 2L);
+        friendGraph.addFriendship(2L, 10L);
+        friendGraph.addFriendship(2L, 11L);
+        friendGraph.addFriendship(2L, 12L);
+        friendGraph.precomputeSuggestions();
+
+        //when & then
+        assertEquals(1, friendGraph.suggest(1L, 1).size());
+        assertEquals(3, friendGraph.suggest(1L, 3).size());
+    }
+
+    @Test
+    @DisplayName("should return no suggestion for an unknown user")
+    void shouldReturnNoSuggestionForAnUnknownUser() {
+        //given
+        final FriendGraph friendGraph = new FriendGraph();
+        friendGraph.addFriendship(1L, 2L);
+
+        //when & then
+        assertTrue(friendGraph.suggest(42L, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("should add a friendship only once and grow past its initial capacity")
+    void shouldAddAFriendshipOnlyOnceAndGrowPastItsInitialCapacity() {
+        //given
+        final FriendGraph friendGraph = new FriendGraph();
+        for (long friendId = 2; friendId <= 5000; friendId++) {
+            friendGraph.addFriendship(1L, friendId);
+        }
+
+        //when
+        final boolean added = friendGraph.addFriendship(1L, 2L);
+
+        //then
+        assertFalse(added);
+        assertEquals(4999, friendGraph.friendCount(1L));
+        assertEquals(5000, friendGraph.userCount());
+    }
+}
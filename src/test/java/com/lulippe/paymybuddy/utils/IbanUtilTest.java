@@ -0,0 +1,58 @@
+package com.lulippe.paymybuddy.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IbanUtilTest {
+    private static final String VALID_IBAN = "FR7712739000408237965421Y19";
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            VALID_IBAN,
+            "fr77 1273 9000 4082 3796 5421 y19",
+            "DE89 3704 0044 0532 0130 00",
+            "GB82WEST12345698765432",
+            "NO9386011117947"
+    })
+    @DisplayName("should accept a valid IBAN whatever its spacing and case")
+    void shouldAcceptValidIban(final String iban) {
+        //when & then
+        assertTrue(IbanUtil.isIbanValid(iban));
+    }
+
+    @ParameterizedTest
+    @NullSource
+    @ValueSource(strings = {
+            "",
+            "FR77",
+            "invalidIban",
+            "FR7712739000408237965421Y18",
+            "FR771273900040823796542Y19",
+            "FR7712739000408237965421Y19 0",
+            "ZZ7712739000408237965421Y19",
+            "F17712739000408237965421Y19",
+            "FRA712739000408237965421Y19",
+            "FR77-1273-9000-4082-3796-5421-Y19"
+    })
+    @DisplayName("should reject an invalid IBAN")
+    void shouldRejectInvalidIban(final String iban) {
+        //when & then
+        assertFalse(IbanUtil.isIbanValid(iban));
+    }
+
+    @Test
+    @DisplayName("should accept any CharSequence")
+    void shouldAcceptAnyCharSequence() {
+        //given
+        final StringBuilder iban = new StringBuilder(VALID_IBAN);
+
+        //when & then
+        assertTrue(IbanUtil.isIbanValid(iban));
+    }
+}
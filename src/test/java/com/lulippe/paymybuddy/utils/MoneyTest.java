@@ -0,0 +1,177 @@
+package com.lulippe.paymybuddy.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class MoneyTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException if null value")
+    void shouldThrowIllegalArgumentExceptionIfNullValue() {
+        //given
+        final String value = null;
+
+        //when & then
+        assertThrows(IllegalArgumentException.class, () -> Money.parse(value));
+    }
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException if value is empty")
+    void shouldThrowIllegalArgumentExceptionIfValueIsEmpty() {
+        //given
+        final String value = " ";
+
+        //when & then
+        assertThrows(IllegalArgumentException.class, () -> Money.parse(value));
+    }
+
+    @Test
+    @DisplayName("should throw NumberFormatException if value is not a valid number")
+    void shouldThrowNumberFormatExceptionIfValueIsNotANumber() {
+        //given
+        final String value = "test";
+
+        //when & then
+        assertThrows(NumberFormatException.class, () -> Money.parse(value));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "10, 1000",
+            "' 10.5 ', 1050",
+            "+0.01, 1",
+            "-3.20, -320",
+            ".5, 50",
+            "20.126, 2013",
+            "0.125, 12",
+            "0.135, 14",
+            "0.1251, 13",
+            "-0.125, -12",
+            "1e2, 10000",
+            "5e-3, 0",
+            "6e-3, 1",
+            "1e-99999999, 0",
+            "-1e-2147483647, 0",
+            "99999999999.99, 9999999999999",
+            "92233720368547757, 9223372036854775700",
+            "92233720368547758, 9223372036854775800",
+            "92233720368547758.07, 9223372036854775807",
+            "-92233720368547758.07, -9223372036854775807"
+    })
+    @DisplayName("should parse an amount rounded half-even to the cent")
+    void shouldParseAnAmountRoundedHalfEvenToTheCent(final String value, final long expectedCents) {
+        //when
+        final Money money = Money.parse(value);
+
+        //then
+        assertEquals(expectedCents, money.cents());
+        assertEquals(Money.of(new BigDecimal(value.trim())), money);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "184467440737095517",
+            "100000000000000000",
+            "92233720368547759",
+            "92233720368547758.08",
+            "92233720368547758.075",
+            "-92233720368547759"
+    })
+    @DisplayName("should throw NumberFormatException if the amount does not fit in a long of cents")
+    void shouldThrowNumberFormatExceptionIfTheAmountDoesNotFitInALongOfCents(final String value) {
+        //when & then
+        assertThrows(NumberFormatException.class, () -> Money.parse(value));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1e99999999", "-1e99999999", "1e18", "1e2147483647"})
+    @DisplayName("should reject a huge exponent without expanding it")
+    void shouldRejectAHugeExponentWithoutExpandingIt(final String value) {
+        //when & then
+        assertTimeoutPreemptively(Duration.ofSeconds(1),
+                () -> assertThrows(NumberFormatException.class, () -> Money.parse(value)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "500, 2",
+            "100, 0",
+            "300, 2",
+            "1000, 5",
+            "2013, 10",
+            "-500, -2",
+            "700, 4"
+    })
+    @DisplayName("should compute a rate rounded half-even like BigDecimal")
+    void shouldComputeARateRoundedHalfEven(final long cents, final long expectedCents) {
+        //given
+        final Money money = Money.ofCents(cents);
+
+        //when
+        final Money commission = money.times(5, 1000);
+
+        //then
+        assertEquals(expectedCents, commission.cents());
+        assertEquals(money.toBigDecimal().multiply(new BigDecimal("0.005")).setScale(2, java.math.RoundingMode.HALF_EVEN),
+                commission.toBigDecimal());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 0.00", "5, 0.05", "1050, 10.50", "-5, -0.05", "-1234, -12.34"})
+    @DisplayName("should format with two decimals")
+    void shouldFormatWithTwoDecimals(final long cents, final String expected) {
+        //when & then
+        assertEquals(expected, Money.ofCents(cents).toString());
+    }
+
+    @Test
+    @DisplayName("should add, subtract and compare amounts")
+    void shouldAddSubtractAndCompareAmounts() {
+        //given
+        final Money balance = Money.parse("10.00");
+        final Money amount = Money.parse("0.10");
+
+        //when
+        final Money credited = balance.plus(amount).plus(amount).plus(amount);
+        final Money debited = credited.minus(Money.parse("10.30"));
+
+        //then
+        assertEquals(Money.parse("10.30"), credited);
+        assertEquals(Money.ZERO, debited);
+        assertEquals(-1, amount.compareTo(balance));
+        assertEquals(Money.parse("-0.10"), amount.negate());
+    }
+
+    @Test
+    @DisplayName("should read a JSON number from its text and write it with two decimals")
+    void shouldReadAndWriteJsonNumbers() throws Exception {
+        //when
+        final Money fromNumber = objectMapper.readValue("0.1", Money.class);
+        final Money fromString = objectMapper.readValue("\"20.126\"", Money.class);
+        final String json = objectMapper.writeValueAsString(Money.parse("20"));
+
+        //then
+        assertEquals(Money.ofCents(10), fromNumber);
+        assertEquals(Money.ofCents(2013), fromString);
+        assertEquals("20.00", json);
+    }
+
+    @Test
+    @DisplayName("should reject a JSON value which is not an amount")
+    void shouldRejectAJsonValueWhichIsNotAnAmount() {
+        //when & then
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("\"ten\"", Money.class));
+    }
+}
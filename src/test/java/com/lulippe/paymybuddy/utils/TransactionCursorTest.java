@@ -0,0 +1,45 @@
+package com.lulippe.paymybuddy.utils;
+
+import com.lulippe.paymybuddy.api.exception.InvalidDataException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionCursorTest {
+    @Test
+    @DisplayName("should decode an encoded cursor")
+    void shouldDecodeAnEncodedCursor() {
+        //given
+        final TransactionCursor cursor = new TransactionCursor(Instant.parse("2025-10-01T10:15:30.123456Z"), 42L);
+
+        //when
+        final TransactionCursor decoded = TransactionCursor.decode(cursor.encode());
+
+        //then
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    @DisplayName("should throw InvalidDataException if cursor is not base64")
+    void shouldThrowInvalidDataExceptionIfCursorIsNotBase64() {
+        //given
+        final String cursor = "not a cursor!";
+
+        //when & then
+        assertThrows(InvalidDataException.class, () -> TransactionCursor.decode(cursor));
+    }
+
+    @Test
+    @DisplayName("should throw InvalidDataException if cursor content is malformed")
+    void shouldThrowInvalidDataExceptionIfCursorContentIsMalformed() {
+        //given
+        final String cursor = "dGVzdA";
+
+        //when & then
+        assertThrows(InvalidDataException.class, () -> TransactionCursor.decode(cursor));
+    }
+}
@@ -1,5 +1,6 @@
 package com.lulippe.paymybuddy.web;
 
+import com.lulippe.paymybuddy.TestMeterRegistryConfig;
 import com.lulippe.paymybuddy.TestSecurityConfig;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,7 +14,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
 @WebMvcTest(controllers = AuthPageController.class)
-@Import(TestSecurityConfig.class)
+@Import({TestSecurityConfig.class, TestMeterRegistryConfig.class})
 class AuthPageControllerTest {
     @Autowired
     private MockMvc mockMvc;
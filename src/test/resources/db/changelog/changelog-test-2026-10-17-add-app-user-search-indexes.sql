@@ -0,0 +1,17 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment pg_trgm is a trusted extension: the owner of the database can create it
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+
+--changeset lulippe:2
+--comment add trigram index backing the search of users by a part of their username; without fastupdate, new users are indexed on insert instead of piling up in a pending list every search reads
+CREATE INDEX IF NOT EXISTS idx_app_user_username_trgm
+    ON app_user USING gin (lower(username) public.gin_trgm_ops) WITH (fastupdate = off);
+
+--changeset lulippe:3
+--comment add indexes backing the search of users by the start of their username or email, in the order of the results
+CREATE INDEX IF NOT EXISTS idx_app_user_username_prefix
+    ON app_user ((lower(username) COLLATE "C"));
+CREATE INDEX IF NOT EXISTS idx_app_user_email_prefix
+    ON app_user ((lower(email) COLLATE "C"));
@@ -0,0 +1,6 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment add index on the receiver side so a user's full ledger (sent and received) can be exported without a table scan
+CREATE INDEX IF NOT EXISTS idx_transactions_receiver_executed_at
+    ON transactions (receiver_id, executed_at, transaction_id);
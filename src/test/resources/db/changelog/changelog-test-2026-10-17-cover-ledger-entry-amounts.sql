@@ -0,0 +1,6 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment balance reads and the reconciliation sum the amounts of a user by transaction id: carry the amount in the index so they never visit the table
+CREATE INDEX IF NOT EXISTS idx_ledger_entry_user_tx_amount ON ledger_entry (user_id, tx_id) INCLUDE (amount);
+DROP INDEX IF EXISTS idx_ledger_entry_user_tx;
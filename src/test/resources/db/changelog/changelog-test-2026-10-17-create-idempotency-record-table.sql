@@ -0,0 +1,18 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment responses of operations sent with an Idempotency-Key, replayed on client retries
+CREATE TABLE IF NOT EXISTS idempotency_record
+(
+    idempotency_record_id BIGSERIAL    NOT NULL PRIMARY KEY,
+    user_email            VARCHAR(100) NOT NULL,
+    operation             VARCHAR(50)  NOT NULL,
+    idempotency_key       VARCHAR(100) NOT NULL,
+    request_hash          VARCHAR(64)  NOT NULL,
+    response_body         TEXT,
+    created_at            TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uc_idempotency_record_key UNIQUE (user_email, operation, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_record_created_at
+    ON idempotency_record (created_at);
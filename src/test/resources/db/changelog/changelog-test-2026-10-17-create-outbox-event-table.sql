@@ -0,0 +1,17 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment events written in the transaction of the change they describe, relayed to their handlers afterwards and deleted once handled; available_at is the next delivery attempt, pushed back while an event is leased or after a failure
+CREATE TABLE IF NOT EXISTS outbox_event
+(
+    outbox_event_id BIGSERIAL     NOT NULL PRIMARY KEY,
+    event_type      VARCHAR(100)  NOT NULL,
+    payload         JSONB         NOT NULL,
+    attempts        INTEGER       NOT NULL DEFAULT 0,
+    last_error      VARCHAR(1000),
+    created_at      TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    available_at    TIMESTAMP     NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_event_available_at
+    ON outbox_event (available_at, outbox_event_id);
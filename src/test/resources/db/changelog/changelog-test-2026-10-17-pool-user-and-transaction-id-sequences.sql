@@ -0,0 +1,6 @@
+-- liquibase formatted sql
+
+--changeset lulippe:1
+--comment hand out app_user and transactions ids by blocks of 50 so Hibernate can batch inserts; column defaults keep drawing from the same sequences
+ALTER SEQUENCE app_user_user_id_seq INCREMENT BY 50;
+ALTER SEQUENCE transactions_transaction_id_seq INCREMENT BY 50;